@@ -0,0 +1,133 @@
+#!/usr/bin/env bash
+# Time to first request with and without the fast-startup optimizations.
+#
+# Starts the application repeatedly in each mode, polls a request until it succeeds and
+# reports the wall-clock time from process start to the first successful response, plus
+# the startup section of GET /api/metrics (startedMs, readyMs, firstRequestMs).
+#
+# Modes:
+#   baseline  fat jar (ectd-backend-<version>-exec.jar), no AOT, no CDS, eager beans
+#   aot       plain jar with Spring AOT and the fast-startup profile (lazy beans), no CDS
+#   aot-cds   as aot, plus the AppCDS archive from the training run
+#
+# Build first:   mvn clean package -DskipTests -Pfast-startup
+# Run:           scripts/startup-benchmark.sh [runs-per-mode] [modes...]
+# Environment:   JAVA (default java), JAVA_OPTS (extra JVM options for every mode),
+#                APP_ARGS (extra application arguments, e.g. the datasource URL),
+#                PORT (default 18080), PROBE_PATH (default /api/applications/templates),
+#                TIMEOUT_S (default 120), BASELINE_JAR (fat jar of a build without the
+#                fast-startup profile, instead of the -exec jar)
+#
+# All modes must reach the same database; AOT evaluates bean conditions at build time,
+# so switches such as ectd.sharding.enabled must match the build.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+shift || true
+MODES=("$@")
+if [ ${#MODES[@]} -eq 0 ]; then
+    MODES=(baseline aot aot-cds)
+fi
+
+JAVA=${JAVA:-java}
+JAVA_OPTS=${JAVA_OPTS:-}
+APP_ARGS=${APP_ARGS:-}
+PORT=${PORT:-18080}
+PROBE_PATH=${PROBE_PATH:-/api/applications/templates}
+TIMEOUT_S=${TIMEOUT_S:-120}
+
+VERSION=$(grep -A1 '<artifactId>ectd-backend</artifactId>' pom.xml | sed -n 's:.*<version>\(.*\)</version>.*:\1:p')
+PLAIN_JAR=target/ectd-backend-${VERSION}.jar
+EXEC_JAR=${BASELINE_JAR:-target/ectd-backend-${VERSION}-exec.jar}
+CDS_ARCHIVE=target/ectd-backend-${VERSION}.jsa
+
+command_for() {
+    case "$1" in
+        baseline)
+            echo "$JAVA $JAVA_OPTS -jar $EXEC_JAR" ;;
+        aot)
+            echo "$JAVA $JAVA_OPTS -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup -jar $PLAIN_JAR" ;;
+        aot-cds)
+            echo "$JAVA $JAVA_OPTS -XX:SharedArchiveFile=$CDS_ARCHIVE -Xshare:on -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup -jar $PLAIN_JAR" ;;
+        *)
+            echo "Unknown mode: $1" >&2
+            exit 2 ;;
+    esac
+}
+
+required_files() {
+    case "$1" in
+        baseline) echo "$EXEC_JAR" ;;
+        aot) echo "$PLAIN_JAR" ;;
+        aot-cds) echo "$PLAIN_JAR $CDS_ARCHIVE" ;;
+    esac
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+# Prints "<ms to first response> <startup metrics>" for one run
+run_once() {
+    local mode=$1 log pid start elapsed metrics
+    log=$(mktemp -t ectd-startup-XXXXXX.log)
+    start=$(now_ms)
+    # shellcheck disable=SC2046
+    $(command_for "$mode") --server.port="$PORT" $APP_ARGS >"$log" 2>&1 &
+    pid=$!
+
+    elapsed=""
+    while [ $(( $(now_ms) - start )) -lt $(( TIMEOUT_S * 1000 )) ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Application exited during startup, log: $log" >&2
+            return 1
+        fi
+        if curl -sf -o /dev/null "http://localhost:${PORT}${PROBE_PATH}"; then
+            elapsed=$(( $(now_ms) - start ))
+            break
+        fi
+        sleep 0.05
+    done
+    if [ -z "$elapsed" ]; then
+        kill "$pid" 2>/dev/null || true
+        echo "No response within ${TIMEOUT_S}s, log: $log" >&2
+        return 1
+    fi
+
+    metrics=$(curl -sf "http://localhost:${PORT}/api/metrics" \
+        | grep -o '"startup":{[^}]*}' || echo '"startup":n/a')
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    rm -f "$log"
+    echo "$elapsed $metrics"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR % 2) print v[(NR + 1) / 2]; else print int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+for mode in "${MODES[@]}"; do
+    for file in $(required_files "$mode"); do
+        if [ ! -f "$file" ]; then
+            echo "$mode: $file not found, build with: mvn clean package -DskipTests -Pfast-startup" >&2
+            exit 1
+        fi
+    done
+done
+
+summary=()
+for mode in "${MODES[@]}"; do
+    times=()
+    for run in $(seq 1 "$RUNS"); do
+        result=$(run_once "$mode")
+        times+=("${result%% *}")
+        echo "$mode run $run: first response after ${result%% *} ms, ${result#* }"
+    done
+    summary+=("$mode: median $(printf '%s\n' "${times[@]}" | median) ms over $RUNS runs")
+done
+
+echo
+printf '%s\n' "${summary[@]}"
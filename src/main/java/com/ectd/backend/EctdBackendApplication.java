@@ -3,6 +3,7 @@ package com.ectd.backend;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * eCTD 4.0 Application Management Backend
@@ -10,6 +11,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  */
 @SpringBootApplication
 @MapperScan("com.ectd.backend.mapper")
+@EnableScheduling
 public class EctdBackendApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,180 @@
+package com.ectd.backend.config;
+
+import com.ectd.backend.util.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission Control Filter
+ * Admits each request through the adaptive concurrency limiter of its bulkhead: heavy
+ * endpoints (full listings, root-section rewrites, exports, imports) and everything else
+ * have separate limits, so a burst of expensive calls cannot take all database connections
+ * from cheap lookups. A request over the limit gets an immediate 503 with Retry-After.
+ * Asynchronous responses (StreamingResponseBody exports) keep their slot until the async
+ * request completes, so the limit and the latency samples cover the actual streaming.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    public static final String HEAVY = "heavy";
+    public static final String LIGHT = "light";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final boolean enabled;
+
+    private final int retryAfterSeconds;
+
+    private final List<String[]> heavyEndpoints = new ArrayList<>();
+
+    private final List<String> excludedPaths;
+
+    private final AdaptiveConcurrencyLimiter heavy;
+
+    private final AdaptiveConcurrencyLimiter light;
+
+    public AdmissionControlFilter(@Value("${ectd.admission.enabled:true}") boolean enabled,
+                                  @Value("${ectd.admission.retry-after-seconds:1}") int retryAfterSeconds,
+                                  @Value("${ectd.admission.heavy-endpoints:GET /submission-units}") List<String> heavyEndpoints,
+                                  @Value("${ectd.admission.excluded-paths:/changes,/changes/**,/documents/*/content,/metrics}") List<String> excludedPaths,
+                                  @Value("${ectd.admission.heavy.initial-limit:4}") int heavyInitial,
+                                  @Value("${ectd.admission.heavy.min-limit:1}") int heavyMin,
+                                  @Value("${ectd.admission.heavy.max-limit:8}") int heavyMax,
+                                  @Value("${ectd.admission.light.initial-limit:20}") int lightInitial,
+                                  @Value("${ectd.admission.light.min-limit:4}") int lightMin,
+                                  @Value("${ectd.admission.light.max-limit:200}") int lightMax,
+                                  @Value("${ectd.admission.rtt-tolerance:1.5}") double tolerance,
+                                  @Value("${ectd.admission.smoothing:0.2}") double smoothing) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        for (String endpoint : heavyEndpoints) {
+            // "METHOD /path/pattern"
+            String[] parts = endpoint.trim().split("\\s+", 2);
+            this.heavyEndpoints.add(parts.length == 2 ? parts : new String[]{"*", parts[0]});
+        }
+        this.excludedPaths = excludedPaths;
+        this.heavy = new AdaptiveConcurrencyLimiter(HEAVY, heavyInitial, heavyMin, heavyMax, tolerance, smoothing);
+        this.light = new AdaptiveConcurrencyLimiter(LIGHT, lightInitial, lightMin, lightMax, tolerance, smoothing);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        // Long-lived streams and downloads would hold a slot and skew the latency samples
+        return excludedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimiter limiter = isHeavy(request) ? heavy : light;
+        if (!limiter.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Server busy (" + limiter.getName() + " requests), retry later");
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(System.nanoTime() - start);
+            }
+        };
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Limiter state of each bulkhead
+     * @return Map of bulkhead name to limiter snapshot
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put(HEAVY, heavy.snapshot());
+        metrics.put(LIGHT, light.snapshot());
+        return metrics;
+    }
+
+    private boolean isHeavy(HttpServletRequest request) {
+        String path = path(request);
+        for (String[] endpoint : heavyEndpoints) {
+            if (("*".equals(endpoint[0]) || endpoint[0].equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(endpoint[1], path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Releases the slot of an asynchronous request once it completes, fails or times out
+     */
+    private static final class ReleasingAsyncListener implements AsyncListener {
+        private final Runnable release;
+
+        ReleasingAsyncListener(Runnable release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A re-started async cycle keeps the listener only if it is added again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    /**
+     * Request path below the servlet context path (e.g. /applications/1)
+     */
+    private String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,27 @@
+package com.ectd.backend.config;
+
+import com.ectd.backend.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ID Generator Configuration
+ * Configures the node ID of the Snowflake generator; each instance behind the
+ * load balancer must use a different ectd.id.node-id. Without one, startup fails unless
+ * ectd.id.single-instance=true declares the only instance, which then uses node 0: two
+ * instances silently sharing node 0 would generate colliding CoU and node IDs.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(@Value("${ectd.id.node-id:#{null}}") Long nodeId,
+                                                     @Value("${ectd.id.single-instance:false}") boolean singleInstance) {
+        if (nodeId == null && !singleInstance) {
+            throw new IllegalStateException("ectd.id.node-id must be set (unique per instance), or ectd.id.single-instance=true for a single instance");
+        }
+        SnowflakeIdGenerator.configure(nodeId == null ? 0 : nodeId);
+        return SnowflakeIdGenerator.getInstance();
+    }
+}
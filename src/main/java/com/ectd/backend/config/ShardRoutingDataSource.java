@@ -0,0 +1,61 @@
+package com.ectd.backend.config;
+
+import com.ectd.backend.util.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shard Routing DataSource
+ * Picks the shard DataSource from ShardContext each time a physical connection is
+ * obtained. Wrapped in a LazyConnectionDataSourceProxy so that inside a transaction the
+ * connection is only fetched at the first statement, after the sharded mappers have
+ * bound the application's shard.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = shards;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(ShardContext.DEFAULT_SHARD));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        return shard != null ? shard : ShardContext.DEFAULT_SHARD;
+    }
+
+    /**
+     * Number of configured shards
+     * @return Shard count
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Physical DataSource of one shard
+     * @param shard Shard index
+     * @return Shard DataSource
+     */
+    public HikariDataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    public void destroy() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
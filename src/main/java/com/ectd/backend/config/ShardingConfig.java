@@ -0,0 +1,63 @@
+package com.ectd.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sharding Configuration
+ * Active with ectd.sharding.enabled=true. Replaces the single spring.datasource with a
+ * routing DataSource over the configured shards; MyBatis and the transaction manager
+ * pick it up as the primary DataSource.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(ShardingProperties properties) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("ectd.sharding.enabled is set but no ectd.sharding.shards are configured");
+        }
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardingProperties.Shard shard = properties.getShards().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("ectd-shard-" + i);
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            if (shard.getDriverClassName() != null) {
+                dataSource.setDriverClassName(shard.getDriverClassName());
+            }
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            shards.add(dataSource);
+        }
+
+        if (properties.getInitScript() != null && !properties.getInitScript().isBlank()) {
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                    new DefaultResourceLoader().getResource(properties.getInitScript()));
+            populator.setSqlScriptEncoding("UTF-8");
+            shards.forEach(shard -> DatabasePopulatorUtils.execute(populator, shard));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
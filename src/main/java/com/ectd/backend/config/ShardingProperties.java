@@ -0,0 +1,76 @@
+package com.ectd.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sharding Properties
+ * Binds ectd.sharding.*: the list of shard databases and optional schema script
+ */
+@Data
+@ConfigurationProperties(prefix = "ectd.sharding")
+public class ShardingProperties {
+
+    /**
+     * Route applications across the shards below instead of spring.datasource
+     */
+    private boolean enabled;
+
+    /**
+     * Shard databases; shard 0 also holds the shard directory and global tables
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    /**
+     * Optional script run against every shard at startup (e.g., for embedded databases)
+     */
+    private String initScript;
+
+    /**
+     * Threads used for scatter-gather queries and rebalancing reads
+     */
+    private int scatterThreads = 8;
+
+    /**
+     * Number of su_id to app_id mappings cached for routing submission unit lookups
+     */
+    private int suCacheEntries = 100000;
+
+    /**
+     * Cached shard directory entries are re-read after this long, so a node notices an
+     * application moved by another node even without touching it
+     */
+    private long directoryCacheTtlMs = 5000;
+
+    @Data
+    public static class Shard {
+
+        /**
+         * JDBC URL
+         */
+        private String url;
+
+        /**
+         * Database user
+         */
+        private String username;
+
+        /**
+         * Database password
+         */
+        private String password;
+
+        /**
+         * JDBC driver class, derived from the URL if empty
+         */
+        private String driverClassName;
+
+        /**
+         * Maximum pool size
+         */
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ectd.backend.config;
+
+import com.ectd.backend.util.SnowflakeIdGenerator;
+import jakarta.servlet.Filter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Startup Configuration
+ * Beans that must stay eager when spring.main.lazy-initialization is on (fast-startup
+ * profile): @Scheduled methods are only registered when their bean is created, filters
+ * must see the first request, and the Snowflake node ID is configured as a side effect.
+ * Everything else (controllers, services, mappers) is created on first use.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (Filter.class.isAssignableFrom(beanType)
+                || SnowflakeIdGenerator.class.isAssignableFrom(beanType)
+                || hasScheduledMethods(beanType));
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(beanType)) {
+            if (AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                    || AnnotatedElementUtils.hasAnnotation(method, Schedules.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ectd.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Startup Timing Filter
+ * Measures startup from JVM launch: context started, application ready and the first
+ * request served (time-to-first-request, which includes lazily created beans). Reported
+ * under "startup" in GET /metrics together with the startup mode (Spring AOT, class-data
+ * sharing, lazy initialization), so the modes can be compared.
+ * With ectd.startup.exit-after-start=true the application exits as soon as it has
+ * started, which is the training run that writes the AppCDS archive.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupTimingFilter extends OncePerRequestFilter {
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    private final boolean exitAfterStart;
+
+    private final boolean lazyInitialization;
+
+    private volatile long startedMs = -1;
+
+    private volatile long readyMs = -1;
+
+    private volatile long firstRequestMs = -1;
+
+    public StartupTimingFilter(@Value("${ectd.startup.exit-after-start:false}") boolean exitAfterStart,
+                               @Value("${spring.main.lazy-initialization:false}") boolean lazyInitialization) {
+        this.exitAfterStart = exitAfterStart;
+        this.lazyInitialization = lazyInitialization;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStarted(ApplicationStartedEvent event) {
+        startedMs = sinceJvmStart();
+        if (exitAfterStart) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMs = sinceJvmStart();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (firstRequestSeen.get()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (firstRequestSeen.compareAndSet(false, true)) {
+                firstRequestMs = sinceJvmStart();
+            }
+        }
+    }
+
+    /**
+     * Startup timings, for metrics
+     * @return Map of timings in ms since JVM start (-1 until reached) and startup mode
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("startedMs", startedMs);
+        metrics.put("readyMs", readyMs);
+        metrics.put("firstRequestMs", firstRequestMs);
+        metrics.put("mode", mode());
+        return metrics;
+    }
+
+    private Map<String, Object> mode() {
+        Map<String, Object> mode = new LinkedHashMap<>();
+        mode.put("aot", AotDetector.useGeneratedArtifacts());
+        mode.put("cds", usesCdsArchive());
+        mode.put("lazyInitialization", lazyInitialization);
+        return mode;
+    }
+
+    private static boolean usesCdsArchive() {
+        List<String> arguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        return arguments.stream().anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile="));
+    }
+
+    private long sinceJvmStart() {
+        return System.currentTimeMillis() - jvmStartMillis;
+    }
+}
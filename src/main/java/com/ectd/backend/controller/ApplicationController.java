@@ -1,13 +1,40 @@
 package com.ectd.backend.controller;
 
 import com.ectd.backend.model.Application;
+import com.ectd.backend.model.ApplicationDetail;
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.DossierSnapshot;
+import com.ectd.backend.model.ResourceVersion;
+import com.ectd.backend.service.ApplicationDeletionService;
+import com.ectd.backend.service.ApplicationDetailService;
+import com.ectd.backend.service.ApplicationJsonStreamService;
 import com.ectd.backend.service.ApplicationService;
+import com.ectd.backend.service.CoalescedReadService;
+import com.ectd.backend.service.DossierReconstructionService;
+import com.ectd.backend.service.EctdXmlExportService;
+import com.ectd.backend.service.EntityTagService;
+import com.ectd.backend.service.IdempotencyService;
+import com.ectd.backend.service.RootSectionTemplateService;
+import com.ectd.backend.util.EntityTags;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Application Controller
@@ -21,13 +48,47 @@ public class ApplicationController {
     @Autowired
     private ApplicationService applicationService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private EctdXmlExportService ectdXmlExportService;
+
+    @Autowired
+    private ApplicationDeletionService applicationDeletionService;
+
+    @Autowired
+    private ApplicationDetailService applicationDetailService;
+
+    @Autowired
+    private ApplicationJsonStreamService applicationJsonStreamService;
+
+    @Autowired
+    private RootSectionTemplateService rootSectionTemplateService;
+
+    @Autowired
+    private CoalescedReadService coalescedReadService;
+
+    @Autowired
+    private EntityTagService entityTagService;
+
+    @Autowired
+    private DossierReconstructionService dossierReconstructionService;
+
     /**
      * Create a new application
-     * @param payload Request payload containing appNumber and appType
+     * @param idempotencyKey Optional Idempotency-Key header for retry-safe creation
+     * @param payload Request payload containing appNumber, appType and region (optional,
+     *                selects the root section template)
      * @return Created application
      */
     @PostMapping
-    public ResponseEntity<?> createApplication(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<?> createApplication(@RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                               @RequestBody Map<String, String> payload) {
+        return idempotencyService.execute(idempotencyKey, payload, () -> doCreateApplication(payload));
+    }
+
+    private ResponseEntity<?> doCreateApplication(Map<String, String> payload) {
         try {
             String appNumber = payload.get("appNumber");
             String appType = payload.get("appType");
@@ -39,7 +100,7 @@ public class ApplicationController {
                 return ResponseEntity.badRequest().body("Application type is required");
             }
             
-            Application app = applicationService.createApplication(appNumber.trim(), appType.trim());
+            Application app = applicationService.createApplication(appNumber.trim(), appType.trim(), payload.get("region"));
             return ResponseEntity.ok(app);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -49,18 +110,158 @@ public class ApplicationController {
     }
 
     /**
-     * Get application by ID
+     * List the root section templates used when creating applications
+     * @return Region, application type and node count of each template
+     */
+    @GetMapping("/templates")
+    public ResponseEntity<?> getRootSectionTemplates() {
+        try {
+            return ResponseEntity.ok(rootSectionTemplateService.listTemplates());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get application by ID; concurrent requests for the same application share one load
+     * and one serialized response. If-None-Match / If-Modified-Since are answered with 304
+     * from a version-only query, without loading the application.
      * @param appId Application ID
-     * @return Application entity
+     * @param headers Request headers
+     * @return Application entity with ETag and Last-Modified
      */
     @GetMapping("/{appId}")
-    public ResponseEntity<?> getApplicationById(@PathVariable Long appId) {
+    public ResponseEntity<?> getApplicationById(@PathVariable Long appId, @RequestHeader HttpHeaders headers) {
+        try {
+            ResourceVersion version = entityTagService.getApplicationVersion(appId);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (EntityTags.isNotModified(headers, version)) {
+                return EntityTags.notModified(version);
+            }
+            byte[] json = coalescedReadService.getApplicationJson(appId, version.getVersion());
+            if (json == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return EntityTags.ok(version).contentType(MediaType.APPLICATION_JSON).body(json);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get application by ID with the root section embedded as JSON instead of an escaped
+     * string, copied from the database column straight into the response; conditional like
+     * the plain representation, with its own ETag
+     * @param appId Application ID
+     * @param headers Request headers
+     * @param response HTTP response
+     */
+    @GetMapping(value = "/{appId}", params = "raw=true")
+    public void getApplicationRaw(@PathVariable Long appId, @RequestHeader HttpHeaders headers,
+                                  HttpServletResponse response) throws IOException {
+        try {
+            ResourceVersion version = entityTagService.getRawApplicationVersion(appId);
+            if (version == null) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            EntityTags.addTo(response, version);
+            if (EntityTags.isNotModified(headers, version)) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            if (!applicationJsonStreamService.writeApplication(appId, response.getOutputStream())) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+            }
+        } catch (Exception e) {
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal server error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get a whole dossier in one request: the application, its submission units and their
+     * CoU operations
+     * @param appId Application ID
+     * @param include Comma-separated parts to include (rootSection, submissionUnits, couOperations); all by default
+     * @param headers Request headers
+     * @return Application detail with ETag and Last-Modified, or 304 if the client's copy is current
+     */
+    @GetMapping("/{appId}/detail")
+    public ResponseEntity<?> getApplicationDetail(@PathVariable Long appId,
+                                                  @RequestParam(required = false) String include,
+                                                  @RequestHeader HttpHeaders headers) {
+        try {
+            Set<ApplicationDetailService.Part> parts = applicationDetailService.parseInclude(include);
+            ResourceVersion version = entityTagService.getApplicationDetailVersion(appId, parts);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (EntityTags.isNotModified(headers, version)) {
+                return EntityTags.notModified(version);
+            }
+            ApplicationDetail detail = applicationDetailService.getApplicationDetail(appId, parts, version.getVersion());
+            if (detail == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return EntityTags.ok(version).body(detail);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruct the dossier as of a sequence number or an effective date: the documents
+     * current after replaying the CoU operations up to that point
+     * @param appId Application ID
+     * @param sequence Last sequence number to include (e.g. 0012)
+     * @param effectiveDate Include submission units effective on or before this date (yyyy-MM-dd)
+     * @return Dossier snapshot; the latest state if neither parameter is given
+     */
+    @GetMapping("/{appId}/dossier")
+    public ResponseEntity<?> getDossierSnapshot(@PathVariable Long appId,
+                                                @RequestParam(required = false) Integer sequence,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate effectiveDate) {
+        try {
+            DossierSnapshot snapshot = dossierReconstructionService.reconstruct(appId, sequence, effectiveDate);
+            if (snapshot == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(snapshot);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Export all submission units of an application as eCTD 4.0 submissionunit.xml,
+     * streamed directly to the response
+     * @param appId Application ID
+     * @return Streaming XML body
+     */
+    @GetMapping(value = "/{appId}/submissionunit.xml", produces = MediaType.APPLICATION_XML_VALUE)
+    public ResponseEntity<?> exportSubmissionXml(@PathVariable Long appId) {
         try {
             Application app = applicationService.getApplicationById(appId);
             if (app == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(app);
+            StreamingResponseBody body = out -> ectdXmlExportService.exportApplication(appId, out);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_XML)
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"" + app.getAppNumber() + "-submissionunit.xml\"")
+                    .body(body);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
         }
@@ -101,11 +302,21 @@ public class ApplicationController {
     /**
      * Update application
      * @param appId Application ID
+     * @param idempotencyKey Optional Idempotency-Key header for retry-safe updates
+     * @param headers Request headers; If-Match makes the update conditional (412 if the application changed)
      * @param payload Request payload
-     * @return Updated application
+     * @return Updated application with its new ETag
      */
     @PutMapping("/{appId}")
-    public ResponseEntity<?> updateApplication(@PathVariable Long appId, @RequestBody Map<String, Object> payload) {
+    public ResponseEntity<?> updateApplication(@PathVariable Long appId,
+                                               @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                               @RequestHeader HttpHeaders headers,
+                                               @RequestBody Map<String, Object> payload) {
+        Predicate<String> ifMatch = EntityTags.ifMatch(headers);
+        return idempotencyService.execute(idempotencyKey, payload, () -> doUpdateApplication(appId, payload, ifMatch));
+    }
+
+    private ResponseEntity<?> doUpdateApplication(Long appId, Map<String, Object> payload, Predicate<String> ifMatch) {
         try {
             Application app = applicationService.getApplicationById(appId);
             if (app == null) {
@@ -126,8 +337,14 @@ public class ApplicationController {
                 app.setRootSection((String) payload.get("rootSection"));
             }
 
-            Application updatedApp = applicationService.updateApplication(app);
-            return ResponseEntity.ok(updatedApp);
+            Application updatedApp = applicationService.updateApplication(app, ifMatch);
+            return updated(updatedApp);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body("Invalid root section JSON");
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
         }
@@ -136,19 +353,31 @@ public class ApplicationController {
     /**
      * Update application root section
      * @param appId Application ID
+     * @param idempotencyKey Optional Idempotency-Key header for retry-safe updates
+     * @param headers Request headers; If-Match makes the update conditional (412 if the application changed)
      * @param payload Request payload containing rootSection
-     * @return Updated application
+     * @return Updated application with its new ETag
      */
     @PutMapping("/{appId}/root-section")
-    public ResponseEntity<?> updateRootSection(@PathVariable Long appId, @RequestBody Map<String, String> payload) {
+    public ResponseEntity<?> updateRootSection(@PathVariable Long appId,
+                                               @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                               @RequestHeader HttpHeaders headers,
+                                               @RequestBody Map<String, String> payload) {
+        Predicate<String> ifMatch = EntityTags.ifMatch(headers);
+        return idempotencyService.execute(idempotencyKey, payload, () -> doUpdateRootSection(appId, payload, ifMatch));
+    }
+
+    private ResponseEntity<?> doUpdateRootSection(Long appId, Map<String, String> payload, Predicate<String> ifMatch) {
         try {
             String rootSectionJson = payload.get("rootSection");
             if (rootSectionJson == null || rootSectionJson.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body("Root section JSON is required");
             }
             
-            Application updatedApp = applicationService.updateRootSection(appId, rootSectionJson);
-            return ResponseEntity.ok(updatedApp);
+            Application updatedApp = applicationService.updateRootSection(appId, rootSectionJson, ifMatch);
+            return updated(updatedApp);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
@@ -157,9 +386,10 @@ public class ApplicationController {
     }
 
     /**
-     * Delete application
+     * Delete application in the background: its submission units are removed in small
+     * batches, then the application itself
      * @param appId Application ID
-     * @return Success message
+     * @return Deletion job; poll GET /jobs/{jobId} for progress
      */
     @DeleteMapping("/{appId}")
     public ResponseEntity<?> deleteApplication(@PathVariable Long appId) {
@@ -169,11 +399,21 @@ public class ApplicationController {
                 return ResponseEntity.notFound().build();
             }
             
-            applicationService.deleteApplication(appId);
-            return ResponseEntity.ok("Application deleted successfully");
+            AsyncJob job = applicationDeletionService.startDeletion(appId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * 200 response to a PUT, with the application's new ETag so the client can chain conditional updates
+     */
+    private static ResponseEntity<?> updated(Application app) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (app.getVersion() != null) {
+            builder.eTag(EntityTagService.applicationTag(app.getAppId(), app.getVersion()));
+        }
+        return builder.body(app);
+    }
+}
@@ -0,0 +1,35 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.service.ArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Archive Controller
+ * REST API endpoint for running the submission unit archive tiering on demand
+ */
+@RestController
+@RequestMapping("/archive")
+@CrossOrigin(origins = "*")
+public class ArchiveController {
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    /**
+     * Archive all eligible submission units in the background; poll GET /jobs/{jobId} for progress
+     * @return Archive job
+     */
+    @PostMapping("/run")
+    public ResponseEntity<?> runArchive() {
+        try {
+            AsyncJob job = archiveService.startArchive();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.ChangeEvent;
+import com.ectd.backend.service.ChangeFeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Change Feed Controller
+ * SSE endpoint pushing application and submission unit changes to clients
+ */
+@RestController
+@RequestMapping("/changes")
+@CrossOrigin(origins = "*")
+public class ChangeFeedController {
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    /**
+     * Subscribe to the change feed
+     * @param lastEventId Standard SSE reconnect header with the last offset received
+     * @param since Offset to resume from (used when the header is absent)
+     * @return SSE stream of change events
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                @RequestParam(required = false) Long since) {
+        return changeFeedService.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    /**
+     * Get buffered change events after an offset (for clients that cannot use SSE)
+     * @param since Last offset seen by the client
+     * @return Events and the latest offset, or 410 if the offset was evicted from the buffer
+     */
+    @GetMapping(value = "/poll", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> poll(@RequestParam(defaultValue = "0") long since) {
+        List<ChangeEvent> events = changeFeedService.getEventsSince(since);
+        if (events == null) {
+            return ResponseEntity.status(HttpStatus.GONE)
+                    .body(Map.of("latestOffset", changeFeedService.getLatestOffset()));
+        }
+        return ResponseEntity.ok(Map.of(
+                "latestOffset", changeFeedService.getLatestOffset(),
+                "events", events));
+    }
+}
@@ -0,0 +1,225 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.StoredDocument;
+import com.ectd.backend.service.DocumentStoreService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Document Controller
+ * REST API endpoints for the content-addressed document store: chunked resumable
+ * uploads and range-capable downloads
+ */
+@RestController
+@RequestMapping("/documents")
+@CrossOrigin(origins = "*")
+public class DocumentController {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    @Autowired
+    private DocumentStoreService documentStoreService;
+
+    /**
+     * Upload a document in a single request
+     * @param request HTTP request carrying the raw document bytes
+     * @param fileName Original file name
+     * @return Stored document (existing one if the content was already stored)
+     */
+    @PostMapping
+    public ResponseEntity<?> upload(HttpServletRequest request, @RequestParam(required = false) String fileName) {
+        try {
+            StoredDocument document = documentStoreService.upload(request.getInputStream(), fileName);
+            return ResponseEntity.status(HttpStatus.CREATED).body(document);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start a chunked upload
+     * @param fileName Original file name
+     * @param totalSize Expected total size in bytes
+     * @return Upload status
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<?> startUpload(@RequestParam(required = false) String fileName,
+                                         @RequestParam(required = false) Long totalSize) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(documentStoreService.startUpload(fileName, totalSize));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the status of a chunked upload, i.e. the offset to resume from
+     * @param uploadId Upload ID
+     * @return Upload status
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getUploadStatus(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(documentStoreService.getUploadStatus(uploadId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Append a chunk to an upload
+     * @param uploadId Upload ID
+     * @param offset Offset of the chunk; must equal the bytes received so far
+     * @param request HTTP request carrying the chunk bytes
+     * @return Upload status, or 409 with the expected offset
+     */
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> appendChunk(@PathVariable String uploadId, @RequestParam long offset,
+                                         HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(documentStoreService.appendChunk(uploadId, offset, request.getInputStream()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            try {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(documentStoreService.getUploadStatus(uploadId));
+            } catch (IOException io) {
+                return ResponseEntity.internalServerError().body("Internal server error: " + io.getMessage());
+            }
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Complete a chunked upload
+     * @param uploadId Upload ID
+     * @return Stored document
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(documentStoreService.completeUpload(uploadId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get document metadata
+     * @param sha256 SHA-256 hex
+     * @return Stored document
+     */
+    @GetMapping("/{sha256}")
+    public ResponseEntity<?> getDocument(@PathVariable String sha256) {
+        StoredDocument document = documentStoreService.getDocument(sha256);
+        if (document == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(document);
+    }
+
+    /**
+     * Download document content, honouring a single-range Range header. Uses Tomcat
+     * sendfile when available, else FileChannel.transferTo into the response.
+     * @param sha256 SHA-256 hex
+     * @param request HTTP request
+     * @param response HTTP response
+     */
+    @GetMapping("/{sha256}/content")
+    public void download(@PathVariable String sha256, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredDocument document = documentStoreService.getDocument(sha256);
+        Path file = document == null ? null : documentStoreService.getContentPath(sha256);
+        if (file == null || !Files.exists(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = Files.size(file);
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null) {
+            Matcher matcher = RANGE.matcher(range.trim());
+            if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (matcher.group(1).isEmpty()) {
+                // Suffix range: last N bytes
+                start = Math.max(0, length - Long.parseLong(matcher.group(2)));
+            } else {
+                start = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    end = Math.min(end, Long.parseLong(matcher.group(2)));
+                }
+            }
+            if (start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, "\"" + sha256 + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        response.setContentType(contentType(document.getFormat()));
+        response.setContentLengthLong(count);
+
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            // Zero-copy: Tomcat hands the file region to the kernel after the servlet returns
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (count > 0) {
+                long sent = channel.transferTo(position, count, target);
+                position += sent;
+                count -= sent;
+            }
+            out.flush();
+        }
+    }
+
+    private String contentType(String format) {
+        if (format == null) {
+            return "application/octet-stream";
+        }
+        Map<String, String> types = Map.of("PDF", "application/pdf", "XML", "application/xml", "ZIP", "application/zip");
+        return types.getOrDefault(format.toUpperCase(), "application/octet-stream");
+    }
+}
@@ -0,0 +1,45 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.service.EctdXmlImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Import Controller
+ * REST API endpoints for onboarding existing eCTD XML packages
+ */
+@RestController
+@RequestMapping("/imports")
+@CrossOrigin(origins = "*")
+public class ImportController {
+
+    @Autowired
+    private EctdXmlImportService ectdXmlImportService;
+
+    /**
+     * Import an eCTD 4.0 submissionunit.xml or eCTD 3.2 backbone. The raw XML request body
+     * is streamed to disk and processed asynchronously; poll GET /jobs/{jobId} for progress.
+     * @param request HTTP request carrying the XML body
+     * @param appNumber Target application number (required for backbone imports)
+     * @param appType Application type if the application has to be created
+     * @param sequenceNum Sequence number for backbone imports (next free number if omitted)
+     * @return Import job
+     */
+    @PostMapping(consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> importXml(HttpServletRequest request,
+                                       @RequestParam(required = false) String appNumber,
+                                       @RequestParam(required = false) String appType,
+                                       @RequestParam(required = false) Integer sequenceNum) {
+        try {
+            AsyncJob job = ectdXmlImportService.startImport(request.getInputStream(), appNumber, appType, sequenceNum);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.service.AsyncJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Job Controller
+ * REST API endpoints for polling background job progress
+ */
+@RestController
+@RequestMapping("/jobs")
+@CrossOrigin(origins = "*")
+public class JobController {
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    /**
+     * Get all known jobs
+     * @return List of jobs
+     */
+    @GetMapping
+    public ResponseEntity<?> getAllJobs() {
+        return ResponseEntity.ok(asyncJobService.getAllJobs());
+    }
+
+    /**
+     * Get job progress by ID
+     * @param jobId Job ID
+     * @return AsyncJob
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        AsyncJob job = asyncJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.config.AdmissionControlFilter;
+import com.ectd.backend.config.StartupTimingFilter;
+import com.ectd.backend.service.CoalescedReadService;
+import com.ectd.backend.service.DossierReconstructionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metrics Controller
+ * REST API endpoint exposing runtime metrics of this node
+ */
+@RestController
+@RequestMapping("/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
+
+    @Autowired
+    private StartupTimingFilter startupTimingFilter;
+
+    @Autowired
+    private CoalescedReadService coalescedReadService;
+
+    @Autowired
+    private DossierReconstructionService dossierReconstructionService;
+
+    /**
+     * Get runtime metrics
+     * @return Map of metric group to values
+     */
+    @GetMapping
+    public ResponseEntity<?> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("startup", startupTimingFilter.getMetrics());
+        metrics.put("admission", admissionControlFilter.getMetrics());
+        metrics.put("coalescing", coalescedReadService.getMetrics());
+        metrics.put("reconstruction", dossierReconstructionService.getMetrics());
+        return ResponseEntity.ok(metrics);
+    }
+}
@@ -0,0 +1,75 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.SearchHit;
+import com.ectd.backend.service.SearchIndexService;
+import com.ectd.backend.service.SearchIndexSyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Search Controller
+ * REST API endpoints for full-text search over node names and document titles
+ */
+@RestController
+@RequestMapping("/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    private static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private SearchIndexSyncService searchIndexSyncService;
+
+    /**
+     * Search root-section node names and CoU document titles/descriptions
+     * @param q Query text
+     * @param appId Restrict to one application (optional)
+     * @param limit Maximum number of hits (at most 200)
+     * @return List of search hits
+     */
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam(required = false) String q,
+                                    @RequestParam(required = false) Long appId,
+                                    @RequestParam(defaultValue = "50") int limit) {
+        try {
+            if (q == null || q.isBlank()) {
+                return ResponseEntity.badRequest().body("Query parameter q is required");
+            }
+            List<SearchHit> hits = searchIndexService.search(q, appId, Math.max(1, Math.min(limit, MAX_LIMIT)));
+            return ResponseEntity.ok(hits);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the size and state of the local index
+     * @return Index status
+     */
+    @GetMapping("/status")
+    public ResponseEntity<?> getStatus() {
+        return ResponseEntity.ok(searchIndexService.getStatus());
+    }
+
+    /**
+     * Rebuild the index from the database in the background; poll GET /jobs/{jobId} for progress
+     * @return Rebuild job
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild() {
+        try {
+            AsyncJob job = searchIndexSyncService.startRebuild();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+}
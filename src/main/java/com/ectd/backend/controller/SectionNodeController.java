@@ -0,0 +1,234 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.SectionNode;
+import com.ectd.backend.service.ApplicationService;
+import com.ectd.backend.service.SectionTreeMigrationService;
+import com.ectd.backend.service.SectionTreeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Section Node Controller
+ * REST API endpoints for root section trees stored as section nodes: subtree and ancestor
+ * queries and single-node edits
+ */
+@RestController
+@RequestMapping("/applications")
+@CrossOrigin(origins = "*")
+public class SectionNodeController {
+
+    @Autowired
+    private SectionTreeService sectionTreeService;
+
+    @Autowired
+    private SectionTreeMigrationService sectionTreeMigrationService;
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    /**
+     * Move the root section of one application into section nodes
+     * @param appId Application ID
+     * @return Application with its (assembled) root section
+     */
+    @PostMapping("/{appId}/nodes/migrate")
+    public ResponseEntity<?> migrate(@PathVariable Long appId) {
+        try {
+            sectionTreeService.migrate(appId);
+            return ResponseEntity.ok(applicationService.getApplicationById(appId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Move the root sections of all applications into section nodes in the background
+     * @return Migration job; poll GET /jobs/{jobId} for progress
+     */
+    @PostMapping("/nodes/migrate")
+    public ResponseEntity<?> migrateAll() {
+        try {
+            AsyncJob job = sectionTreeMigrationService.startMigration();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get one node (without children)
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return Node
+     */
+    @GetMapping("/{appId}/nodes/{nodeId}")
+    public ResponseEntity<?> getNode(@PathVariable Long appId, @PathVariable Long nodeId) {
+        try {
+            SectionNode node = sectionTreeService.getNode(appId, nodeId);
+            if (node == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(node);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get a node and all nodes below it, e.g. all documents under a module with nodeType=document
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @param nodeType Only nodes of this type (optional)
+     * @return Flat list of nodes, nearest first, with parentId, position and depth
+     */
+    @GetMapping("/{appId}/nodes/{nodeId}/subtree")
+    public ResponseEntity<?> getSubtree(@PathVariable Long appId, @PathVariable Long nodeId,
+                                        @RequestParam(required = false) String nodeType) {
+        try {
+            List<SectionNode> nodes = sectionTreeService.getSubtree(appId, nodeId, nodeType);
+            if (nodes == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(nodes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the ancestors of a node (its path from the top level)
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return Nodes from the top level down to the parent
+     */
+    @GetMapping("/{appId}/nodes/{nodeId}/ancestors")
+    public ResponseEntity<?> getAncestors(@PathVariable Long appId, @PathVariable Long nodeId) {
+        try {
+            List<SectionNode> nodes = sectionTreeService.getAncestors(appId, nodeId);
+            if (nodes == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(nodes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add a node, with any children it carries
+     * @param appId Application ID
+     * @param payload Request payload containing parentId (null for top level), position
+     *                (optional, appends by default) and node (id required)
+     * @return Added node
+     */
+    @PostMapping("/{appId}/nodes")
+    public ResponseEntity<?> addNode(@PathVariable Long appId, @RequestBody Map<String, Object> payload) {
+        try {
+            Object node = payload.get("node");
+            if (!(node instanceof Map)) {
+                return ResponseEntity.badRequest().body("Node object is required");
+            }
+            @SuppressWarnings("unchecked")
+            SectionNode added = sectionTreeService.addNode(appId, toLong(payload.get("parentId")),
+                    toInteger(payload.get("position")), (Map<String, Object>) node);
+            return ResponseEntity.status(HttpStatus.CREATED).body(added);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Update fields of a node; a field set to null is removed
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @param fields Fields to set (nodeType, name, other attributes)
+     * @return Updated node
+     */
+    @PutMapping("/{appId}/nodes/{nodeId}")
+    public ResponseEntity<?> updateNode(@PathVariable Long appId, @PathVariable Long nodeId,
+                                        @RequestBody Map<String, Object> fields) {
+        try {
+            return ResponseEntity.ok(sectionTreeService.updateNode(appId, nodeId, fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Move a node with its subtree
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @param payload Request payload containing parentId (null for top level) and position (optional)
+     * @return Moved node
+     */
+    @PostMapping("/{appId}/nodes/{nodeId}/move")
+    public ResponseEntity<?> moveNode(@PathVariable Long appId, @PathVariable Long nodeId,
+                                      @RequestBody Map<String, Object> payload) {
+        try {
+            SectionNode moved = sectionTreeService.moveNode(appId, nodeId, toLong(payload.get("parentId")),
+                    toInteger(payload.get("position")));
+            return ResponseEntity.ok(moved);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete a node and its subtree
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return No content
+     */
+    @DeleteMapping("/{appId}/nodes/{nodeId}")
+    public ResponseEntity<?> deleteNode(@PathVariable Long appId, @PathVariable Long nodeId) {
+        try {
+            if (sectionTreeService.deleteNode(appId, nodeId) == 0) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    private static Long toLong(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return Long.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value);
+        }
+    }
+
+    private static Integer toInteger(Object value) {
+        Long number = toLong(value);
+        return number == null ? null : number.intValue();
+    }
+}
@@ -0,0 +1,83 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.service.ShardRebalanceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Shard Controller
+ * REST API endpoints for inspecting and rebalancing the application shards
+ */
+@RestController
+@RequestMapping("/shards")
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+public class ShardController {
+
+    @Autowired
+    private ShardRebalanceService shardRebalanceService;
+
+    /**
+     * Get the number of applications on each shard
+     * @return Map of shard index to application count
+     */
+    @GetMapping
+    public ResponseEntity<?> getDistribution() {
+        try {
+            return ResponseEntity.ok(shardRebalanceService.getDistribution());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Even out the number of applications per shard in the background
+     * @return Rebalance job
+     */
+    @PostMapping("/rebalance")
+    public ResponseEntity<?> rebalance() {
+        try {
+            AsyncJob job = shardRebalanceService.startRebalance();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Move one application to another shard
+     * @param appId Application ID
+     * @param targetShard Target shard index
+     * @return Updated distribution
+     */
+    @PostMapping("/move")
+    public ResponseEntity<?> moveApplication(@RequestParam Long appId, @RequestParam int targetShard) {
+        try {
+            shardRebalanceService.moveApplication(appId, targetShard);
+            return ResponseEntity.ok(shardRebalanceService.getDistribution());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Register applications found on the shards but missing from the directory
+     * @return Number of applications registered
+     */
+    @PostMapping("/sync-directory")
+    public ResponseEntity<?> syncDirectory() {
+        try {
+            return ResponseEntity.ok(Map.of("registered", shardRebalanceService.syncDirectory()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.service.StatisticsRebuildService;
+import com.ectd.backend.service.StatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Statistics Controller
+ * REST API endpoints for aggregate statistics, computed in the database instead of from
+ * full listings
+ */
+@RestController
+@RequestMapping("/statistics")
+@CrossOrigin(origins = "*")
+public class StatisticsController {
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private StatisticsRebuildService statisticsRebuildService;
+
+    /**
+     * Count applications by status
+     * @return List of status counts
+     */
+    @GetMapping("/applications-by-status")
+    public ResponseEntity<?> getApplicationsByStatus() {
+        try {
+            return ResponseEntity.ok(statisticsService.getApplicationsByStatus());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Count the submission units of every application
+     * @return List of counts keyed by application number
+     */
+    @GetMapping("/submission-units-per-application")
+    public ResponseEntity<?> getSubmissionUnitsPerApplication() {
+        try {
+            return ResponseEntity.ok(statisticsService.getSubmissionUnitsPerApplication());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Count CoU operations by operation type
+     * @param appId Restrict to one application (optional)
+     * @return List of operation type counts
+     */
+    @GetMapping("/cou-operations-by-type")
+    public ResponseEntity<?> getCouOperationsByType(@RequestParam(required = false) Long appId) {
+        try {
+            return ResponseEntity.ok(statisticsService.getCouOperationsByType(appId));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Count the document nodes under each root-section module
+     * @param appId Restrict to one application (optional)
+     * @return List of counts keyed by module name
+     */
+    @GetMapping("/documents-per-module")
+    public ResponseEntity<?> getDocumentsPerModule(@RequestParam(required = false) Long appId) {
+        try {
+            return ResponseEntity.ok(statisticsService.getDocumentsPerModule(appId));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute all statistic counters in the background; poll GET /jobs/{jobId} for progress
+     * @return Rebuild job
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild() {
+        try {
+            AsyncJob job = statisticsRebuildService.startRebuild();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+}
@@ -1,18 +1,33 @@
 package com.ectd.backend.controller;
 
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.ResourceVersion;
 import com.ectd.backend.model.SubmissionUnit;
 import com.ectd.backend.model.CoUOperation;
+import com.ectd.backend.service.CoalescedReadService;
+import com.ectd.backend.service.DocumentChecksumService;
+import com.ectd.backend.service.DocumentStoreService;
+import com.ectd.backend.service.EctdXmlExportService;
+import com.ectd.backend.service.EntityTagService;
+import com.ectd.backend.service.IdempotencyService;
 import com.ectd.backend.service.SubmissionUnitService;
+import com.ectd.backend.util.EntityTags;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Submission Unit REST Controller
@@ -26,6 +41,24 @@ public class SubmissionUnitController {
     @Autowired
     private SubmissionUnitService submissionUnitService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CoalescedReadService coalescedReadService;
+
+    @Autowired
+    private EctdXmlExportService ectdXmlExportService;
+
+    @Autowired
+    private DocumentChecksumService documentChecksumService;
+
+    @Autowired
+    private DocumentStoreService documentStoreService;
+
+    @Autowired
+    private EntityTagService entityTagService;
+
     /**
      * Get all submission units
      * @return List of submission units
@@ -41,31 +74,47 @@ public class SubmissionUnitController {
     }
 
     /**
-     * Get submission units by application ID
+     * Get submission units by application ID; concurrent requests for the same application
+     * share one load and one serialized response. If-None-Match / If-Modified-Since are
+     * answered with 304 from the application's change stamp, without loading the list.
      * @param appId Application ID
-     * @return List of submission units
+     * @param headers Request headers
+     * @return List of submission units with ETag and Last-Modified
      */
     @GetMapping("/by-app/{appId}")
-    public ResponseEntity<List<SubmissionUnit>> getSubmissionUnitsByAppId(@PathVariable Long appId) {
+    public ResponseEntity<byte[]> getSubmissionUnitsByAppId(@PathVariable Long appId, @RequestHeader HttpHeaders headers) {
         try {
-            List<SubmissionUnit> submissionUnits = submissionUnitService.getSubmissionUnitsByAppId(appId);
-            return ResponseEntity.ok(submissionUnits);
+            ResourceVersion version = entityTagService.getSubmissionUnitListVersion(appId);
+            if (EntityTags.isNotModified(headers, version)) {
+                return EntityTags.notModified(version);
+            }
+            byte[] json = coalescedReadService.getSubmissionUnitsJson(appId, version.getVersion());
+            return EntityTags.ok(version).contentType(MediaType.APPLICATION_JSON).body(json);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     /**
-     * Get submission unit by ID
+     * Get submission unit by ID; If-None-Match / If-Modified-Since are answered with 304
+     * without reading its CoU data
      * @param suId Submission unit ID
-     * @return SubmissionUnit entity
+     * @param headers Request headers
+     * @return SubmissionUnit entity with ETag and Last-Modified
      */
     @GetMapping("/{suId}")
-    public ResponseEntity<SubmissionUnit> getSubmissionUnitById(@PathVariable Long suId) {
+    public ResponseEntity<SubmissionUnit> getSubmissionUnitById(@PathVariable Long suId, @RequestHeader HttpHeaders headers) {
         try {
+            ResourceVersion version = entityTagService.getSubmissionUnitVersion(suId);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (EntityTags.isNotModified(headers, version)) {
+                return EntityTags.notModified(version);
+            }
             SubmissionUnit submissionUnit = submissionUnitService.getSubmissionUnitById(suId);
             if (submissionUnit != null) {
-                return ResponseEntity.ok(submissionUnit);
+                return EntityTags.ok(version).body(submissionUnit);
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -74,19 +123,50 @@ public class SubmissionUnitController {
         }
     }
 
+    /**
+     * Export a submission unit as eCTD 4.0 submissionunit.xml, streamed directly to the response
+     * @param suId Submission unit ID
+     * @return Streaming XML body
+     */
+    @GetMapping(value = "/{suId}/submissionunit.xml", produces = MediaType.APPLICATION_XML_VALUE)
+    public ResponseEntity<?> exportSubmissionXml(@PathVariable Long suId) {
+        try {
+            SubmissionUnit submissionUnit = submissionUnitService.getSubmissionUnitById(suId);
+            if (submissionUnit == null) {
+                return ResponseEntity.notFound().build();
+            }
+            StreamingResponseBody body = out -> ectdXmlExportService.exportSubmissionUnit(suId, out);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_XML)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"submissionunit.xml\"")
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
     /**
      * Create a new submission unit
+     * @param idempotencyKey Optional Idempotency-Key header for retry-safe creation
      * @param requestBody Request body containing submission unit data
      * @return Created submission unit
      */
     @PostMapping
-    public ResponseEntity<SubmissionUnit> createSubmissionUnit(@RequestBody Map<String, Object> requestBody) {
+    public ResponseEntity<?> createSubmissionUnit(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, Object> requestBody) {
+        return idempotencyService.execute(idempotencyKey, requestBody, () -> doCreateSubmissionUnit(requestBody));
+    }
+
+    private ResponseEntity<?> doCreateSubmissionUnit(Map<String, Object> requestBody) {
         try {
             Long appId = Long.valueOf(requestBody.get("appId").toString());
             LocalDate effectiveDate = LocalDate.parse(requestBody.get("effectiveDate").toString());
             String suType = requestBody.get("suType").toString();
             String suUnitType = requestBody.get("suUnitType").toString();
             String couData = requestBody.get("couData") != null ? requestBody.get("couData").toString() : null;
+            // Resolve referenced stored documents before the write transaction opens
+            couData = documentStoreService.populateCouData(couData);
 
             SubmissionUnit submissionUnit = submissionUnitService.createSubmissionUnit(
                 appId, effectiveDate, suType, suUnitType, couData);
@@ -103,16 +183,28 @@ public class SubmissionUnitController {
     /**
      * Update submission unit
      * @param suId Submission unit ID
+     * @param idempotencyKey Optional Idempotency-Key header for retry-safe updates
+     * @param headers Request headers; If-Match makes the update conditional (412 if the submission unit changed)
      * @param submissionUnit Updated submission unit data
      * @return Updated submission unit
      */
     @PutMapping("/{suId}")
-    public ResponseEntity<SubmissionUnit> updateSubmissionUnit(
-            @PathVariable Long suId, @RequestBody SubmissionUnit submissionUnit) {
+    public ResponseEntity<?> updateSubmissionUnit(
+            @PathVariable Long suId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestHeader HttpHeaders headers,
+            @RequestBody SubmissionUnit submissionUnit) {
+        Predicate<String> ifMatch = EntityTags.ifMatch(headers);
+        return idempotencyService.execute(idempotencyKey, submissionUnit, () -> doUpdateSubmissionUnit(suId, submissionUnit, ifMatch));
+    }
+
+    private ResponseEntity<?> doUpdateSubmissionUnit(Long suId, SubmissionUnit submissionUnit, Predicate<String> ifMatch) {
         try {
             submissionUnit.setSuId(suId);
-            SubmissionUnit updated = submissionUnitService.updateSubmissionUnit(submissionUnit);
+            SubmissionUnit updated = submissionUnitService.updateSubmissionUnit(submissionUnit, ifMatch);
             return ResponseEntity.ok(updated);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -136,16 +228,28 @@ public class SubmissionUnitController {
     /**
      * Update CoU data for a submission unit (replace entire array)
      * @param suId Submission unit ID
+     * @param idempotencyKey Optional Idempotency-Key header for retry-safe updates
+     * @param headers Request headers; If-Match makes the update conditional (412 if the submission unit changed)
      * @param requestBody Request body containing CoU data
      * @return Updated submission unit
      */
     @PutMapping("/{suId}/cou-data")
-    public ResponseEntity<SubmissionUnit> updateCouData(
-            @PathVariable Long suId, @RequestBody Map<String, String> requestBody) {
+    public ResponseEntity<?> updateCouData(
+            @PathVariable Long suId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestHeader HttpHeaders headers,
+            @RequestBody Map<String, String> requestBody) {
+        Predicate<String> ifMatch = EntityTags.ifMatch(headers);
+        return idempotencyService.execute(idempotencyKey, requestBody, () -> doUpdateCouData(suId, requestBody, ifMatch));
+    }
+
+    private ResponseEntity<?> doUpdateCouData(Long suId, Map<String, String> requestBody, Predicate<String> ifMatch) {
         try {
-            String couData = requestBody.get("couData");
-            SubmissionUnit updated = submissionUnitService.updateCouData(suId, couData);
+            String couData = documentStoreService.populateCouData(requestBody.get("couData"));
+            SubmissionUnit updated = submissionUnitService.updateCouData(suId, couData, ifMatch);
             return ResponseEntity.ok(updated);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         } catch (JsonProcessingException e) {
@@ -158,13 +262,24 @@ public class SubmissionUnitController {
     /**
      * Add a single CoU operation to the submission unit
      * @param suId Submission unit ID
+     * @param idempotencyKey Optional Idempotency-Key header; retries with the same key
+     *                       return the stored result instead of appending the operation again
      * @param couOperation CoU operation to add
      * @return Updated submission unit
      */
     @PostMapping("/{suId}/cou-operations")
-    public ResponseEntity<SubmissionUnit> addCouOperation(
-            @PathVariable Long suId, @RequestBody CoUOperation couOperation) {
+    public ResponseEntity<?> addCouOperation(
+            @PathVariable Long suId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody CoUOperation couOperation) {
+        // The service stamps the timestamp itself; drop the constructor default so retries hash identically
+        couOperation.setTimestamp(null);
+        return idempotencyService.execute(idempotencyKey, couOperation, () -> doAddCouOperation(suId, couOperation));
+    }
+
+    private ResponseEntity<?> doAddCouOperation(Long suId, CoUOperation couOperation) {
         try {
+            documentStoreService.populate(Collections.singletonList(couOperation.getDocument()));
             SubmissionUnit updated = submissionUnitService.addCouOperation(suId, couOperation);
             return ResponseEntity.ok(updated);
         } catch (IllegalArgumentException e) {
@@ -192,6 +307,31 @@ public class SubmissionUnitController {
         }
     }
 
+    /**
+     * Compute SHA-256 checksums of all documents referenced by the CoU operations and
+     * record them on the operations. Runs asynchronously; poll GET /jobs/{jobId} for progress.
+     * @param suId Submission unit ID
+     * @param idempotencyKey Optional Idempotency-Key header
+     * @return Checksum job
+     */
+    @PostMapping("/{suId}/checksums")
+    public ResponseEntity<?> computeChecksums(
+            @PathVariable Long suId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, suId, () -> doComputeChecksums(suId));
+    }
+
+    private ResponseEntity<?> doComputeChecksums(Long suId) {
+        try {
+            AsyncJob job = documentChecksumService.startChecksumJob(suId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
     /**
      * Remove a specific CoU operation from the submission unit
      * @param suId Submission unit ID
@@ -0,0 +1,56 @@
+package com.ectd.backend.controller;
+
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.ValidationReport;
+import com.ectd.backend.service.ValidationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Validation Controller
+ * REST API endpoints for validating applications against the eCTD rule set
+ */
+@RestController
+@RequestMapping("/validations")
+@CrossOrigin(origins = "*")
+public class ValidationController {
+
+    @Autowired
+    private ValidationService validationService;
+
+    /**
+     * Validate one application. Only parts changed since the previous run are re-checked.
+     * @param appId Application ID
+     * @param full Re-check everything, ignoring cached results
+     * @return Validation report
+     */
+    @GetMapping("/applications/{appId}")
+    public ResponseEntity<?> validateApplication(@PathVariable Long appId,
+                                                 @RequestParam(defaultValue = "false") boolean full) {
+        try {
+            ValidationReport report = validationService.validateApplication(appId, full);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validate all applications in the background; poll GET /jobs/{jobId} for progress
+     * @param full Re-check everything, ignoring cached results
+     * @return Validation job
+     */
+    @PostMapping
+    public ResponseEntity<?> validatePortfolio(@RequestParam(defaultValue = "false") boolean full) {
+        try {
+            AsyncJob job = validationService.startPortfolioValidation(full);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Internal server error: " + e.getMessage());
+        }
+    }
+}
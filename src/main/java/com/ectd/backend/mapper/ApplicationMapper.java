@@ -1,9 +1,12 @@
 package com.ectd.backend.mapper;
 
 import com.ectd.backend.model.Application;
+import com.ectd.backend.model.RawApplication;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -27,6 +30,13 @@ public interface ApplicationMapper {
      */
     Application findById(@Param("appId") Long appId);
     
+    /**
+     * Read an application with its root section as a character stream
+     * @param appId Application ID
+     * @param handler Receives the row (if any) while its result set is open
+     */
+    void streamRawById(@Param("appId") Long appId, ResultHandler<RawApplication> handler);
+
     /**
      * Find all applications
      * @return List of applications
@@ -39,6 +49,14 @@ public interface ApplicationMapper {
      * @return Number of affected rows
      */
     int insert(Application application);
+
+    /**
+     * Insert a copy of an application row as read from another database, keeping its
+     * created_at, updated_at and version
+     * @param application Application entity with all columns set
+     * @return Number of affected rows
+     */
+    int insertCopy(Application application);
     
     /**
      * Update application
@@ -59,5 +77,79 @@ public interface ApplicationMapper {
      * @return Total count
      */
     int count();
+
+    /**
+     * Update only the status of an application
+     * @param appId Application ID
+     * @param status New status
+     * @return Number of affected rows
+     */
+    int updateStatus(@Param("appId") Long appId, @Param("status") String status);
+
+    /**
+     * Switch where the root section tree is kept
+     * @param appId Application ID
+     * @param treeStorage JSON, NODES_ARRAY or NODES_OBJECT
+     * @param rootSection Root section JSON for JSON storage, null for node storage
+     * @return Number of affected rows
+     */
+    int updateTreeStorage(@Param("appId") Long appId, @Param("treeStorage") String treeStorage,
+                          @Param("rootSection") String rootSection);
+
+    /**
+     * Increment the version of an application whose section nodes changed
+     * @param appId Application ID
+     * @return Number of affected rows
+     */
+    int bumpVersion(@Param("appId") Long appId);
+
+    /**
+     * Lock an application row until the transaction ends and read its shard move fence
+     * @param appId Application ID
+     * @return true while the application is being moved off this database, null if it is not here
+     */
+    Boolean findFencedForUpdate(@Param("appId") Long appId);
+
+    /**
+     * Set or clear the shard move fence of an application; updated_at and version are kept
+     * @param appId Application ID
+     * @param fenced Whether writes to the application on this database are rejected
+     * @return Number of affected rows
+     */
+    int updateFenced(@Param("appId") Long appId, @Param("fenced") boolean fenced);
+
+    /**
+     * Find the version and update time of an application (no root section)
+     * @param appId Application ID
+     * @return Application with only appId, updatedAt and version set, or null if it doesn't exist
+     */
+    Application findVersionById(@Param("appId") Long appId);
+
+    /**
+     * Find the IDs of applications with a status
+     * @param status Application status
+     * @return Application IDs
+     */
+    List<Long> findIdsByStatus(@Param("status") String status);
+
+    /**
+     * Find ID and number of all applications (no root section)
+     * @return List of applications with only appId and appNumber set
+     */
+    List<Application> findAllKeys();
+
+    /**
+     * Find applications changed at or after a point in time, including applications with
+     * section nodes changed since
+     * @param since Lower bound of updated_at (inclusive)
+     * @return List of applications
+     */
+    List<Application> findUpdatedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Largest application ID in use
+     * @return Maximum app_id, or 0 if there are no applications
+     */
+    long findMaxId();
 }
 
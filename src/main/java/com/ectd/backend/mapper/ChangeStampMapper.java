@@ -0,0 +1,52 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.ChangeStamp;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * Change Stamp Mapper Interface
+ * Provides database operations for per-application change versions
+ */
+@Mapper
+public interface ChangeStampMapper {
+
+    /**
+     * Increment the version of an application, creating the stamp if needed
+     * @param appId Application ID
+     * @return Number of affected rows
+     */
+    int bump(@Param("appId") Long appId);
+
+    /**
+     * Get the current version of an application
+     * @param appId Application ID
+     * @return Version, or null if the application was never written
+     */
+    Long findVersion(@Param("appId") Long appId);
+
+    /**
+     * Get the current version of an application and lock its stamp until the end of the
+     * transaction, so no submission unit write can commit in between
+     * @param appId Application ID
+     * @return Version, or null if the application was never written
+     */
+    Long findVersionForUpdate(@Param("appId") Long appId);
+
+    /**
+     * Get the current versions of several applications in one query
+     * @param appIds Application IDs
+     * @return Stamps of the applications that have one
+     */
+    List<ChangeStamp> findVersions(@Param("appIds") List<Long> appIds);
+
+    /**
+     * Set the version of an application (used when an application is copied to another shard)
+     * @param appId Application ID
+     * @param version Version
+     * @return Number of affected rows
+     */
+    int upsert(@Param("appId") Long appId, @Param("version") long version);
+}
@@ -0,0 +1,36 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.StoredDocument;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * Document Mapper Interface
+ * Provides database operations for the document store metadata
+ */
+@Mapper
+public interface DocumentMapper {
+
+    /**
+     * Find document by content hash
+     * @param sha256 SHA-256 hex
+     * @return StoredDocument entity
+     */
+    StoredDocument findBySha256(@Param("sha256") String sha256);
+
+    /**
+     * Find documents by content hash
+     * @param sha256s SHA-256 hex values
+     * @return Stored documents that exist
+     */
+    List<StoredDocument> findBySha256In(@Param("sha256s") List<String> sha256s);
+
+    /**
+     * Insert document metadata, keeping the existing row for duplicate content
+     * @param document StoredDocument entity
+     * @return Number of affected rows (0 for duplicates)
+     */
+    int insertIgnore(StoredDocument document);
+}
@@ -0,0 +1,53 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.DossierCheckpoint;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * Dossier Checkpoint Mapper Interface
+ * Provides database operations for point-in-time reconstruction checkpoints
+ */
+@Mapper
+public interface DossierCheckpointMapper {
+
+    /**
+     * Get the positions of an application's checkpoints, without their state
+     * @param appId Application ID
+     * @return Checkpoints ordered by sequence number
+     */
+    List<DossierCheckpoint> findPositions(@Param("appId") Long appId);
+
+    /**
+     * Get a checkpoint with its state
+     * @param appId Application ID
+     * @param sequenceNum Sequence number
+     * @return Checkpoint, or null if it doesn't exist
+     */
+    DossierCheckpoint findBySequence(@Param("appId") Long appId, @Param("sequenceNum") Integer sequenceNum);
+
+    /**
+     * Insert a checkpoint
+     * @param checkpoint Checkpoint
+     * @return Number of affected rows
+     */
+    int insert(DossierCheckpoint checkpoint);
+
+    /**
+     * Delete the checkpoints at and after a sequence number, which a write to that
+     * submission unit makes stale
+     * @param appId Application ID
+     * @param sequenceNum Sequence number of the written submission unit
+     * @return Number of affected rows
+     */
+    int deleteFromSequence(@Param("appId") Long appId, @Param("sequenceNum") Integer sequenceNum);
+
+    /**
+     * Delete all checkpoints of an application
+     * @param appId Application ID
+     * @return Number of affected rows
+     */
+    int deleteByAppId(@Param("appId") Long appId);
+}
@@ -0,0 +1,67 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.IdempotencyRecord;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency Key Mapper Interface
+ * Provides database operations for stored idempotent responses
+ */
+@Mapper
+public interface IdempotencyKeyMapper {
+
+    /**
+     * Find an unexpired record by key and scope
+     * @param idemKey Idempotency key
+     * @param scope Request scope
+     * @return IdempotencyRecord entity
+     */
+    IdempotencyRecord findByKey(@Param("idemKey") String idemKey, @Param("scope") String scope);
+
+    /**
+     * Claim a key that has no record
+     * @param record IdempotencyRecord entity
+     * @return Number of affected rows
+     * @throws org.springframework.dao.DuplicateKeyException If the key already has a record
+     */
+    int insert(IdempotencyRecord record);
+
+    /**
+     * Claim a key whose record has expired
+     * @param record IdempotencyRecord entity
+     * @return Number of affected rows (0 if the record is still live)
+     */
+    int takeOverExpired(IdempotencyRecord record);
+
+    /**
+     * Extend the claim of an attempt that is still running
+     * @param record Claim with the new expiry time
+     * @return Number of affected rows (0 if the claim was completed or lost)
+     */
+    int renewClaim(IdempotencyRecord record);
+
+    /**
+     * Store the response of a completed attempt
+     * @param record IdempotencyRecord entity
+     * @return Number of affected rows
+     */
+    int complete(IdempotencyRecord record);
+
+    /**
+     * Release a claimed key
+     * @param idemKey Idempotency key
+     * @param scope Request scope
+     * @return Number of affected rows
+     */
+    int deleteByKey(@Param("idemKey") String idemKey, @Param("scope") String scope);
+
+    /**
+     * Delete expired records
+     * @param now Current time
+     * @return Number of affected rows
+     */
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,190 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.SectionClosure;
+import com.ectd.backend.model.SectionNode;
+import com.ectd.backend.model.StatisticCount;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * Section Node Mapper Interface
+ * Root section trees stored as rows (ectd_section_node) with their closure table
+ * (ectd_section_closure). Every statement is restricted to one application.
+ */
+@Mapper
+public interface SectionNodeMapper {
+
+    /**
+     * Find all nodes of an application, ordered by parent and position
+     * @param appId Application ID
+     * @return Nodes
+     */
+    List<SectionNode> findByAppId(@Param("appId") Long appId);
+
+    /**
+     * Find one node
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return Node, or null
+     */
+    SectionNode findById(@Param("appId") Long appId, @Param("nodeId") Long nodeId);
+
+    /**
+     * Find a node and all nodes below it, nearest first
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @param nodeType Only nodes of this type (optional)
+     * @return Nodes with depth set (0 for the node itself)
+     */
+    List<SectionNode> findSubtree(@Param("appId") Long appId, @Param("nodeId") Long nodeId,
+                                  @Param("nodeType") String nodeType);
+
+    /**
+     * Find the ancestors of a node, from the top-level node down to its parent
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return Nodes with depth set (levels above the node)
+     */
+    List<SectionNode> findAncestors(@Param("appId") Long appId, @Param("nodeId") Long nodeId);
+
+    /**
+     * Find the ids of a node and all nodes below it
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return Node ids
+     */
+    List<Long> findDescendantIds(@Param("appId") Long appId, @Param("nodeId") Long nodeId);
+
+    /**
+     * Count the document nodes below each module node
+     * @param appId Application ID
+     * @param moduleName Only modules with this name (optional)
+     * @return Counts keyed by module name
+     */
+    List<StatisticCount> countModuleDocuments(@Param("appId") Long appId, @Param("moduleName") String moduleName);
+
+    /**
+     * Number of children of a node
+     * @param appId Application ID
+     * @param parentId Parent node id, null for top-level nodes
+     * @return Number of children
+     */
+    int countChildren(@Param("appId") Long appId, @Param("parentId") Long parentId);
+
+    /**
+     * Insert nodes
+     * @param nodes Nodes of one application
+     * @return Number of affected rows
+     */
+    int insertNodes(@Param("list") List<SectionNode> nodes);
+
+    /**
+     * Insert copies of nodes as read from another database, keeping their updated_at
+     * @param nodes Nodes of one application
+     * @return Number of affected rows
+     */
+    int insertNodeCopies(@Param("list") List<SectionNode> nodes);
+
+    /**
+     * Insert closure rows
+     * @param closures Closure rows of one application
+     * @return Number of affected rows
+     */
+    int insertClosures(@Param("list") List<SectionClosure> closures);
+
+    /**
+     * Link a subtree below a new parent: every ancestor of the parent (including itself)
+     * to every node of the subtree
+     * @param appId Application ID
+     * @param nodeId Root of the subtree
+     * @param parentId New parent node id
+     * @return Number of affected rows
+     */
+    int insertSubtreeClosures(@Param("appId") Long appId, @Param("nodeId") Long nodeId, @Param("parentId") Long parentId);
+
+    /**
+     * Update type, name and attributes of a node
+     * @param node Node
+     * @return Number of affected rows
+     */
+    int updateNode(SectionNode node);
+
+    /**
+     * Move a node to another parent and/or position
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @param parentId New parent node id, null for top level
+     * @param position New position
+     * @return Number of affected rows
+     */
+    int updatePlacement(@Param("appId") Long appId, @Param("nodeId") Long nodeId,
+                        @Param("parentId") Long parentId, @Param("position") int position);
+
+    /**
+     * Shift the positions of the children of a node from a position on
+     * @param appId Application ID
+     * @param parentId Parent node id, null for top-level nodes
+     * @param fromPosition First position to shift
+     * @param delta Amount to add (+1 to open a gap, -1 to close one)
+     * @return Number of affected rows
+     */
+    int shiftPositions(@Param("appId") Long appId, @Param("parentId") Long parentId,
+                       @Param("fromPosition") int fromPosition, @Param("delta") int delta);
+
+    /**
+     * Set updated_at of a node to now, so catch-up readers see a change below it
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return Number of affected rows
+     */
+    int touch(@Param("appId") Long appId, @Param("nodeId") Long nodeId);
+
+    /**
+     * Delete nodes
+     * @param appId Application ID
+     * @param nodeIds Node ids
+     * @return Number of affected rows
+     */
+    int deleteNodes(@Param("appId") Long appId, @Param("nodeIds") List<Long> nodeIds);
+
+    /**
+     * Delete the closure rows leading to nodes
+     * @param appId Application ID
+     * @param nodeIds Descendant node ids
+     * @return Number of affected rows
+     */
+    int deleteClosuresByDescendants(@Param("appId") Long appId, @Param("nodeIds") List<Long> nodeIds);
+
+    /**
+     * Delete the closure rows between a set of ancestors and a set of descendants
+     * @param appId Application ID
+     * @param ancestorIds Ancestor node ids
+     * @param descendantIds Descendant node ids
+     * @return Number of affected rows
+     */
+    int deleteClosurePaths(@Param("appId") Long appId, @Param("ancestorIds") List<Long> ancestorIds,
+                           @Param("descendantIds") List<Long> descendantIds);
+
+    /**
+     * Delete all nodes of an application
+     * @param appId Application ID
+     * @return Number of affected rows
+     */
+    int deleteByAppId(@Param("appId") Long appId);
+
+    /**
+     * Delete all closure rows of an application
+     * @param appId Application ID
+     * @return Number of affected rows
+     */
+    int deleteClosuresByAppId(@Param("appId") Long appId);
+
+    /**
+     * Find all closure rows of an application
+     * @param appId Application ID
+     * @return Closure rows
+     */
+    List<SectionClosure> findClosuresByAppId(@Param("appId") Long appId);
+}
@@ -0,0 +1,99 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.ShardDirectoryEntry;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shard Directory Mapper Interface
+ * Provides database operations for the app_id / app_number to shard directory and the
+ * global ID sequences. These tables live on shard 0.
+ */
+@Mapper
+public interface ShardDirectoryMapper {
+
+    /**
+     * Find directory entry by application ID
+     * @param appId Application ID
+     * @return ShardDirectoryEntry entity
+     */
+    ShardDirectoryEntry findByAppId(@Param("appId") Long appId);
+
+    /**
+     * Find directory entry by application number
+     * @param appNumber Application number
+     * @return ShardDirectoryEntry entity
+     */
+    ShardDirectoryEntry findByAppNumber(@Param("appNumber") String appNumber);
+
+    /**
+     * Find application IDs on a shard
+     * @param shardId Shard index
+     * @param limit Maximum number of IDs
+     * @return Application IDs
+     */
+    List<Long> findAppIdsByShard(@Param("shardId") int shardId, @Param("limit") int limit);
+
+    /**
+     * Count applications per shard
+     * @return Rows with shard_id and app_count
+     */
+    List<Map<String, Object>> countByShard();
+
+    /**
+     * Insert directory entry
+     * @param entry ShardDirectoryEntry entity
+     * @return Number of affected rows
+     */
+    int insert(ShardDirectoryEntry entry);
+
+    /**
+     * Update the application number of an entry
+     * @param appId Application ID
+     * @param appNumber New application number
+     * @return Number of affected rows
+     */
+    int updateAppNumber(@Param("appId") Long appId, @Param("appNumber") String appNumber);
+
+    /**
+     * Update shard and status of an entry
+     * @param appId Application ID
+     * @param shardId Shard index
+     * @param status Entry status
+     * @return Number of affected rows
+     */
+    int updateShard(@Param("appId") Long appId, @Param("shardId") int shardId, @Param("status") String status);
+
+    /**
+     * Delete directory entry
+     * @param appId Application ID
+     * @return Number of affected rows
+     */
+    int deleteByAppId(@Param("appId") Long appId);
+
+    /**
+     * Create an ID sequence unless it already exists
+     * @param name Sequence name
+     * @param nextValue First value to hand out
+     * @return Number of affected rows
+     */
+    int insertSequenceIfAbsent(@Param("name") String name, @Param("nextValue") long nextValue);
+
+    /**
+     * Read the next value of a sequence, locking its row until the transaction ends
+     * @param name Sequence name
+     * @return Next value, or null if the sequence does not exist
+     */
+    Long findSequenceForUpdate(@Param("name") String name);
+
+    /**
+     * Advance a sequence past a reserved block of IDs
+     * @param name Sequence name
+     * @param blockSize Number of IDs reserved
+     * @return Number of affected rows
+     */
+    int advanceSequence(@Param("name") String name, @Param("blockSize") int blockSize);
+}
@@ -0,0 +1,215 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.RawApplication;
+import com.ectd.backend.model.ShardDirectoryEntry;
+import com.ectd.backend.service.ShardDirectoryService;
+import com.ectd.backend.service.ShardRouter;
+import org.apache.ibatis.session.ResultHandler;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Sharded Application Mapper
+ * ApplicationMapper that routes every statement to the shard holding the application,
+ * found through the shard directory. List and count queries are scatter-gathered.
+ * Injected in place of the plain MyBatis mapper when ectd.sharding.enabled=true.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+public class ShardedApplicationMapper implements ApplicationMapper {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardDirectoryService shardDirectoryService;
+
+    private final ApplicationMapper target;
+
+    public ShardedApplicationMapper(SqlSessionTemplate sqlSessionTemplate) {
+        this.target = sqlSessionTemplate.getMapper(ApplicationMapper.class);
+    }
+
+    @Override
+    public Application findByAppNumber(String appNumber) {
+        ShardDirectoryEntry entry = shardDirectoryService.getEntryByAppNumber(appNumber);
+        return entry == null ? null : findById(entry.getAppId());
+    }
+
+    @Override
+    public Application findById(Long appId) {
+        return findOnShard(appId, () -> target.findById(appId));
+    }
+
+    private Application findOnShard(Long appId, Supplier<Application> query) {
+        ShardDirectoryEntry entry = shardDirectoryService.getEntry(appId);
+        if (entry == null) {
+            return null;
+        }
+        Application app = shardRouter.on(entry.getShardId(), query);
+        if (app == null) {
+            // The application may have been moved by another node since the entry was cached
+            ShardDirectoryEntry fresh = shardDirectoryService.refresh(appId);
+            if (fresh != null && !fresh.getShardId().equals(entry.getShardId())) {
+                app = shardRouter.on(fresh.getShardId(), query);
+            }
+        }
+        return app;
+    }
+
+    @Override
+    public void streamRawById(Long appId, ResultHandler<RawApplication> handler) {
+        shardRouter.onApp(appId, () -> {
+            target.streamRawById(appId, handler);
+            return null;
+        }, null);
+    }
+
+    @Override
+    public List<Application> findAll() {
+        List<Application> all = new ArrayList<>();
+        shardRouter.scatter(shard -> target.findAll()).forEach(all::addAll);
+        all.sort(Comparator.comparing(Application::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder())));
+        return all;
+    }
+
+    @Override
+    public int insert(Application application) {
+        if (application.getAppId() == null) {
+            application.setAppId(shardDirectoryService.nextId(ShardDirectoryService.APP_SEQUENCE, this::findMaxId));
+        }
+        int shard = shardRouter.placeNewApplication(application.getAppId());
+        // Registering first makes the directory's unique app_number the global uniqueness check
+        shardDirectoryService.register(application.getAppId(), application.getAppNumber(), shard);
+        try {
+            int rows = shardRouter.on(shard, () -> target.insert(application));
+            afterRollback(() -> shardDirectoryService.remove(application.getAppId()));
+            return rows;
+        } catch (RuntimeException e) {
+            shardDirectoryService.remove(application.getAppId());
+            throw e;
+        }
+    }
+
+    @Override
+    public int insertCopy(Application application) {
+        // The row is restored on the application's shard in the directory
+        return shardRouter.onApp(application.getAppId(), () -> target.insertCopy(application), 0);
+    }
+
+    @Override
+    public int update(Application application) {
+        int rows = shardRouter.writeOnApp(application.getAppId(), () -> target.update(application));
+        if (rows > 0) {
+            shardDirectoryService.updateAppNumber(application.getAppId(), application.getAppNumber());
+        }
+        return rows;
+    }
+
+    @Override
+    public int updateStatus(Long appId, String status) {
+        return shardRouter.writeOnApp(appId, () -> target.updateStatus(appId, status));
+    }
+
+    @Override
+    public int updateTreeStorage(Long appId, String treeStorage, String rootSection) {
+        return shardRouter.writeOnApp(appId, () -> target.updateTreeStorage(appId, treeStorage, rootSection));
+    }
+
+    @Override
+    public int bumpVersion(Long appId) {
+        return shardRouter.writeOnApp(appId, () -> target.bumpVersion(appId));
+    }
+
+    @Override
+    public Boolean findFencedForUpdate(Long appId) {
+        return shardRouter.onApp(appId, () -> target.findFencedForUpdate(appId), null);
+    }
+
+    @Override
+    public int updateFenced(Long appId, boolean fenced) {
+        return shardRouter.onApp(appId, () -> target.updateFenced(appId, fenced), 0);
+    }
+
+    @Override
+    public Application findVersionById(Long appId) {
+        return findOnShard(appId, () -> target.findVersionById(appId));
+    }
+
+    @Override
+    public List<Long> findIdsByStatus(String status) {
+        List<Long> all = new ArrayList<>();
+        shardRouter.scatter(shard -> target.findIdsByStatus(status)).forEach(all::addAll);
+        return all;
+    }
+
+    @Override
+    public int deleteById(Long appId) {
+        int rows = shardRouter.writeOnApp(appId, () -> target.deleteById(appId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    shardDirectoryService.remove(appId);
+                }
+            });
+        } else {
+            shardDirectoryService.remove(appId);
+        }
+        return rows;
+    }
+
+    /**
+     * The directory is written in its own transaction; undo the registration if the
+     * application insert is rolled back
+     */
+    private void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public int count() {
+        return shardRouter.scatter(shard -> target.count()).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public List<Application> findAllKeys() {
+        List<Application> all = new ArrayList<>();
+        shardRouter.scatter(shard -> target.findAllKeys()).forEach(all::addAll);
+        return all;
+    }
+
+    @Override
+    public List<Application> findUpdatedSince(LocalDateTime since) {
+        List<Application> all = new ArrayList<>();
+        shardRouter.scatter(shard -> target.findUpdatedSince(since)).forEach(all::addAll);
+        return all;
+    }
+
+    @Override
+    public long findMaxId() {
+        return shardRouter.scatter(shard -> target.findMaxId()).stream().mapToLong(Long::longValue).max().orElse(0);
+    }
+}
@@ -0,0 +1,77 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.ChangeStamp;
+import com.ectd.backend.model.ShardDirectoryEntry;
+import com.ectd.backend.service.ShardDirectoryService;
+import com.ectd.backend.service.ShardRouter;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sharded Change Stamp Mapper
+ * ChangeStampMapper that keeps each stamp on the shard of its application, so it is
+ * bumped in the same transaction as the submission unit write. Batched version reads
+ * are grouped by shard.
+ * Injected in place of the plain MyBatis mapper when ectd.sharding.enabled=true.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+public class ShardedChangeStampMapper implements ChangeStampMapper {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardDirectoryService shardDirectoryService;
+
+    private final ChangeStampMapper target;
+
+    public ShardedChangeStampMapper(SqlSessionTemplate sqlSessionTemplate) {
+        this.target = sqlSessionTemplate.getMapper(ChangeStampMapper.class);
+    }
+
+    @Override
+    public int bump(Long appId) {
+        return shardRouter.writeOnApp(appId, () -> target.bump(appId));
+    }
+
+    @Override
+    public Long findVersion(Long appId) {
+        return shardRouter.onApp(appId, () -> target.findVersion(appId), null);
+    }
+
+    @Override
+    public Long findVersionForUpdate(Long appId) {
+        return shardRouter.lockOnApp(appId, () -> target.findVersionForUpdate(appId), null);
+    }
+
+    @Override
+    public List<ChangeStamp> findVersions(List<Long> appIds) {
+        Map<Integer, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long appId : appIds) {
+            ShardDirectoryEntry entry = shardDirectoryService.getEntry(appId);
+            if (entry != null) {
+                byShard.computeIfAbsent(entry.getShardId(), k -> new ArrayList<>()).add(appId);
+            }
+        }
+        List<ChangeStamp> stamps = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> shard : byShard.entrySet()) {
+            stamps.addAll(shardRouter.on(shard.getKey(), () -> target.findVersions(shard.getValue())));
+        }
+        return stamps;
+    }
+
+    @Override
+    public int upsert(Long appId, long version) {
+        return shardRouter.writeOnApp(appId, () -> target.upsert(appId, version));
+    }
+}
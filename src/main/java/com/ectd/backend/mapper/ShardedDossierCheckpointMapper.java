@@ -0,0 +1,58 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.DossierCheckpoint;
+import com.ectd.backend.service.ShardRouter;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Sharded Dossier Checkpoint Mapper
+ * DossierCheckpointMapper that keeps checkpoints on the shard of their application, so
+ * they are invalidated in the same transaction as the submission unit write. Checkpoints
+ * are not copied when an application moves; the target shard builds them again.
+ * Injected in place of the plain MyBatis mapper when ectd.sharding.enabled=true.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+public class ShardedDossierCheckpointMapper implements DossierCheckpointMapper {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private final DossierCheckpointMapper target;
+
+    public ShardedDossierCheckpointMapper(SqlSessionTemplate sqlSessionTemplate) {
+        this.target = sqlSessionTemplate.getMapper(DossierCheckpointMapper.class);
+    }
+
+    @Override
+    public List<DossierCheckpoint> findPositions(Long appId) {
+        return shardRouter.onApp(appId, () -> target.findPositions(appId), List.of());
+    }
+
+    @Override
+    public DossierCheckpoint findBySequence(Long appId, Integer sequenceNum) {
+        return shardRouter.onApp(appId, () -> target.findBySequence(appId, sequenceNum), null);
+    }
+
+    @Override
+    public int insert(DossierCheckpoint checkpoint) {
+        return shardRouter.writeOnApp(checkpoint.getAppId(), () -> target.insert(checkpoint));
+    }
+
+    @Override
+    public int deleteFromSequence(Long appId, Integer sequenceNum) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteFromSequence(appId, sequenceNum));
+    }
+
+    @Override
+    public int deleteByAppId(Long appId) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteByAppId(appId));
+    }
+}
@@ -0,0 +1,163 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.SectionClosure;
+import com.ectd.backend.model.SectionNode;
+import com.ectd.backend.model.StatisticCount;
+import com.ectd.backend.service.ShardRouter;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Sharded Section Node Mapper
+ * SectionNodeMapper that keeps the nodes and closure rows of an application on its shard.
+ * Injected in place of the plain MyBatis mapper when ectd.sharding.enabled=true.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+public class ShardedSectionNodeMapper implements SectionNodeMapper {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private final SectionNodeMapper target;
+
+    public ShardedSectionNodeMapper(SqlSessionTemplate sqlSessionTemplate) {
+        this.target = sqlSessionTemplate.getMapper(SectionNodeMapper.class);
+    }
+
+    @Override
+    public List<SectionNode> findByAppId(Long appId) {
+        return shardRouter.onApp(appId, () -> target.findByAppId(appId), new ArrayList<>());
+    }
+
+    @Override
+    public SectionNode findById(Long appId, Long nodeId) {
+        return shardRouter.onApp(appId, () -> target.findById(appId, nodeId), null);
+    }
+
+    @Override
+    public List<SectionNode> findSubtree(Long appId, Long nodeId, String nodeType) {
+        return shardRouter.onApp(appId, () -> target.findSubtree(appId, nodeId, nodeType), new ArrayList<>());
+    }
+
+    @Override
+    public List<SectionNode> findAncestors(Long appId, Long nodeId) {
+        return shardRouter.onApp(appId, () -> target.findAncestors(appId, nodeId), new ArrayList<>());
+    }
+
+    @Override
+    public List<Long> findDescendantIds(Long appId, Long nodeId) {
+        return shardRouter.onApp(appId, () -> target.findDescendantIds(appId, nodeId), new ArrayList<>());
+    }
+
+    @Override
+    public List<StatisticCount> countModuleDocuments(Long appId, String moduleName) {
+        return shardRouter.onApp(appId, () -> target.countModuleDocuments(appId, moduleName), new ArrayList<>());
+    }
+
+    @Override
+    public int countChildren(Long appId, Long parentId) {
+        return shardRouter.onApp(appId, () -> target.countChildren(appId, parentId), 0);
+    }
+
+    @Override
+    public int insertNodes(List<SectionNode> nodes) {
+        if (nodes.isEmpty()) {
+            return 0;
+        }
+        Long appId = singleApp(nodes, SectionNode::getAppId);
+        return shardRouter.writeOnApp(appId, () -> target.insertNodes(nodes));
+    }
+
+    @Override
+    public int insertNodeCopies(List<SectionNode> nodes) {
+        if (nodes.isEmpty()) {
+            return 0;
+        }
+        Long appId = singleApp(nodes, SectionNode::getAppId);
+        return shardRouter.writeOnApp(appId, () -> target.insertNodeCopies(nodes));
+    }
+
+    @Override
+    public int insertClosures(List<SectionClosure> closures) {
+        if (closures.isEmpty()) {
+            return 0;
+        }
+        Long appId = singleApp(closures, SectionClosure::getAppId);
+        return shardRouter.writeOnApp(appId, () -> target.insertClosures(closures));
+    }
+
+    @Override
+    public int insertSubtreeClosures(Long appId, Long nodeId, Long parentId) {
+        return shardRouter.writeOnApp(appId, () -> target.insertSubtreeClosures(appId, nodeId, parentId));
+    }
+
+    @Override
+    public int updateNode(SectionNode node) {
+        return shardRouter.writeOnApp(node.getAppId(), () -> target.updateNode(node));
+    }
+
+    @Override
+    public int updatePlacement(Long appId, Long nodeId, Long parentId, int position) {
+        return shardRouter.writeOnApp(appId, () -> target.updatePlacement(appId, nodeId, parentId, position));
+    }
+
+    @Override
+    public int shiftPositions(Long appId, Long parentId, int fromPosition, int delta) {
+        return shardRouter.writeOnApp(appId, () -> target.shiftPositions(appId, parentId, fromPosition, delta));
+    }
+
+    @Override
+    public int touch(Long appId, Long nodeId) {
+        return shardRouter.writeOnApp(appId, () -> target.touch(appId, nodeId));
+    }
+
+    @Override
+    public int deleteNodes(Long appId, List<Long> nodeIds) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteNodes(appId, nodeIds));
+    }
+
+    @Override
+    public int deleteClosuresByDescendants(Long appId, List<Long> nodeIds) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteClosuresByDescendants(appId, nodeIds));
+    }
+
+    @Override
+    public int deleteClosurePaths(Long appId, List<Long> ancestorIds, List<Long> descendantIds) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteClosurePaths(appId, ancestorIds, descendantIds));
+    }
+
+    @Override
+    public int deleteByAppId(Long appId) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteByAppId(appId));
+    }
+
+    @Override
+    public int deleteClosuresByAppId(Long appId) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteClosuresByAppId(appId));
+    }
+
+    @Override
+    public List<SectionClosure> findClosuresByAppId(Long appId) {
+        return shardRouter.onApp(appId, () -> target.findClosuresByAppId(appId), new ArrayList<>());
+    }
+
+    private static <T> Long singleApp(List<T> rows, Function<T, Long> appIdOf) {
+        Long appId = appIdOf.apply(rows.get(0));
+        for (T row : rows) {
+            if (!Objects.equals(appId, appIdOf.apply(row))) {
+                throw new IllegalArgumentException("A section node insert must not span applications");
+            }
+        }
+        return appId;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.StatisticCount;
+import com.ectd.backend.model.StatisticCounter;
+import com.ectd.backend.service.ShardRouter;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Sharded Statistics Mapper
+ * StatisticsMapper that keeps counters on the shard of their application and
+ * scatter-gathers the aggregates, adding up the per-shard counts of each key.
+ * Injected in place of the plain MyBatis mapper when ectd.sharding.enabled=true.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+public class ShardedStatisticsMapper implements StatisticsMapper {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private final StatisticsMapper target;
+
+    public ShardedStatisticsMapper(SqlSessionTemplate sqlSessionTemplate) {
+        this.target = sqlSessionTemplate.getMapper(StatisticsMapper.class);
+    }
+
+    @Override
+    public List<StatisticCount> countApplicationsByStatus() {
+        return merge(shardRouter.scatter(shard -> target.countApplicationsByStatus()));
+    }
+
+    @Override
+    public List<StatisticCount> countSubmissionUnitsByApplication() {
+        // Each application lives on one shard, so the groups don't overlap
+        List<StatisticCount> all = new ArrayList<>();
+        shardRouter.scatter(shard -> target.countSubmissionUnitsByApplication()).forEach(all::addAll);
+        return all;
+    }
+
+    @Override
+    public List<StatisticCount> sumCounters(String metric, Long appId) {
+        if (appId != null) {
+            return shardRouter.onApp(appId, () -> target.sumCounters(metric, appId), new ArrayList<>());
+        }
+        return merge(shardRouter.scatter(shard -> target.sumCounters(metric, null)));
+    }
+
+    @Override
+    public List<StatisticCounter> findCountersByAppId(Long appId) {
+        return shardRouter.onApp(appId, () -> target.findCountersByAppId(appId), new ArrayList<>());
+    }
+
+    @Override
+    public int insertCounters(List<StatisticCounter> counters) {
+        if (counters.isEmpty()) {
+            return 0;
+        }
+        Long appId = counters.get(0).getAppId();
+        for (StatisticCounter counter : counters) {
+            if (!Objects.equals(appId, counter.getAppId())) {
+                throw new IllegalArgumentException("A counter insert must not span applications");
+            }
+        }
+        return shardRouter.writeOnApp(appId, () -> target.insertCounters(counters));
+    }
+
+    @Override
+    public int upsertCounter(StatisticCounter counter) {
+        return shardRouter.writeOnApp(counter.getAppId(), () -> target.upsertCounter(counter));
+    }
+
+    @Override
+    public int deleteCounter(Long appId, Long suId, String metric, String statKey) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteCounter(appId, suId, metric, statKey));
+    }
+
+    @Override
+    public int deleteCounters(Long appId, Long suId) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteCounters(appId, suId));
+    }
+
+    @Override
+    public int deleteCountersByAppId(Long appId) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteCountersByAppId(appId));
+    }
+
+    private List<StatisticCount> merge(List<List<StatisticCount>> perShard) {
+        Map<String, StatisticCount> merged = new LinkedHashMap<>();
+        for (List<StatisticCount> counts : perShard) {
+            for (StatisticCount count : counts) {
+                merged.merge(count.getKey(), count,
+                        (a, b) -> new StatisticCount(null, a.getKey(), a.getCount() + b.getCount()));
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+}
@@ -0,0 +1,323 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.config.ShardingProperties;
+import com.ectd.backend.model.ArchivedCouData;
+import com.ectd.backend.model.ShardDirectoryEntry;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.service.ShardDirectoryService;
+import com.ectd.backend.service.ShardRouter;
+import org.apache.ibatis.cursor.Cursor;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Sharded Submission Unit Mapper
+ * SubmissionUnitMapper that routes statements to the shard of the owning application.
+ * Lookups by su_id resolve the owning application from a cache (an SU never changes
+ * application), falling back to asking every shard once.
+ * Injected in place of the plain MyBatis mapper when ectd.sharding.enabled=true.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+public class ShardedSubmissionUnitMapper implements SubmissionUnitMapper {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardDirectoryService shardDirectoryService;
+
+    private final SubmissionUnitMapper target;
+
+    private final Map<Long, Long> appIdBySuId;
+
+    public ShardedSubmissionUnitMapper(SqlSessionTemplate sqlSessionTemplate, ShardingProperties properties) {
+        this.target = sqlSessionTemplate.getMapper(SubmissionUnitMapper.class);
+        int maxEntries = properties.getSuCacheEntries();
+        this.appIdBySuId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public SubmissionUnit findById(Long suId) {
+        Long appId = owningAppId(suId);
+        if (appId == null) {
+            return null;
+        }
+        SubmissionUnit su = shardRouter.onApp(appId, () -> target.findById(suId), null);
+        if (su != null) {
+            remember(su);
+        }
+        return su;
+    }
+
+    @Override
+    public SubmissionUnit findVersionById(Long suId) {
+        Long appId = owningAppId(suId);
+        if (appId == null) {
+            return null;
+        }
+        SubmissionUnit su = shardRouter.onApp(appId, () -> target.findVersionById(suId), null);
+        if (su != null) {
+            remember(su);
+        }
+        return su;
+    }
+
+    @Override
+    public List<SubmissionUnit> findByAppId(Long appId) {
+        return shardRouter.onApp(appId, () -> rememberAll(target.findByAppId(appId)), new ArrayList<>());
+    }
+
+    @Override
+    public Cursor<SubmissionUnit> streamByAppId(Long appId) {
+        return shardRouter.onApp(appId, () -> target.streamByAppId(appId), null);
+    }
+
+    @Override
+    public SubmissionUnit findByAppIdAndSequence(Long appId, Integer sequenceNum) {
+        return shardRouter.onApp(appId, () -> target.findByAppIdAndSequence(appId, sequenceNum), null);
+    }
+
+    @Override
+    public List<SubmissionUnit> findAll() {
+        List<SubmissionUnit> all = new ArrayList<>();
+        shardRouter.scatter(shard -> target.findAll()).forEach(all::addAll);
+        all.sort(Comparator.comparing(SubmissionUnit::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder())));
+        return rememberAll(all);
+    }
+
+    @Override
+    public int insert(SubmissionUnit submissionUnit) {
+        assignId(submissionUnit);
+        int rows = shardRouter.writeOnApp(submissionUnit.getAppId(), () -> target.insert(submissionUnit));
+        if (rows == 0) {
+            throw new IllegalArgumentException("Application not found: " + submissionUnit.getAppId());
+        }
+        remember(submissionUnit);
+        return rows;
+    }
+
+    @Override
+    public int insertBatch(List<SubmissionUnit> submissionUnits) {
+        if (submissionUnits.isEmpty()) {
+            return 0;
+        }
+        // Batches come from one application, so they go to a single shard
+        Long appId = submissionUnits.get(0).getAppId();
+        for (SubmissionUnit su : submissionUnits) {
+            if (!Objects.equals(appId, su.getAppId())) {
+                throw new IllegalArgumentException("A batch insert must not span applications");
+            }
+            assignId(su);
+        }
+        int rows = shardRouter.writeOnApp(appId, () -> target.insertBatch(submissionUnits));
+        if (rows == 0) {
+            throw new IllegalArgumentException("Application not found: " + appId);
+        }
+        rememberAll(submissionUnits);
+        return rows;
+    }
+
+    @Override
+    public int update(SubmissionUnit submissionUnit) {
+        Long appId = owningAppId(submissionUnit.getSuId());
+        if (appId == null) {
+            return 0;
+        }
+        if (submissionUnit.getAppId() != null && !appId.equals(submissionUnit.getAppId())
+                && !Objects.equals(shardOf(appId), shardOf(submissionUnit.getAppId()))) {
+            throw new IllegalArgumentException("Cannot move a submission unit to an application on another shard");
+        }
+        int rows = shardRouter.writeOnApp(appId, () -> target.update(submissionUnit));
+        if (rows > 0 && submissionUnit.getAppId() != null) {
+            remember(submissionUnit);
+        }
+        return rows;
+    }
+
+    @Override
+    public int deleteById(Long suId) {
+        Long appId = owningAppId(suId);
+        if (appId == null) {
+            return 0;
+        }
+        int rows = shardRouter.writeOnApp(appId, () -> target.deleteById(suId));
+        synchronized (appIdBySuId) {
+            appIdBySuId.remove(suId);
+        }
+        return rows;
+    }
+
+    @Override
+    public int deleteBatchByAppId(Long appId, int limit) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteBatchByAppId(appId, limit));
+    }
+
+    @Override
+    public int countByAppId(Long appId) {
+        return shardRouter.onApp(appId, () -> target.countByAppId(appId), 0);
+    }
+
+    @Override
+    public List<Integer> findSequenceNumsByAppId(Long appId) {
+        return shardRouter.onApp(appId, () -> target.findSequenceNumsByAppId(appId), new ArrayList<>());
+    }
+
+    @Override
+    public Integer getNextSequenceNum(Long appId) {
+        return shardRouter.onApp(appId, () -> target.getNextSequenceNum(appId), 1);
+    }
+
+    @Override
+    public List<SubmissionUnit> findArchivable(List<String> suStatuses, List<String> appStatuses,
+                                               LocalDateTime updatedBefore, int limit) {
+        List<SubmissionUnit> candidates = new ArrayList<>();
+        shardRouter.scatter(shard -> target.findArchivable(suStatuses, appStatuses, updatedBefore, limit))
+                .forEach(candidates::addAll);
+        return rememberAll(candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates);
+    }
+
+    @Override
+    public int insertCopies(List<SubmissionUnit> submissionUnits) {
+        if (submissionUnits.isEmpty()) {
+            return 0;
+        }
+        Long appId = submissionUnits.get(0).getAppId();
+        for (SubmissionUnit su : submissionUnits) {
+            if (!Objects.equals(appId, su.getAppId())) {
+                throw new IllegalArgumentException("A batch insert must not span applications");
+            }
+        }
+        int rows = shardRouter.writeOnApp(appId, () -> target.insertCopies(submissionUnits));
+        rememberAll(submissionUnits);
+        return rows;
+    }
+
+    @Override
+    public List<SubmissionUnit> lockForArchive(Long appId, List<Long> suIds) {
+        return shardRouter.lockOnApp(appId, () -> target.lockForArchive(appId, suIds), new ArrayList<>());
+    }
+
+    @Override
+    public int insertArchivedCouData(Long appId, Long suId, String couData, long originalSize) {
+        return shardRouter.writeOnApp(appId, () -> target.insertArchivedCouData(appId, suId, couData, originalSize));
+    }
+
+    @Override
+    public int markArchived(Long appId, Long suId) {
+        return shardRouter.writeOnApp(appId, () -> target.markArchived(appId, suId));
+    }
+
+    @Override
+    public List<SubmissionUnit> findArchivedCouData(Long appId, List<Long> suIds) {
+        return shardRouter.onApp(appId, () -> target.findArchivedCouData(appId, suIds), new ArrayList<>());
+    }
+
+    @Override
+    public int deleteArchivedCouData(Long appId, Long suId) {
+        return shardRouter.writeOnApp(appId, () -> target.deleteArchivedCouData(appId, suId));
+    }
+
+    @Override
+    public List<ArchivedCouData> findArchiveRows(Long appId) {
+        return shardRouter.onApp(appId, () -> target.findArchiveRows(appId), new ArrayList<>());
+    }
+
+    @Override
+    public int insertArchiveRows(List<ArchivedCouData> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Long appId = rows.get(0).getAppId();
+        for (ArchivedCouData row : rows) {
+            if (!Objects.equals(appId, row.getAppId())) {
+                throw new IllegalArgumentException("A batch insert must not span applications");
+            }
+        }
+        return shardRouter.writeOnApp(appId, () -> target.insertArchiveRows(rows));
+    }
+
+    @Override
+    public long findMaxId() {
+        return shardRouter.scatter(shard -> target.findMaxId()).stream().mapToLong(Long::longValue).max().orElse(0);
+    }
+
+    @Override
+    public List<SubmissionUnit> findUpdatedSince(LocalDateTime since) {
+        List<SubmissionUnit> all = new ArrayList<>();
+        shardRouter.scatter(shard -> target.findUpdatedSince(since)).forEach(all::addAll);
+        return rememberAll(all);
+    }
+
+    @Override
+    public List<SubmissionUnit> findAllKeys() {
+        List<SubmissionUnit> all = new ArrayList<>();
+        shardRouter.scatter(shard -> target.findAllKeys()).forEach(all::addAll);
+        return all;
+    }
+
+    private void assignId(SubmissionUnit su) {
+        if (su.getSuId() == null) {
+            su.setSuId(shardDirectoryService.nextId(ShardDirectoryService.SU_SEQUENCE, this::findMaxId));
+        }
+    }
+
+    /**
+     * Owning application of a submission unit: cached, else found by asking all shards
+     */
+    private Long owningAppId(Long suId) {
+        if (suId == null) {
+            return null;
+        }
+        synchronized (appIdBySuId) {
+            Long appId = appIdBySuId.get(suId);
+            if (appId != null) {
+                return appId;
+            }
+        }
+        for (SubmissionUnit su : shardRouter.scatter(shard -> target.findById(suId))) {
+            if (su != null) {
+                remember(su);
+                return su.getAppId();
+            }
+        }
+        return null;
+    }
+
+    private Integer shardOf(Long appId) {
+        ShardDirectoryEntry entry = shardDirectoryService.getEntry(appId);
+        return entry == null ? null : entry.getShardId();
+    }
+
+    private void remember(SubmissionUnit su) {
+        synchronized (appIdBySuId) {
+            appIdBySuId.put(su.getSuId(), su.getAppId());
+        }
+    }
+
+    private List<SubmissionUnit> rememberAll(List<SubmissionUnit> submissionUnits) {
+        synchronized (appIdBySuId) {
+            for (SubmissionUnit su : submissionUnits) {
+                appIdBySuId.put(su.getSuId(), su.getAppId());
+            }
+        }
+        return submissionUnits;
+    }
+}
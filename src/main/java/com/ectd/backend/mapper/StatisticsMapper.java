@@ -0,0 +1,84 @@
+package com.ectd.backend.mapper;
+
+import com.ectd.backend.model.StatisticCount;
+import com.ectd.backend.model.StatisticCounter;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * Statistics Mapper Interface
+ * Aggregate queries (GROUP BY) for dashboards and maintenance of the statistic counters
+ */
+@Mapper
+public interface StatisticsMapper {
+
+    /**
+     * Count applications by status
+     * @return One count per status
+     */
+    List<StatisticCount> countApplicationsByStatus();
+
+    /**
+     * Count the submission units of every application (applications being deleted are left out)
+     * @return One count per application, keyed by application number
+     */
+    List<StatisticCount> countSubmissionUnitsByApplication();
+
+    /**
+     * Sum a statistic counter by key
+     * @param metric Counter name
+     * @param appId Restrict to one application (optional)
+     * @return One count per counter key
+     */
+    List<StatisticCount> sumCounters(@Param("metric") String metric, @Param("appId") Long appId);
+
+    /**
+     * Find all counters of an application
+     * @param appId Application ID
+     * @return Counter rows
+     */
+    List<StatisticCounter> findCountersByAppId(@Param("appId") Long appId);
+
+    /**
+     * Insert counter rows
+     * @param counters Counter rows
+     * @return Number of affected rows
+     */
+    int insertCounters(@Param("list") List<StatisticCounter> counters);
+
+    /**
+     * Insert a counter row, or overwrite its count if it exists
+     * @param counter Counter row
+     * @return Number of affected rows
+     */
+    int upsertCounter(StatisticCounter counter);
+
+    /**
+     * Delete one counter row
+     * @param appId Application ID
+     * @param suId Submission unit ID, or 0
+     * @param metric Counter name
+     * @param statKey Counted value
+     * @return Number of affected rows
+     */
+    int deleteCounter(@Param("appId") Long appId, @Param("suId") Long suId,
+                      @Param("metric") String metric, @Param("statKey") String statKey);
+
+    /**
+     * Delete the counters of one source: a submission unit, or the root section of an
+     * application when suId is 0
+     * @param appId Application ID
+     * @param suId Submission unit ID, or 0
+     * @return Number of affected rows
+     */
+    int deleteCounters(@Param("appId") Long appId, @Param("suId") Long suId);
+
+    /**
+     * Delete all counters of an application
+     * @param appId Application ID
+     * @return Number of affected rows
+     */
+    int deleteCountersByAppId(@Param("appId") Long appId);
+}
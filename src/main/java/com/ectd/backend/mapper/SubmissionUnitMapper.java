@@ -1,9 +1,12 @@
 package com.ectd.backend.mapper;
 
+import com.ectd.backend.model.ArchivedCouData;
 import com.ectd.backend.model.SubmissionUnit;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,6 +22,13 @@ public interface SubmissionUnitMapper {
      * @return SubmissionUnit entity
      */
     SubmissionUnit findById(@Param("suId") Long suId);
+
+    /**
+     * Find the application and update time of a submission unit (no CoU data)
+     * @param suId Submission Unit ID
+     * @return Submission unit with only suId, appId and updatedAt set, or null if it doesn't exist
+     */
+    SubmissionUnit findVersionById(@Param("suId") Long suId);
     
     /**
      * Find all submission units by application ID
@@ -27,6 +37,14 @@ public interface SubmissionUnitMapper {
      */
     List<SubmissionUnit> findByAppId(@Param("appId") Long appId);
     
+    /**
+     * Stream submission units of an application row by row, ordered by sequence number.
+     * Must be consumed inside a transaction.
+     * @param appId Application ID
+     * @return Cursor over submission units
+     */
+    Cursor<SubmissionUnit> streamByAppId(@Param("appId") Long appId);
+    
     /**
      * Find submission unit by application ID and sequence number
      * @param appId Application ID
@@ -48,6 +66,21 @@ public interface SubmissionUnitMapper {
      */
     int insert(SubmissionUnit submissionUnit);
     
+    /**
+     * Insert several submission units in one statement
+     * @param submissionUnits SubmissionUnit entities (generated IDs are set on them)
+     * @return Number of affected rows
+     */
+    int insertBatch(@Param("list") List<SubmissionUnit> submissionUnits);
+
+    /**
+     * Insert copies of submission unit rows as read from another database, keeping their
+     * IDs, created_at, updated_at and storage_tier
+     * @param submissionUnits SubmissionUnit entities with all columns set
+     * @return Number of affected rows
+     */
+    int insertCopies(@Param("list") List<SubmissionUnit> submissionUnits);
+    
     /**
      * Update submission unit
      * @param submissionUnit SubmissionUnit entity
@@ -62,11 +95,121 @@ public interface SubmissionUnitMapper {
      */
     int deleteById(@Param("suId") Long suId);
     
+    /**
+     * Delete up to limit submission units of an application
+     * @param appId Application ID
+     * @param limit Maximum number of rows to delete
+     * @return Number of affected rows
+     */
+    int deleteBatchByAppId(@Param("appId") Long appId, @Param("limit") int limit);
+
+    /**
+     * Count the submission units of an application
+     * @param appId Application ID
+     * @return Number of submission units
+     */
+    int countByAppId(@Param("appId") Long appId);
+
+    /**
+     * Find the sequence numbers already used by an application
+     * @param appId Application ID
+     * @return List of sequence numbers
+     */
+    List<Integer> findSequenceNumsByAppId(@Param("appId") Long appId);
+    
     /**
      * Get next sequence number for an application
      * @param appId Application ID
      * @return Next sequence number
      */
     Integer getNextSequenceNum(@Param("appId") Long appId);
-}
 
+    /**
+     * Find hot submission units eligible for the archive tier
+     * @param suStatuses Submission unit statuses that may be archived
+     * @param appStatuses Statuses of closed applications
+     * @param updatedBefore Only submission units last updated before this time
+     * @param limit Maximum number of rows
+     * @return Submission units with only suId and appId set
+     */
+    List<SubmissionUnit> findArchivable(@Param("suStatuses") List<String> suStatuses,
+                                        @Param("appStatuses") List<String> appStatuses,
+                                        @Param("updatedBefore") LocalDateTime updatedBefore,
+                                        @Param("limit") int limit);
+
+    /**
+     * Lock hot submission units of an application for archiving (SELECT ... FOR UPDATE)
+     * @param appId Application ID
+     * @param suIds Submission Unit IDs
+     * @return Locked submission units still in the hot tier
+     */
+    List<SubmissionUnit> lockForArchive(@Param("appId") Long appId, @Param("suIds") List<Long> suIds);
+
+    /**
+     * Store compressed CoU data in the archive table
+     * @param appId Application ID
+     * @param suId Submission Unit ID
+     * @param couData CoU data JSON string (compressed on write)
+     * @param originalSize Uncompressed size in bytes
+     * @return Number of affected rows
+     */
+    int insertArchivedCouData(@Param("appId") Long appId, @Param("suId") Long suId,
+                              @Param("couData") String couData, @Param("originalSize") long originalSize);
+
+    /**
+     * Turn a submission unit into an archived stub (cou_data cleared, storage_tier ARCHIVED)
+     * @param appId Application ID
+     * @param suId Submission Unit ID
+     * @return Number of affected rows
+     */
+    int markArchived(@Param("appId") Long appId, @Param("suId") Long suId);
+
+    /**
+     * Read archived CoU data
+     * @param appId Application ID
+     * @param suIds Submission Unit IDs
+     * @return Submission units with only suId, appId and the decompressed couData set
+     */
+    List<SubmissionUnit> findArchivedCouData(@Param("appId") Long appId, @Param("suIds") List<Long> suIds);
+
+    /**
+     * Delete archived CoU data (the submission unit is back in the hot tier)
+     * @param appId Application ID
+     * @param suId Submission Unit ID
+     * @return Number of affected rows
+     */
+    int deleteArchivedCouData(@Param("appId") Long appId, @Param("suId") Long suId);
+
+    /**
+     * Read the archive rows of an application as stored (still compressed)
+     * @param appId Application ID
+     * @return Archive rows
+     */
+    List<ArchivedCouData> findArchiveRows(@Param("appId") Long appId);
+
+    /**
+     * Insert copies of archive rows as read from another database
+     * @param rows Archive rows of one application
+     * @return Number of affected rows
+     */
+    int insertArchiveRows(@Param("list") List<ArchivedCouData> rows);
+
+    /**
+     * Largest submission unit ID in use
+     * @return Maximum su_id, or 0 if there are no submission units
+     */
+    long findMaxId();
+
+    /**
+     * Find submission units changed at or after a point in time
+     * @param since Lower bound of updated_at (inclusive)
+     * @return List of submission units (archived ones without CoU data)
+     */
+    List<SubmissionUnit> findUpdatedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Find ID and application of all submission units (no CoU data)
+     * @return List of submission units with only suId and appId set
+     */
+    List<SubmissionUnit> findAllKeys();
+}
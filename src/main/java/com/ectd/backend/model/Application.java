@@ -14,6 +14,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Application {
+
+    public static final String DELETING = "DELETING";
+
+    public static final String TREE_JSON = "JSON";
+    public static final String TREE_NODES_ARRAY = "NODES_ARRAY";
+    public static final String TREE_NODES_OBJECT = "NODES_OBJECT";
     
     /**
      * Application global unique ID
@@ -47,8 +53,19 @@ public class Application {
     private String rootSection;
     
     /**
-     * Application status (DRAFT, SUBMITTED, APPROVED, REJECTED)
+     * Application status (DRAFT, SUBMITTED, APPROVED, REJECTED, or DELETING while being deleted)
      */
     private String status;
+
+    /**
+     * Where the root section tree is kept: JSON (rootSection column), or NODES_ARRAY /
+     * NODES_OBJECT (ectd_section_node rows; rootSection is assembled from them on read)
+     */
+    private String treeStorage;
+
+    /**
+     * Incremented on every write to the application or its section nodes (strong ETag)
+     */
+    private Long version;
 }
 
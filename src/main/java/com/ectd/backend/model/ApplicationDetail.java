@@ -0,0 +1,23 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Application Detail
+ * An application together with its submission units and their CoU operations, returned
+ * by the one-request dossier endpoint. Parts not selected with include= are null.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class ApplicationDetail extends Application {
+
+    /**
+     * Submission units ordered by sequence number
+     */
+    private List<SubmissionUnitDetail> submissionUnits;
+}
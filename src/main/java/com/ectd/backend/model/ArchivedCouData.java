@@ -0,0 +1,43 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Archived CoU Data
+ * Row of ectd_submission_unit_archive as stored, with the CoU data still compressed;
+ * used to copy the cold tier of an application between shards without recompressing it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedCouData {
+
+    /**
+     * Submission Unit ID
+     */
+    private Long suId;
+
+    /**
+     * Owning application ID
+     */
+    private Long appId;
+
+    /**
+     * Compressed CoU data as written by CompressedStringTypeHandler
+     */
+    private byte[] compressedCouData;
+
+    /**
+     * Uncompressed CoU data size in bytes
+     */
+    private Long originalSize;
+
+    /**
+     * Archive timestamp
+     */
+    private LocalDateTime archivedAt;
+}
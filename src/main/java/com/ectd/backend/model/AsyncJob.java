@@ -0,0 +1,96 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Async Job Entity
+ * Progress of a long-running background job (import, checksum, deletion...)
+ */
+@Data
+@NoArgsConstructor
+public class AsyncJob {
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    /**
+     * Job unique ID
+     */
+    private String jobId;
+
+    /**
+     * Job type (e.g., XML_IMPORT)
+     */
+    private String jobType;
+
+    /**
+     * Job state (PENDING, RUNNING, COMPLETED, FAILED)
+     */
+    private volatile String state;
+
+    /**
+     * Total units of work, if known (bytes, files, rows...)
+     */
+    private volatile long total;
+
+    /**
+     * Units of work done so far
+     */
+    private volatile long processed;
+
+    /**
+     * Human readable progress or error message
+     */
+    private volatile String message;
+
+    /**
+     * Job specific counters and results
+     */
+    private final Map<String, Object> result = new LinkedHashMap<>();
+
+    /**
+     * Creation timestamp
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * Finish timestamp
+     */
+    private volatile LocalDateTime finishedAt;
+
+    /**
+     * Progress in percent (0-100), or null if the total is unknown
+     * @return Progress percentage
+     */
+    public Double getProgress() {
+        return total > 0 ? Math.min(100.0, processed * 100.0 / total) : null;
+    }
+
+    /**
+     * Set a result counter
+     * @param key Counter name
+     * @param value Counter value
+     */
+    public void putResult(String key, Object value) {
+        synchronized (result) {
+            result.put(key, value);
+        }
+    }
+
+    /**
+     * Get a snapshot of the result counters
+     * @return Result map
+     */
+    public Map<String, Object> getResult() {
+        synchronized (result) {
+            return new LinkedHashMap<>(result);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change Event Entity
+ * Represents a single created/updated/deleted event published on the change feed
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+
+    /**
+     * Monotonically increasing feed offset
+     */
+    private Long offset;
+
+    /**
+     * Entity type (APPLICATION, SUBMISSION_UNIT)
+     */
+    private String entityType;
+
+    /**
+     * ID of the changed entity (app_id or su_id)
+     */
+    private Long entityId;
+
+    /**
+     * Application the change belongs to
+     */
+    private Long appId;
+
+    /**
+     * Version of the entity after the change: the application version for application
+     * events (the one in its ETag), the application's submission unit change stamp
+     * version for submission unit events
+     */
+    private Long version;
+
+    /**
+     * Change type (CREATED, UPDATED, DELETED)
+     */
+    private String changeType;
+
+    /**
+     * Event timestamp
+     */
+    private LocalDateTime timestamp;
+}
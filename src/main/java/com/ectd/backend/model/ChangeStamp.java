@@ -0,0 +1,33 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change Stamp
+ * Version of an application's submission units, bumped on every write; used to detect
+ * stale cached data on other nodes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeStamp {
+
+    /**
+     * Application ID
+     */
+    private Long appId;
+
+    /**
+     * Current version
+     */
+    private Long version;
+
+    /**
+     * Update timestamp
+     */
+    private LocalDateTime updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.ectd.backend.model;
 
+import com.ectd.backend.util.SnowflakeIdGenerator;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -56,6 +57,9 @@ public class CoUOperation {
         @JsonProperty("size")
         private Long size;
         
+        @JsonProperty("checksum")
+        private String checksum; // SHA-256
+        
         // 构造函数
         public DocumentInfo() {}
         
@@ -81,15 +85,17 @@ public class CoUOperation {
         
         public Long getSize() { return size; }
         public void setSize(Long size) { this.size = size; }
+        
+        public String getChecksum() { return checksum; }
+        public void setChecksum(String checksum) { this.checksum = checksum; }
     }
     
     // 构造函数
     public CoUOperation() {
-        this.timestamp = LocalDateTime.now();
     }
     
     public CoUOperation(String operation, String suId, Long targetNodeId, DocumentInfo document) {
-        this();
+        this.timestamp = LocalDateTime.now();
         this.operation = operation;
         this.suId = suId;
         this.targetNodeId = targetNodeId;
@@ -99,7 +105,7 @@ public class CoUOperation {
     
     // 生成CoU ID
     private String generateCouId() {
-        return "COU_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
+        return SnowflakeIdGenerator.getInstance().nextCouId();
     }
     
     // Getters and Setters
@@ -0,0 +1,49 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dossier Checkpoint
+ * Documents current in an application after replaying its submission units up to a
+ * sequence number, persisted so later reconstructions start from here
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DossierCheckpoint {
+
+    /**
+     * Application ID
+     */
+    private Long appId;
+
+    /**
+     * Last sequence number replayed
+     */
+    private Integer sequenceNum;
+
+    /**
+     * Number of submission units replayed; a checkpoint is only used while the application
+     * still has exactly this many submission units up to sequenceNum
+     */
+    private Integer suCount;
+
+    /**
+     * Change stamp version of the submission units it was built from
+     */
+    private Long version;
+
+    /**
+     * Current documents (JSON array of DossierDocument), null when only the position was read
+     */
+    private String state;
+
+    /**
+     * Creation timestamp
+     */
+    private LocalDateTime createdAt;
+}
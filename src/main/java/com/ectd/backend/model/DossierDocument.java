@@ -0,0 +1,59 @@
+package com.ectd.backend.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Dossier Document
+ * A document current in a reconstructed dossier, with the CoU operation and submission
+ * unit that last added or replaced it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DossierDocument {
+
+    /**
+     * Target node ID in the root section
+     */
+    private Long targetNodeId;
+
+    /**
+     * Target XPath in the root section
+     */
+    private String targetXpath;
+
+    /**
+     * CoU operation that last added or replaced the document
+     */
+    private String couId;
+
+    /**
+     * Operation type (add, replace)
+     */
+    private String operation;
+
+    /**
+     * Submission unit of that operation
+     */
+    private Long suId;
+
+    /**
+     * Sequence number of that submission unit
+     */
+    private Integer sequenceNum;
+
+    /**
+     * Effective date of that submission unit
+     */
+    private LocalDate effectiveDate;
+
+    /**
+     * Document information as stored in the CoU operation (file_id, title, format, path, ...)
+     */
+    private JsonNode document;
+}
@@ -0,0 +1,69 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Dossier Snapshot
+ * An application's dossier as of a sequence number or effective date: the documents
+ * current after replaying the CoU operations of the submission units up to that point
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DossierSnapshot {
+
+    /**
+     * Application ID
+     */
+    private Long appId;
+
+    /**
+     * Requested sequence number, or null
+     */
+    private Integer asOfSequence;
+
+    /**
+     * Requested effective date, or null
+     */
+    private LocalDate asOfEffectiveDate;
+
+    /**
+     * Last sequence number included, or null if no submission unit is included
+     */
+    private Integer sequenceNum;
+
+    /**
+     * Number of submission units included
+     */
+    private int submissionUnitCount;
+
+    /**
+     * Change stamp version of the submission units the snapshot was built from
+     */
+    private long version;
+
+    /**
+     * Sequence number of the checkpoint the replay started from, or null if it started from the first submission unit
+     */
+    private Integer checkpointSequence;
+
+    /**
+     * Number of submission units replayed after the checkpoint
+     */
+    private int replayedSubmissionUnits;
+
+    /**
+     * Number of CoU operations replayed after the checkpoint
+     */
+    private int replayedOperations;
+
+    /**
+     * Current documents, in the order they were first added
+     */
+    private List<DossierDocument> documents;
+}
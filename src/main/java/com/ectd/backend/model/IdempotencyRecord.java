@@ -0,0 +1,57 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency Record Entity
+ * Stored response of a write request identified by an Idempotency-Key
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    /**
+     * Client supplied Idempotency-Key
+     */
+    private String idemKey;
+
+    /**
+     * HTTP method and path the key was used on (e.g., POST /applications)
+     */
+    private String scope;
+
+    /**
+     * SHA-256 of the request payload, used to reject key reuse with a different body
+     */
+    private String requestHash;
+
+    /**
+     * Stored HTTP status code (0 while the first attempt is still in progress)
+     */
+    private Integer statusCode;
+
+    /**
+     * Stored response content type
+     */
+    private String contentType;
+
+    /**
+     * Stored response body
+     */
+    private String responseBody;
+
+    /**
+     * Creation timestamp
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * Expiry timestamp
+     */
+    private LocalDateTime expiresAt;
+}
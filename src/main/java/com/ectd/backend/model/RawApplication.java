@@ -0,0 +1,63 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Reader;
+import java.time.LocalDateTime;
+
+/**
+ * Raw Application Row
+ * Application row whose root section is the open character stream of the JSON column,
+ * for copying it into a response without an intermediate String. Only valid inside the
+ * ResultHandler that receives it.
+ */
+@Data
+@NoArgsConstructor
+public class RawApplication {
+
+    /**
+     * Application global unique ID
+     */
+    private Long appId;
+
+    /**
+     * Application number
+     */
+    private String appNumber;
+
+    /**
+     * Application type
+     */
+    private String appType;
+
+    /**
+     * Creation timestamp
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * Update timestamp
+     */
+    private LocalDateTime updatedAt;
+
+    /**
+     * Root section JSON column as a character stream (null if the column is NULL)
+     */
+    private Reader rootSection;
+
+    /**
+     * Application status
+     */
+    private String status;
+
+    /**
+     * Where the root section tree is kept (JSON, NODES_ARRAY, NODES_OBJECT)
+     */
+    private String treeStorage;
+
+    /**
+     * Application version
+     */
+    private Long version;
+}
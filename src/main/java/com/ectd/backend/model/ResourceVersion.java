@@ -0,0 +1,34 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resource Version
+ * Validators of a REST resource (strong ETag and Last-Modified), read with a version-only
+ * query before the resource itself so conditional GETs can be answered without loading it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceVersion {
+
+    /**
+     * Version the response must be at least as new as: the application version, or the
+     * change stamp of the submission units for submission unit resources
+     */
+    private Long version;
+
+    /**
+     * Strong entity tag, quoted (e.g. "app-12-7")
+     */
+    private String etag;
+
+    /**
+     * Last modification time (second precision), or null if unknown
+     */
+    private LocalDateTime lastModified;
+}
@@ -0,0 +1,58 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Search Hit
+ * A root-section node or a CoU document matching a full-text query
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+
+    public static final String NODE = "NODE";
+    public static final String DOCUMENT = "DOCUMENT";
+
+    /**
+     * NODE (root-section node name) or DOCUMENT (CoU document title/description)
+     */
+    private String type;
+
+    /**
+     * Application ID
+     */
+    private Long appId;
+
+    /**
+     * Submission Unit ID (documents only)
+     */
+    private Long suId;
+
+    /**
+     * Root-section node ID (nodes), or target node ID of the CoU operation (documents)
+     */
+    private Long nodeId;
+
+    /**
+     * CoU operation ID (documents only)
+     */
+    private String couId;
+
+    /**
+     * Node name or document title
+     */
+    private String title;
+
+    /**
+     * Operation description (documents only)
+     */
+    private String description;
+
+    /**
+     * Relevance score (higher is better)
+     */
+    private double score;
+}
@@ -0,0 +1,35 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Section Closure Entity
+ * Ancestor/descendant pair of the section node tree, including every node with itself
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SectionClosure {
+
+    /**
+     * Owning application ID
+     */
+    private Long appId;
+
+    /**
+     * Ancestor node id
+     */
+    private Long ancestorId;
+
+    /**
+     * Descendant node id
+     */
+    private Long descendantId;
+
+    /**
+     * Levels between ancestor and descendant, 0 for the node itself
+     */
+    private Integer depth;
+}
@@ -0,0 +1,64 @@
+package com.ectd.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Section Node Entity
+ * One node of the root section tree of an application stored as rows (tree_storage NODES_*)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SectionNode {
+
+    /**
+     * Owning application ID
+     */
+    private Long appId;
+
+    /**
+     * Node id (the "id" field of the tree node)
+     */
+    private Long nodeId;
+
+    /**
+     * Parent node id, null for top-level nodes
+     */
+    private Long parentId;
+
+    /**
+     * Position among the siblings, from 0
+     */
+    private Integer position;
+
+    /**
+     * Node type (application, module, folder, document, ...)
+     */
+    private String nodeType;
+
+    /**
+     * Node name
+     */
+    private String name;
+
+    /**
+     * All other fields of the node as a JSON object, without children
+     */
+    @JsonRawValue
+    private String attributes;
+
+    /**
+     * Update timestamp
+     */
+    private LocalDateTime updatedAt;
+
+    /**
+     * Levels below the queried node (subtree) or above it (ancestors); only set by those queries
+     */
+    private Integer depth;
+}
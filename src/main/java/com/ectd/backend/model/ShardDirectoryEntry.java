@@ -0,0 +1,45 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Shard Directory Entry
+ * Global record of which shard holds an application and all of its submission units
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardDirectoryEntry {
+
+    public static final String ACTIVE = "ACTIVE";
+    public static final String MOVING = "MOVING";
+
+    /**
+     * Application ID
+     */
+    private Long appId;
+
+    /**
+     * Application number (globally unique)
+     */
+    private String appNumber;
+
+    /**
+     * Shard index holding the application
+     */
+    private Integer shardId;
+
+    /**
+     * ACTIVE, or MOVING while the rebalancer copies the application (writes are rejected)
+     */
+    private String status;
+
+    /**
+     * Update timestamp
+     */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,30 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Statistic Count
+ * One group of an aggregate statistic (e.g. a status and the number of applications in it)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatisticCount {
+
+    /**
+     * Application ID (only for per-application statistics)
+     */
+    private Long appId;
+
+    /**
+     * Group key (status, operation type, module name, application number)
+     */
+    private String key;
+
+    /**
+     * Count
+     */
+    private Long count;
+}
@@ -0,0 +1,44 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Statistic Counter
+ * Row of ectd_statistic: a count derived from the CoU data of one submission unit or from
+ * the root section of an application, replaced whenever its source is written
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatisticCounter {
+
+    public static final String COU_OPERATION = "COU_OPERATION";
+    public static final String MODULE_DOCUMENTS = "MODULE_DOCUMENTS";
+
+    /**
+     * Application ID
+     */
+    private Long appId;
+
+    /**
+     * Source submission unit ID, 0 for counters of the root section
+     */
+    private Long suId;
+
+    /**
+     * Counter name (COU_OPERATION, MODULE_DOCUMENTS)
+     */
+    private String metric;
+
+    /**
+     * Counted value (operation type, module name)
+     */
+    private String statKey;
+
+    /**
+     * Count
+     */
+    private Integer statCount;
+}
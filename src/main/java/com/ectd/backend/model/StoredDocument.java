@@ -0,0 +1,42 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored Document Entity
+ * Metadata of a document in the content-addressed document store
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredDocument {
+
+    /**
+     * SHA-256 of the content (hex), also the storage key
+     */
+    private String sha256;
+
+    /**
+     * Content size in bytes
+     */
+    private Long size;
+
+    /**
+     * Document format (e.g., PDF, XML)
+     */
+    private String format;
+
+    /**
+     * Original file name of the first upload
+     */
+    private String fileName;
+
+    /**
+     * Creation timestamp
+     */
+    private LocalDateTime createdAt;
+}
@@ -15,6 +15,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class SubmissionUnit {
+
+    public static final String TIER_HOT = "HOT";
+    public static final String TIER_ARCHIVED = "ARCHIVED";
     
     /**
      * Submission Unit unique ID
@@ -66,5 +69,10 @@ public class SubmissionUnit {
      * Submission Unit status (DRAFT, SUBMITTED, APPROVED, REJECTED)
      */
     private String status;
+
+    /**
+     * Storage tier (HOT, or ARCHIVED when cou_data lives in the compressed archive table)
+     */
+    private String storageTier;
 }
 
@@ -0,0 +1,24 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Submission Unit Detail
+ * A submission unit with its CoU operations parsed, as part of an ApplicationDetail.
+ * couData is left null when the operations are given; it keeps the raw JSON when it
+ * cannot be parsed as CoU operations.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class SubmissionUnitDetail extends SubmissionUnit {
+
+    /**
+     * CoU operations
+     */
+    private List<CoUOperation> couOperations;
+}
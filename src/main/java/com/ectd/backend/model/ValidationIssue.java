@@ -0,0 +1,53 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Validation Issue Entity
+ * A single rule violation found while validating an application
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidationIssue {
+
+    public static final String ERROR = "ERROR";
+    public static final String WARNING = "WARNING";
+
+    /**
+     * Rule that was violated (e.g., TARGET_NODE_NOT_FOUND)
+     */
+    private String rule;
+
+    /**
+     * Severity (ERROR, WARNING)
+     */
+    private String severity;
+
+    /**
+     * Submission unit the issue belongs to, null for application level issues
+     */
+    private Long suId;
+
+    /**
+     * Sequence number of the submission unit
+     */
+    private Integer sequenceNum;
+
+    /**
+     * CoU operation ID, if the issue is about a single operation
+     */
+    private String couId;
+
+    /**
+     * Root-section node ID involved, if any
+     */
+    private Long nodeId;
+
+    /**
+     * Human readable description
+     */
+    private String message;
+}
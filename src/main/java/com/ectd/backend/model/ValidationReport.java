@@ -0,0 +1,78 @@
+package com.ectd.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validation Report Entity
+ * Result of validating one application, with counters showing how much of the
+ * application had to be re-checked
+ */
+@Data
+@NoArgsConstructor
+public class ValidationReport {
+
+    /**
+     * Validated application
+     */
+    private Long appId;
+
+    /**
+     * Application number
+     */
+    private String appNumber;
+
+    /**
+     * True if no ERROR issues were found
+     */
+    private boolean valid;
+
+    /**
+     * Number of ERROR issues
+     */
+    private int errorCount;
+
+    /**
+     * Number of WARNING issues
+     */
+    private int warningCount;
+
+    /**
+     * Issues found, application level first, then by sequence number
+     */
+    private List<ValidationIssue> issues = new ArrayList<>();
+
+    /**
+     * Submission units re-checked in this run
+     */
+    private int checkedSubmissionUnits;
+
+    /**
+     * Submission units whose previous results were reused
+     */
+    private int reusedSubmissionUnits;
+
+    /**
+     * Root-section subtrees re-indexed in this run
+     */
+    private int checkedSubtrees;
+
+    /**
+     * Root-section subtrees whose previous index was reused
+     */
+    private int reusedSubtrees;
+
+    /**
+     * Validation duration in milliseconds
+     */
+    private long durationMs;
+
+    /**
+     * Validation timestamp
+     */
+    private LocalDateTime validatedAt;
+}
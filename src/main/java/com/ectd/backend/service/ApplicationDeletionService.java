@@ -0,0 +1,92 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.AsyncJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application Deletion Service
+ * Deletes applications in the background without one large cascading transaction: the
+ * application is marked DELETING, its submission units are deleted in small batches that
+ * each commit on their own, and the application row goes last. The DELETING status is the
+ * persistent record of an unfinished deletion, so deletions interrupted by a restart are
+ * picked up again at startup.
+ */
+@Service
+public class ApplicationDeletionService {
+
+    public static final String JOB_TYPE = "APPLICATION_DELETE";
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    @Value("${ectd.deletion.batch-size:200}")
+    private int batchSize;
+
+    @Value("${ectd.deletion.pause-ms:20}")
+    private long pauseMs;
+
+    private final Map<Long, AsyncJob> running = new ConcurrentHashMap<>();
+
+    /**
+     * Start deleting an application; a deletion already running for it is returned as is
+     * @param appId Application ID
+     * @return Deletion job; poll GET /jobs/{jobId} for progress
+     */
+    public AsyncJob startDeletion(Long appId) {
+        applicationService.markDeleting(appId);
+        return submit(appId);
+    }
+
+    /**
+     * Resume the deletions that were interrupted by a shutdown
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeDeletions() {
+        for (Long appId : applicationService.getDeletingApplicationIds()) {
+            submit(appId);
+        }
+    }
+
+    private AsyncJob submit(Long appId) {
+        return running.computeIfAbsent(appId,
+                id -> asyncJobService.submit("delete-app-" + id, JOB_TYPE, job -> delete(id, job)));
+    }
+
+    private void delete(Long appId, AsyncJob job) {
+        try {
+            job.setTotal(submissionUnitService.countSubmissionUnits(appId));
+            job.putResult("appId", appId);
+            long deleted = 0;
+            int batch;
+            while ((batch = submissionUnitService.deleteSubmissionUnitsBatch(appId, batchSize)) > 0) {
+                deleted += batch;
+                job.setProcessed(deleted);
+                // Leave room for live traffic between batches
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+            applicationService.deleteApplication(appId);
+            job.putResult("deletedSubmissionUnits", deleted);
+            job.setMessage("Deleted application " + appId + " and " + deleted + " submission unit(s)");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Deletion of application " + appId + " interrupted", e);
+        } finally {
+            running.remove(appId);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.ApplicationDetail;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.model.SubmissionUnitDetail;
+import com.ectd.backend.util.JsonCodec;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Application Detail Service
+ * Assembles a whole dossier (application, submission units, CoU operations) for one
+ * request. It costs one application lookup and one set-based read of the submission
+ * units, which is normally served from the submission unit list cache, however many
+ * submission units there are.
+ */
+@Service
+public class ApplicationDetailService {
+
+    /**
+     * Parts of the detail that can be selected with include=
+     */
+    public enum Part {
+        ROOT_SECTION, SUBMISSION_UNITS, COU_OPERATIONS
+    }
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    /**
+     * Parse an include= selector
+     * @param include Comma-separated parts (rootSection, submissionUnits, couOperations); null or blank for all
+     * @return Selected parts; couOperations implies submissionUnits
+     */
+    public Set<Part> parseInclude(String include) {
+        if (include == null || include.isBlank()) {
+            return EnumSet.allOf(Part.class);
+        }
+        Set<Part> parts = EnumSet.noneOf(Part.class);
+        for (String name : include.split(",")) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "rootsection" -> parts.add(Part.ROOT_SECTION);
+                case "submissionunits" -> parts.add(Part.SUBMISSION_UNITS);
+                case "couoperations" -> {
+                    parts.add(Part.SUBMISSION_UNITS);
+                    parts.add(Part.COU_OPERATIONS);
+                }
+                case "" -> { }
+                default -> throw new IllegalArgumentException("Unknown include: " + name.trim()
+                        + " (expected rootSection, submissionUnits, couOperations)");
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Get an application with the selected parts of its dossier, with submission units no
+     * older than a change stamp version the caller has read (e.g. for an ETag)
+     * @param appId Application ID
+     * @param parts Parts to include
+     * @param minSubmissionUnitVersion Change stamp version
+     * @return Application detail, or null if the application does not exist
+     */
+    public ApplicationDetail getApplicationDetail(Long appId, Set<Part> parts, long minSubmissionUnitVersion) {
+        Application app = applicationService.getApplicationById(appId);
+        if (app == null) {
+            return null;
+        }
+        ApplicationDetail detail = new ApplicationDetail();
+        BeanUtils.copyProperties(app, detail);
+        if (!parts.contains(Part.ROOT_SECTION)) {
+            detail.setRootSection(null);
+        }
+        if (parts.contains(Part.SUBMISSION_UNITS)) {
+            List<SubmissionUnitDetail> submissionUnits = new ArrayList<>();
+            // Shared with the list cache: copied, never modified
+            for (SubmissionUnit su : submissionUnitService.getSubmissionUnitsByAppId(appId, minSubmissionUnitVersion)) {
+                submissionUnits.add(toDetail(su, parts.contains(Part.COU_OPERATIONS)));
+            }
+            detail.setSubmissionUnits(submissionUnits);
+        }
+        return detail;
+    }
+
+    private SubmissionUnitDetail toDetail(SubmissionUnit su, boolean withOperations) {
+        SubmissionUnitDetail detail = new SubmissionUnitDetail();
+        BeanUtils.copyProperties(su, detail);
+        detail.setCouData(null);
+        if (withOperations && su.getCouData() != null && !su.getCouData().isBlank()) {
+            try {
+                detail.setCouOperations(JsonCodec.readCouOperations(su.getCouData()));
+            } catch (IOException e) {
+                // Not an operations array (legacy format): pass the raw JSON through
+                detail.setCouData(su.getCouData());
+            }
+        } else if (withOperations) {
+            detail.setCouOperations(new ArrayList<>());
+        }
+        return detail;
+    }
+}
@@ -0,0 +1,122 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.ApplicationMapper;
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.RawApplication;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Application JSON Stream Service
+ * Writes an application as JSON with its root section embedded as a JSON value rather
+ * than an escaped string. The JSON column is copied from the JDBC character stream
+ * straight into the response, so multi-MB trees are neither built as a String, escaped
+ * by Jackson, nor parsed a second time by the client.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ApplicationJsonStreamService {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Autowired
+    private ApplicationMapper applicationMapper;
+
+    @Autowired
+    private SectionTreeService sectionTreeService;
+
+    /**
+     * Spring's ObjectMapper, so the other fields are written exactly as in the regular responses
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Write an application as JSON with an embedded root section
+     * @param appId Application ID
+     * @param out Output stream (not closed); nothing is written if the application doesn't exist
+     * @return true if the application was found and written
+     */
+    public boolean writeApplication(Long appId, OutputStream out) throws IOException {
+        RawApplication[] nodeStored = new RawApplication[1];
+        boolean[] found = new boolean[1];
+        try {
+            applicationMapper.streamRawById(appId, context -> {
+                RawApplication row = context.getResultObject();
+                found[0] = true;
+                if (row.getRootSection() == null && isNodeStorage(row)) {
+                    // Assembled after the streamed result set is closed
+                    nodeStored[0] = row;
+                    return;
+                }
+                try {
+                    write(row, row.getRootSection(), null, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (nodeStored[0] != null) {
+            RawApplication row = nodeStored[0];
+            write(row, null, sectionTreeService.assembleRootSection(row.getAppId(), row.getTreeStorage()), out);
+        }
+        return found[0];
+    }
+
+    private void write(RawApplication row, Reader rootSection, String assembledRootSection, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.writeStartObject();
+        generator.writeObjectField("appId", row.getAppId());
+        generator.writeObjectField("appNumber", row.getAppNumber());
+        generator.writeObjectField("appType", row.getAppType());
+        generator.writeObjectField("createdAt", row.getCreatedAt());
+        generator.writeObjectField("updatedAt", row.getUpdatedAt());
+        generator.writeFieldName("rootSection");
+        if (assembledRootSection != null) {
+            generator.writeRawValue(assembledRootSection);
+        } else if (!copyRawValue(rootSection, generator)) {
+            generator.writeNull();
+        }
+        generator.writeObjectField("status", row.getStatus());
+        generator.writeObjectField("treeStorage", row.getTreeStorage());
+        generator.writeObjectField("version", row.getVersion());
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    /**
+     * Copy a JSON value from a reader as raw output: the first chunk as a raw value (which
+     * writes the separator after the field name), the rest as plain raw text
+     * @return false if there was nothing to copy
+     */
+    private static boolean copyRawValue(Reader reader, JsonGenerator generator) throws IOException {
+        if (reader == null) {
+            return false;
+        }
+        char[] buffer = new char[BUFFER_SIZE];
+        int read = reader.read(buffer);
+        if (read < 0) {
+            return false;
+        }
+        generator.writeRawValue(buffer, 0, read);
+        while ((read = reader.read(buffer)) >= 0) {
+            generator.writeRaw(buffer, 0, read);
+        }
+        return true;
+    }
+
+    private static boolean isNodeStorage(RawApplication row) {
+        return Application.TREE_NODES_ARRAY.equals(row.getTreeStorage())
+                || Application.TREE_NODES_OBJECT.equals(row.getTreeStorage());
+    }
+}
@@ -2,14 +2,16 @@ package com.ectd.backend.service;
 
 import com.ectd.backend.mapper.ApplicationMapper;
 import com.ectd.backend.model.Application;
+import com.ectd.backend.util.JsonCodec;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Application Service
@@ -22,16 +24,44 @@ public class ApplicationService {
     @Autowired
     private ApplicationMapper applicationMapper;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private SubmissionUnitListCache submissionUnitListCache;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private SectionTreeService sectionTreeService;
+
+    @Autowired
+    private RootSectionTemplateService rootSectionTemplateService;
 
     /**
-     * Create a new eCTD Application
+     * Create a new eCTD Application with the default region's root section template
      * @param appNumber Application number
      * @param appType Application type
      * @return Created application
      * @throws JsonProcessingException If JSON processing fails
      */
     public Application createApplication(String appNumber, String appType) throws JsonProcessingException {
+        return createApplication(appNumber, appType, null);
+    }
+
+    /**
+     * Create a new eCTD Application
+     * @param appNumber Application number
+     * @param appType Application type
+     * @param region Region of the root section template (null for the default region)
+     * @return Created application
+     * @throws JsonProcessingException If JSON processing fails
+     */
+    public Application createApplication(String appNumber, String appType, String region) throws JsonProcessingException {
         // Check if application number already exists
         if (applicationMapper.findByAppNumber(appNumber) != null) {
             throw new IllegalArgumentException("Application number already exists: " + appNumber);
@@ -42,11 +72,22 @@ public class ApplicationService {
         app.setAppType(appType);
         app.setStatus("DRAFT");
 
-        // Create initial Root Section structure based on eCTD 4.0
-        Map<String, Object> rootSection = createInitialRootSection(appNumber);
-        app.setRootSection(objectMapper.writeValueAsString(rootSection));
+        // Initial Root Section from the region's eCTD 4.0 skeleton for this application type
+        String rootSectionJson = rootSectionTemplateService.instantiate(region, appType, appNumber);
 
-        applicationMapper.insert(app);
+        if (sectionTreeService.isNodeStorageDefault()) {
+            app.setTreeStorage(sectionTreeService.nodeStorageOf(rootSectionJson));
+            applicationMapper.insert(app);
+            sectionTreeService.replaceTree(app, rootSectionJson);
+        } else {
+            app.setTreeStorage(Application.TREE_JSON);
+            app.setRootSection(rootSectionJson);
+            applicationMapper.insert(app);
+        }
+        app.setRootSection(rootSectionJson);
+        publishChange(app.getAppId(), ChangeFeedService.CREATED);
+        statisticsService.recordApplication(app);
+        searchIndexService.indexApplication(app);
         return app;
     }
 
@@ -56,7 +97,7 @@ public class ApplicationService {
      * @return Application entity
      */
     public Application getApplicationById(Long appId) {
-        return applicationMapper.findById(appId);
+        return sectionTreeService.assemble(applicationMapper.findById(appId));
     }
 
     /**
@@ -65,7 +106,7 @@ public class ApplicationService {
      * @return Application entity
      */
     public Application getApplicationByNumber(String appNumber) {
-        return applicationMapper.findByAppNumber(appNumber);
+        return sectionTreeService.assemble(applicationMapper.findByAppNumber(appNumber));
     }
 
     /**
@@ -73,17 +114,90 @@ public class ApplicationService {
      * @return List of applications
      */
     public List<Application> getAllApplications() {
-        return applicationMapper.findAll();
+        List<Application> applications = applicationMapper.findAll();
+        applications.forEach(sectionTreeService::assemble);
+        return applications;
+    }
+
+    /**
+     * Update application. For an application stored as section nodes the tree is only
+     * rewritten if rootSection differs from the stored one.
+     * @param application Application entity
+     * @return Updated application
+     * @throws JsonProcessingException If the root section JSON is malformed
+     */
+    public Application updateApplication(Application application) throws JsonProcessingException {
+        return updateApplication(application, null);
     }
 
     /**
-     * Update application
+     * Update application if it is unchanged since a version the client saw (If-Match)
      * @param application Application entity
+     * @param ifMatch Test of the current ETag, or null for an unconditional update
      * @return Updated application
+     * @throws JsonProcessingException If the root section JSON is malformed
+     * @throws OptimisticLockingFailureException If the application changed or doesn't exist
      */
-    public Application updateApplication(Application application) {
+    public Application updateApplication(Application application, Predicate<String> ifMatch) throws JsonProcessingException {
+        checkVersion(application.getAppId(), ifMatch);
+        Application current = applicationMapper.findById(application.getAppId());
+        checkNotDeleting(current);
+        if (SectionTreeService.isNodeStorage(current)) {
+            sectionTreeService.replaceTreeIfChanged(current, application.getRootSection());
+            application.setRootSection(null);
+        }
         applicationMapper.update(application);
-        return applicationMapper.findById(application.getAppId());
+        publishChange(application.getAppId(), ChangeFeedService.UPDATED);
+        Application updated = getApplicationById(application.getAppId());
+        statisticsService.recordApplication(updated);
+        searchIndexService.indexApplication(updated);
+        return updated;
+    }
+
+    /**
+     * Mark an application as being deleted. Its submission units are then removed in
+     * batches by ApplicationDeletionService, which finally calls deleteApplication.
+     * @param appId Application ID
+     * @return Application in DELETING status
+     */
+    public Application markDeleting(Long appId) {
+        Application app = applicationMapper.findById(appId);
+        if (app == null) {
+            throw new IllegalArgumentException("Application not found: " + appId);
+        }
+        if (!Application.DELETING.equals(app.getStatus())) {
+            applicationMapper.updateStatus(appId, Application.DELETING);
+            app.setStatus(Application.DELETING);
+            publishChange(appId, ChangeFeedService.UPDATED);
+        }
+        return app;
+    }
+
+    /**
+     * Get the applications whose deletion has not finished
+     * @return Application IDs in DELETING status
+     */
+    public List<Long> getDeletingApplicationIds() {
+        return applicationMapper.findIdsByStatus(Application.DELETING);
+    }
+
+    /**
+     * Get ID and number of all applications, without root sections
+     * @return List of applications with only appId and appNumber set
+     */
+    public List<Application> getAllApplicationKeys() {
+        return applicationMapper.findAllKeys();
+    }
+
+    /**
+     * Get the applications changed at or after a point in time
+     * @param since Lower bound of updated_at (inclusive)
+     * @return List of applications
+     */
+    public List<Application> getApplicationsUpdatedSince(LocalDateTime since) {
+        List<Application> applications = applicationMapper.findUpdatedSince(since);
+        applications.forEach(sectionTreeService::assemble);
+        return applications;
     }
 
     /**
@@ -91,7 +205,14 @@ public class ApplicationService {
      * @param appId Application ID
      */
     public void deleteApplication(Long appId) {
+        // Its submission units go with it (ON DELETE CASCADE)
+        submissionUnitListCache.markChanged(appId);
+        // The event carries the last version the application had
+        Application stored = applicationMapper.findVersionById(appId);
         applicationMapper.deleteById(appId);
+        changeFeedService.publish(ChangeFeedService.ENTITY_APPLICATION, appId, appId,
+                stored != null ? stored.getVersion() : null, ChangeFeedService.DELETED);
+        searchIndexService.removeApplication(appId);
     }
 
     /**
@@ -102,62 +223,82 @@ public class ApplicationService {
      * @throws JsonProcessingException If JSON processing fails
      */
     public Application updateRootSection(Long appId, String rootSectionJson) throws JsonProcessingException {
+        return updateRootSection(appId, rootSectionJson, null);
+    }
+
+    /**
+     * Update application root section if the application is unchanged since a version the
+     * client saw (If-Match)
+     * @param appId Application ID
+     * @param rootSectionJson Root section JSON string
+     * @param ifMatch Test of the current ETag, or null for an unconditional update
+     * @return Updated application
+     * @throws JsonProcessingException If JSON processing fails
+     * @throws OptimisticLockingFailureException If the application changed or doesn't exist
+     */
+    public Application updateRootSection(Long appId, String rootSectionJson, Predicate<String> ifMatch) throws JsonProcessingException {
         // Validate JSON format
-        objectMapper.readTree(rootSectionJson);
+        JsonCodec.readTree(rootSectionJson);
+        checkVersion(appId, ifMatch);
         
         Application app = applicationMapper.findById(appId);
         if (app == null) {
             throw new IllegalArgumentException("Application not found: " + appId);
         }
+        checkNotDeleting(app);
         
-        app.setRootSection(rootSectionJson);
+        if (SectionTreeService.isNodeStorage(app)) {
+            sectionTreeService.replaceTree(app, rootSectionJson);
+        } else {
+            app.setRootSection(rootSectionJson);
+        }
         applicationMapper.update(app);
+        app.setRootSection(rootSectionJson);
+        Application stored = applicationMapper.findVersionById(appId);
+        if (stored != null) {
+            app.setVersion(stored.getVersion());
+        }
+        changeFeedService.publish(ChangeFeedService.ENTITY_APPLICATION, appId, appId, app.getVersion(), ChangeFeedService.UPDATED);
+        statisticsService.recordApplication(app);
+        searchIndexService.indexApplication(app);
         return app;
     }
 
     /**
-     * Create initial Root Section structure based on eCTD 4.0
-     * @param appName Application name
-     * @return Root section map
-     */
-    private Map<String, Object> createInitialRootSection(String appName) {
-        return Map.of(
-            "id", 9999990,
-            "nodeType", "application",
-            "name", appName,
-            "children", List.of(
-                Map.of(
-                    "id", 8154,
-                    "nodeType", "module",
-                    "name", "1. Administrative information",
-                    "children", List.of()
-                ),
-                Map.of(
-                    "id", 8155,
-                    "nodeType", "module",
-                    "name", "2. Overview and Summaries",
-                    "children", List.of()
-                ),
-                Map.of(
-                    "id", 8156,
-                    "nodeType", "module",
-                    "name", "3. Quality",
-                    "children", List.of()
-                ),
-                Map.of(
-                    "id", 8157,
-                    "nodeType", "module",
-                    "name", "4. Nonclinical Study Reports",
-                    "children", List.of()
-                ),
-                Map.of(
-                    "id", 8158,
-                    "nodeType", "module",
-                    "name", "5. Clinical Study Reports",
-                    "children", List.of()
-                )
-            )
-        );
+     * Publish an application event with the version the application has after the change
+     */
+    private void publishChange(Long appId, String changeType) {
+        Application stored = applicationMapper.findVersionById(appId);
+        changeFeedService.publish(ChangeFeedService.ENTITY_APPLICATION, appId, appId,
+                stored != null ? stored.getVersion() : null, changeType);
+    }
+
+    /**
+     * Check an If-Match precondition. The version is bumped first, which locks the
+     * application row until the transaction ends, so no other write can slip in between
+     * the check and the update.
+     * @param appId Application ID
+     * @param ifMatch Test of the current ETag, or null to skip the check
+     */
+    private void checkVersion(Long appId, Predicate<String> ifMatch) {
+        if (ifMatch == null) {
+            return;
+        }
+        applicationMapper.bumpVersion(appId);
+        Application current = applicationMapper.findVersionById(appId);
+        // Bumped once here: the version the client may have seen is one less
+        if (current == null || !ifMatch.test(EntityTagService.applicationTag(appId, current.getVersion() - 1))) {
+            throw new OptimisticLockingFailureException("Application " + appId + " has changed");
+        }
     }
-}
 
+    /**
+     * Reject writes to an application that is being deleted
+     * @param app Application (may be null)
+     */
+    private void checkNotDeleting(Application app) {
+        if (app != null && Application.DELETING.equals(app.getStatus())) {
+            throw new IllegalArgumentException("Application is being deleted: " + app.getAppId());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.SubmissionUnitMapper;
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.SubmissionUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Archive Service
+ * Moves the CoU data of old submission units of closed applications into the compressed
+ * archive table. Eligibility is driven by the submission unit status, the application
+ * status and the time since the last update. Archived submission units keep their row
+ * (as a stub) and are read back transparently through SubmissionUnitService.
+ */
+@Service
+public class ArchiveService {
+
+    public static final String JOB_TYPE = "SU_ARCHIVE";
+
+    @Autowired
+    private SubmissionUnitMapper submissionUnitMapper;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    @Value("${ectd.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ectd.archive.min-age-days:365}")
+    private int minAgeDays;
+
+    @Value("${ectd.archive.su-statuses:APPROVED,ARCHIVED}")
+    private List<String> suStatuses;
+
+    @Value("${ectd.archive.app-statuses:APPROVED,CLOSED,ARCHIVED,WITHDRAWN}")
+    private List<String> appStatuses;
+
+    @Value("${ectd.archive.batch-size:200}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Scheduled archive run (off-peak by default)
+     */
+    @Scheduled(cron = "${ectd.archive.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        if (enabled && !running.get()) {
+            startArchive();
+        }
+    }
+
+    /**
+     * Start a background job archiving every eligible submission unit
+     * @return Archive job; poll GET /jobs/{jobId} for progress
+     */
+    public AsyncJob startArchive() {
+        return asyncJobService.submit(JOB_TYPE, this::archive);
+    }
+
+    private void archive(AsyncJob job) {
+        if (!running.compareAndSet(false, true)) {
+            job.setMessage("Another archive run is in progress");
+            return;
+        }
+        try {
+            LocalDateTime updatedBefore = LocalDateTime.now().minusDays(minAgeDays);
+            long archived = 0;
+            int failedApps = 0;
+            while (true) {
+                List<SubmissionUnit> candidates = submissionUnitMapper.findArchivable(suStatuses, appStatuses, updatedBefore, batchSize);
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                Map<Long, List<Long>> byApp = new LinkedHashMap<>();
+                for (SubmissionUnit su : candidates) {
+                    byApp.computeIfAbsent(su.getAppId(), k -> new ArrayList<>()).add(su.getSuId());
+                }
+
+                // One transaction per application and batch
+                int archivedInPass = 0;
+                for (Map.Entry<Long, List<Long>> app : byApp.entrySet()) {
+                    try {
+                        archivedInPass += submissionUnitService.archiveSubmissionUnits(app.getKey(), app.getValue());
+                    } catch (RuntimeException e) {
+                        // e.g. the application is being moved between shards; picked up by the next run
+                        failedApps++;
+                    }
+                }
+                archived += archivedInPass;
+                job.setProcessed(archived);
+                if (archivedInPass == 0) {
+                    break;
+                }
+            }
+            job.putResult("archived", archived);
+            job.putResult("failedApplications", failedApps);
+            job.setMessage("Archived " + archived + " submission unit(s)");
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.AsyncJob;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Async Job Service
+ * Runs long-running jobs on a small bounded pool and keeps their progress in memory
+ * for polling. Finished jobs are dropped after a retention period.
+ */
+@Service
+public class AsyncJobService {
+
+    private final Map<String, AsyncJob> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor;
+
+    private final long retentionMinutes;
+
+    public AsyncJobService(@Value("${ectd.jobs.threads:2}") int threads,
+                           @Value("${ectd.jobs.retention-minutes:1440}") long retentionMinutes) {
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ectd-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    /**
+     * Submit a job
+     * @param jobType Job type
+     * @param work Job body; it updates progress on the job it receives
+     * @return Submitted job
+     */
+    public AsyncJob submit(String jobType, Consumer<AsyncJob> work) {
+        return submit(UUID.randomUUID().toString(), jobType, work);
+    }
+
+    /**
+     * Submit a job with a caller chosen ID (e.g., to resume a persisted job under its old ID)
+     * @param jobId Job ID
+     * @param jobType Job type
+     * @param work Job body
+     * @return Submitted job
+     */
+    public AsyncJob submit(String jobId, String jobType, Consumer<AsyncJob> work) {
+        AsyncJob job = new AsyncJob();
+        job.setJobId(jobId);
+        job.setJobType(jobType);
+        job.setState(AsyncJob.PENDING);
+        job.setCreatedAt(LocalDateTime.now());
+        jobs.put(job.getJobId(), job);
+
+        executor.execute(() -> {
+            job.setState(AsyncJob.RUNNING);
+            try {
+                work.accept(job);
+                job.setState(AsyncJob.COMPLETED);
+            } catch (Exception e) {
+                job.setMessage(e.getMessage());
+                job.setState(AsyncJob.FAILED);
+            } finally {
+                job.setFinishedAt(LocalDateTime.now());
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Get job by ID
+     * @param jobId Job ID
+     * @return AsyncJob, or null if unknown or expired
+     */
+    public AsyncJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Get all known jobs, newest first
+     * @return List of jobs
+     */
+    public List<AsyncJob> getAllJobs() {
+        List<AsyncJob> all = new ArrayList<>(jobs.values());
+        all.sort(Comparator.comparing(AsyncJob::getCreatedAt).reversed());
+        return all;
+    }
+
+    /**
+     * Drop finished jobs older than the retention period
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void evictFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,314 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.ChangeEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Change Feed Service
+ * Publishes created/updated/deleted events from the service write paths and pushes them
+ * to SSE subscribers. Recent events are kept in a bounded ring buffer so clients can
+ * resume from the last offset they saw instead of re-reading everything. Publishing only
+ * appends to the ring and to a bounded queue per subscriber; the queues are drained to
+ * the clients by a small sender pool, so a slow client never blocks a writer. A
+ * subscriber whose queue overflows is sent a "reset" event instead of the dropped
+ * events, and is disconnected if it overflows again before even the reset went out.
+ */
+@Service
+public class ChangeFeedService {
+
+    public static final String ENTITY_APPLICATION = "APPLICATION";
+    public static final String ENTITY_SUBMISSION_UNIT = "SUBMISSION_UNIT";
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private final ChangeEvent[] ring;
+
+    private final long emitterTimeoutMillis;
+
+    private final int subscriberQueueCapacity;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService sender;
+
+    /**
+     * Offset of the next event to be published (guarded by this, as are the ring and the
+     * order in which events enter the subscriber queues)
+     */
+    private long nextOffset = 1;
+
+    public ChangeFeedService(@Value("${ectd.change-feed.capacity:4096}") int capacity,
+                             @Value("${ectd.change-feed.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                             @Value("${ectd.change-feed.subscriber-queue-capacity:256}") int subscriberQueueCapacity,
+                             @Value("${ectd.change-feed.sender-threads:2}") int senderThreads) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Change feed capacity must be positive: " + capacity);
+        }
+        if (subscriberQueueCapacity <= 0) {
+            throw new IllegalArgumentException("Change feed subscriber queue capacity must be positive: " + subscriberQueueCapacity);
+        }
+        this.ring = new ChangeEvent[capacity];
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ectd-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Publish a change event. When called inside a transaction the event is only
+     * published after a successful commit, so subscribers never see rolled back writes.
+     * @param entityType Entity type
+     * @param entityId Entity ID
+     * @param appId Owning application ID
+     * @param version Version of the entity after the change: the application version for
+     *                application events, the application's submission unit change stamp
+     *                version for submission unit events
+     * @param changeType Change type
+     */
+    public void publish(String entityType, Long entityId, Long appId, Long version, String changeType) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(entityType, entityId, appId, version, changeType);
+                }
+            });
+        } else {
+            append(entityType, entityId, appId, version, changeType);
+        }
+    }
+
+    /**
+     * Get buffered events after the given offset
+     * @param afterOffset Last offset seen by the client (0 for everything since startup)
+     * @return Events in offset order, or null if events after the offset have already been
+     *         evicted (also for 0 once the buffer has wrapped)
+     */
+    public synchronized List<ChangeEvent> getEventsSince(long afterOffset) {
+        long oldest = Math.max(1, nextOffset - ring.length);
+        if (afterOffset + 1 < oldest) {
+            return null;
+        }
+        List<ChangeEvent> events = new ArrayList<>();
+        for (long offset = Math.max(afterOffset + 1, oldest); offset < nextOffset; offset++) {
+            events.add(ring[(int) (offset % ring.length)]);
+        }
+        return events;
+    }
+
+    /**
+     * Get the offset of the most recently published event
+     * @return Latest offset (0 if nothing was published yet)
+     */
+    public synchronized long getLatestOffset() {
+        return nextOffset - 1;
+    }
+
+    /**
+     * Open an SSE subscription, replaying buffered events after the given offset first.
+     * If the offset is no longer in the buffer a "reset" event is sent and the client
+     * must reload its state before continuing with incremental updates.
+     * @param afterOffset Last offset seen by the client, or null to only receive new events
+     * @return SSE emitter
+     */
+    public SseEmitter subscribe(Long afterOffset) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Queue the replay and register under the ring lock so no event is missed,
+        // duplicated or queued ahead of the replay
+        boolean schedule;
+        synchronized (this) {
+            List<ChangeEvent> backlog = afterOffset == null ? List.of() : getEventsSince(afterOffset);
+            schedule = subscriber.start(backlog, getLatestOffset());
+            subscribers.add(subscriber);
+        }
+        if (schedule) {
+            schedule(subscriber);
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * Append an event to the ring buffer and queue it for every subscriber
+     */
+    private void append(String entityType, Long entityId, Long appId, Long version, String changeType) {
+        List<Subscriber> ready = new ArrayList<>();
+        synchronized (this) {
+            ChangeEvent event = new ChangeEvent(nextOffset, entityType, entityId, appId, version, changeType, LocalDateTime.now());
+            ring[(int) (nextOffset % ring.length)] = event;
+            nextOffset++;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.offer(event)) {
+                    ready.add(subscriber);
+                }
+            }
+        }
+        ready.forEach(this::schedule);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        try {
+            sender.execute(subscriber);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private static void send(SseEmitter emitter, ChangeEvent event) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.getOffset()))
+                .name("change")
+                .data(event, MediaType.APPLICATION_JSON));
+    }
+
+    private static void sendReset(SseEmitter emitter, long latestOffset) throws IOException {
+        emitter.send(SseEmitter.event().name("reset").id(String.valueOf(latestOffset)).data(latestOffset));
+    }
+
+    /**
+     * An SSE client with its queue of undelivered events. At most one drain runs per
+     * subscriber, so its events go out in offset order; each run sends one batch and
+     * reschedules itself, so a slow client doesn't keep a sender thread from the others.
+     */
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+
+        private final Deque<ChangeEvent> queue = new ArrayDeque<>();
+
+        /**
+         * Offset to announce in a reset event before the queued events, or null
+         */
+        private Long resetOffset;
+
+        private boolean scheduled;
+
+        private boolean dropped;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queue the replay of a new subscription; the backlog is bounded by the ring size
+         * @return Whether a drain must be scheduled
+         */
+        synchronized boolean start(List<ChangeEvent> backlog, long latestOffset) {
+            if (backlog == null) {
+                resetOffset = latestOffset;
+            } else {
+                queue.addAll(backlog);
+            }
+            return markScheduled();
+        }
+
+        /**
+         * Queue a live event
+         * @return Whether a drain must be scheduled
+         */
+        synchronized boolean offer(ChangeEvent event) {
+            if (dropped) {
+                return false;
+            }
+            if (queue.size() >= subscriberQueueCapacity) {
+                queue.clear();
+                if (resetOffset != null) {
+                    // Not even the previous reset went out: the client is not keeping up
+                    dropped = true;
+                    return markScheduled();
+                }
+                // The client reloads its state up to this event and continues after it
+                resetOffset = event.getOffset();
+                return markScheduled();
+            }
+            queue.add(event);
+            return markScheduled();
+        }
+
+        private boolean markScheduled() {
+            if (scheduled || (resetOffset == null && queue.isEmpty() && !dropped)) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        @Override
+        public void run() {
+            Long reset;
+            List<ChangeEvent> batch;
+            synchronized (this) {
+                if (dropped) {
+                    queue.clear();
+                    batch = null;
+                    reset = null;
+                } else {
+                    reset = resetOffset;
+                    resetOffset = null;
+                    batch = new ArrayList<>(queue);
+                    queue.clear();
+                }
+            }
+            if (batch == null) {
+                subscribers.remove(this);
+                emitter.complete();
+                return;
+            }
+            try {
+                if (reset != null) {
+                    sendReset(emitter, reset);
+                }
+                for (ChangeEvent event : batch) {
+                    send(emitter, event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                synchronized (this) {
+                    dropped = true;
+                    queue.clear();
+                }
+                subscribers.remove(this);
+                return;
+            }
+            boolean more;
+            synchronized (this) {
+                scheduled = false;
+                more = markScheduled();
+            }
+            if (more) {
+                schedule(this);
+            }
+        }
+    }
+}
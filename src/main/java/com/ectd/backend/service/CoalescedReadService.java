@@ -0,0 +1,95 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.util.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Coalesced Read Service
+ * Hot reads for the REST endpoints, coalesced per application and version: concurrent
+ * requests for the same application (reviewers opening it together before a deadline)
+ * share one in-flight load and one serialized JSON buffer instead of each running the query
+ * and serializing the same multi-MB payload. Callers pass the version they read for the
+ * ETag before the load, so a request never joins a load that started before a write it has
+ * seen, wherever the write ran, and the buffer is never older than the ETag sent with it.
+ */
+@Service
+public class CoalescedReadService {
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    /**
+     * Spring's ObjectMapper, so the buffers match the regular responses byte for byte
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final SingleFlight<FlightKey, byte[]> applications = new SingleFlight<>();
+
+    private final SingleFlight<FlightKey, byte[]> submissionUnitLists = new SingleFlight<>();
+
+    public CoalescedReadService(@Value("${ectd.coalescing.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get an application serialized as JSON
+     * @param appId Application ID
+     * @param version Application version read by the caller (the response is at least this new)
+     * @return JSON bytes (shared, must not be modified), or null if the application doesn't exist
+     */
+    public byte[] getApplicationJson(Long appId, long version) throws Exception {
+        return coalesce(applications, new FlightKey(appId, version), () -> {
+            Application app = applicationService.getApplicationById(appId);
+            return app == null ? null : objectMapper.writeValueAsBytes(app);
+        });
+    }
+
+    /**
+     * Get the submission units of an application serialized as a JSON array
+     * @param appId Application ID
+     * @param version Change stamp version read by the caller (the response is at least this new)
+     * @return JSON bytes (shared, must not be modified)
+     */
+    public byte[] getSubmissionUnitsJson(Long appId, long version) throws Exception {
+        return coalesce(submissionUnitLists, new FlightKey(appId, version),
+                () -> objectMapper.writeValueAsBytes(submissionUnitService.getSubmissionUnitsByAppId(appId, version)));
+    }
+
+    /**
+     * Coalescing counters, for metrics
+     * @return Map of counters per read
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("applications", applications.getMetrics());
+        metrics.put("submissionUnitLists", submissionUnitLists.getMetrics());
+        return metrics;
+    }
+
+    private byte[] coalesce(SingleFlight<FlightKey, byte[]> flight, FlightKey key, Callable<byte[]> loader) throws Exception {
+        // A caller inside a transaction may need its own uncommitted writes
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.call();
+        }
+        return flight.execute(key, loader);
+    }
+
+    private record FlightKey(Long appId, long version) {
+    }
+}
@@ -0,0 +1,267 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.CoUOperation;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Document Checksum Service
+ * Computes SHA-256 checksums of all documents referenced by a submission unit's CoU
+ * operations. Files are hashed in parallel on a fork-join pool, large files through
+ * memory-mapped reads. Results are cached by path, size and modification time so an
+ * unchanged file is not hashed twice by this node. The cache is an in-memory LRU of
+ * ectd.checksum.cache-entries entries: it is not persisted, so it starts empty after a
+ * restart, and it is not shared between nodes.
+ */
+@Service
+public class DocumentChecksumService {
+
+    public static final String JOB_TYPE = "DOCUMENT_CHECKSUM";
+
+    private static final Pattern STORED_DOCUMENT_PATH = Pattern.compile("/documents/([0-9a-f]{64})/content");
+
+    /**
+     * Largest region mapped at once; MappedByteBuffer is limited to 2 GB
+     */
+    private static final long MAX_MAPPED_REGION = 1L << 30;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    @Autowired
+    private DocumentStoreService documentStoreService;
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    private final Path documentRoot;
+
+    private final long mmapThreshold;
+
+    private final ForkJoinPool pool;
+
+    private final Map<String, CachedChecksum> cache;
+
+    public DocumentChecksumService(@Value("${ectd.checksum.document-root:./data/submissions}") String documentRoot,
+                                   @Value("${ectd.checksum.parallelism:0}") int parallelism,
+                                   @Value("${ectd.checksum.mmap-threshold-bytes:4194304}") long mmapThreshold,
+                                   @Value("${ectd.checksum.cache-entries:100000}") int cacheEntries) {
+        this.documentRoot = Paths.get(documentRoot).toAbsolutePath().normalize();
+        this.mmapThreshold = mmapThreshold;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedChecksum> eldest) {
+                return size() > cacheEntries;
+            }
+        };
+    }
+
+    /**
+     * Start a background job computing the checksums of a submission unit's documents
+     * and recording them on the CoU operations
+     * @param suId Submission unit ID
+     * @return Checksum job; poll GET /jobs/{jobId} for progress
+     */
+    public AsyncJob startChecksumJob(Long suId) {
+        if (submissionUnitService.getSubmissionUnitById(suId) == null) {
+            throw new IllegalArgumentException("Submission Unit not found: " + suId);
+        }
+        return asyncJobService.submit(JOB_TYPE, job -> computeChecksums(suId, job));
+    }
+
+    private void computeChecksums(Long suId, AsyncJob job) {
+        // Distinct document paths referenced by the CoU operations
+        Map<String, Path> files = new LinkedHashMap<>();
+        int unresolved = 0;
+        for (CoUOperation op : submissionUnitService.getCouOperations(suId)) {
+            CoUOperation.DocumentInfo document = op.getDocument();
+            if (document == null || document.getPath() == null || files.containsKey(document.getPath())) {
+                continue;
+            }
+            Path file = resolve(document.getPath());
+            if (file == null || !Files.isRegularFile(file)) {
+                unresolved++;
+                continue;
+            }
+            files.put(document.getPath(), file);
+        }
+        job.setTotal(files.size());
+        job.putResult("documents", files.size());
+        job.putResult("missing", unresolved);
+
+        Map<String, CoUOperation.DocumentInfo> results = new ConcurrentHashMap<>();
+        AtomicLong processed = new AtomicLong();
+        AtomicLong hashed = new AtomicLong();
+        List<Map.Entry<String, Path>> entries = new ArrayList<>(files.entrySet());
+        pool.invoke(new ChecksumTask(entries, 0, entries.size(), results, processed, hashed, job));
+
+        job.putResult("hashed", hashed.get());
+        job.putResult("cached", files.size() - hashed.get());
+        job.putResult("updated", submissionUnitService.applyDocumentChecksums(suId, results));
+        job.setMessage("Computed " + results.size() + " checksums");
+    }
+
+    /**
+     * Map a CoU document path to a file: store-backed documents to their content file,
+     * everything else relative to the configured document root
+     */
+    private Path resolve(String documentPath) {
+        Matcher stored = STORED_DOCUMENT_PATH.matcher(documentPath);
+        if (stored.matches()) {
+            return documentStoreService.getContentPath(stored.group(1));
+        }
+        String relative = documentPath.startsWith("/") ? documentPath.substring(1) : documentPath;
+        Path file = documentRoot.resolve(relative).normalize();
+        // Don't let a crafted path read outside the document root
+        return file.startsWith(documentRoot) ? file : null;
+    }
+
+    /**
+     * Checksum of a file, served from the cache while size and modification time are unchanged
+     * @return Cached checksum, or a freshly computed one
+     */
+    private CachedChecksum checksum(Path file, AtomicLong hashed) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String key = file.toString();
+        CachedChecksum cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && cached.size == attributes.size() && cached.lastModified == lastModified) {
+            return cached;
+        }
+
+        CachedChecksum computed = new CachedChecksum(sha256(file, attributes.size()), attributes.size(), lastModified);
+        hashed.incrementAndGet();
+        synchronized (cache) {
+            cache.put(key, computed);
+        }
+        return computed;
+    }
+
+    private String sha256(Path file, long size) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (size >= mmapThreshold) {
+                // Hash straight from the page cache without copying into a heap buffer
+                for (long position = 0; position < size; position += MAX_MAPPED_REGION) {
+                    MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAX_MAPPED_REGION, size - position));
+                    digest.update(region);
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Splits the file list in halves until a single file is left, then hashes it
+     */
+    private class ChecksumTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Map.Entry<String, Path>> files;
+        private final int from;
+        private final int to;
+        private final Map<String, CoUOperation.DocumentInfo> results;
+        private final AtomicLong processed;
+        private final AtomicLong hashed;
+        private final AsyncJob job;
+
+        ChecksumTask(List<Map.Entry<String, Path>> files, int from, int to, Map<String, CoUOperation.DocumentInfo> results,
+                     AtomicLong processed, AtomicLong hashed, AsyncJob job) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+            this.processed = processed;
+            this.hashed = hashed;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChecksumTask(files, from, middle, results, processed, hashed, job),
+                        new ChecksumTask(files, middle, to, results, processed, hashed, job));
+                return;
+            }
+            if (to == from) {
+                return;
+            }
+            Map.Entry<String, Path> entry = files.get(from);
+            try {
+                CachedChecksum checksum = checksum(entry.getValue(), hashed);
+                CoUOperation.DocumentInfo document = new CoUOperation.DocumentInfo();
+                document.setPath(entry.getKey());
+                document.setChecksum(checksum.checksum);
+                document.setSize(checksum.size);
+                results.put(entry.getKey(), document);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to hash " + entry.getKey() + ": " + e.getMessage(), e);
+            }
+            job.setProcessed(processed.incrementAndGet());
+        }
+    }
+
+    private static class CachedChecksum {
+
+        private final String checksum;
+        private final long size;
+        private final long lastModified;
+
+        CachedChecksum(String checksum, long size, long lastModified) {
+            this.checksum = checksum;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
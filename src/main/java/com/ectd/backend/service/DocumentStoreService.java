@@ -0,0 +1,445 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.DocumentMapper;
+import com.ectd.backend.model.CoUOperation;
+import com.ectd.backend.model.StoredDocument;
+import com.ectd.backend.util.JsonCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Document Store Service
+ * Local-filesystem document store keyed by SHA-256. Content lives under
+ * {root}/objects/ab/cd/{sha256}, so identical documents reused across submission units
+ * and applications are stored once. Uploads are chunked and resumable: chunks are
+ * appended to {root}/uploads/{uploadId}.part and the client can ask how many bytes
+ * arrived before continuing after a failure. Uploads without activity for
+ * ectd.document-store.upload-ttl-hours are removed by a periodic sweep.
+ */
+@Service
+public class DocumentStoreService {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern UPLOAD_ID = Pattern.compile("[0-9a-f\\-]{36}");
+
+    @Autowired
+    private DocumentMapper documentMapper;
+
+    private final Path objectsDir;
+
+    private final Path uploadsDir;
+
+    private final Duration uploadTtl;
+
+    /**
+     * Lock per upload in progress, serializing appends, completion and the sweep
+     */
+    private final Map<String, Object> uploadLocks = new ConcurrentHashMap<>();
+
+    public DocumentStoreService(@Value("${ectd.document-store.root:./data/documents}") String root,
+                                @Value("${ectd.document-store.upload-ttl-hours:24}") long uploadTtlHours) throws IOException {
+        Path rootDir = Paths.get(root).toAbsolutePath().normalize();
+        this.objectsDir = Files.createDirectories(rootDir.resolve("objects"));
+        this.uploadsDir = Files.createDirectories(rootDir.resolve("uploads"));
+        this.uploadTtl = Duration.ofHours(uploadTtlHours);
+    }
+
+    /**
+     * Start a resumable upload
+     * @param fileName Original file name
+     * @param totalSize Expected total size in bytes, if known
+     * @return Upload status (uploadId, received, totalSize)
+     */
+    public Map<String, Object> startUpload(String fileName, Long totalSize) throws IOException {
+        String uploadId = UUID.randomUUID().toString();
+        Files.createFile(partFile(uploadId));
+
+        Properties meta = new Properties();
+        if (fileName != null) {
+            meta.setProperty("fileName", fileName);
+        }
+        if (totalSize != null) {
+            meta.setProperty("totalSize", String.valueOf(totalSize));
+        }
+        try (OutputStream out = Files.newOutputStream(metaFile(uploadId))) {
+            meta.store(out, null);
+        }
+        return getUploadStatus(uploadId);
+    }
+
+    /**
+     * Get the status of an upload
+     * @param uploadId Upload ID
+     * @return Upload status (uploadId, fileName, received, totalSize)
+     */
+    public Map<String, Object> getUploadStatus(String uploadId) throws IOException {
+        Properties meta = readMeta(uploadId);
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("uploadId", uploadId);
+        status.put("fileName", meta.getProperty("fileName"));
+        status.put("received", Files.size(partFile(uploadId)));
+        status.put("totalSize", meta.getProperty("totalSize") == null ? null : Long.valueOf(meta.getProperty("totalSize")));
+        return status;
+    }
+
+    /**
+     * Append a chunk to an upload. The offset must equal the number of bytes received so
+     * far, which makes retried chunks safe: a chunk that already landed is rejected with
+     * the current offset instead of being appended twice.
+     * @param uploadId Upload ID
+     * @param offset Offset of the chunk in the file
+     * @param chunk Chunk content
+     * @return Upload status after the append
+     * @throws IllegalStateException If the offset does not match the received size
+     */
+    public Map<String, Object> appendChunk(String uploadId, long offset, InputStream chunk) throws IOException {
+        Path part = partFile(uploadId);
+        synchronized (lockFor(uploadId)) {
+            // Checked under the lock: the upload may just have been completed or swept
+            readMeta(uploadId);
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                long received = channel.size();
+                if (offset != received) {
+                    throw new IllegalStateException("Offset mismatch, expected " + received);
+                }
+                channel.position(received);
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = chunk.read(buffer)) > 0) {
+                    ByteBuffer bb = ByteBuffer.wrap(buffer, 0, n);
+                    while (bb.hasRemaining()) {
+                        channel.write(bb);
+                    }
+                }
+                channel.force(false);
+            }
+        }
+        return getUploadStatus(uploadId);
+    }
+
+    /**
+     * Finish an upload: hash the content, move it into the store (or drop it if the same
+     * content is already stored) and record its metadata
+     * @param uploadId Upload ID
+     * @return Stored document
+     */
+    public StoredDocument completeUpload(String uploadId) throws IOException {
+        Path part = partFile(uploadId);
+        synchronized (lockFor(uploadId)) {
+            Properties meta = readMeta(uploadId);
+            String totalSize = meta.getProperty("totalSize");
+            if (totalSize != null && Files.size(part) != Long.parseLong(totalSize)) {
+                throw new IllegalStateException("Upload incomplete: received " + Files.size(part) + " of " + totalSize + " bytes");
+            }
+            StoredDocument document = store(part, meta.getProperty("fileName"));
+            Files.deleteIfExists(metaFile(uploadId));
+            uploadLocks.remove(uploadId);
+            return document;
+        }
+    }
+
+    /**
+     * Remove uploads that saw no chunk for longer than the upload TTL, and temp files of
+     * direct uploads interrupted by a crash
+     * @return Number of removed uploads and temp files
+     */
+    @Scheduled(fixedDelayString = "${ectd.document-store.upload-sweep-interval-ms:3600000}")
+    public int sweepAbandonedUploads() throws IOException {
+        FileTime cutoff = FileTime.from(Instant.now().minus(uploadTtl));
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadsDir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("direct-")) {
+                    if (isOlderThan(file, cutoff) && Files.deleteIfExists(file)) {
+                        removed++;
+                    }
+                    continue;
+                }
+                if (!name.endsWith(".meta")) {
+                    continue;
+                }
+                String uploadId = name.substring(0, name.length() - ".meta".length());
+                if (!UPLOAD_ID.matcher(uploadId).matches()) {
+                    continue;
+                }
+                synchronized (lockFor(uploadId)) {
+                    // The part file is touched by every chunk, the meta file only at the start
+                    Path part = partFile(uploadId);
+                    if (isOlderThan(file, cutoff) && isOlderThan(part, cutoff)) {
+                        Files.deleteIfExists(part);
+                        Files.deleteIfExists(file);
+                        uploadLocks.remove(uploadId);
+                        removed++;
+                    }
+                }
+            }
+        }
+        // Locks created by requests for unknown or already finished uploads
+        uploadLocks.keySet().removeIf(uploadId -> !Files.exists(metaFile(uploadId)));
+        return removed;
+    }
+
+    /**
+     * Store a document in one request (small files)
+     * @param content Document content
+     * @param fileName Original file name
+     * @return Stored document
+     */
+    public StoredDocument upload(InputStream content, String fileName) throws IOException {
+        Path temp = Files.createTempFile(uploadsDir, "direct-", ".part");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            return store(temp, fileName);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Get document metadata
+     * @param sha256 SHA-256 hex
+     * @return Stored document, or null if unknown
+     */
+    public StoredDocument getDocument(String sha256) {
+        if (sha256 == null || !SHA256.matcher(sha256).matches()) {
+            return null;
+        }
+        return documentMapper.findBySha256(sha256);
+    }
+
+    /**
+     * Get the content file of a stored document
+     * @param sha256 SHA-256 hex
+     * @return Content path
+     */
+    public Path getContentPath(String sha256) {
+        if (!SHA256.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("Invalid document hash: " + sha256);
+        }
+        return objectsDir.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    /**
+     * Fill size, checksum, format and path of the CoU documents that reference a stored
+     * document, either by file_id or by checksum, with one query for all of them. Must run
+     * before the caller's write transaction opens: ectd_document lives on the default shard,
+     * and a lookup inside a submission unit transaction would either need a second pooled
+     * connection while holding the first or run on the application's shard.
+     * @param documents Document infos of CoU operations (null entries are skipped)
+     * @return true if at least one document was filled in
+     * @throws IllegalStateException If called inside a transaction
+     */
+    public boolean populate(Collection<CoUOperation.DocumentInfo> documents) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Stored documents must be resolved before the write transaction opens");
+        }
+        Map<String, List<CoUOperation.DocumentInfo>> byKey = new LinkedHashMap<>();
+        for (CoUOperation.DocumentInfo document : documents) {
+            String key = storeKey(document);
+            if (key != null) {
+                byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(document);
+            }
+        }
+        if (byKey.isEmpty()) {
+            return false;
+        }
+        boolean populated = false;
+        for (StoredDocument stored : documentMapper.findBySha256In(new ArrayList<>(byKey.keySet()))) {
+            for (CoUOperation.DocumentInfo document : byKey.get(stored.getSha256())) {
+                fill(document, stored);
+                populated = true;
+            }
+        }
+        return populated;
+    }
+
+    /**
+     * Fill the stored documents referenced by CoU data, see populate(Collection)
+     * @param couDataJson CoU data JSON array
+     * @return CoU data with the stored documents filled in, or the input if none is
+     *         referenced or it is not valid CoU data (the write path rejects it)
+     */
+    public String populateCouData(String couDataJson) {
+        if (couDataJson == null || couDataJson.trim().isEmpty()) {
+            return couDataJson;
+        }
+        try {
+            List<CoUOperation> operations = JsonCodec.readCouOperations(couDataJson);
+            List<CoUOperation.DocumentInfo> documents = new ArrayList<>();
+            for (CoUOperation operation : operations) {
+                documents.add(operation.getDocument());
+            }
+            return populate(documents) ? JsonCodec.writeCouOperations(operations) : couDataJson;
+        } catch (JsonProcessingException e) {
+            return couDataJson;
+        }
+    }
+
+    /**
+     * Store key of a CoU document: its checksum or file_id if that is a SHA-256
+     */
+    private static String storeKey(CoUOperation.DocumentInfo document) {
+        if (document == null) {
+            return null;
+        }
+        String key = document.getChecksum() != null ? document.getChecksum() : document.getFileId();
+        if (key == null) {
+            return null;
+        }
+        key = key.toLowerCase();
+        return SHA256.matcher(key).matches() ? key : null;
+    }
+
+    private static void fill(CoUOperation.DocumentInfo document, StoredDocument stored) {
+        document.setChecksum(stored.getSha256());
+        document.setSize(stored.getSize());
+        if (document.getFileId() == null) {
+            document.setFileId(stored.getSha256());
+        }
+        if (document.getFormat() == null) {
+            document.setFormat(stored.getFormat());
+        }
+        if (document.getPath() == null) {
+            document.setPath("/documents/" + stored.getSha256() + "/content");
+        }
+    }
+
+    private StoredDocument store(Path file, String fileName) throws IOException {
+        String sha256 = sha256(file);
+        long size = Files.size(file);
+        Path target = getContentPath(sha256);
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            Files.delete(file);
+        } else {
+            try {
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Same content stored concurrently
+                Files.delete(file);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        StoredDocument document = new StoredDocument();
+        document.setSha256(sha256);
+        document.setSize(size);
+        document.setFormat(detectFormat(target, fileName));
+        document.setFileName(fileName);
+        documentMapper.insertIgnore(document);
+        return documentMapper.findBySha256(sha256);
+    }
+
+    private String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Format from the file name extension, else from the leading magic bytes
+     */
+    private String detectFormat(Path file, String fileName) throws IOException {
+        if (fileName != null && fileName.lastIndexOf('.') > 0) {
+            return fileName.substring(fileName.lastIndexOf('.') + 1).toUpperCase();
+        }
+        byte[] head = new byte[5];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n = in.readNBytes(head, 0, head.length);
+            String magic = new String(head, 0, n, StandardCharsets.ISO_8859_1);
+            if (magic.startsWith("%PDF")) {
+                return "PDF";
+            }
+            if (magic.startsWith("<?xml")) {
+                return "XML";
+            }
+            if (magic.startsWith("PK")) {
+                return "ZIP";
+            }
+        }
+        return null;
+    }
+
+    private Object lockFor(String uploadId) {
+        return uploadLocks.computeIfAbsent(checkUploadId(uploadId), id -> new Object());
+    }
+
+    private static boolean isOlderThan(Path file, FileTime cutoff) throws IOException {
+        return !Files.exists(file) || Files.getLastModifiedTime(file).compareTo(cutoff) < 0;
+    }
+
+    private Properties readMeta(String uploadId) throws IOException {
+        Path metaFile = metaFile(uploadId);
+        if (!Files.exists(metaFile)) {
+            throw new IllegalArgumentException("Upload not found: " + uploadId);
+        }
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(metaFile)) {
+            meta.load(in);
+        }
+        return meta;
+    }
+
+    private Path partFile(String uploadId) {
+        return uploadsDir.resolve(checkUploadId(uploadId) + ".part");
+    }
+
+    private Path metaFile(String uploadId) {
+        return uploadsDir.resolve(checkUploadId(uploadId) + ".meta");
+    }
+
+    private String checkUploadId(String uploadId) {
+        if (uploadId == null || !UPLOAD_ID.matcher(uploadId).matches()) {
+            throw new IllegalArgumentException("Upload not found: " + uploadId);
+        }
+        return uploadId;
+    }
+}
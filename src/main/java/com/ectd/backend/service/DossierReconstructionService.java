@@ -0,0 +1,411 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.ApplicationMapper;
+import com.ectd.backend.mapper.ChangeStampMapper;
+import com.ectd.backend.mapper.DossierCheckpointMapper;
+import com.ectd.backend.model.DossierCheckpoint;
+import com.ectd.backend.model.DossierDocument;
+import com.ectd.backend.model.DossierSnapshot;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.util.JsonCodec;
+import com.ectd.backend.util.SectionCodeIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dossier Reconstruction Service
+ * Point-in-time view of an application's dossier: the documents current after replaying
+ * the CoU operations of its submission units, in sequence order, up to a sequence number
+ * or effective date. Operations are matched like the document lifecycle rule of the
+ * validation: a document is keyed by file_id, else checksum, else path; replace supersedes
+ * the same document, or else the documents on its target; delete removes the same
+ * document, or else the first one on its target.
+ *
+ * Every checkpoint-interval submission units a checkpoint of the replay state is stored,
+ * so a reconstruction replays at most that many submission units after the nearest one.
+ * Checkpoints are written under the lock of the change stamp and only if the stamp still
+ * has the version the submission units were read at; writes delete the checkpoints they
+ * make stale. Recently requested snapshots are kept per node and served while the
+ * application's change stamp is unchanged.
+ */
+@Service
+public class DossierReconstructionService {
+
+    private static final TypeReference<LinkedHashMap<String, DossierDocument>> STATE_TYPE = new TypeReference<>() {
+    };
+
+    @Autowired
+    private ApplicationMapper applicationMapper;
+
+    @Autowired
+    private ChangeStampMapper changeStampMapper;
+
+    @Autowired
+    private DossierCheckpointMapper dossierCheckpointMapper;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    private final ObjectMapper objectMapper = JsonCodec.mapper();
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int checkpointInterval;
+
+    private final int cacheSize;
+
+    private final Map<String, CachedSnapshot> cache;
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final LongAdder checkpointsUsed = new LongAdder();
+
+    private final LongAdder checkpointsWritten = new LongAdder();
+
+    private final LongAdder replayedSubmissionUnits = new LongAdder();
+
+    public DossierReconstructionService(PlatformTransactionManager transactionManager,
+                                        @Value("${ectd.reconstruction.checkpoint-interval:10}") int checkpointInterval,
+                                        @Value("${ectd.reconstruction.cache-size:200}") int cacheSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.checkpointInterval = checkpointInterval;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSnapshot> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Reconstruct an application's dossier as of a sequence number or an effective date
+     * (the latest state if neither is given). Cached snapshots are shared and must not be
+     * modified.
+     * @param appId Application ID
+     * @param asOfSequence Include the submission units up to this sequence number
+     * @param asOfEffectiveDate Include the submission units effective on or before this date
+     * @return Dossier snapshot, or null if the application doesn't exist
+     * @throws JsonProcessingException If the CoU data of a submission unit or a checkpoint is not valid JSON
+     */
+    public DossierSnapshot reconstruct(Long appId, Integer asOfSequence, LocalDate asOfEffectiveDate) throws JsonProcessingException {
+        if (asOfSequence != null && asOfEffectiveDate != null) {
+            throw new IllegalArgumentException("Specify either sequence or effectiveDate, not both");
+        }
+        if (applicationMapper.findVersionById(appId) == null) {
+            return null;
+        }
+        // Read before the submission units, so the snapshot is at least this new
+        Long stamp = changeStampMapper.findVersion(appId);
+        long version = stamp == null ? 0 : stamp;
+
+        String key = appId + "/" + (asOfSequence != null ? "seq:" + asOfSequence
+                : asOfEffectiveDate != null ? "date:" + asOfEffectiveDate : "latest");
+        if (cacheSize > 0) {
+            synchronized (cache) {
+                CachedSnapshot cached = cache.get(key);
+                if (cached != null && cached.version == version) {
+                    cacheHits.increment();
+                    return cached.snapshot;
+                }
+            }
+        }
+        cacheMisses.increment();
+
+        DossierSnapshot snapshot = replay(appId, asOfSequence, asOfEffectiveDate, version);
+        if (cacheSize > 0) {
+            synchronized (cache) {
+                CachedSnapshot cached = cache.get(key);
+                if (cached == null || cached.version < version) {
+                    cache.put(key, new CachedSnapshot(version, snapshot));
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reconstruction counters, for metrics
+     * @return Map of counters
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("checkpointInterval", checkpointInterval);
+        metrics.put("cacheHits", cacheHits.sum());
+        metrics.put("cacheMisses", cacheMisses.sum());
+        metrics.put("checkpointsUsed", checkpointsUsed.sum());
+        metrics.put("checkpointsWritten", checkpointsWritten.sum());
+        metrics.put("replayedSubmissionUnits", replayedSubmissionUnits.sum());
+        return metrics;
+    }
+
+    private DossierSnapshot replay(Long appId, Integer asOfSequence, LocalDate asOfEffectiveDate, long version)
+            throws JsonProcessingException {
+        // Ordered by sequence number
+        List<SubmissionUnit> ordered = submissionUnitService.getSubmissionUnitsByAppId(appId, version);
+        int prefix = 0;
+        while (prefix < ordered.size() && includes(ordered.get(prefix), asOfSequence, asOfEffectiveDate)) {
+            prefix++;
+        }
+
+        // Nearest checkpoint inside the included prefix. One that still exists is valid from its
+        // own version on, so it fits the list unless it was built from newer submission units.
+        Set<Integer> existing = new HashSet<>();
+        DossierCheckpoint start = null;
+        for (DossierCheckpoint position : dossierCheckpointMapper.findPositions(appId)) {
+            existing.add(position.getSequenceNum());
+            if (fits(position, ordered, prefix, version)) {
+                start = position;
+            }
+        }
+        DossierState state = new DossierState();
+        if (start != null) {
+            start = dossierCheckpointMapper.findBySequence(appId, start.getSequenceNum());
+        }
+        if (start != null && start.getState() != null && fits(start, ordered, prefix, version)) {
+            state.load(objectMapper.readValue(start.getState(), STATE_TYPE));
+            checkpointsUsed.increment();
+        } else {
+            start = null;
+        }
+
+        List<DossierCheckpoint> pending = new ArrayList<>();
+        int replayed = 0;
+        int operations = 0;
+        Integer lastSequence = start == null ? null : start.getSequenceNum();
+        int included = start == null ? 0 : start.getSuCount();
+        for (int i = included; i < ordered.size(); i++) {
+            SubmissionUnit su = ordered.get(i);
+            if (!includes(su, asOfSequence, asOfEffectiveDate)) {
+                continue;
+            }
+            operations += apply(state, su);
+            replayed++;
+            included++;
+            lastSequence = su.getSequenceNum();
+            if (i < prefix && checkpointInterval > 0 && (i + 1) % checkpointInterval == 0
+                    && version > 0 && !existing.contains(su.getSequenceNum())) {
+                pending.add(new DossierCheckpoint(appId, su.getSequenceNum(), i + 1, version,
+                        objectMapper.writeValueAsString(state.documents), null));
+            }
+        }
+        replayedSubmissionUnits.add(replayed);
+        if (!pending.isEmpty()) {
+            saveCheckpoints(appId, version, pending);
+        }
+
+        return new DossierSnapshot(appId, asOfSequence, asOfEffectiveDate, lastSequence, included, version,
+                start == null ? null : start.getSequenceNum(), replayed, operations,
+                new ArrayList<>(state.documents.values()));
+    }
+
+    /**
+     * Store new checkpoints if no submission unit of the application was written since the
+     * list was read; holding the stamp lock keeps writes out until they are committed
+     */
+    private void saveCheckpoints(Long appId, long version, List<DossierCheckpoint> pending) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Long current = changeStampMapper.findVersionForUpdate(appId);
+            if (current == null || current != version) {
+                return;
+            }
+            // Another node may have stored some of them meanwhile
+            Set<Integer> existing = new HashSet<>();
+            for (DossierCheckpoint position : dossierCheckpointMapper.findPositions(appId)) {
+                existing.add(position.getSequenceNum());
+            }
+            for (DossierCheckpoint checkpoint : pending) {
+                if (!existing.contains(checkpoint.getSequenceNum())) {
+                    dossierCheckpointMapper.insert(checkpoint);
+                    checkpointsWritten.increment();
+                }
+            }
+        });
+    }
+
+    private static boolean includes(SubmissionUnit su, Integer asOfSequence, LocalDate asOfEffectiveDate) {
+        if (asOfSequence != null) {
+            return su.getSequenceNum() != null && su.getSequenceNum() <= asOfSequence;
+        }
+        if (asOfEffectiveDate != null) {
+            return su.getEffectiveDate() != null && !su.getEffectiveDate().isAfter(asOfEffectiveDate);
+        }
+        return true;
+    }
+
+    /**
+     * Whether a checkpoint covers exactly the first suCount submission units of the list,
+     * all of them included, and was not built from a newer version than the list
+     */
+    private static boolean fits(DossierCheckpoint checkpoint, List<SubmissionUnit> ordered, int prefix, long version) {
+        int count = checkpoint.getSuCount();
+        return count >= 1 && count <= prefix && checkpoint.getVersion() <= version
+                && checkpoint.getSequenceNum().equals(ordered.get(count - 1).getSequenceNum());
+    }
+
+    /**
+     * Apply the CoU operations of a submission unit
+     * @return Number of operations
+     */
+    private int apply(DossierState state, SubmissionUnit su) throws JsonProcessingException {
+        JsonNode operations = operations(su);
+        int index = 0;
+        for (JsonNode op : operations) {
+            String couId = text(op, "cou_id");
+            JsonNode nodeId = op.has("target_node_id") ? op.get("target_node_id") : op.get("nodeId");
+            Long targetNodeId = nodeId != null && nodeId.canConvertToLong() ? nodeId.asLong() : null;
+            String targetXpath = text(op, "target_xpath");
+            if (SectionCodeIndex.isPlaceholder(targetXpath)) {
+                targetXpath = null;
+            }
+            JsonNode document = op.get("document");
+            if ((document == null || document.isNull()) && text(op, "documentPath") != null) {
+                // Legacy operations only carry the path
+                document = objectMapper.createObjectNode().put("path", text(op, "documentPath"));
+            }
+            String documentKey = document == null ? null : text(document, "file_id", "checksum", "path");
+            if (documentKey == null) {
+                documentKey = "cou:" + (couId != null ? couId : su.getSuId() + "/" + index);
+            }
+            String operation = text(op, "operation", "type");
+            operation = operation == null ? "" : operation.toLowerCase(Locale.ROOT);
+            String target = targetKey(targetNodeId, targetXpath);
+
+            DossierDocument current = new DossierDocument(targetNodeId, targetXpath, couId, operation,
+                    su.getSuId(), su.getSequenceNum(), su.getEffectiveDate(), document);
+            switch (operation) {
+                case "add":
+                    state.put(documentKey, current);
+                    break;
+                case "replace":
+                    if (!state.documents.containsKey(documentKey) && target != null) {
+                        state.removeTarget(target, false);
+                    }
+                    state.put(documentKey, current);
+                    break;
+                case "delete":
+                    if (state.documents.containsKey(documentKey)) {
+                        state.remove(documentKey);
+                    } else if (target != null) {
+                        state.removeTarget(target, true);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * CoU operations array: either the top-level array or the legacy {"operations": [...]} wrapper
+     */
+    private JsonNode operations(SubmissionUnit su) throws JsonProcessingException {
+        if (su.getCouData() == null || su.getCouData().isBlank()) {
+            return objectMapper.createArrayNode();
+        }
+        JsonNode root = JsonCodec.readTree(su.getCouData());
+        if (root.isArray()) {
+            return root;
+        }
+        JsonNode operations = root.get("operations");
+        return operations != null && operations.isArray() ? operations : objectMapper.createArrayNode();
+    }
+
+    private static String targetKey(Long targetNodeId, String targetXpath) {
+        return targetNodeId != null ? "id:" + targetNodeId : targetXpath != null ? "xpath:" + targetXpath : null;
+    }
+
+    private static String text(JsonNode node, String... fields) {
+        for (String field : fields) {
+            JsonNode value = node.get(field);
+            if (value != null && !value.isNull()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Current documents by document key, in the order they were first added, with an
+     * index of the keys on each target
+     */
+    private static final class DossierState {
+        private final LinkedHashMap<String, DossierDocument> documents = new LinkedHashMap<>();
+        private final Map<String, LinkedHashSet<String>> byTarget = new HashMap<>();
+
+        void load(Map<String, DossierDocument> checkpoint) {
+            checkpoint.forEach(this::put);
+        }
+
+        void put(String key, DossierDocument document) {
+            DossierDocument previous = documents.put(key, document);
+            if (previous != null) {
+                unlink(key, previous);
+            }
+            String target = targetKey(document.getTargetNodeId(), document.getTargetXpath());
+            if (target != null) {
+                byTarget.computeIfAbsent(target, k -> new LinkedHashSet<>()).add(key);
+            }
+        }
+
+        void remove(String key) {
+            DossierDocument removed = documents.remove(key);
+            if (removed != null) {
+                unlink(key, removed);
+            }
+        }
+
+        /**
+         * Remove the documents on a target, or only the first one
+         */
+        void removeTarget(String target, boolean firstOnly) {
+            LinkedHashSet<String> keys = byTarget.get(target);
+            if (keys == null) {
+                return;
+            }
+            for (String key : new ArrayList<>(keys)) {
+                remove(key);
+                if (firstOnly) {
+                    return;
+                }
+            }
+        }
+
+        private void unlink(String key, DossierDocument document) {
+            String target = targetKey(document.getTargetNodeId(), document.getTargetXpath());
+            Set<String> keys = target == null ? null : byTarget.get(target);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    byTarget.remove(target);
+                }
+            }
+        }
+    }
+
+    private record CachedSnapshot(long version, DossierSnapshot snapshot) {
+    }
+}
@@ -0,0 +1,305 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.SubmissionUnitMapper;
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.util.JsonCodec;
+import com.ectd.backend.util.SectionCodeIndex;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * eCTD XML Export Service
+ * Writes eCTD 4.0 submissionunit.xml messages (HL7 RPS PORP_IN000001UV01 structure)
+ * straight to an output stream with a StAX writer. Submission units are read through a
+ * forward-only cursor, so memory use does not grow with the number of sequences. It is
+ * not constant either: the root section is loaded as a full String and indexed by
+ * SectionCodeIndex (node id to code map) for the whole export, and each submission
+ * unit's cou_data is loaded as a full String before its operations are walked.
+ */
+@Service
+@Transactional(readOnly = true)
+public class EctdXmlExportService {
+
+    public static final String HL7_NAMESPACE = "urn:hl7-org:v3";
+
+    private static final DateTimeFormatter HL7_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final DateTimeFormatter HL7_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private SubmissionUnitMapper submissionUnitMapper;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    private final ObjectMapper objectMapper = JsonCodec.mapper();
+
+    private final JsonFactory jsonFactory = objectMapper.getFactory();
+
+    private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newFactory();
+
+    /**
+     * Export a single submission unit as submissionunit.xml
+     * @param suId Submission unit ID
+     * @param out Output stream (not closed)
+     */
+    public void exportSubmissionUnit(Long suId, OutputStream out) throws IOException {
+        SubmissionUnit su = submissionUnitService.getSubmissionUnitById(suId);
+        if (su == null) {
+            throw new IllegalArgumentException("Submission Unit not found: " + suId);
+        }
+        Application app = applicationService.getApplicationById(su.getAppId());
+        if (app == null) {
+            throw new IllegalArgumentException("Application not found: " + su.getAppId());
+        }
+
+        Map<Long, String> sectionCodes = SectionCodeIndex.build(app.getRootSection());
+        try {
+            XMLStreamWriter writer = startMessage(out);
+            writeSubmissionUnit(writer, app, su, sectionCodes);
+            endMessage(writer);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to write submission unit XML: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Export all submission units of an application, in sequence order, as one message
+     * @param appId Application ID
+     * @param out Output stream (not closed)
+     */
+    public void exportApplication(Long appId, OutputStream out) throws IOException {
+        Application app = applicationService.getApplicationById(appId);
+        if (app == null) {
+            throw new IllegalArgumentException("Application not found: " + appId);
+        }
+
+        Map<Long, String> sectionCodes = SectionCodeIndex.build(app.getRootSection());
+        try (Cursor<SubmissionUnit> cursor = submissionUnitMapper.streamByAppId(appId)) {
+            XMLStreamWriter writer = startMessage(out);
+            for (SubmissionUnit su : cursor) {
+                writeSubmissionUnit(writer, app, su, sectionCodes);
+                writer.flush();
+            }
+            endMessage(writer);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to write application XML: " + e.getMessage(), e);
+        }
+    }
+
+    private XMLStreamWriter startMessage(OutputStream out) throws XMLStreamException {
+        XMLStreamWriter writer = xmlOutputFactory.createXMLStreamWriter(out, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.setDefaultNamespace(HL7_NAMESPACE);
+        writer.writeStartElement(HL7_NAMESPACE, "PORP_IN000001UV01");
+        writer.writeDefaultNamespace(HL7_NAMESPACE);
+        writer.writeAttribute("ITSVersion", "XML_1.0");
+        writeEmpty(writer, "id", "root", UUID.randomUUID().toString());
+        writeEmpty(writer, "creationTime", "value", LocalDateTime.now().format(HL7_TIMESTAMP));
+        writer.writeStartElement("controlActProcess");
+        writer.writeAttribute("classCode", "ACTN");
+        writer.writeAttribute("moodCode", "EVN");
+        return writer;
+    }
+
+    private void endMessage(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeEndElement(); // controlActProcess
+        writer.writeEndElement(); // PORP_IN000001UV01
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+    }
+
+    private void writeSubmissionUnit(XMLStreamWriter writer, Application app, SubmissionUnit su,
+                                     Map<Long, String> sectionCodes) throws XMLStreamException, IOException {
+        writer.writeStartElement("subject");
+        writer.writeAttribute("typeCode", "SUBJ");
+        writer.writeStartElement("submissionUnit");
+        writeEmpty(writer, "id", "root", "su-" + su.getSuId());
+        writeEmpty(writer, "code", "code", su.getSuUnitType());
+        writeEmpty(writer, "statusCode", "code", su.getStatus() == null ? "active" : su.getStatus().toLowerCase());
+        if (su.getEffectiveDate() != null) {
+            writeEmpty(writer, "effectiveTime", "value", su.getEffectiveDate().format(HL7_DATE));
+        }
+
+        writeContextsOfUse(writer, su, sectionCodes);
+
+        // Sequence and owning application
+        writer.writeStartElement("componentOf1");
+        writeEmpty(writer, "sequenceNumber", "value", String.valueOf(su.getSequenceNum()));
+        writer.writeStartElement("submission");
+        writeEmpty(writer, "code", "code", su.getSuType());
+        writer.writeStartElement("componentOf");
+        writer.writeStartElement("application");
+        writeEmpty(writer, "id", "extension", app.getAppNumber());
+        writeEmpty(writer, "code", "code", app.getAppType());
+        writer.writeEndElement(); // application
+        writer.writeEndElement(); // componentOf
+        writer.writeEndElement(); // submission
+        writer.writeEndElement(); // componentOf1
+
+        writer.writeEndElement(); // submissionUnit
+        writer.writeEndElement(); // subject
+    }
+
+    /**
+     * Walk the cou_data array one element at a time and write a contextOfUse per operation
+     */
+    private void writeContextsOfUse(XMLStreamWriter writer, SubmissionUnit su,
+                                    Map<Long, String> sectionCodes) throws XMLStreamException, IOException {
+        String couData = su.getCouData();
+        if (couData == null || couData.isBlank()) {
+            return;
+        }
+        try (JsonParser parser = jsonFactory.createParser(couData)) {
+            if (!advanceToOperations(parser)) {
+                return;
+            }
+            int priority = 1;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode op = objectMapper.readTree(parser);
+                writeContextOfUse(writer, op, priority++, sectionCodes);
+            }
+        }
+    }
+
+    /**
+     * Position the parser on the operations array: either the top-level array or the
+     * legacy {"operations": [...]} wrapper
+     */
+    private boolean advanceToOperations(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            return true;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("operations".equals(field) && value == JsonToken.START_ARRAY) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private void writeContextOfUse(XMLStreamWriter writer, JsonNode op, int priority,
+                                   Map<Long, String> sectionCodes) throws XMLStreamException {
+        String operation = text(op, "operation", "type");
+        JsonNode targetNode = op.has("target_node_id") ? op.get("target_node_id") : op.get("nodeId");
+        Long targetNodeId = targetNode != null && targetNode.canConvertToLong() ? targetNode.asLong() : null;
+        String sectionCode = targetNodeId != null ? sectionCodes.get(targetNodeId) : null;
+        if (sectionCode == null) {
+            sectionCode = text(op, "target_xpath");
+        }
+        if (sectionCode == null && targetNodeId != null) {
+            sectionCode = String.valueOf(targetNodeId);
+        }
+
+        writer.writeStartElement("component");
+        writer.writeAttribute("typeCode", "COMP");
+        writeEmpty(writer, "priorityNumber", "value", String.valueOf(priority));
+        writer.writeStartElement("contextOfUse");
+        writer.writeAttribute("classCode", "REG");
+        writer.writeAttribute("moodCode", "EVN");
+        writeEmpty(writer, "id", "root", text(op, "cou_id"));
+        writeEmpty(writer, "code", "code", sectionCode);
+        writeEmpty(writer, "statusCode", "code", "delete".equalsIgnoreCase(operation) ? "suspended" : "active");
+        if (operation != null) {
+            writeEmpty(writer, "operationCode", "code", operation);
+        }
+
+        JsonNode document = op.get("document");
+        String path = document != null ? text(document, "path") : text(op, "documentPath");
+        if (document != null || path != null) {
+            writer.writeStartElement("derivedFrom");
+            writer.writeStartElement("documentReference");
+            writeEmpty(writer, "id", "root", document != null ? text(document, "file_id") : null);
+            writer.writeStartElement("document");
+            String title = document != null ? text(document, "title") : null;
+            if (title != null) {
+                writer.writeStartElement("title");
+                writer.writeAttribute("value", title);
+                writer.writeEndElement();
+            }
+            writer.writeStartElement("text");
+            String format = document != null ? text(document, "format") : null;
+            if (format != null) {
+                writer.writeAttribute("mediaType", mediaType(format));
+            }
+            String checksum = document != null ? text(document, "checksum") : null;
+            if (checksum != null) {
+                writer.writeAttribute("integrityCheckAlgorithm", "SHA256");
+                writer.writeAttribute("integrityCheck", checksum);
+            }
+            writeEmpty(writer, "reference", "value", path);
+            writer.writeEndElement(); // text
+            writer.writeEndElement(); // document
+            writer.writeEndElement(); // documentReference
+            writer.writeEndElement(); // derivedFrom
+        }
+
+        String description = text(op, "description");
+        if (description != null) {
+            writer.writeStartElement("text");
+            writer.writeCharacters(description);
+            writer.writeEndElement();
+        }
+        writer.writeEndElement(); // contextOfUse
+        writer.writeEndElement(); // component
+    }
+
+    private String mediaType(String format) {
+        switch (format.toLowerCase()) {
+            case "pdf":
+                return "application/pdf";
+            case "xml":
+                return "text/xml";
+            case "docx":
+                return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+            default:
+                return format;
+        }
+    }
+
+    private String text(JsonNode node, String... fields) {
+        for (String field : fields) {
+            JsonNode value = node.get(field);
+            if (value != null && !value.isNull()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+
+    private void writeEmpty(XMLStreamWriter writer, String element, String attribute, String value) throws XMLStreamException {
+        if (value == null) {
+            return;
+        }
+        writer.writeEmptyElement(element);
+        writer.writeAttribute(attribute, value);
+    }
+}
@@ -0,0 +1,756 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.CoUOperation;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.util.JsonCodec;
+import com.ectd.backend.util.SectionCodeIndex;
+import com.ectd.backend.util.SnowflakeIdGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * eCTD XML Import Service
+ * Onboards existing dossiers from XML. Two inputs are understood:
+ * <ul>
+ *   <li>eCTD 4.0 submissionunit.xml (HL7 RPS PORP_IN000001UV01) - every submissionUnit
+ *       becomes a SubmissionUnit, every contextOfUse a CoU operation</li>
+ *   <li>eCTD 3.2 backbone (index.xml) - the module/section elements are merged into the
+ *       application root section and every leaf becomes a document node plus a CoU
+ *       operation of one new submission unit. The merged tree and the submission unit are
+ *       written in one transaction, and an application created for the import is removed
+ *       again if the import fails.</li>
+ * </ul>
+ * The upload is spooled to a temp file and parsed with a StAX pull parser on a background
+ * job; submission units are inserted in batches of ectd.import.batch-size, so memory use
+ * is bounded by one batch rather than by the package size.
+ */
+@Service
+public class EctdXmlImportService {
+
+    public static final String JOB_TYPE = "XML_IMPORT";
+
+    private static final DateTimeFormatter HL7_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    private final ObjectMapper objectMapper = JsonCodec.mapper();
+
+    private final XMLInputFactory xmlInputFactory;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    public EctdXmlImportService(PlatformTransactionManager transactionManager,
+                                @Value("${ectd.import.batch-size:50}") int batchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        // Packages come from outside: never resolve DTDs or external entities
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    /**
+     * Spool an XML package to disk and import it on a background job
+     * @param body XML request body
+     * @param appNumber Target application number (required for backbone imports, overrides the
+     *                  application in submissionunit.xml messages)
+     * @param appType Application type used when the application has to be created
+     * @param sequenceNum Sequence number for backbone imports (next free number if null)
+     * @return Import job
+     * @throws IOException If the upload cannot be spooled
+     */
+    public AsyncJob startImport(InputStream body, String appNumber, String appType, Integer sequenceNum) throws IOException {
+        Path file = Files.createTempFile("ectd-import-", ".xml");
+        Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        long size = Files.size(file);
+
+        return asyncJobService.submit(JOB_TYPE, job -> {
+            job.setTotal(size);
+            try (CountingInputStream in = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                importStream(in, appNumber, appType, sequenceNum, job);
+                job.setProcessed(size);
+                job.setMessage("Import finished");
+            } catch (IOException | XMLStreamException e) {
+                throw new RuntimeException("Import failed: " + e.getMessage(), e);
+            } finally {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Temp file is cleaned up by the OS
+                }
+            }
+        });
+    }
+
+    private void importStream(CountingInputStream in, String appNumber, String appType, Integer sequenceNum,
+                              AsyncJob job) throws XMLStreamException, IOException {
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in, "UTF-8");
+        try {
+            while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // Skip prolog
+            }
+            if ("PORP_IN000001UV01".equals(reader.getLocalName())) {
+                new SubmissionMessageImport(reader, in, appNumber, appType, job).run();
+            } else {
+                if (appNumber == null || appNumber.isBlank()) {
+                    throw new IllegalArgumentException("appNumber is required to import an eCTD backbone");
+                }
+                new BackboneImport(reader, in, appNumber, appType, sequenceNum, job).run();
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Find or create the target application
+     */
+    private Application resolveApplication(String appNumber, String appType, AsyncJob job) throws IOException {
+        Application app = applicationService.getApplicationByNumber(appNumber);
+        if (app == null) {
+            if (appType == null || appType.isBlank()) {
+                throw new IllegalArgumentException("appType is required to create application " + appNumber);
+            }
+            app = applicationService.createApplication(appNumber, appType);
+            job.putResult("createdApplication", appNumber);
+        }
+        return app;
+    }
+
+    /**
+     * Import of eCTD 4.0 submissionunit.xml messages
+     */
+    private class SubmissionMessageImport {
+
+        private final XMLStreamReader reader;
+        private final CountingInputStream in;
+        private final String appNumberOverride;
+        private final String appType;
+        private final AsyncJob job;
+
+        private final Deque<String> path = new ArrayDeque<>();
+        private final Map<String, AppState> apps = new HashMap<>();
+        private final List<SubmissionUnit> batch = new ArrayList<>();
+
+        private long imported;
+        private long skipped;
+        private long operations;
+
+        private ParsedSubmissionUnit current;
+        private CoUOperation currentCou;
+
+        SubmissionMessageImport(XMLStreamReader reader, CountingInputStream in, String appNumberOverride,
+                                String appType, AsyncJob job) {
+            this.reader = reader;
+            this.in = in;
+            this.appNumberOverride = appNumberOverride;
+            this.appType = appType;
+            this.job = job;
+        }
+
+        void run() throws XMLStreamException, IOException {
+            path.push(reader.getLocalName());
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String parent = path.peek();
+                    String name = reader.getLocalName();
+                    path.push(name);
+                    startElement(name, parent);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = path.pop();
+                    endElement(name);
+                }
+            }
+            flush();
+        }
+
+        private void startElement(String name, String parent) throws XMLStreamException {
+            if ("submissionUnit".equals(name)) {
+                current = new ParsedSubmissionUnit();
+                return;
+            }
+            if (current == null) {
+                return;
+            }
+            if ("contextOfUse".equals(name)) {
+                currentCou = new CoUOperation();
+                return;
+            }
+            if (currentCou != null) {
+                startCouElement(name, parent);
+                return;
+            }
+            switch (name) {
+                case "code":
+                    if ("submissionUnit".equals(parent)) {
+                        current.su.setSuUnitType(attr("code"));
+                    } else if ("submission".equals(parent)) {
+                        current.su.setSuType(attr("code"));
+                    } else if ("application".equals(parent)) {
+                        current.appType = attr("code");
+                    }
+                    break;
+                case "statusCode":
+                    if ("submissionUnit".equals(parent) && attr("code") != null) {
+                        current.su.setStatus(attr("code").toUpperCase());
+                    }
+                    break;
+                case "effectiveTime":
+                    if ("submissionUnit".equals(parent) && attr("value") != null) {
+                        current.su.setEffectiveDate(LocalDate.parse(attr("value").substring(0, 8), HL7_DATE));
+                    }
+                    break;
+                case "sequenceNumber":
+                    if (attr("value") != null) {
+                        current.su.setSequenceNum(Integer.valueOf(attr("value")));
+                    }
+                    break;
+                case "id":
+                    if ("application".equals(parent)) {
+                        current.appNumber = attr("extension") != null ? attr("extension") : attr("root");
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void startCouElement(String name, String parent) throws XMLStreamException {
+            switch (name) {
+                case "id":
+                    if ("contextOfUse".equals(parent)) {
+                        currentCou.setCouId(attr("root"));
+                    } else if ("documentReference".equals(parent)) {
+                        document().setFileId(attr("root"));
+                    }
+                    break;
+                case "code":
+                    if ("contextOfUse".equals(parent)) {
+                        currentCou.setTargetXpath(attr("code"));
+                    }
+                    break;
+                case "operationCode":
+                    currentCou.setOperation(attr("code"));
+                    break;
+                case "statusCode":
+                    if ("contextOfUse".equals(parent) && currentCou.getOperation() == null) {
+                        currentCou.setOperation("suspended".equals(attr("code")) ? "delete" : "add");
+                    }
+                    break;
+                case "title":
+                    if ("document".equals(parent)) {
+                        if (attr("value") != null) {
+                            document().setTitle(attr("value"));
+                        } else {
+                            // getElementText consumes the end tag, so the run loop won't see it
+                            document().setTitle(reader.getElementText());
+                            path.pop();
+                        }
+                    }
+                    break;
+                case "text":
+                    if ("document".equals(parent)) {
+                        String mediaType = attr("mediaType");
+                        if (mediaType != null) {
+                            document().setFormat(formatOf(mediaType));
+                        }
+                    } else if ("contextOfUse".equals(parent)) {
+                        currentCou.setDescription(reader.getElementText());
+                        path.pop();
+                    }
+                    break;
+                case "reference":
+                    document().setPath(attr("value"));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void endElement(String name) throws IOException {
+            if ("contextOfUse".equals(name) && current != null && currentCou != null) {
+                if (currentCou.getCouId() == null) {
+                    currentCou.setCouId(SnowflakeIdGenerator.getInstance().nextCouId());
+                }
+                current.operations.add(currentCou);
+                currentCou = null;
+            } else if ("submissionUnit".equals(name) && current != null && currentCou == null) {
+                addSubmissionUnit(current);
+                current = null;
+                job.setProcessed(in.getCount());
+            }
+        }
+
+        private void addSubmissionUnit(ParsedSubmissionUnit parsed) throws IOException {
+            String appNumber = appNumberOverride != null && !appNumberOverride.isBlank() ? appNumberOverride : parsed.appNumber;
+            if (appNumber == null) {
+                throw new IllegalArgumentException("submissionUnit without application id and no appNumber given");
+            }
+            AppState state = apps.get(appNumber);
+            if (state == null) {
+                Application app = resolveApplication(appNumber, appType != null ? appType : parsed.appType, job);
+                state = new AppState(app, SectionCodeIndex.invert(SectionCodeIndex.build(app.getRootSection())),
+                        new HashSet<>(submissionUnitService.getSequenceNums(app.getAppId())));
+                apps.put(appNumber, state);
+            }
+
+            SubmissionUnit su = parsed.su;
+            if (su.getSequenceNum() == null) {
+                su.setSequenceNum(state.nextSequence());
+            } else if (!state.sequences.add(su.getSequenceNum())) {
+                // Already imported (or existing) sequence: keep the import re-runnable
+                skipped++;
+                job.putResult("skippedSubmissionUnits", skipped);
+                return;
+            }
+
+            for (CoUOperation op : parsed.operations) {
+                op.setTargetNodeId(state.nodeIdsByCode.get(op.getTargetXpath()));
+            }
+            su.setAppId(state.app.getAppId());
+            su.setCouData(JsonCodec.writeCouOperations(parsed.operations));
+            if (su.getEffectiveDate() == null) {
+                su.setEffectiveDate(LocalDate.now());
+            }
+            if (su.getSuType() == null) {
+                su.setSuType("original");
+            }
+            if (su.getSuUnitType() == null) {
+                su.setSuUnitType("ectd-4-0");
+            }
+            if (su.getStatus() == null) {
+                su.setStatus("DRAFT");
+            }
+            operations += parsed.operations.size();
+            batch.add(su);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            imported += submissionUnitService.createSubmissionUnitsBatch(new ArrayList<>(batch));
+            batch.clear();
+            job.putResult("importedSubmissionUnits", imported);
+            job.putResult("importedOperations", operations);
+            job.setMessage("Imported " + imported + " submission units");
+        }
+
+        private CoUOperation.DocumentInfo document() {
+            if (currentCou.getDocument() == null) {
+                currentCou.setDocument(new CoUOperation.DocumentInfo());
+            }
+            return currentCou.getDocument();
+        }
+
+        private String attr(String localName) {
+            return EctdXmlImportService.attr(reader, localName);
+        }
+    }
+
+    /**
+     * Import of an eCTD 3.2 backbone (index.xml) into one application sequence
+     */
+    private class BackboneImport {
+
+        private final XMLStreamReader reader;
+        private final CountingInputStream in;
+        private final String appNumber;
+        private final String appType;
+        private final Integer sequenceNum;
+        private final AsyncJob job;
+
+        private final List<CoUOperation> operations = new ArrayList<>();
+        private final Deque<ObjectNode> sections = new ArrayDeque<>();
+        private final Deque<String> codePath = new ArrayDeque<>();
+
+        private long sectionCount;
+
+        /**
+         * Next ID for a new tree node (guarded by the If-Match of the tree update)
+         */
+        private long nextNodeId;
+
+        BackboneImport(XMLStreamReader reader, CountingInputStream in, String appNumber, String appType,
+                       Integer sequenceNum, AsyncJob job) {
+            this.reader = reader;
+            this.in = in;
+            this.appNumber = appNumber;
+            this.appType = appType;
+            this.sequenceNum = sequenceNum;
+            this.job = job;
+        }
+
+        void run() throws XMLStreamException, IOException {
+            Application app = applicationService.getApplicationByNumber(appNumber);
+            if (app != null) {
+                merge(app);
+                return;
+            }
+            // Re-read for the version written by the creation
+            app = applicationService.getApplicationById(resolveApplication(appNumber, appType, job).getAppId());
+            try {
+                merge(app);
+            } catch (RuntimeException | XMLStreamException | IOException e) {
+                // Nothing of the import was written: don't leave the empty application behind
+                applicationService.deleteApplication(app.getAppId());
+                throw e;
+            }
+        }
+
+        private void merge(Application app) throws XMLStreamException, IOException {
+            // The tree is merged without a lock: it is only written if the application is
+            // still at the version it was read at
+            String expectedTag = EntityTagService.applicationTag(app.getAppId(), app.getVersion());
+            JsonNode root = app.getRootSection() == null ? null : objectMapper.readTree(app.getRootSection());
+            nextNodeId = maxNodeId(root) + 1;
+            ObjectNode appNode = applicationNode(root);
+            if (root == null) {
+                root = appNode;
+            }
+
+            sections.push(appNode);
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("leaf".equals(name)) {
+                        readLeaf();
+                        job.setProcessed(in.getCount());
+                    } else if ("title".equals(name)) {
+                        // node-extension title: use it as the section name
+                        sections.peek().put("name", reader.getElementText());
+                    } else {
+                        depth++;
+                        sections.push(childSection(sections.peek(), name, depth == 1));
+                        codePath.addLast(name);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && depth > 0) {
+                    depth--;
+                    sections.pop();
+                    codePath.removeLast();
+                }
+            }
+
+            String rootSectionJson = objectMapper.writeValueAsString(root);
+
+            Set<Integer> used = new HashSet<>(submissionUnitService.getSequenceNums(app.getAppId()));
+            int sequence = sequenceNum != null ? sequenceNum : used.stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+            if (used.contains(sequence)) {
+                throw new IllegalArgumentException("Sequence " + sequence + " already exists for " + appNumber);
+            }
+
+            SubmissionUnit su = new SubmissionUnit();
+            su.setAppId(app.getAppId());
+            su.setSequenceNum(sequence);
+            su.setEffectiveDate(LocalDate.now());
+            su.setSuType("original");
+            su.setSuUnitType("ectd-3-2");
+            su.setStatus("DRAFT");
+            su.setCouData(JsonCodec.writeCouOperations(operations));
+
+            // The tree references the new documents and the SU targets the new sections:
+            // either both are stored or neither
+            Long appId = app.getAppId();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try {
+                        applicationService.updateRootSection(appId, rootSectionJson, expectedTag::equals);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    submissionUnitService.createSubmissionUnitsBatch(List.of(su));
+                });
+            } catch (OptimisticLockingFailureException e) {
+                throw new OptimisticLockingFailureException("Application " + appNumber
+                        + " was changed while the backbone was imported; nothing was written, retry the import", e);
+            }
+
+            job.putResult("appId", app.getAppId());
+            job.putResult("sequenceNum", sequence);
+            job.putResult("sections", sectionCount);
+            job.putResult("importedOperations", operations.size());
+        }
+
+        /**
+         * The node whose children are the modules: the application node of the existing
+         * tree, or a fresh one for an empty tree
+         */
+        private ObjectNode applicationNode(JsonNode root) {
+            if (root instanceof ArrayNode && root.size() > 0 && root.get(0) instanceof ObjectNode) {
+                return (ObjectNode) root.get(0);
+            }
+            if (root instanceof ObjectNode) {
+                return (ObjectNode) root;
+            }
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("id", nextNodeId());
+            node.put("nodeType", "application");
+            node.put("name", appNumber);
+            node.putArray("children");
+            return node;
+        }
+
+        /**
+         * Find the child section with the element's code, or create it. Modules also match
+         * the default skeleton by number ("m3-quality" matches "3. Quality").
+         */
+        private ObjectNode childSection(ObjectNode parent, String elementName, boolean module) throws XMLStreamException {
+            ArrayNode children = parent.has("children") && parent.get("children").isArray()
+                    ? (ArrayNode) parent.get("children") : parent.putArray("children");
+            String name = sectionName(elementName);
+            String modulePrefix = module && elementName.matches("m\\d.*") ? elementName.charAt(1) + "." : null;
+
+            for (JsonNode child : children) {
+                if (!(child instanceof ObjectNode) || "document".equals(child.path("nodeType").asText())) {
+                    continue;
+                }
+                if (name.equals(child.path("code").asText()) || name.equals(child.path("name").asText())
+                        || (modulePrefix != null && child.path("name").asText().startsWith(modulePrefix))) {
+                    return (ObjectNode) child;
+                }
+            }
+
+            ObjectNode section = children.addObject();
+            section.put("id", nextNodeId());
+            section.put("nodeType", module ? "module" : "section");
+            section.put("name", name);
+            section.put("code", name);
+            section.put("xpath", String.join("/", codePath) + (codePath.isEmpty() ? "" : "/") + elementName);
+            section.putArray("children");
+            sectionCount++;
+            return section;
+        }
+
+        /**
+         * Element name plus the attributes that distinguish repeated sections
+         */
+        private String sectionName(String elementName) {
+            StringBuilder name = new StringBuilder(elementName);
+            for (String attribute : new String[]{"substance", "manufacturer", "product-name", "dosageform",
+                    "excipient", "indication", "info-type", "language"}) {
+                String value = attr(attribute);
+                if (value != null) {
+                    name.append(" [").append(attribute).append(": ").append(value).append("]");
+                }
+            }
+            return name.toString();
+        }
+
+        private void readLeaf() throws XMLStreamException {
+            String operation = attr("operation");
+            String href = attr("href");
+            String fileId = attr("ID");
+            String title = null;
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if ("title".equals(reader.getLocalName())) {
+                        title = reader.getElementText();
+                    } else {
+                        depth++;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+
+            ObjectNode section = sections.peek();
+            String format = href != null && href.contains(".") ? href.substring(href.lastIndexOf('.') + 1).toUpperCase() : null;
+            String couOperation = "delete".equals(operation) ? "delete" : "replace".equals(operation) ? "replace" : "add";
+
+            if (!"delete".equals(couOperation)) {
+                ArrayNode children = section.has("children") && section.get("children").isArray()
+                        ? (ArrayNode) section.get("children") : section.putArray("children");
+                ObjectNode document = children.addObject();
+                document.put("id", nextNodeId());
+                document.put("pid", section.path("id").asLong());
+                document.put("nodeType", "document");
+                document.put("name", title);
+                document.put("path", href);
+                document.put("format", format);
+            }
+
+            CoUOperation op = new CoUOperation();
+            op.setCouId(SnowflakeIdGenerator.getInstance().nextCouId());
+            op.setOperation(couOperation);
+            op.setTargetNodeId(section.path("id").asLong());
+            op.setTargetXpath(section.path("xpath").asText(null));
+            op.setDocument(new CoUOperation.DocumentInfo(fileId, title, format, href));
+            operations.add(op);
+        }
+
+        /**
+         * ID for a new tree node: the IDs continue after the largest one in the tree, so they
+         * stay small enough for JavaScript clients (below 2^53). An import running in parallel
+         * on the same application may hand out the same IDs, but only one of the two passes
+         * the If-Match of the tree update.
+         */
+        private long nextNodeId() {
+            return nextNodeId++;
+        }
+
+        private long maxNodeId(JsonNode node) {
+            long max = 0;
+            if (node == null) {
+                return max;
+            }
+            if (node.path("id").canConvertToLong()) {
+                max = node.path("id").asLong();
+            }
+            for (JsonNode child : node.isArray() ? node : node.path("children")) {
+                max = Math.max(max, maxNodeId(child));
+            }
+            return max;
+        }
+
+        private String attr(String localName) {
+            return EctdXmlImportService.attr(reader, localName);
+        }
+    }
+
+    /**
+     * Attribute value by local name, ignoring the namespace (xlink:href, ID...)
+     */
+    private static String attr(XMLStreamReader reader, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (localName.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static String formatOf(String mediaType) {
+        switch (mediaType) {
+            case "application/pdf":
+                return "PDF";
+            case "text/xml":
+            case "application/xml":
+                return "XML";
+            default:
+                return mediaType.contains("/") ? mediaType.substring(mediaType.indexOf('/') + 1).toUpperCase() : mediaType;
+        }
+    }
+
+    /**
+     * A submission unit being parsed, with the application it belongs to
+     */
+    private static class ParsedSubmissionUnit {
+        final SubmissionUnit su = new SubmissionUnit();
+        final List<CoUOperation> operations = new ArrayList<>();
+        String appNumber;
+        String appType;
+    }
+
+    /**
+     * Per application state of a message import
+     */
+    private static class AppState {
+        final Application app;
+        final Map<String, Long> nodeIdsByCode;
+        final Set<Integer> sequences;
+
+        AppState(Application app, Map<String, Long> nodeIdsByCode, Set<Integer> sequences) {
+            this.app = app;
+            this.nodeIdsByCode = nodeIdsByCode;
+            this.sequences = sequences;
+        }
+
+        int nextSequence() {
+            int next = sequences.stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+            sequences.add(next);
+            return next;
+        }
+    }
+
+    /**
+     * Input stream counting the bytes read, for progress reporting
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.ApplicationMapper;
+import com.ectd.backend.mapper.ChangeStampMapper;
+import com.ectd.backend.mapper.SubmissionUnitMapper;
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.ChangeStamp;
+import com.ectd.backend.model.ResourceVersion;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.util.EntityTags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entity Tag Service
+ * Validators for conditional GETs, from primary-key lookups that never read the JSON
+ * columns: an application's version column (bumped by every write to it or its section
+ * nodes) and the change stamp of its submission units (bumped by every submission unit
+ * write). Validators are read before the resource, so a response is never older than its
+ * ETag; a write in between only makes the next conditional request miss once.
+ */
+@Service
+public class EntityTagService {
+
+    public static final String APPLICATION = "app";
+
+    public static final String APPLICATION_DETAIL = "app-detail";
+
+    public static final String SUBMISSION_UNIT = "su";
+
+    public static final String SUBMISSION_UNIT_LIST = "su-list";
+
+    public static final String RAW = "raw";
+
+    @Autowired
+    private ApplicationMapper applicationMapper;
+
+    @Autowired
+    private SubmissionUnitMapper submissionUnitMapper;
+
+    @Autowired
+    private ChangeStampMapper changeStampMapper;
+
+    /**
+     * Validators of GET /applications/{appId}
+     * @param appId Application ID
+     * @return Validators (version is the application version), or null if the application doesn't exist
+     */
+    public ResourceVersion getApplicationVersion(Long appId) {
+        Application app = applicationMapper.findVersionById(appId);
+        if (app == null) {
+            return null;
+        }
+        return new ResourceVersion(app.getVersion(), applicationTag(appId, app.getVersion()), app.getUpdatedAt());
+    }
+
+    /**
+     * Validators of GET /applications/{appId}?raw=true (same versions, other representation)
+     * @param appId Application ID
+     * @return Validators, or null if the application doesn't exist
+     */
+    public ResourceVersion getRawApplicationVersion(Long appId) {
+        Application app = applicationMapper.findVersionById(appId);
+        if (app == null) {
+            return null;
+        }
+        return new ResourceVersion(app.getVersion(), EntityTags.of(APPLICATION, appId, app.getVersion(), RAW), app.getUpdatedAt());
+    }
+
+    /**
+     * Validators of GET /applications/{appId}/detail
+     * @param appId Application ID
+     * @param parts Included parts, part of the representation
+     * @return Validators (version is the change stamp of the submission units), or null if the application doesn't exist
+     */
+    public ResourceVersion getApplicationDetailVersion(Long appId, Set<ApplicationDetailService.Part> parts) {
+        Application app = applicationMapper.findVersionById(appId);
+        if (app == null) {
+            return null;
+        }
+        ChangeStamp stamp = findStamp(appId);
+        long stampVersion = stamp == null ? 0 : stamp.getVersion();
+        int mask = 0;
+        for (ApplicationDetailService.Part part : parts) {
+            mask |= 1 << part.ordinal();
+        }
+        LocalDateTime lastModified = app.getUpdatedAt();
+        if (stamp != null && stamp.getUpdatedAt() != null
+                && (lastModified == null || stamp.getUpdatedAt().isAfter(lastModified))) {
+            lastModified = stamp.getUpdatedAt();
+        }
+        return new ResourceVersion(stampVersion,
+                EntityTags.of(APPLICATION_DETAIL, appId, app.getVersion(), stampVersion, mask), lastModified);
+    }
+
+    /**
+     * Validators of GET /submission-units/by-app/{appId}
+     * @param appId Application ID
+     * @return Validators (version is the change stamp of the submission units)
+     */
+    public ResourceVersion getSubmissionUnitListVersion(Long appId) {
+        ChangeStamp stamp = findStamp(appId);
+        long version = stamp == null ? 0 : stamp.getVersion();
+        return new ResourceVersion(version, EntityTags.of(SUBMISSION_UNIT_LIST, appId, version),
+                stamp == null ? null : stamp.getUpdatedAt());
+    }
+
+    /**
+     * Validators of GET /submission-units/{suId}. The change stamp of its application changes
+     * with every write to the submission unit (and to its siblings, which only costs a 200);
+     * the application is part of the tag as stamps of different applications can be equal.
+     * @param suId Submission unit ID
+     * @return Validators, or null if the submission unit doesn't exist
+     */
+    public ResourceVersion getSubmissionUnitVersion(Long suId) {
+        SubmissionUnit su = submissionUnitMapper.findVersionById(suId);
+        if (su == null) {
+            return null;
+        }
+        ChangeStamp stamp = findStamp(su.getAppId());
+        long version = stamp == null ? 0 : stamp.getVersion();
+        return new ResourceVersion(version, submissionUnitTag(suId, version, su.getAppId()), su.getUpdatedAt());
+    }
+
+    /**
+     * ETag of an application (GET /applications/{appId}), also checked by If-Match on its PUTs
+     * @param appId Application ID
+     * @param version Application version
+     * @return Quoted entity tag
+     */
+    public static String applicationTag(Long appId, long version) {
+        return EntityTags.of(APPLICATION, appId, version);
+    }
+
+    /**
+     * ETag of a submission unit (GET /submission-units/{suId}), also checked by If-Match on its PUTs
+     * @param suId Submission unit ID
+     * @param version Change stamp version of its application
+     * @param appId Application ID
+     * @return Quoted entity tag
+     */
+    public static String submissionUnitTag(Long suId, long version, Long appId) {
+        return EntityTags.of(SUBMISSION_UNIT, suId, version, appId);
+    }
+
+    private ChangeStamp findStamp(Long appId) {
+        List<ChangeStamp> stamps = changeStampMapper.findVersions(List.of(appId));
+        return stamps.isEmpty() ? null : stamps.get(0);
+    }
+}
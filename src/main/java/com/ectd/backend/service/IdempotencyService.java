@@ -0,0 +1,264 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.IdempotencyKeyMapper;
+import com.ectd.backend.model.IdempotencyRecord;
+import com.ectd.backend.util.JsonCodec;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency Service
+ * Makes POST/PUT endpoints retry-safe. The first attempt with a given Idempotency-Key
+ * claims the key in the database, runs the write and stores its response; retries with
+ * the same key are answered from a bounded in-memory LRU store or, on other nodes, from
+ * the ectd_idempotency_key table. A claim expires after claim-timeout so a crashed attempt
+ * doesn't block its key forever; while the attempt runs, the claim is renewed every third
+ * of that time, so a slow write never outlives its claim and runs twice.
+ *
+ * Not transactional on purpose: the claim must be visible to other nodes before the
+ * write runs, and the stored response must survive independently of it.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    @Autowired
+    private IdempotencyKeyMapper idempotencyKeyMapper;
+
+    private final Duration ttl;
+
+    private final Duration claimTimeout;
+
+    private final Map<String, IdempotencyRecord> localStore;
+
+    private final ScheduledExecutorService claimRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ectd-idempotency-claims");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyService(@Value("${ectd.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${ectd.idempotency.claim-timeout-seconds:60}") long claimTimeoutSeconds,
+                              @Value("${ectd.idempotency.max-entries:10000}") int maxEntries) {
+        this.ttl = Duration.ofHours(ttlHours);
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+        this.localStore = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Execute a write at most once per Idempotency-Key
+     * @param idempotencyKey Key from the request header (null runs the action directly)
+     * @param payload Request payload, used to detect key reuse with a different request
+     * @param action The write to perform
+     * @return Response of the action, or the stored response of an earlier attempt
+     */
+    public ResponseEntity<?> execute(String idempotencyKey, Object payload, Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null || idempotencyKey.trim().isEmpty()) {
+            return action.get();
+        }
+        String key = idempotencyKey.trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(HEADER + " must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scope = currentScope();
+        String requestHash = hash(payload);
+
+        IdempotencyRecord stored = getLocal(key, scope);
+        if (stored == null) {
+            stored = idempotencyKeyMapper.findByKey(key, scope);
+        }
+        if (stored != null) {
+            return replayOrReject(stored, requestHash);
+        }
+
+        // Claim the key so concurrent retries on any node don't run the write twice
+        IdempotencyRecord claim = new IdempotencyRecord();
+        claim.setIdemKey(key);
+        claim.setScope(scope);
+        claim.setRequestHash(requestHash);
+        claim.setStatusCode(0);
+        claim.setExpiresAt(LocalDateTime.now().plus(claimTimeout));
+        if (!claim(claim)) {
+            stored = idempotencyKeyMapper.findByKey(key, scope);
+            if (stored != null) {
+                return replayOrReject(stored, requestHash);
+            }
+            return inProgress();
+        }
+
+        ResponseEntity<?> response;
+        long renewMs = Math.max(1, claimTimeout.toMillis() / 3);
+        ScheduledFuture<?> renewal = claimRenewer.scheduleAtFixedRate(() -> {
+            claim.setExpiresAt(LocalDateTime.now().plus(claimTimeout));
+            idempotencyKeyMapper.renewClaim(claim);
+        }, renewMs, renewMs, TimeUnit.MILLISECONDS);
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            idempotencyKeyMapper.deleteByKey(key, scope);
+            throw e;
+        } finally {
+            renewal.cancel(false);
+        }
+
+        // Server errors are not stored so the client can retry them
+        if (response.getStatusCode().is5xxServerError()) {
+            idempotencyKeyMapper.deleteByKey(key, scope);
+            return response;
+        }
+
+        IdempotencyRecord record = toRecord(key, scope, requestHash, response);
+        idempotencyKeyMapper.complete(record);
+        putLocal(record);
+        return response;
+    }
+
+    /**
+     * Remove expired keys from the database and the local store
+     */
+    @Scheduled(fixedDelayString = "${ectd.idempotency.cleanup-interval-ms:600000}")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (localStore) {
+            localStore.values().removeIf(record -> !record.getExpiresAt().isAfter(now));
+        }
+        idempotencyKeyMapper.deleteExpired(now);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        claimRenewer.shutdownNow();
+    }
+
+    /**
+     * Claim a key: insert its record, or take over an expired one. Duplicates are detected
+     * by the primary key rather than by affected-row counts, which depend on the driver's
+     * found-rows setting.
+     * @return true if this attempt holds the key
+     */
+    private boolean claim(IdempotencyRecord claim) {
+        try {
+            return idempotencyKeyMapper.insert(claim) == 1;
+        } catch (DuplicateKeyException e) {
+            return idempotencyKeyMapper.takeOverExpired(claim) == 1;
+        }
+    }
+
+    private ResponseEntity<?> replayOrReject(IdempotencyRecord stored, String requestHash) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            return ResponseEntity.unprocessableEntity()
+                    .body(HEADER + " was already used with a different request payload");
+        }
+        if (stored.getStatusCode() == 0) {
+            return inProgress();
+        }
+        putLocal(stored);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.getStatusCode())
+                .header("Idempotent-Replayed", "true");
+        if (stored.getContentType() != null) {
+            builder.header(HttpHeaders.CONTENT_TYPE, stored.getContentType());
+        }
+        return stored.getResponseBody() == null ? builder.build() : builder.body(stored.getResponseBody());
+    }
+
+    private ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("A request with this " + HEADER + " is still in progress");
+    }
+
+    private IdempotencyRecord toRecord(String key, String scope, String requestHash, ResponseEntity<?> response) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdemKey(key);
+        record.setScope(scope);
+        record.setRequestHash(requestHash);
+        record.setStatusCode(response.getStatusCode().value());
+        record.setCreatedAt(LocalDateTime.now());
+        record.setExpiresAt(record.getCreatedAt().plus(ttl));
+
+        Object body = response.getBody();
+        if (body instanceof CharSequence) {
+            record.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+            record.setResponseBody(body.toString());
+        } else if (body != null) {
+            try {
+                record.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                record.setResponseBody(JsonCodec.write(body));
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to store idempotent response: " + e.getMessage(), e);
+            }
+        }
+        return record;
+    }
+
+    private IdempotencyRecord getLocal(String key, String scope) {
+        synchronized (localStore) {
+            IdempotencyRecord record = localStore.get(scope + "|" + key);
+            if (record != null && !record.getExpiresAt().isAfter(LocalDateTime.now())) {
+                localStore.remove(scope + "|" + key);
+                return null;
+            }
+            return record;
+        }
+    }
+
+    private void putLocal(IdempotencyRecord record) {
+        synchronized (localStore) {
+            localStore.put(record.getScope() + "|" + record.getIdemKey(), record);
+        }
+    }
+
+    /**
+     * Scope a key to the HTTP method and path so the same key can't replay another endpoint
+     */
+    private String currentScope() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        HttpServletRequest request = attributes.getRequest();
+        return request.getMethod() + " " + request.getRequestURI();
+    }
+
+    private String hash(Object payload) {
+        try {
+            byte[] json = JsonCodec.write(payload).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid request payload: " + e.getMessage(), e);
+        }
+    }
+}
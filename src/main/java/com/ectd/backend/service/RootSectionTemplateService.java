@@ -0,0 +1,179 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.util.CompactTree;
+import com.ectd.backend.util.JsonCodec;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Root Section Template Service
+ * Catalog of root-section skeletons per region and application type, loaded once from
+ * templates/root-section/{region}/{appType}.json on the classpath; {region}/default.json
+ * covers the region's other application types. Each template is validated and kept
+ * pre-serialized (compact JSON) split around the "${appNumber}" placeholder, so creating
+ * an application copies the shared text with its number spliced in instead of building
+ * and serializing the tree. Node ids are per application, so template ids are used as they are.
+ */
+@Service
+public class RootSectionTemplateService {
+
+    public static final String DEFAULT = "default";
+
+    public static final String APP_NUMBER_PLACEHOLDER = "${appNumber}";
+
+    private static final String LOCATION = "classpath*:templates/root-section/*/*.json";
+
+    private final ObjectMapper objectMapper = JsonCodec.mapper();
+
+    private final String defaultRegion;
+
+    /**
+     * Templates by region, then by application type (both lower case)
+     */
+    private final Map<String, Map<String, Template>> templates = new TreeMap<>();
+
+    public RootSectionTemplateService(@Value("${ectd.root-section-templates.default-region:default}") String defaultRegion)
+            throws IOException {
+        this.defaultRegion = normalize(defaultRegion);
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(LOCATION);
+        for (Resource resource : resources) {
+            String[] path = resource.getURL().getPath().split("/");
+            String region = normalize(path[path.length - 2]);
+            String fileName = path[path.length - 1];
+            String appType = fileName.substring(0, fileName.length() - ".json".length());
+            try (InputStream in = resource.getInputStream()) {
+                Template template = compile(region, appType, objectMapper.readTree(in));
+                templates.computeIfAbsent(region, key -> new TreeMap<>()).put(normalize(appType), template);
+            }
+        }
+        if (resolve(this.defaultRegion, DEFAULT) == null) {
+            throw new IllegalStateException("No root section template " + this.defaultRegion + "/default.json");
+        }
+    }
+
+    /**
+     * Instantiate the root section for a new application
+     * @param region Region (null for the configured default region)
+     * @param appType Application type
+     * @param appNumber Application number, used as the name of the application node
+     * @return Root section JSON
+     */
+    public String instantiate(String region, String appType, String appNumber) {
+        String key = region == null || region.isBlank() ? defaultRegion : normalize(region);
+        Template template = resolve(key, appType == null ? DEFAULT : normalize(appType));
+        if (template == null) {
+            throw new IllegalArgumentException("No root section template for region: " + region);
+        }
+        return template.instantiate(appNumber);
+    }
+
+    /**
+     * List the available templates
+     * @return Region, application type and node count of each template
+     */
+    public List<Map<String, Object>> listTemplates() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        templates.values().forEach(byType -> byType.values().forEach(template -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("region", template.region);
+            entry.put("appType", template.appType);
+            entry.put("nodes", template.nodes);
+            entry.put("length", template.length);
+            entry.put("defaultRegion", template.region.equals(defaultRegion));
+            list.add(entry);
+        }));
+        return list;
+    }
+
+    private Template resolve(String region, String appType) {
+        Map<String, Template> byType = templates.get(region);
+        if (byType == null) {
+            return null;
+        }
+        Template template = byType.get(appType);
+        return template != null ? template : byType.get(DEFAULT);
+    }
+
+    /**
+     * Check a template and split its compact serialization around the placeholder
+     */
+    private Template compile(String region, String appType, JsonNode root) throws IOException {
+        String name = region + "/" + appType + ".json";
+        byte[] json = objectMapper.writeValueAsBytes(root);
+        CompactTree tree = CompactTree.parse(new String(json, StandardCharsets.UTF_8));
+        if (tree.size() == 0) {
+            throw new IllegalStateException("Root section template " + name + " is empty");
+        }
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < tree.size(); i++) {
+            // Same rule as node storage: every node has an integer id, unique in the tree
+            if (!tree.hasId(i) || !ids.add(tree.id(i))) {
+                throw new IllegalStateException("Root section template " + name
+                        + " has a node without a unique integer id: " + tree.name(i));
+            }
+        }
+        String text = new String(json, StandardCharsets.UTF_8);
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int at = text.indexOf(APP_NUMBER_PLACEHOLDER); at >= 0; at = text.indexOf(APP_NUMBER_PLACEHOLDER, start)) {
+            segments.add(text.substring(start, at));
+            start = at + APP_NUMBER_PLACEHOLDER.length();
+        }
+        segments.add(text.substring(start));
+        return new Template(region, appType, tree.size(), segments.toArray(new String[0]));
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Pre-serialized template: the text between placeholders, shared by all instances
+     */
+    private static final class Template {
+        private final String region;
+        private final String appType;
+        private final int nodes;
+        private final String[] segments;
+        private final int length;
+
+        Template(String region, String appType, int nodes, String[] segments) {
+            this.region = region;
+            this.appType = appType;
+            this.nodes = nodes;
+            this.segments = segments;
+            int length = 0;
+            for (String segment : segments) {
+                length += segment.length();
+            }
+            this.length = length;
+        }
+
+        String instantiate(String appNumber) {
+            char[] value = JsonStringEncoder.getInstance().quoteAsString(appNumber == null ? "" : appNumber);
+            StringBuilder json = new StringBuilder(length + (segments.length - 1) * value.length);
+            json.append(segments[0]);
+            for (int i = 1; i < segments.length; i++) {
+                json.append(value).append(segments[i]);
+            }
+            return json.toString();
+        }
+    }
+}
@@ -0,0 +1,738 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.SearchHit;
+import com.ectd.backend.model.SectionNode;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.util.CompactTree;
+import com.ectd.backend.util.JsonCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Search Index Service
+ * In-memory inverted index over root-section node names and CoU document titles and
+ * descriptions. Han, kana and hangul text is split into character bigrams (plus single
+ * characters), other text into words and their prefixes, so "临床研究" and "pack" both
+ * match without a dictionary. The service write paths update the index after commit, and
+ * the index is saved to local disk periodically and at shutdown so a restart only has to
+ * catch up on recent changes (see SearchIndexSyncService).
+ */
+@Service
+public class SearchIndexService {
+
+    private static final int FILE_FORMAT = 1;
+
+    private static final int MAX_PREFIX_LENGTH = 20;
+
+    private final ObjectMapper objectMapper = JsonCodec.mapper();
+
+    private final Path indexFile;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, IndexedDoc> docs = new HashMap<>();
+
+    private final Map<String, Set<String>> postings = new HashMap<>();
+
+    private final Map<Long, Set<String>> nodeDocsByApp = new HashMap<>();
+
+    private final Map<Long, Set<String>> documentDocsBySu = new HashMap<>();
+
+    private final Map<Long, Set<Long>> suIdsByApp = new HashMap<>();
+
+    private final Map<Long, Long> appIdBySu = new HashMap<>();
+
+    /**
+     * Latest updated_at seen by a catch-up run (guarded by lock)
+     */
+    private LocalDateTime watermark;
+
+    private volatile boolean dirty;
+
+    private volatile boolean loaded;
+
+    public SearchIndexService(@Value("${ectd.search.index-dir:./data/search}") String indexDir) throws IOException {
+        Path dir = Files.createDirectories(Paths.get(indexDir).toAbsolutePath().normalize());
+        this.indexFile = dir.resolve("search-index.dat");
+    }
+
+    /**
+     * Search node names and document titles/descriptions. All query terms must match;
+     * hits containing the query as a phrase rank first.
+     * @param query Query text
+     * @param appId Restrict to one application (optional)
+     * @param limit Maximum number of hits
+     * @return Hits ordered by score
+     */
+    public List<SearchHit> search(String query, Long appId, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query, false));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String phrase = normalize(query).replaceAll("\\s+", " ").trim();
+        List<SearchHit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // Intersect posting lists, smallest first
+            List<Set<String>> lists = new ArrayList<>();
+            for (String term : terms) {
+                Set<String> list = postings.get(term);
+                if (list == null) {
+                    return hits;
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            for (String key : lists.get(0)) {
+                boolean all = true;
+                for (int i = 1; i < lists.size() && all; i++) {
+                    all = lists.get(i).contains(key);
+                }
+                IndexedDoc doc = docs.get(key);
+                if (!all || doc == null || (appId != null && !appId.equals(doc.appId))) {
+                    continue;
+                }
+                hits.add(doc.toHit(score(doc, phrase)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparing(hit -> hit.getTitle() == null ? Integer.MAX_VALUE : hit.getTitle().length()));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * Index the root-section node names of an application (after commit when called in a transaction)
+     * @param app Application
+     */
+    public void indexApplication(Application app) {
+        if (app == null) {
+            return;
+        }
+        afterCommit(() -> replaceApplication(app));
+    }
+
+    /**
+     * Remove an application and all its submission units from the index
+     * @param appId Application ID
+     */
+    public void removeApplication(Long appId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeAll(nodeDocsByApp.remove(appId));
+                Set<Long> suIds = suIdsByApp.remove(appId);
+                if (suIds != null) {
+                    for (Long suId : suIds) {
+                        removeAll(documentDocsBySu.remove(suId));
+                        appIdBySu.remove(suId);
+                    }
+                }
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Index single nodes of an application whose tree is stored as section nodes, leaving
+     * its other nodes alone
+     * @param appId Application ID
+     * @param nodes Added or renamed nodes
+     */
+    public void indexNodes(Long appId, List<SectionNode> nodes) {
+        List<IndexedDoc> docs = new ArrayList<>();
+        List<String> unnamed = new ArrayList<>();
+        for (SectionNode node : nodes) {
+            if (node.getName() == null || node.getName().isBlank()) {
+                unnamed.add(nodeKey(appId, node.getNodeId()));
+            } else {
+                docs.add(nodeDoc(appId, node.getNodeId(), node.getName()));
+            }
+        }
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeNodeDocs(appId, unnamed);
+                for (IndexedDoc doc : docs) {
+                    add(doc);
+                }
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Remove single nodes of an application from the index
+     * @param appId Application ID
+     * @param nodeIds Deleted node ids
+     */
+    public void removeNodes(Long appId, List<Long> nodeIds) {
+        List<String> keys = new ArrayList<>();
+        for (Long nodeId : nodeIds) {
+            keys.add(nodeKey(appId, nodeId));
+        }
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeNodeDocs(appId, keys);
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Index the CoU document titles and descriptions of a submission unit
+     * @param su Submission unit with its CoU data
+     */
+    public void indexSubmissionUnit(SubmissionUnit su) {
+        if (su == null) {
+            return;
+        }
+        afterCommit(() -> replaceSubmissionUnit(su));
+    }
+
+    /**
+     * Remove a submission unit from the index
+     * @param suId Submission unit ID
+     * @param appId Owning application ID
+     */
+    public void removeSubmissionUnit(Long suId, Long appId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeAll(documentDocsBySu.remove(suId));
+                forgetSubmissionUnit(suId);
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Get the IDs of all indexed applications
+     * @return Application IDs
+     */
+    public Set<Long> getIndexedApplicationIds() {
+        lock.readLock().lock();
+        try {
+            Set<Long> appIds = new HashSet<>(nodeDocsByApp.keySet());
+            appIds.addAll(suIdsByApp.keySet());
+            return appIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the IDs of all indexed submission units
+     * @return Map of submission unit ID to application ID
+     */
+    public Map<Long, Long> getIndexedSubmissionUnits() {
+        lock.readLock().lock();
+        try {
+            return new HashMap<>(appIdBySu);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public LocalDateTime getWatermark() {
+        lock.readLock().lock();
+        try {
+            return watermark;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void setWatermark(LocalDateTime watermark) {
+        lock.writeLock().lock();
+        try {
+            this.watermark = watermark;
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Index size, for status reporting
+     * @return Map of documents, terms, watermark and loaded flag
+     */
+    public Map<String, Object> getStatus() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("documents", docs.size());
+            status.put("terms", postings.size());
+            status.put("watermark", watermark);
+            status.put("loaded", loaded);
+            return status;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Load the index saved on disk
+     * @return true if a saved index was found and loaded
+     */
+    public boolean load() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(indexFile))))) {
+            if (in.readInt() != FILE_FORMAT) {
+                return false;
+            }
+            lock.writeLock().lock();
+            try {
+                long epochSecond = in.readLong();
+                watermark = epochSecond < 0 ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    IndexedDoc doc = new IndexedDoc();
+                    doc.key = readString(in);
+                    doc.type = readString(in);
+                    doc.appId = readLong(in);
+                    doc.suId = readLong(in);
+                    doc.nodeId = readLong(in);
+                    doc.couId = readString(in);
+                    doc.title = readString(in);
+                    doc.description = readString(in);
+                    add(doc);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        loaded = true;
+        return true;
+    }
+
+    /**
+     * Mark the index as complete (after a load or a full rebuild)
+     */
+    public void markLoaded() {
+        loaded = true;
+        dirty = true;
+    }
+
+    /**
+     * Write the index to disk if it changed since the last save
+     */
+    @Scheduled(fixedDelayString = "${ectd.search.flush-interval-ms:30000}")
+    public void flush() throws IOException {
+        if (!dirty || !loaded) {
+            return;
+        }
+        dirty = false;
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+            out.writeInt(FILE_FORMAT);
+            out.writeLong(watermark == null ? -1 : watermark.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(docs.size());
+            for (IndexedDoc doc : docs.values()) {
+                writeString(out, doc.key);
+                writeString(out, doc.type);
+                writeLong(out, doc.appId);
+                writeLong(out, doc.suId);
+                writeLong(out, doc.nodeId);
+                writeString(out, doc.couId);
+                writeString(out, doc.title);
+                writeString(out, doc.description);
+            }
+        } catch (IOException e) {
+            dirty = true;
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+    }
+
+    private void replaceApplication(Application app) {
+        List<IndexedDoc> nodes = new ArrayList<>();
+        if (app.getRootSection() != null) {
+            try {
+                collectNodes(CompactTree.parse(app.getRootSection()), app.getAppId(), nodes);
+            } catch (IOException e) {
+                // Unparseable root section: index nothing for it
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            removeAll(nodeDocsByApp.remove(app.getAppId()));
+            for (IndexedDoc doc : nodes) {
+                add(doc);
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replaceSubmissionUnit(SubmissionUnit su) {
+        List<IndexedDoc> documents = new ArrayList<>();
+        if (su.getCouData() != null) {
+            try {
+                JsonNode operations = objectMapper.readTree(su.getCouData());
+                int ordinal = 0;
+                for (JsonNode op : operations) {
+                    ordinal++;
+                    JsonNode document = op.path("document");
+                    String title = text(document.path("title"));
+                    String description = text(op.path("description"));
+                    if (title == null && description == null) {
+                        continue;
+                    }
+                    IndexedDoc doc = new IndexedDoc();
+                    doc.key = "d:" + su.getSuId() + ":" + ordinal;
+                    doc.type = SearchHit.DOCUMENT;
+                    doc.appId = su.getAppId();
+                    doc.suId = su.getSuId();
+                    doc.nodeId = op.path("target_node_id").isNumber() ? op.path("target_node_id").asLong() : null;
+                    doc.couId = text(op.path("cou_id"));
+                    doc.title = title;
+                    doc.description = description;
+                    documents.add(doc);
+                }
+            } catch (IOException e) {
+                // Unparseable CoU data: index nothing for it
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            removeAll(documentDocsBySu.remove(su.getSuId()));
+            for (IndexedDoc doc : documents) {
+                add(doc);
+            }
+            // Known even without documents, so catch-up can tell when it is deleted
+            rememberSubmissionUnit(su.getSuId(), su.getAppId());
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Walk the root-section tree: every object with an id and a name is a node
+     */
+    private void collectNodes(CompactTree tree, Long appId, List<IndexedDoc> nodes) {
+        for (int i = 0; i < tree.size(); i++) {
+            String name = tree.name(i);
+            if (name != null && !name.isBlank() && tree.hasId(i)) {
+                nodes.add(nodeDoc(appId, tree.id(i), name));
+            }
+        }
+    }
+
+    private static IndexedDoc nodeDoc(Long appId, Long nodeId, String name) {
+        IndexedDoc doc = new IndexedDoc();
+        doc.key = nodeKey(appId, nodeId);
+        doc.type = SearchHit.NODE;
+        doc.appId = appId;
+        doc.nodeId = nodeId;
+        doc.title = name;
+        return doc;
+    }
+
+    private static String nodeKey(Long appId, Long nodeId) {
+        return "n:" + appId + ":" + nodeId;
+    }
+
+    /**
+     * Remove node documents of an application (caller holds the write lock)
+     */
+    private void removeNodeDocs(Long appId, List<String> keys) {
+        Set<String> appKeys = nodeDocsByApp.get(appId);
+        for (String key : keys) {
+            IndexedDoc doc = docs.remove(key);
+            if (doc != null) {
+                unpost(key, doc);
+            }
+            if (appKeys != null) {
+                appKeys.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Add a document to the index (caller holds the write lock)
+     */
+    private void add(IndexedDoc doc) {
+        String key = doc.key;
+        IndexedDoc previous = docs.put(key, doc);
+        if (previous != null) {
+            unpost(key, previous);
+        }
+        for (String term : new HashSet<>(tokenize(doc.text(), true))) {
+            postings.computeIfAbsent(term, k -> new HashSet<>()).add(key);
+        }
+        if (SearchHit.NODE.equals(doc.type)) {
+            nodeDocsByApp.computeIfAbsent(doc.appId, k -> new HashSet<>()).add(key);
+        } else {
+            documentDocsBySu.computeIfAbsent(doc.suId, k -> new HashSet<>()).add(key);
+            rememberSubmissionUnit(doc.suId, doc.appId);
+        }
+    }
+
+    /**
+     * Track the application of a submission unit, which may have been moved from another one
+     * (caller holds the write lock)
+     */
+    private void rememberSubmissionUnit(Long suId, Long appId) {
+        Long previous = appIdBySu.put(suId, appId);
+        if (previous != null && !previous.equals(appId)) {
+            Set<Long> suIds = suIdsByApp.get(previous);
+            if (suIds != null) {
+                suIds.remove(suId);
+            }
+        }
+        suIdsByApp.computeIfAbsent(appId, k -> new HashSet<>()).add(suId);
+    }
+
+    private void forgetSubmissionUnit(Long suId) {
+        Long appId = appIdBySu.remove(suId);
+        Set<Long> suIds = appId == null ? null : suIdsByApp.get(appId);
+        if (suIds != null) {
+            suIds.remove(suId);
+        }
+    }
+
+    /**
+     * Remove documents from the index (caller holds the write lock)
+     */
+    private void removeAll(Set<String> keys) {
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            IndexedDoc doc = docs.remove(key);
+            if (doc != null) {
+                unpost(key, doc);
+            }
+        }
+    }
+
+    private void unpost(String key, IndexedDoc doc) {
+        for (String term : new HashSet<>(tokenize(doc.text(), true))) {
+            Set<String> list = postings.get(term);
+            if (list != null && list.remove(key) && list.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private double score(IndexedDoc doc, String phrase) {
+        double score = 1;
+        if (doc.title != null && normalize(doc.title).contains(phrase)) {
+            score += 2;
+        } else if (normalize(doc.text()).contains(phrase)) {
+            score += 1;
+        }
+        return SearchHit.NODE.equals(doc.type) ? score + 0.5 : score;
+    }
+
+    /**
+     * Split text into index terms: CJK runs into character bigrams (and single characters
+     * when indexing or when the run has one character), other letters and digits into
+     * words, plus word prefixes when indexing
+     * @param text Text
+     * @param indexing true for document text, false for a query
+     * @return Terms (may repeat)
+     */
+    static List<String> tokenize(String text, boolean indexing) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String normalized = normalize(text);
+        StringBuilder word = new StringBuilder();
+        List<Integer> cjk = new ArrayList<>();
+        int i = 0;
+        while (i <= normalized.length()) {
+            int cp = i < normalized.length() ? normalized.codePointAt(i) : -1;
+            boolean isCjk = cp >= 0 && isCjk(cp);
+            boolean isWord = cp >= 0 && !isCjk && Character.isLetterOrDigit(cp);
+            if (!isCjk && !cjk.isEmpty()) {
+                addCjkTerms(cjk, indexing, terms);
+                cjk.clear();
+            }
+            if (!isWord && word.length() > 0) {
+                addWordTerms(word.toString(), indexing, terms);
+                word.setLength(0);
+            }
+            if (isCjk) {
+                cjk.add(cp);
+            } else if (isWord) {
+                word.appendCodePoint(cp);
+            }
+            i += cp >= 0 ? Character.charCount(cp) : 1;
+        }
+        return terms;
+    }
+
+    private static void addCjkTerms(List<Integer> run, boolean indexing, List<String> terms) {
+        if (run.size() == 1 || indexing) {
+            for (int cp : run) {
+                terms.add(new String(Character.toChars(cp)));
+            }
+        }
+        for (int i = 0; i + 1 < run.size(); i++) {
+            terms.add(new StringBuilder().appendCodePoint(run.get(i)).appendCodePoint(run.get(i + 1)).toString());
+        }
+    }
+
+    private static void addWordTerms(String word, boolean indexing, List<String> terms) {
+        terms.add(word);
+        if (indexing) {
+            int cps = word.codePointCount(0, word.length());
+            for (int n = 2; n < Math.min(cps, MAX_PREFIX_LENGTH + 1); n++) {
+                terms.add(word.substring(0, word.offsetByCodePoints(0, n)));
+            }
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * Full-width to half-width, lower case
+     */
+    private static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    private static String text(JsonNode node) {
+        return node.isTextual() && !node.asText().isBlank() ? node.asText() : null;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        out.writeLong(value == null ? 0 : value);
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        boolean present = in.readBoolean();
+        long value = in.readLong();
+        return present ? value : null;
+    }
+
+    private static class IndexedDoc {
+
+        private String key;
+        private String type;
+        private Long appId;
+        private Long suId;
+        private Long nodeId;
+        private String couId;
+        private String title;
+        private String description;
+
+        String text() {
+            if (description == null) {
+                return title;
+            }
+            return title == null ? description : title + " " + description;
+        }
+
+        SearchHit toHit(double score) {
+            return new SearchHit(type, appId, suId, nodeId, couId, title, description, score);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.SubmissionUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Search Index Sync Service
+ * Keeps the local search index in step with the database beyond the write paths of this
+ * node: at startup the saved index is loaded and only rows changed since its watermark
+ * are re-read, and the same catch-up runs on a timer to pick up writes made on other
+ * nodes and deletions. Without a saved index a full rebuild runs as a background job.
+ */
+@Service
+public class SearchIndexSyncService {
+
+    public static final String JOB_TYPE = "SEARCH_REBUILD";
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    @Value("${ectd.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ectd.search.catch-up-overlap-seconds:60}")
+    private long overlapSeconds;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Load the saved index and catch up, or rebuild it when there is none
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        boolean loaded;
+        try {
+            loaded = searchIndexService.load();
+        } catch (IOException e) {
+            // A damaged index file is rebuilt
+            loaded = false;
+        }
+        if (loaded) {
+            catchUp();
+        } else {
+            startRebuild();
+        }
+    }
+
+    /**
+     * Scheduled catch-up with changes made on other nodes
+     */
+    @Scheduled(fixedDelayString = "${ectd.search.catch-up-interval-ms:60000}",
+            initialDelayString = "${ectd.search.catch-up-interval-ms:60000}")
+    public void scheduledCatchUp() {
+        if (enabled && searchIndexService.isLoaded()) {
+            catchUp();
+        }
+    }
+
+    /**
+     * Start a background job rebuilding the whole index
+     * @return Rebuild job; poll GET /jobs/{jobId} for progress
+     */
+    public AsyncJob startRebuild() {
+        return asyncJobService.submit(JOB_TYPE, this::rebuild);
+    }
+
+    /**
+     * Re-index the rows changed since the watermark (less an overlap for transactions that
+     * committed late) and drop the applications and submission units deleted since
+     * @return true if the catch-up ran, false if another update of the index was in progress
+     */
+    public boolean catchUp() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            LocalDateTime watermark = searchIndexService.getWatermark();
+            LocalDateTime since = watermark == null ? LocalDateTime.of(1970, 1, 1, 0, 0) : watermark.minusSeconds(overlapSeconds);
+            LocalDateTime latest = watermark;
+            for (Application app : applicationService.getApplicationsUpdatedSince(since)) {
+                searchIndexService.indexApplication(app);
+                latest = later(latest, app.getUpdatedAt());
+            }
+            for (SubmissionUnit su : submissionUnitService.getSubmissionUnitsUpdatedSince(since)) {
+                searchIndexService.indexSubmissionUnit(su);
+                latest = later(latest, su.getUpdatedAt());
+            }
+            removeDeleted();
+            if (latest != null) {
+                searchIndexService.setWatermark(latest);
+            }
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void rebuild(AsyncJob job) {
+        if (!running.compareAndSet(false, true)) {
+            job.setMessage("Another search index update is in progress");
+            return;
+        }
+        try {
+            // Writes made during the rebuild are newer than this and are caught up afterwards
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<Application> keys = applicationService.getAllApplicationKeys();
+            job.setTotal(keys.size());
+            long processed = 0;
+            long submissionUnits = 0;
+            for (Application key : keys) {
+                Application app = applicationService.getApplicationById(key.getAppId());
+                if (app != null) {
+                    searchIndexService.indexApplication(app);
+                    for (SubmissionUnit su : submissionUnitService.getSubmissionUnitsByAppId(app.getAppId())) {
+                        searchIndexService.indexSubmissionUnit(su);
+                        submissionUnits++;
+                    }
+                }
+                job.setProcessed(++processed);
+            }
+            removeDeleted();
+            searchIndexService.setWatermark(startedAt);
+            searchIndexService.markLoaded();
+            job.putResult("applications", processed);
+            job.putResult("submissionUnits", submissionUnits);
+            job.setMessage("Indexed " + processed + " application(s) and " + submissionUnits + " submission unit(s)");
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Remove index entries whose rows no longer exist. The index is read before the
+     * database, so an entry added in between is never mistaken for a deleted row.
+     */
+    private void removeDeleted() {
+        Set<Long> indexedAppIds = searchIndexService.getIndexedApplicationIds();
+        Map<Long, Long> indexedSuIds = searchIndexService.getIndexedSubmissionUnits();
+
+        Set<Long> appIds = new HashSet<>();
+        for (Application app : applicationService.getAllApplicationKeys()) {
+            appIds.add(app.getAppId());
+        }
+        Set<Long> suIds = new HashSet<>();
+        for (SubmissionUnit su : submissionUnitService.getAllSubmissionUnitKeys()) {
+            suIds.add(su.getSuId());
+        }
+
+        for (Long appId : indexedAppIds) {
+            if (!appIds.contains(appId)) {
+                searchIndexService.removeApplication(appId);
+            }
+        }
+        indexedSuIds.forEach((suId, appId) -> {
+            if (!suIds.contains(suId)) {
+                searchIndexService.removeSubmissionUnit(suId, appId);
+            }
+        });
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+}
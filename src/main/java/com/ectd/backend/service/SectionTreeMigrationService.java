@@ -0,0 +1,58 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.AsyncJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Section Tree Migration Service
+ * Moves the root sections of all applications from the JSON column into section nodes,
+ * one transaction per application. Applications being deleted or whose tree can't be
+ * stored as nodes (e.g. non-integer node ids) are skipped and keep their JSON.
+ */
+@Service
+public class SectionTreeMigrationService {
+
+    public static final String JOB_TYPE = "SECTION_TREE_MIGRATION";
+
+    @Autowired
+    private SectionTreeService sectionTreeService;
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    /**
+     * Start a background job migrating all applications
+     * @return Migration job; poll GET /jobs/{jobId} for progress
+     */
+    public AsyncJob startMigration() {
+        return asyncJobService.submit(JOB_TYPE, this::migrate);
+    }
+
+    private void migrate(AsyncJob job) {
+        List<Application> keys = applicationService.getAllApplicationKeys();
+        job.setTotal(keys.size());
+        long processed = 0;
+        long migrated = 0;
+        long skipped = 0;
+        for (Application key : keys) {
+            try {
+                if (sectionTreeService.migrate(key.getAppId())) {
+                    migrated++;
+                }
+            } catch (IllegalArgumentException e) {
+                skipped++;
+            }
+            job.setProcessed(++processed);
+        }
+        job.putResult("migrated", migrated);
+        job.putResult("skipped", skipped);
+        job.setMessage("Migrated " + migrated + " application(s) to section nodes, skipped " + skipped);
+    }
+}
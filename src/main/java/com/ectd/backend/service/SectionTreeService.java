@@ -0,0 +1,625 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.ApplicationMapper;
+import com.ectd.backend.mapper.SectionNodeMapper;
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.SectionClosure;
+import com.ectd.backend.model.SectionNode;
+import com.ectd.backend.model.StatisticCount;
+import com.ectd.backend.util.JsonCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Section Tree Service
+ * Root section trees stored as rows: one ectd_section_node row per node plus every
+ * ancestor/descendant pair in ectd_section_closure. Subtree and ancestor queries are
+ * indexed lookups, and a node edit only writes the rows of the nodes it touches, so edits
+ * below different modules don't contend on the application row. For these applications
+ * rootSection is assembled from the rows on read.
+ */
+@Service
+@Transactional
+public class SectionTreeService {
+
+    public static final String STORAGE_NODES = "nodes";
+
+    private static final String ID = "id";
+    private static final String NODE_TYPE = "nodeType";
+    private static final String NAME = "name";
+    private static final String CHILDREN = "children";
+    private static final String MODULE = "module";
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private SectionNodeMapper sectionNodeMapper;
+
+    @Autowired
+    private ApplicationMapper applicationMapper;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Value("${ectd.section-tree.storage:json}")
+    private String defaultStorage;
+
+    private final ObjectMapper objectMapper = JsonCodec.mapper();
+
+    /**
+     * Whether the root section of an application is stored as section nodes
+     * @param app Application (may be null)
+     * @return true for tree storage NODES_ARRAY or NODES_OBJECT
+     */
+    public static boolean isNodeStorage(Application app) {
+        return app != null && (Application.TREE_NODES_ARRAY.equals(app.getTreeStorage())
+                || Application.TREE_NODES_OBJECT.equals(app.getTreeStorage()));
+    }
+
+    /**
+     * Whether new applications are stored as section nodes (ectd.section-tree.storage=nodes);
+     * node endpoints then also migrate JSON applications on first use
+     * @return true if node storage is the default
+     */
+    public boolean isNodeStorageDefault() {
+        return STORAGE_NODES.equalsIgnoreCase(defaultStorage);
+    }
+
+    /**
+     * Set rootSection of an application stored as section nodes from its rows
+     * @param app Application (may be null)
+     * @return The same application
+     */
+    public Application assemble(Application app) {
+        if (isNodeStorage(app)) {
+            app.setRootSection(assembleRootSection(app.getAppId(), app.getTreeStorage()));
+        }
+        return app;
+    }
+
+    /**
+     * Build the root section JSON of an application from its section nodes
+     * @param appId Application ID
+     * @param treeStorage NODES_ARRAY (top-level nodes as array) or NODES_OBJECT (single root node)
+     * @return Root section JSON
+     */
+    public String assembleRootSection(Long appId, String treeStorage) {
+        Map<Long, List<SectionNode>> childrenByParent = new HashMap<>();
+        for (SectionNode node : sectionNodeMapper.findByAppId(appId)) {
+            childrenByParent.computeIfAbsent(node.getParentId(), k -> new ArrayList<>()).add(node);
+        }
+        ArrayNode top = toJson(childrenByParent.get(null), childrenByParent);
+        JsonNode root = top;
+        if (Application.TREE_NODES_OBJECT.equals(treeStorage)) {
+            root = top.isEmpty() ? NullNode.getInstance() : top.get(0);
+        }
+        try {
+            return objectMapper.writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize root section of application " + appId, e);
+        }
+    }
+
+    /**
+     * Tree storage mode for a root section stored as section nodes
+     * @param rootSectionJson Root section JSON
+     * @return NODES_ARRAY or NODES_OBJECT
+     * @throws JsonProcessingException If the JSON is malformed
+     */
+    public String nodeStorageOf(String rootSectionJson) throws JsonProcessingException {
+        return objectMapper.readTree(rootSectionJson).isArray() ? Application.TREE_NODES_ARRAY : Application.TREE_NODES_OBJECT;
+    }
+
+    /**
+     * Replace all section nodes of an application with a root section tree. Node ids must be
+     * integers, unique within the tree.
+     * @param app Application; its tree storage is switched to NODES_ARRAY / NODES_OBJECT
+     * @param rootSectionJson Root section JSON
+     * @throws JsonProcessingException If the JSON is malformed
+     */
+    public void replaceTree(Application app, String rootSectionJson) throws JsonProcessingException {
+        JsonNode root = objectMapper.readTree(rootSectionJson);
+        String treeStorage = root.isArray() ? Application.TREE_NODES_ARRAY : Application.TREE_NODES_OBJECT;
+        storeTree(app.getAppId(), root);
+        if (!treeStorage.equals(app.getTreeStorage())) {
+            applicationMapper.updateTreeStorage(app.getAppId(), treeStorage, null);
+            app.setTreeStorage(treeStorage);
+        }
+    }
+
+    /**
+     * Replace the section nodes of an application only if a root section differs from the
+     * stored tree, so whole-application updates that leave the tree alone don't rewrite it
+     * @param app Application stored as section nodes
+     * @param rootSectionJson Root section JSON (null keeps the stored tree)
+     * @return true if the tree was replaced
+     * @throws JsonProcessingException If the JSON is malformed
+     */
+    public boolean replaceTreeIfChanged(Application app, String rootSectionJson) throws JsonProcessingException {
+        if (rootSectionJson == null) {
+            return false;
+        }
+        JsonNode stored = objectMapper.readTree(assembleRootSection(app.getAppId(), app.getTreeStorage()));
+        if (stored.equals(objectMapper.readTree(rootSectionJson))) {
+            return false;
+        }
+        replaceTree(app, rootSectionJson);
+        return true;
+    }
+
+    /**
+     * Move the root section of an application from the JSON column into section nodes
+     * @param appId Application ID
+     * @return true if migrated, false if it was already stored as section nodes
+     */
+    public boolean migrate(Long appId) {
+        Application app = applicationMapper.findById(appId);
+        if (app == null) {
+            throw new IllegalArgumentException("Application not found: " + appId);
+        }
+        checkNotDeleting(app);
+        if (isNodeStorage(app)) {
+            return false;
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(app.getRootSection() == null ? "[]" : app.getRootSection());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Root section of application " + appId + " is not valid JSON");
+        }
+        String treeStorage = root.isArray() ? Application.TREE_NODES_ARRAY : Application.TREE_NODES_OBJECT;
+        storeTree(appId, root);
+        applicationMapper.updateTreeStorage(appId, treeStorage, null);
+        return true;
+    }
+
+    /**
+     * Get one section node
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return Node, or null if the application or node doesn't exist
+     */
+    public SectionNode getNode(Long appId, Long nodeId) {
+        if (nodeTree(appId, false) == null) {
+            return null;
+        }
+        return sectionNodeMapper.findById(appId, nodeId);
+    }
+
+    /**
+     * Get a node and all nodes below it (e.g. all documents under a module)
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @param nodeType Only nodes of this type (optional)
+     * @return Nodes nearest first with their depth below the node, or null if the node doesn't exist
+     */
+    public List<SectionNode> getSubtree(Long appId, Long nodeId, String nodeType) {
+        if (getNode(appId, nodeId) == null) {
+            return null;
+        }
+        return sectionNodeMapper.findSubtree(appId, nodeId, nodeType);
+    }
+
+    /**
+     * Get the ancestors of a node
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return Nodes from the top level down to the parent, or null if the node doesn't exist
+     */
+    public List<SectionNode> getAncestors(Long appId, Long nodeId) {
+        if (getNode(appId, nodeId) == null) {
+            return null;
+        }
+        return sectionNodeMapper.findAncestors(appId, nodeId);
+    }
+
+    /**
+     * Add a node, with any children it carries, below a parent
+     * @param appId Application ID
+     * @param parentId Parent node id, null for top level
+     * @param position Position among the siblings (null or past the end appends)
+     * @param node Node fields: id (required), nodeType, name, other attributes, children
+     * @return Added node
+     */
+    public SectionNode addNode(Long appId, Long parentId, Integer position, Map<String, Object> node) {
+        Application app = nodeTree(appId, true);
+        List<SectionNode> ancestors = new ArrayList<>();
+        List<Long> path = new ArrayList<>();
+        if (parentId != null) {
+            SectionNode parent = sectionNodeMapper.findById(appId, parentId);
+            if (parent == null) {
+                throw new IllegalArgumentException("Parent node not found: " + parentId);
+            }
+            ancestors.addAll(sectionNodeMapper.findAncestors(appId, parentId));
+            ancestors.add(parent);
+            ancestors.forEach(ancestor -> path.add(ancestor.getNodeId()));
+        } else {
+            checkTopLevelAllowed(app);
+        }
+        int at = clamp(position, sectionNodeMapper.countChildren(appId, parentId));
+
+        List<SectionNode> nodes = new ArrayList<>();
+        List<SectionClosure> closures = new ArrayList<>();
+        collect(objectMapper.valueToTree(node), appId, parentId, at, path, new HashSet<>(), nodes, closures);
+
+        sectionNodeMapper.shiftPositions(appId, parentId, at, 1);
+        try {
+            insert(nodes, closures);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Section node id already exists in application " + appId);
+        }
+
+        Set<String> modules = moduleNames(ancestors);
+        modules.addAll(moduleNames(nodes));
+        afterNodeChange(appId, modules);
+        searchIndexService.indexNodes(appId, nodes);
+        return sectionNodeMapper.findById(appId, nodes.get(0).getNodeId());
+    }
+
+    /**
+     * Update the fields of a node; a field set to null is removed. Children and placement
+     * are changed with addNode, moveNode and deleteNode.
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @param fields Fields to set
+     * @return Updated node
+     */
+    public SectionNode updateNode(Long appId, Long nodeId, Map<String, Object> fields) {
+        nodeTree(appId, true);
+        SectionNode node = sectionNodeMapper.findById(appId, nodeId);
+        if (node == null) {
+            throw new IllegalArgumentException("Section node not found: " + nodeId);
+        }
+        ObjectNode json = toJson(node, new HashMap<>());
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            JsonNode value = objectMapper.valueToTree(field.getValue());
+            if (ID.equals(field.getKey())) {
+                if (!value.canConvertToLong() || value.asLong() != nodeId) {
+                    throw new IllegalArgumentException("Section node id can't be changed");
+                }
+            } else if (CHILDREN.equals(field.getKey())) {
+                throw new IllegalArgumentException("Children are changed by adding, moving and deleting nodes");
+            } else if (value.isNull()) {
+                json.remove(field.getKey());
+            } else {
+                json.set(field.getKey(), value);
+            }
+        }
+        SectionNode updated = toNode(json, appId, nodeId, node.getParentId(), node.getPosition());
+        sectionNodeMapper.updateNode(updated);
+
+        List<SectionNode> affected = sectionNodeMapper.findAncestors(appId, nodeId);
+        affected.add(node);
+        affected.add(updated);
+        afterNodeChange(appId, moduleNames(affected));
+        searchIndexService.indexNodes(appId, List.of(updated));
+        return sectionNodeMapper.findById(appId, nodeId);
+    }
+
+    /**
+     * Move a node with its subtree to another parent and/or position. Only the closure rows
+     * between the subtree and its old and new ancestors are rewritten.
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @param parentId New parent node id, null for top level
+     * @param position Position among the new siblings (null or past the end appends)
+     * @return Moved node
+     */
+    public SectionNode moveNode(Long appId, Long nodeId, Long parentId, Integer position) {
+        Application app = nodeTree(appId, true);
+        SectionNode node = sectionNodeMapper.findById(appId, nodeId);
+        if (node == null) {
+            throw new IllegalArgumentException("Section node not found: " + nodeId);
+        }
+        List<Long> subtree = sectionNodeMapper.findDescendantIds(appId, nodeId);
+        if (parentId != null) {
+            if (sectionNodeMapper.findById(appId, parentId) == null) {
+                throw new IllegalArgumentException("Parent node not found: " + parentId);
+            }
+            if (subtree.contains(parentId)) {
+                throw new IllegalArgumentException("A node can't be moved below itself");
+            }
+        } else if (node.getParentId() != null) {
+            checkTopLevelAllowed(app);
+        }
+        boolean sameParent = parentId == null ? node.getParentId() == null : parentId.equals(node.getParentId());
+        List<SectionNode> oldAncestors = sectionNodeMapper.findAncestors(appId, nodeId);
+
+        // Close the gap at the old place, then open one at the new place
+        sectionNodeMapper.shiftPositions(appId, node.getParentId(), node.getPosition() + 1, -1);
+        int siblings = sectionNodeMapper.countChildren(appId, parentId) - (sameParent ? 1 : 0);
+        int at = clamp(position, siblings);
+        sectionNodeMapper.shiftPositions(appId, parentId, at, 1);
+        sectionNodeMapper.updatePlacement(appId, nodeId, parentId, at);
+
+        if (!sameParent) {
+            List<Long> oldAncestorIds = new ArrayList<>();
+            oldAncestors.forEach(ancestor -> oldAncestorIds.add(ancestor.getNodeId()));
+            if (!oldAncestorIds.isEmpty()) {
+                for (List<Long> batch : batches(subtree)) {
+                    sectionNodeMapper.deleteClosurePaths(appId, oldAncestorIds, batch);
+                }
+            }
+            if (parentId != null) {
+                sectionNodeMapper.insertSubtreeClosures(appId, nodeId, parentId);
+            }
+        }
+
+        Set<String> modules = moduleNames(oldAncestors);
+        modules.addAll(moduleNames(sectionNodeMapper.findAncestors(appId, nodeId)));
+        afterNodeChange(appId, modules);
+        return sectionNodeMapper.findById(appId, nodeId);
+    }
+
+    /**
+     * Delete a node and all nodes below it
+     * @param appId Application ID
+     * @param nodeId Node id
+     * @return Number of deleted nodes (0 if the node doesn't exist)
+     */
+    public int deleteNode(Long appId, Long nodeId) {
+        nodeTree(appId, true);
+        SectionNode node = sectionNodeMapper.findById(appId, nodeId);
+        if (node == null) {
+            return 0;
+        }
+        List<SectionNode> ancestors = sectionNodeMapper.findAncestors(appId, nodeId);
+        List<SectionNode> subtree = sectionNodeMapper.findSubtree(appId, nodeId, null);
+        List<Long> ids = new ArrayList<>();
+        subtree.forEach(n -> ids.add(n.getNodeId()));
+
+        for (List<Long> batch : batches(ids)) {
+            sectionNodeMapper.deleteClosuresByDescendants(appId, batch);
+            sectionNodeMapper.deleteNodes(appId, batch);
+        }
+        sectionNodeMapper.shiftPositions(appId, node.getParentId(), node.getPosition() + 1, -1);
+        if (node.getParentId() != null) {
+            // Lets catch-up readers on other nodes see the change
+            sectionNodeMapper.touch(appId, node.getParentId());
+        }
+
+        Set<String> modules = moduleNames(ancestors);
+        modules.addAll(moduleNames(subtree));
+        afterNodeChange(appId, modules);
+        searchIndexService.removeNodes(appId, ids);
+        return ids.size();
+    }
+
+    /**
+     * Load an application for node operations, migrating it on first use when node storage is the default
+     * @param appId Application ID
+     * @param write Whether the operation writes (rejected while the application is being deleted)
+     * @return Application stored as section nodes; null if it doesn't exist and !write
+     */
+    private Application nodeTree(Long appId, boolean write) {
+        Application app = applicationMapper.findById(appId);
+        if (app == null) {
+            if (write) {
+                throw new IllegalArgumentException("Application not found: " + appId);
+            }
+            return null;
+        }
+        if (write) {
+            checkNotDeleting(app);
+        }
+        if (!isNodeStorage(app)) {
+            if (!isNodeStorageDefault()) {
+                throw new IllegalArgumentException("Root section of application " + appId
+                        + " is stored as JSON; migrate it with POST /applications/" + appId + "/nodes/migrate");
+            }
+            migrate(appId);
+            app = applicationMapper.findById(appId);
+        }
+        return app;
+    }
+
+    /**
+     * Bump the application version, refresh the document counters of the modules the change
+     * touched (other modules' counter rows are left alone) and publish it. The version is
+     * bumped last so the application row stays locked for as short a time as possible.
+     */
+    private void afterNodeChange(Long appId, Set<String> moduleNames) {
+        for (String moduleName : moduleNames) {
+            List<StatisticCount> counts = sectionNodeMapper.countModuleDocuments(appId, moduleName);
+            statisticsService.recordModuleDocuments(appId, moduleName, counts.isEmpty() ? null : counts.get(0).getCount());
+        }
+        applicationMapper.bumpVersion(appId);
+        Application stored = applicationMapper.findVersionById(appId);
+        changeFeedService.publish(ChangeFeedService.ENTITY_APPLICATION, appId, appId,
+                stored != null ? stored.getVersion() : null, ChangeFeedService.UPDATED);
+    }
+
+    private void storeTree(Long appId, JsonNode root) {
+        List<SectionNode> nodes = new ArrayList<>();
+        List<SectionClosure> closures = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        if (root.isArray()) {
+            for (int i = 0; i < root.size(); i++) {
+                collect(root.get(i), appId, null, i, new ArrayList<>(), ids, nodes, closures);
+            }
+        } else if (root.isObject()) {
+            collect(root, appId, null, 0, new ArrayList<>(), ids, nodes, closures);
+        } else {
+            throw new IllegalArgumentException("Root section must be a node object or an array of nodes");
+        }
+        sectionNodeMapper.deleteClosuresByAppId(appId);
+        sectionNodeMapper.deleteByAppId(appId);
+        insert(nodes, closures);
+    }
+
+    /**
+     * Flatten a JSON node and its children into node rows, and pair each with every id on
+     * its path (ancestors, top first) into closure rows
+     */
+    private void collect(JsonNode json, Long appId, Long parentId, int position, List<Long> path,
+                         Set<Long> ids, List<SectionNode> nodes, List<SectionClosure> closures) {
+        if (!json.isObject()) {
+            throw new IllegalArgumentException("Section nodes must be JSON objects");
+        }
+        JsonNode id = json.path(ID);
+        if (!id.isIntegralNumber() || !id.canConvertToLong()) {
+            throw new IllegalArgumentException("Section node id must be an integer: " + id);
+        }
+        Long nodeId = id.asLong();
+        if (!ids.add(nodeId)) {
+            throw new IllegalArgumentException("Duplicate section node id: " + nodeId);
+        }
+        nodes.add(toNode((ObjectNode) json, appId, nodeId, parentId, position));
+        closures.add(new SectionClosure(appId, nodeId, nodeId, 0));
+        for (int i = 0; i < path.size(); i++) {
+            closures.add(new SectionClosure(appId, path.get(i), nodeId, path.size() - i));
+        }
+        JsonNode children = json.path(CHILDREN);
+        if (children.isArray()) {
+            path.add(nodeId);
+            for (int i = 0; i < children.size(); i++) {
+                collect(children.get(i), appId, nodeId, i, path, ids, nodes, closures);
+            }
+            path.remove(path.size() - 1);
+        }
+    }
+
+    /**
+     * Node row from a JSON node: textual nodeType and name get their own columns, the other
+     * fields go to attributes. A children array is kept there empty, to remember the key.
+     */
+    private SectionNode toNode(ObjectNode json, Long appId, Long nodeId, Long parentId, int position) {
+        ObjectNode attributes = json.deepCopy();
+        attributes.remove(ID);
+        String nodeType = json.path(NODE_TYPE).isTextual() ? json.path(NODE_TYPE).asText() : null;
+        if (nodeType != null) {
+            attributes.remove(NODE_TYPE);
+        }
+        String name = json.path(NAME).isTextual() ? json.path(NAME).asText() : null;
+        if (name != null) {
+            attributes.remove(NAME);
+        }
+        if (attributes.path(CHILDREN).isArray()) {
+            attributes.putArray(CHILDREN);
+        }
+        SectionNode node = new SectionNode();
+        node.setAppId(appId);
+        node.setNodeId(nodeId);
+        node.setParentId(parentId);
+        node.setPosition(position);
+        node.setNodeType(nodeType);
+        node.setName(name);
+        node.setAttributes(attributes.toString());
+        return node;
+    }
+
+    private ArrayNode toJson(List<SectionNode> nodes, Map<Long, List<SectionNode>> childrenByParent) {
+        ArrayNode array = objectMapper.createArrayNode();
+        if (nodes != null) {
+            for (SectionNode node : nodes) {
+                array.add(toJson(node, childrenByParent));
+            }
+        }
+        return array;
+    }
+
+    private ObjectNode toJson(SectionNode node, Map<Long, List<SectionNode>> childrenByParent) {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put(ID, node.getNodeId());
+        if (node.getNodeType() != null) {
+            json.put(NODE_TYPE, node.getNodeType());
+        }
+        if (node.getName() != null) {
+            json.put(NAME, node.getName());
+        }
+        List<SectionNode> children = childrenByParent.get(node.getNodeId());
+        JsonNode attributes = parseAttributes(node);
+        Iterator<Map.Entry<String, JsonNode>> fields = attributes.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (CHILDREN.equals(field.getKey()) && children != null) {
+                json.set(CHILDREN, toJson(children, childrenByParent));
+            } else {
+                json.set(field.getKey(), field.getValue());
+            }
+        }
+        if (children != null && !attributes.has(CHILDREN)) {
+            json.set(CHILDREN, toJson(children, childrenByParent));
+        }
+        return json;
+    }
+
+    private JsonNode parseAttributes(SectionNode node) {
+        if (node.getAttributes() == null || node.getAttributes().isBlank()) {
+            return objectMapper.createObjectNode();
+        }
+        try {
+            return objectMapper.readTree(node.getAttributes());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed attributes of section node " + node.getNodeId(), e);
+        }
+    }
+
+    private void insert(List<SectionNode> nodes, List<SectionClosure> closures) {
+        for (int i = 0; i < nodes.size(); i += BATCH_SIZE) {
+            sectionNodeMapper.insertNodes(nodes.subList(i, Math.min(i + BATCH_SIZE, nodes.size())));
+        }
+        for (int i = 0; i < closures.size(); i += BATCH_SIZE) {
+            sectionNodeMapper.insertClosures(closures.subList(i, Math.min(i + BATCH_SIZE, closures.size())));
+        }
+    }
+
+    private void checkTopLevelAllowed(Application app) {
+        if (Application.TREE_NODES_OBJECT.equals(app.getTreeStorage())
+                && sectionNodeMapper.countChildren(app.getAppId(), null) > 0) {
+            throw new IllegalArgumentException("The root section has a single top-level node; place the node below it");
+        }
+    }
+
+    private void checkNotDeleting(Application app) {
+        if (Application.DELETING.equals(app.getStatus())) {
+            throw new IllegalArgumentException("Application is being deleted: " + app.getAppId());
+        }
+    }
+
+    private static Set<String> moduleNames(List<SectionNode> nodes) {
+        Set<String> names = new LinkedHashSet<>();
+        for (SectionNode node : nodes) {
+            if (MODULE.equals(node.getNodeType()) && node.getName() != null) {
+                names.add(node.getName());
+            }
+        }
+        return names;
+    }
+
+    private static int clamp(Integer position, int size) {
+        return position == null ? size : Math.max(0, Math.min(position, size));
+    }
+
+    private static List<List<Long>> batches(List<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            batches.add(ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())));
+        }
+        return batches;
+    }
+}
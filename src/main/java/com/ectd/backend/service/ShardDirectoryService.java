@@ -0,0 +1,208 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.config.ShardingProperties;
+import com.ectd.backend.mapper.ShardDirectoryMapper;
+import com.ectd.backend.model.ShardDirectoryEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Shard Directory Service
+ * Global app_id / app_number to shard directory with an in-memory cache, plus block
+ * allocation of globally unique application and submission unit IDs. Cached entries expire
+ * after ectd.sharding.directory-cache-ttl-ms; writes don't depend on the expiry, since
+ * ShardRouter fences them on the source shard of a move.
+ *
+ * Every call runs in its own transaction on shard 0: the directory is consulted from
+ * inside transactions already bound to an application's shard, and must never reuse
+ * that connection.
+ */
+@Service
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+public class ShardDirectoryService {
+
+    public static final String APP_SEQUENCE = "ectd_application";
+    public static final String SU_SEQUENCE = "ectd_submission_unit";
+
+    private static final int ID_BLOCK_SIZE = 100;
+
+    @Autowired
+    private ShardDirectoryMapper shardDirectoryMapper;
+
+    @Autowired
+    private ShardingProperties shardingProperties;
+
+    private final Map<Long, CachedEntry> cache = new ConcurrentHashMap<>();
+
+    private final Map<String, IdBlock> idBlocks = new ConcurrentHashMap<>();
+
+    /**
+     * Get the directory entry of an application
+     * @param appId Application ID
+     * @return Directory entry, or null if the application is unknown
+     */
+    public ShardDirectoryEntry getEntry(Long appId) {
+        if (appId == null) {
+            return null;
+        }
+        CachedEntry cached = cache.get(appId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt <= shardingProperties.getDirectoryCacheTtlMs()) {
+            return cached.entry;
+        }
+        ShardDirectoryEntry entry = shardDirectoryMapper.findByAppId(appId);
+        if (entry != null) {
+            cache(entry);
+        } else {
+            cache.remove(appId);
+        }
+        return entry;
+    }
+
+    /**
+     * Re-read the directory entry of an application, e.g. after it was moved by another node
+     * @param appId Application ID
+     * @return Directory entry, or null if the application is unknown
+     */
+    public ShardDirectoryEntry refresh(Long appId) {
+        cache.remove(appId);
+        return getEntry(appId);
+    }
+
+    /**
+     * Get the directory entry of an application by number
+     * @param appNumber Application number
+     * @return Directory entry, or null if unknown
+     */
+    public ShardDirectoryEntry getEntryByAppNumber(String appNumber) {
+        ShardDirectoryEntry entry = shardDirectoryMapper.findByAppNumber(appNumber);
+        if (entry != null) {
+            cache(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Register a new application on a shard; fails on a duplicate application number
+     * @param appId Application ID
+     * @param appNumber Application number
+     * @param shardId Shard index
+     */
+    public void register(Long appId, String appNumber, int shardId) {
+        ShardDirectoryEntry entry = new ShardDirectoryEntry(appId, appNumber, shardId, ShardDirectoryEntry.ACTIVE, null);
+        shardDirectoryMapper.insert(entry);
+        cache(entry);
+    }
+
+    /**
+     * Keep the directory's application number in sync with the application row
+     * @param appId Application ID
+     * @param appNumber Application number
+     */
+    public void updateAppNumber(Long appId, String appNumber) {
+        ShardDirectoryEntry entry = getEntry(appId);
+        if (entry != null && appNumber != null && !appNumber.equals(entry.getAppNumber())) {
+            shardDirectoryMapper.updateAppNumber(appId, appNumber);
+            cache.remove(appId);
+        }
+    }
+
+    /**
+     * Point an application at a shard with the given status
+     * @param appId Application ID
+     * @param shardId Shard index
+     * @param status ACTIVE or MOVING
+     */
+    public void updateShard(Long appId, int shardId, String status) {
+        shardDirectoryMapper.updateShard(appId, shardId, status);
+        cache.remove(appId);
+    }
+
+    /**
+     * Remove an application from the directory
+     * @param appId Application ID
+     */
+    public void remove(Long appId) {
+        shardDirectoryMapper.deleteByAppId(appId);
+        cache.remove(appId);
+    }
+
+    /**
+     * Application IDs on a shard
+     * @param shardId Shard index
+     * @param limit Maximum number of IDs
+     * @return Application IDs
+     */
+    public List<Long> getAppIds(int shardId, int limit) {
+        return shardDirectoryMapper.findAppIdsByShard(shardId, limit);
+    }
+
+    /**
+     * Number of applications per shard
+     * @param shardCount Number of configured shards (empty shards are reported as 0)
+     * @return Map of shard index to application count
+     */
+    public Map<Integer, Long> countByShard(int shardCount) {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (int i = 0; i < shardCount; i++) {
+            counts.put(i, 0L);
+        }
+        for (Map<String, Object> row : shardDirectoryMapper.countByShard()) {
+            counts.put(((Number) row.get("shardId")).intValue(), ((Number) row.get("appCount")).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Next globally unique ID of a sequence. IDs are reserved in blocks so the directory
+     * database is hit once per block, not once per insert.
+     * @param sequence Sequence name
+     * @param maxExistingId Largest ID already in use, consulted once when the sequence is created
+     * @return Next ID
+     */
+    public long nextId(String sequence, LongSupplier maxExistingId) {
+        IdBlock block = idBlocks.computeIfAbsent(sequence, name -> new IdBlock());
+        synchronized (block) {
+            if (block.next >= block.end) {
+                Long next = shardDirectoryMapper.findSequenceForUpdate(sequence);
+                if (next == null) {
+                    shardDirectoryMapper.insertSequenceIfAbsent(sequence, maxExistingId.getAsLong() + 1);
+                    next = shardDirectoryMapper.findSequenceForUpdate(sequence);
+                }
+                shardDirectoryMapper.advanceSequence(sequence, ID_BLOCK_SIZE);
+                block.next = next;
+                block.end = next + ID_BLOCK_SIZE;
+            }
+            return block.next++;
+        }
+    }
+
+    private void cache(ShardDirectoryEntry entry) {
+        cache.put(entry.getAppId(), new CachedEntry(entry, System.currentTimeMillis()));
+    }
+
+    private static class CachedEntry {
+
+        private final ShardDirectoryEntry entry;
+        private final long loadedAt;
+
+        CachedEntry(ShardDirectoryEntry entry, long loadedAt) {
+            this.entry = entry;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static class IdBlock {
+        private long next;
+        private long end;
+    }
+}
@@ -0,0 +1,224 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.ApplicationMapper;
+import com.ectd.backend.mapper.ChangeStampMapper;
+import com.ectd.backend.mapper.SectionNodeMapper;
+import com.ectd.backend.mapper.StatisticsMapper;
+import com.ectd.backend.mapper.SubmissionUnitMapper;
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.ArchivedCouData;
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.SectionClosure;
+import com.ectd.backend.model.SectionNode;
+import com.ectd.backend.model.ShardDirectoryEntry;
+import com.ectd.backend.model.StatisticCounter;
+import com.ectd.backend.model.SubmissionUnit;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shard Rebalance Service
+ * Moves applications between shards and keeps the shard directory in sync with the
+ * shards' contents. A move marks the application MOVING in the directory and fences its
+ * row on the source shard (which waits for running writers and rejects later ones, see
+ * ShardRouter), copies the application row and its submission units to the target shard
+ * in one transaction, repoints the directory and then deletes the source copy.
+ */
+@Service
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+public class ShardRebalanceService {
+
+    public static final String JOB_TYPE = "SHARD_REBALANCE";
+
+    private static final int SU_BATCH_SIZE = 100;
+
+    private static final int NODE_BATCH_SIZE = 500;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardDirectoryService shardDirectoryService;
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    private final ApplicationMapper applicationMapper;
+
+    private final SubmissionUnitMapper submissionUnitMapper;
+
+    private final ChangeStampMapper changeStampMapper;
+
+    private final StatisticsMapper statisticsMapper;
+
+    private final SectionNodeMapper sectionNodeMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ShardRebalanceService(SqlSessionTemplate sqlSessionTemplate, PlatformTransactionManager transactionManager) {
+        // Plain MyBatis mappers; the shard is chosen explicitly with ShardRouter.on
+        this.applicationMapper = sqlSessionTemplate.getMapper(ApplicationMapper.class);
+        this.submissionUnitMapper = sqlSessionTemplate.getMapper(SubmissionUnitMapper.class);
+        this.changeStampMapper = sqlSessionTemplate.getMapper(ChangeStampMapper.class);
+        this.statisticsMapper = sqlSessionTemplate.getMapper(StatisticsMapper.class);
+        this.sectionNodeMapper = sqlSessionTemplate.getMapper(SectionNodeMapper.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Register applications that exist on a shard but not in the directory, e.g. rows
+     * from the single-database deployment that became shard 0
+     * @return Number of applications registered
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int syncDirectory() {
+        int registered = 0;
+        List<List<Application>> perShard = shardRouter.scatter(shard -> applicationMapper.findAllKeys());
+        for (int shard = 0; shard < perShard.size(); shard++) {
+            for (Application app : perShard.get(shard)) {
+                if (shardDirectoryService.getEntry(app.getAppId()) == null) {
+                    shardDirectoryService.register(app.getAppId(), app.getAppNumber(), shard);
+                    registered++;
+                }
+            }
+        }
+        return registered;
+    }
+
+    /**
+     * Number of applications per shard
+     * @return Map of shard index to application count
+     */
+    public Map<Integer, Long> getDistribution() {
+        return shardDirectoryService.countByShard(shardRouter.getShardCount());
+    }
+
+    /**
+     * Start a background job moving applications from over-full to under-full shards
+     * until every shard holds the average number of applications (±1)
+     * @return Rebalance job
+     */
+    public AsyncJob startRebalance() {
+        return asyncJobService.submit(JOB_TYPE, job -> {
+            Map<Integer, Long> counts = getDistribution();
+
+            // Plan (appId, target) moves from the fullest to the emptiest shard until they differ by at most one
+            List<long[]> moves = new ArrayList<>();
+            while (true) {
+                int fullest = Collections.max(counts.entrySet(), Map.Entry.comparingByValue()).getKey();
+                int emptiest = Collections.min(counts.entrySet(), Map.Entry.comparingByValue()).getKey();
+                long excess = (counts.get(fullest) - counts.get(emptiest)) / 2;
+                if (excess < 1) {
+                    break;
+                }
+                List<Long> candidates = shardDirectoryService.getAppIds(fullest, (int) excess + moves.size());
+                long planned = 0;
+                for (Long appId : candidates) {
+                    if (planned == excess) {
+                        break;
+                    }
+                    if (moves.stream().noneMatch(move -> move[0] == appId)) {
+                        moves.add(new long[]{appId, emptiest});
+                        planned++;
+                    }
+                }
+                if (planned == 0) {
+                    break;
+                }
+                counts.merge(fullest, -planned, Long::sum);
+                counts.merge(emptiest, planned, Long::sum);
+            }
+
+            job.setTotal(moves.size());
+            for (long[] move : moves) {
+                moveApplication(move[0], (int) move[1]);
+                job.setProcessed(job.getProcessed() + 1);
+            }
+            job.putResult("moved", moves.size());
+            job.putResult("distribution", getDistribution());
+            job.setMessage("Moved " + moves.size() + " application(s)");
+        });
+    }
+
+    /**
+     * Move one application and its submission units to another shard
+     * @param appId Application ID
+     * @param targetShard Target shard index
+     */
+    public void moveApplication(Long appId, int targetShard) {
+        ShardDirectoryEntry entry = shardDirectoryService.refresh(appId);
+        if (entry == null) {
+            throw new IllegalArgumentException("Application not found: " + appId);
+        }
+        if (targetShard < 0 || targetShard >= shardRouter.getShardCount()) {
+            throw new IllegalArgumentException("Invalid shard: " + targetShard);
+        }
+        int sourceShard = entry.getShardId();
+        if (sourceShard == targetShard) {
+            return;
+        }
+
+        shardDirectoryService.updateShard(appId, sourceShard, ShardDirectoryEntry.MOVING);
+        try {
+            // Nodes with a stale directory entry may still write to the source: the fence
+            // waits for their transactions and rejects the ones that come after it
+            shardRouter.on(sourceShard, () -> applicationMapper.updateFenced(appId, true));
+            Application app = shardRouter.on(sourceShard, () -> applicationMapper.findById(appId));
+            if (app == null) {
+                throw new IllegalStateException("Application " + appId + " is in the directory but not on shard " + sourceShard);
+            }
+            Long sourceVersion = shardRouter.on(sourceShard, () -> changeStampMapper.findVersion(appId));
+            long version = sourceVersion == null ? 0 : sourceVersion;
+            List<SubmissionUnit> submissionUnits = shardRouter.on(sourceShard, () -> submissionUnitMapper.findByAppId(appId));
+            List<StatisticCounter> counters = shardRouter.on(sourceShard, () -> statisticsMapper.findCountersByAppId(appId));
+            List<SectionNode> nodes = shardRouter.on(sourceShard, () -> sectionNodeMapper.findByAppId(appId));
+            List<SectionClosure> closures = shardRouter.on(sourceShard, () -> sectionNodeMapper.findClosuresByAppId(appId));
+            // Archived submission units stay archived: stubs plus their still compressed archive rows
+            List<ArchivedCouData> archiveRows = shardRouter.on(sourceShard, () -> submissionUnitMapper.findArchiveRows(appId));
+
+            // Copies keep created_at/updated_at, so Last-Modified, catch-up reads, ordering and
+            // archive eligibility are the same on the target
+            shardRouter.on(targetShard, () -> transactionTemplate.execute(status -> {
+                // Drop leftovers of an earlier interrupted move
+                applicationMapper.deleteById(appId);
+                applicationMapper.insertCopy(app);
+                for (int i = 0; i < submissionUnits.size(); i += SU_BATCH_SIZE) {
+                    submissionUnitMapper.insertCopies(submissionUnits.subList(i, Math.min(i + SU_BATCH_SIZE, submissionUnits.size())));
+                }
+                for (int i = 0; i < archiveRows.size(); i += SU_BATCH_SIZE) {
+                    submissionUnitMapper.insertArchiveRows(archiveRows.subList(i, Math.min(i + SU_BATCH_SIZE, archiveRows.size())));
+                }
+                if (!counters.isEmpty()) {
+                    statisticsMapper.insertCounters(counters);
+                }
+                for (int i = 0; i < nodes.size(); i += NODE_BATCH_SIZE) {
+                    sectionNodeMapper.insertNodeCopies(nodes.subList(i, Math.min(i + NODE_BATCH_SIZE, nodes.size())));
+                }
+                for (int i = 0; i < closures.size(); i += NODE_BATCH_SIZE) {
+                    sectionNodeMapper.insertClosures(closures.subList(i, Math.min(i + NODE_BATCH_SIZE, closures.size())));
+                }
+                // Continue the change stamp past the source's so cached lists on other nodes are dropped
+                changeStampMapper.upsert(appId, version + 1);
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            shardRouter.on(sourceShard, () -> applicationMapper.updateFenced(appId, false));
+            shardDirectoryService.updateShard(appId, sourceShard, ShardDirectoryEntry.ACTIVE);
+            throw e;
+        }
+
+        shardDirectoryService.updateShard(appId, targetShard, ShardDirectoryEntry.ACTIVE);
+        shardRouter.on(sourceShard, () -> applicationMapper.deleteById(appId));
+    }
+}
@@ -0,0 +1,247 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.config.ShardRoutingDataSource;
+import com.ectd.backend.config.ShardingProperties;
+import com.ectd.backend.mapper.ApplicationMapper;
+import com.ectd.backend.model.ShardDirectoryEntry;
+import com.ectd.backend.util.ShardContext;
+import jakarta.annotation.PreDestroy;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Shard Router
+ * Runs mapper calls on the shard of an application and fans list queries out to all
+ * shards in parallel. An application and all of its submission units live on one shard,
+ * so a transaction touching one application never spans shards; calls that would switch
+ * shards inside a transaction are rejected.
+ *
+ * Writes are fenced on the shard they run on: the first write to an application in a
+ * transaction locks its row there and fails if a move has fenced it or it is gone. A move
+ * sets the fence before copying, which waits for the writers holding the lock, so every
+ * write either lands before the copy or is rejected, however stale this node's directory
+ * cache is. Writers of one application are therefore serialized from their first write.
+ */
+@Service
+@ConditionalOnProperty(name = "ectd.sharding.enabled", havingValue = "true")
+public class ShardRouter {
+
+    private static final Object TX_SHARD_KEY = new Object();
+
+    /**
+     * Transaction resource key for the applications whose row the transaction has locked
+     */
+    private static final Object TX_FENCED_KEY = new Object();
+
+    @Autowired
+    private ShardDirectoryService shardDirectoryService;
+
+    private final int shardCount;
+
+    private final ExecutorService scatterExecutor;
+
+    private final ApplicationMapper applicationMapper;
+
+    public ShardRouter(ShardRoutingDataSource shardRoutingDataSource, ShardingProperties properties,
+                       SqlSessionTemplate sqlSessionTemplate) {
+        this.shardCount = shardRoutingDataSource.getShardCount();
+        // Plain MyBatis mapper; the shard is chosen explicitly with on()
+        this.applicationMapper = sqlSessionTemplate.getMapper(ApplicationMapper.class);
+        this.scatterExecutor = Executors.newFixedThreadPool(Math.max(properties.getScatterThreads(), shardCount), runnable -> {
+            Thread thread = new Thread(runnable, "ectd-shard-scatter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Number of configured shards
+     * @return Shard count
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Shard for a new application. Placement is by hash of the ID; the rebalancer evens
+     * out skew and fills newly added shards.
+     * @param appId Application ID
+     * @return Shard index
+     */
+    public int placeNewApplication(long appId) {
+        long mixed = appId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 32), (long) shardCount);
+    }
+
+    /**
+     * Run an action on the shard of an application
+     * @param appId Application ID
+     * @param action Mapper call
+     * @param missing Result when the application is not in the directory
+     * @return Result of the action
+     */
+    public <T> T onApp(Long appId, Supplier<T> action, T missing) {
+        ShardDirectoryEntry entry = shardDirectoryService.getEntry(appId);
+        if (entry == null) {
+            return missing;
+        }
+        return on(entry.getShardId(), action);
+    }
+
+    /**
+     * Run a write on the shard of an application; rejected while the application is being moved
+     * @param appId Application ID
+     * @param action Mapper call
+     * @return Result of the action, or 0 rows if the application is unknown
+     */
+    public int writeOnApp(Long appId, Supplier<Integer> action) {
+        return lockOnApp(appId, action, 0);
+    }
+
+    /**
+     * Run a write or locking read on the shard of an application, fenced like writeOnApp
+     * @param appId Application ID
+     * @param action Mapper call
+     * @param missing Result when the application is unknown or was deleted
+     * @return Result of the action
+     */
+    public <T> T lockOnApp(Long appId, Supplier<T> action, T missing) {
+        ShardDirectoryEntry entry = shardDirectoryService.getEntry(appId);
+        if (entry == null) {
+            return missing;
+        }
+        if (ShardDirectoryEntry.MOVING.equals(entry.getStatus())) {
+            // The cached entry may be stale; only reject if the move is still in progress
+            entry = shardDirectoryService.refresh(appId);
+            if (entry == null) {
+                return missing;
+            }
+            if (ShardDirectoryEntry.MOVING.equals(entry.getStatus())) {
+                throw new IllegalStateException("Application " + appId + " is being moved between shards, retry later");
+            }
+        }
+        int shard = entry.getShardId();
+        if (!fence(appId, shard)) {
+            return missing;
+        }
+        return on(shard, action);
+    }
+
+    /**
+     * Run an action on a shard
+     * @param shard Shard index
+     * @param action Mapper call
+     * @return Result of the action
+     */
+    public <T> T on(int shard, Supplier<T> action) {
+        bindTransaction(shard);
+        return ShardContext.callOn(shard, action);
+    }
+
+    /**
+     * Run a query on every shard in parallel, outside the caller's transaction
+     * @param query Query per shard index
+     * @return Results in shard order
+     */
+    public <T> List<T> scatter(IntFunction<T> query) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            int shard = i;
+            futures.add(scatterExecutor.submit(() -> ShardContext.callOn(shard, () -> query.apply(shard))));
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Scatter-gather query interrupted", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Scatter-gather query failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Lock the application row on a shard, once per transaction, and check its move fence.
+     * Outside a transaction the lock ends with the statement, so this only narrows the window.
+     * @return false if the application was deleted
+     * @throws IllegalStateException If the application is being moved or was moved off the shard
+     */
+    @SuppressWarnings("unchecked")
+    private boolean fence(Long appId, int shard) {
+        Set<Long> locked = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            locked = (Set<Long>) TransactionSynchronizationManager.getResource(TX_FENCED_KEY);
+            if (locked == null) {
+                Set<Long> apps = new HashSet<>();
+                locked = apps;
+                TransactionSynchronizationManager.bindResource(TX_FENCED_KEY, apps);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(TX_FENCED_KEY);
+                    }
+                });
+            } else if (locked.contains(appId)) {
+                return true;
+            }
+        }
+        Boolean fenced = on(shard, () -> applicationMapper.findFencedForUpdate(appId));
+        if (fenced == null || fenced) {
+            // This node's directory entry is stale; the retry is routed by the fresh one
+            ShardDirectoryEntry fresh = shardDirectoryService.refresh(appId);
+            if (fenced == null && (fresh == null || fresh.getShardId() == shard)) {
+                return false;
+            }
+            throw new IllegalStateException("Application " + appId + " is being moved between shards, retry later");
+        }
+        if (locked != null) {
+            locked.add(appId);
+        }
+        return true;
+    }
+
+    /**
+     * Pin the current transaction to a shard; a later call for another shard would run on
+     * the already opened connection, so it fails instead
+     */
+    private void bindTransaction(int shard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Integer bound = (Integer) TransactionSynchronizationManager.getResource(TX_SHARD_KEY);
+        if (bound == null) {
+            TransactionSynchronizationManager.bindResource(TX_SHARD_KEY, shard);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TX_SHARD_KEY);
+                }
+            });
+        } else if (bound != shard) {
+            throw new IllegalStateException("Transaction is bound to shard " + bound + ", cannot access shard " + shard);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scatterExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,55 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.AsyncJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Statistics Rebuild Service
+ * Recomputes the statistic counters of every application from its root section and CoU
+ * data, one transaction per application. Needed once to backfill counters for data
+ * written before they existed; afterwards the write paths keep them current.
+ */
+@Service
+public class StatisticsRebuildService {
+
+    public static final String JOB_TYPE = "STATISTICS_REBUILD";
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    /**
+     * Start a background job recomputing all counters
+     * @return Rebuild job; poll GET /jobs/{jobId} for progress
+     */
+    public AsyncJob startRebuild() {
+        return asyncJobService.submit(JOB_TYPE, this::rebuild);
+    }
+
+    private void rebuild(AsyncJob job) {
+        List<Application> keys = applicationService.getAllApplicationKeys();
+        job.setTotal(keys.size());
+        long processed = 0;
+        for (Application key : keys) {
+            Application app = applicationService.getApplicationById(key.getAppId());
+            if (app != null && !Application.DELETING.equals(app.getStatus())) {
+                statisticsService.rebuildApplication(app, submissionUnitService.getSubmissionUnitsByAppId(app.getAppId()));
+            }
+            job.setProcessed(++processed);
+        }
+        job.putResult("applications", processed);
+        job.setMessage("Recomputed statistic counters of " + processed + " application(s)");
+    }
+}
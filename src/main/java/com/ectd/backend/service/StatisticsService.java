@@ -0,0 +1,246 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.StatisticsMapper;
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.StatisticCount;
+import com.ectd.backend.model.StatisticCounter;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.util.CompactTree;
+import com.ectd.backend.util.JsonCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics Service
+ * Aggregate statistics for dashboards. Counts over plain columns are GROUP BY queries;
+ * counts inside the JSON columns (CoU operations by type, documents per module) come from
+ * ectd_statistic, whose rows for a submission unit or root section are replaced in the
+ * same transaction as every write of it.
+ */
+@Service
+@Transactional
+public class StatisticsService {
+
+    private static final long ROOT_SECTION = 0L;
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private StatisticsMapper statisticsMapper;
+
+    private final ObjectMapper objectMapper = JsonCodec.mapper();
+
+    /**
+     * Count applications by status
+     * @return Counts, largest first
+     */
+    public List<StatisticCount> getApplicationsByStatus() {
+        return sorted(statisticsMapper.countApplicationsByStatus());
+    }
+
+    /**
+     * Count the submission units of every application
+     * @return Counts keyed by application number, largest first
+     */
+    public List<StatisticCount> getSubmissionUnitsPerApplication() {
+        return sorted(statisticsMapper.countSubmissionUnitsByApplication());
+    }
+
+    /**
+     * Count CoU operations by operation type
+     * @param appId Restrict to one application (optional)
+     * @return Counts, largest first
+     */
+    public List<StatisticCount> getCouOperationsByType(Long appId) {
+        return sorted(statisticsMapper.sumCounters(StatisticCounter.COU_OPERATION, appId));
+    }
+
+    /**
+     * Count the document nodes under each module of the root sections
+     * @param appId Restrict to one application (optional)
+     * @return Counts keyed by module name, largest first
+     */
+    public List<StatisticCount> getDocumentsPerModule(Long appId) {
+        return sorted(statisticsMapper.sumCounters(StatisticCounter.MODULE_DOCUMENTS, appId));
+    }
+
+    /**
+     * Replace the counters derived from an application's root section
+     * @param app Application
+     */
+    public void recordApplication(Application app) {
+        if (app == null) {
+            return;
+        }
+        statisticsMapper.deleteCounters(app.getAppId(), ROOT_SECTION);
+        insert(countModuleDocuments(app));
+    }
+
+    /**
+     * Replace the module document counters of an application whose tree is stored as
+     * section nodes, counted in SQL
+     * @param appId Application ID
+     * @param counts Document counts keyed by module name
+     */
+    public void recordModuleDocuments(Long appId, List<StatisticCount> counts) {
+        statisticsMapper.deleteCounters(appId, ROOT_SECTION);
+        Map<String, Integer> merged = new LinkedHashMap<>();
+        for (StatisticCount count : counts) {
+            merged.merge(key(count.getKey()), count.getCount().intValue(), Integer::sum);
+        }
+        insert(counters(appId, ROOT_SECTION, StatisticCounter.MODULE_DOCUMENTS, merged));
+    }
+
+    /**
+     * Set the document counter of one module and leave the rows of the other modules alone,
+     * so edits below different modules don't contend
+     * @param appId Application ID
+     * @param moduleName Module name
+     * @param count Document count, or null when the application no longer has such a module
+     */
+    public void recordModuleDocuments(Long appId, String moduleName, Long count) {
+        String key = key(moduleName);
+        if (count == null) {
+            statisticsMapper.deleteCounter(appId, ROOT_SECTION, StatisticCounter.MODULE_DOCUMENTS, key);
+        } else {
+            statisticsMapper.upsertCounter(new StatisticCounter(appId, ROOT_SECTION, StatisticCounter.MODULE_DOCUMENTS,
+                    key, count.intValue()));
+        }
+    }
+
+    /**
+     * Replace the counters derived from a submission unit's CoU data
+     * @param su Submission unit with its CoU data
+     */
+    public void recordSubmissionUnit(SubmissionUnit su) {
+        if (su == null) {
+            return;
+        }
+        statisticsMapper.deleteCounters(su.getAppId(), su.getSuId());
+        insert(countCouOperations(su));
+    }
+
+    /**
+     * Add the counters of newly created submission units, one insert per application
+     * (used by batch creation)
+     * @param submissionUnits New submission units with their CoU data
+     */
+    public void recordNewSubmissionUnits(List<SubmissionUnit> submissionUnits) {
+        Map<Long, List<StatisticCounter>> byApp = new LinkedHashMap<>();
+        for (SubmissionUnit su : submissionUnits) {
+            byApp.computeIfAbsent(su.getAppId(), k -> new ArrayList<>()).addAll(countCouOperations(su));
+        }
+        byApp.values().forEach(this::insert);
+    }
+
+    /**
+     * Remove the counters of a deleted submission unit
+     * @param su Deleted submission unit
+     */
+    public void removeSubmissionUnit(SubmissionUnit su) {
+        statisticsMapper.deleteCounters(su.getAppId(), su.getSuId());
+    }
+
+    /**
+     * Recompute all counters of an application in one transaction (backfill)
+     * @param app Application
+     * @param submissionUnits Its submission units with CoU data
+     */
+    public void rebuildApplication(Application app, List<SubmissionUnit> submissionUnits) {
+        statisticsMapper.deleteCountersByAppId(app.getAppId());
+        insert(countModuleDocuments(app));
+        for (SubmissionUnit su : submissionUnits) {
+            insert(countCouOperations(su));
+        }
+    }
+
+    private void insert(List<StatisticCounter> counters) {
+        if (!counters.isEmpty()) {
+            statisticsMapper.insertCounters(counters);
+        }
+    }
+
+    private List<StatisticCounter> countCouOperations(SubmissionUnit su) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        JsonNode operations = parse(su.getCouData());
+        if (operations != null && operations.isArray()) {
+            for (JsonNode op : operations) {
+                JsonNode operation = op.path("operation");
+                if (operation.isTextual() && !operation.asText().isBlank()) {
+                    counts.merge(key(operation.asText()), 1, Integer::sum);
+                }
+            }
+        }
+        return counters(su.getAppId(), su.getSuId(), StatisticCounter.COU_OPERATION, counts);
+    }
+
+    /**
+     * Find the module nodes of the root-section tree and count the documents below each.
+     * The tree is read into a compact tree, where a module's subtree is an index range.
+     */
+    private List<StatisticCounter> countModuleDocuments(Application app) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        CompactTree tree;
+        try {
+            tree = CompactTree.parse(app.getRootSection());
+        } catch (IOException e) {
+            // Malformed JSON counts as nothing
+            return counters(app.getAppId(), ROOT_SECTION, StatisticCounter.MODULE_DOCUMENTS, counts);
+        }
+        int i = 0;
+        while (i < tree.size()) {
+            String name = tree.name(i);
+            if (name != null && "module".equals(tree.nodeType(i))) {
+                int documents = 0;
+                for (int node = i + 1; node < tree.end(i); node++) {
+                    if ("document".equals(tree.nodeType(node))) {
+                        documents++;
+                    }
+                }
+                counts.merge(key(name), documents, Integer::sum);
+                i = tree.end(i);
+            } else {
+                i++;
+            }
+        }
+        return counters(app.getAppId(), ROOT_SECTION, StatisticCounter.MODULE_DOCUMENTS, counts);
+    }
+
+    private List<StatisticCounter> counters(Long appId, Long suId, String metric, Map<String, Integer> counts) {
+        List<StatisticCounter> counters = new ArrayList<>();
+        counts.forEach((key, count) -> counters.add(new StatisticCounter(appId, suId, metric, key, count)));
+        return counters;
+    }
+
+    private JsonNode parse(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            // Malformed JSON counts as nothing
+            return null;
+        }
+    }
+
+    private static String key(String value) {
+        return value.length() > MAX_KEY_LENGTH ? value.substring(0, MAX_KEY_LENGTH) : value;
+    }
+
+    private static List<StatisticCount> sorted(List<StatisticCount> counts) {
+        counts.sort(Comparator.comparing(StatisticCount::getCount, Comparator.reverseOrder())
+                .thenComparing(StatisticCount::getKey, Comparator.nullsLast(Comparator.naturalOrder())));
+        return counts;
+    }
+}
@@ -0,0 +1,243 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.ChangeStampMapper;
+import com.ectd.backend.model.ChangeStamp;
+import com.ectd.backend.model.SubmissionUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Submission Unit List Cache
+ * Per-node cache of the submission unit list of each application, kept coherent across
+ * nodes without a broker: every write bumps the application's row in ectd_change_stamp in
+ * the same transaction, and each node checks the versions of its cached lists in batches
+ * on a timer. A list not verified within max-staleness is checked on read (one
+ * primary-key lookup) before it is served, so a write on another node is visible here
+ * after at most max-staleness.
+ */
+@Service
+public class SubmissionUnitListCache {
+
+    /**
+     * Transaction resource key for the applications written in the current transaction,
+     * with their change stamp versions after the bump
+     */
+    private static final Object CHANGED_APPS = new Object();
+
+    @Autowired
+    private ChangeStampMapper changeStampMapper;
+
+    private final boolean enabled;
+
+    private final long maxStalenessMs;
+
+    private final int pollBatchSize;
+
+    private final Map<Long, CachedList> entries;
+
+    public SubmissionUnitListCache(@Value("${ectd.su-list-cache.enabled:true}") boolean enabled,
+                                   @Value("${ectd.su-list-cache.max-entries:1000}") int maxEntries,
+                                   @Value("${ectd.su-list-cache.max-staleness-ms:2000}") long maxStalenessMs,
+                                   @Value("${ectd.su-list-cache.poll-batch-size:500}") int pollBatchSize) {
+        this.enabled = enabled;
+        this.maxStalenessMs = maxStalenessMs;
+        this.pollBatchSize = pollBatchSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedList> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the submission unit list of an application, loading it on a miss or when the
+     * cached copy is out of date. The returned list is a copy, but its elements are shared
+     * with the cache and must not be modified.
+     * @param appId Application ID
+     * @param loader Loads the list from the database
+     * @return Submission units of the application
+     */
+    public List<SubmissionUnit> get(Long appId, Supplier<List<SubmissionUnit>> loader) {
+        // Uncommitted writes of the current transaction must be read from the database
+        if (!enabled || changedInTransaction(appId)) {
+            return loader.get();
+        }
+        CachedList cached;
+        synchronized (entries) {
+            cached = entries.get(appId);
+        }
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.verifiedAt <= maxStalenessMs) {
+            return new ArrayList<>(cached.submissionUnits);
+        }
+
+        // Read the version before the list: a write in between leaves an older version
+        // with newer data, which the next check simply reloads
+        long version = currentVersion(appId);
+        if (cached != null && cached.version == version) {
+            cached.verifiedAt = now;
+            return new ArrayList<>(cached.submissionUnits);
+        }
+        return load(appId, version, now, loader);
+    }
+
+    /**
+     * Get the submission unit list of an application as of at least a version the caller has
+     * just read (e.g. for an ETag), so the list is never older than that version; the cached
+     * copy is served without the staleness check if it is recent enough
+     * @param appId Application ID
+     * @param minVersion Change stamp version read by the caller before this call
+     * @param loader Loads the list from the database
+     * @return Submission units of the application
+     */
+    public List<SubmissionUnit> get(Long appId, long minVersion, Supplier<List<SubmissionUnit>> loader) {
+        if (!enabled || changedInTransaction(appId)) {
+            return loader.get();
+        }
+        CachedList cached;
+        synchronized (entries) {
+            cached = entries.get(appId);
+        }
+        if (cached != null && cached.version >= minVersion) {
+            return new ArrayList<>(cached.submissionUnits);
+        }
+        return load(appId, minVersion, System.currentTimeMillis(), loader);
+    }
+
+    private List<SubmissionUnit> load(Long appId, long version, long now, Supplier<List<SubmissionUnit>> loader) {
+        List<SubmissionUnit> loaded = loader.get();
+        synchronized (entries) {
+            entries.put(appId, new CachedList(version, List.copyOf(loaded), now));
+        }
+        return loaded;
+    }
+
+    /**
+     * Record a write to an application's submission units: bumps its change stamp in the
+     * current transaction (once per transaction) and drops the local copy when the
+     * transaction completes
+     * @param appId Application ID
+     * @return Change stamp version after the bump (read once per transaction), 0 for a null ID
+     */
+    @SuppressWarnings("unchecked")
+    public long markChanged(Long appId) {
+        if (appId == null) {
+            return 0;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changeStampMapper.bump(appId);
+            evict(appId);
+            return currentVersion(appId);
+        }
+        Map<Long, Long> changed = (Map<Long, Long>) TransactionSynchronizationManager.getResource(CHANGED_APPS);
+        if (changed == null) {
+            Map<Long, Long> apps = new HashMap<>();
+            changed = apps;
+            TransactionSynchronizationManager.bindResource(CHANGED_APPS, apps);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_APPS);
+                    apps.keySet().forEach(SubmissionUnitListCache.this::evict);
+                }
+            });
+        }
+        Long version = changed.get(appId);
+        if (version == null) {
+            changeStampMapper.bump(appId);
+            version = currentVersion(appId);
+            changed.put(appId, version);
+        }
+        return version;
+    }
+
+    /**
+     * Current change stamp version of an application, including a bump by the current
+     * transaction
+     * @param appId Application ID
+     * @return Version, 0 if the application's submission units were never written
+     */
+    public long getVersion(Long appId) {
+        return currentVersion(appId);
+    }
+
+    /**
+     * Drop the cached list of an application on this node
+     * @param appId Application ID
+     */
+    public void evict(Long appId) {
+        synchronized (entries) {
+            entries.remove(appId);
+        }
+    }
+
+    /**
+     * Check the versions of all cached lists, a batch of applications per query, and drop
+     * the lists that changed on another node
+     */
+    @Scheduled(fixedDelayString = "${ectd.su-list-cache.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        // Copying iterates the entries without touching their LRU order
+        Map<Long, CachedList> snapshot;
+        synchronized (entries) {
+            snapshot = new HashMap<>(entries);
+        }
+        List<Long> appIds = new ArrayList<>(snapshot.keySet());
+        for (int i = 0; i < appIds.size(); i += pollBatchSize) {
+            List<Long> batch = appIds.subList(i, Math.min(i + pollBatchSize, appIds.size()));
+            long checkedAt = System.currentTimeMillis();
+            Map<Long, Long> versions = new HashMap<>();
+            for (ChangeStamp stamp : changeStampMapper.findVersions(batch)) {
+                versions.put(stamp.getAppId(), stamp.getVersion());
+            }
+            for (Long appId : batch) {
+                CachedList cached = snapshot.get(appId);
+                if (cached.version == versions.getOrDefault(appId, 0L)) {
+                    cached.verifiedAt = Math.max(cached.verifiedAt, checkedAt);
+                } else {
+                    synchronized (entries) {
+                        entries.remove(appId, cached);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean changedInTransaction(Long appId) {
+        Object changed = TransactionSynchronizationManager.getResource(CHANGED_APPS);
+        return changed instanceof Map<?, ?> apps && apps.containsKey(appId);
+    }
+
+    private long currentVersion(Long appId) {
+        Long version = changeStampMapper.findVersion(appId);
+        return version == null ? 0 : version;
+    }
+
+    private static class CachedList {
+
+        private final long version;
+        private final List<SubmissionUnit> submissionUnits;
+        private volatile long verifiedAt;
+
+        CachedList(long version, List<SubmissionUnit> submissionUnits, long verifiedAt) {
+            this.version = version;
+            this.submissionUnits = submissionUnits;
+            this.verifiedAt = verifiedAt;
+        }
+    }
+}
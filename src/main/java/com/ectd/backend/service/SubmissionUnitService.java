@@ -1,37 +1,62 @@
 package com.ectd.backend.service;
 
+import com.ectd.backend.mapper.DossierCheckpointMapper;
 import com.ectd.backend.mapper.SubmissionUnitMapper;
+import com.ectd.backend.model.Application;
 import com.ectd.backend.model.SubmissionUnit;
 import com.ectd.backend.model.CoUOperation;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.ectd.backend.util.JsonCodec;
+import com.ectd.backend.util.SnowflakeIdGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Submission Unit Service
- * Business logic for eCTD Submission Unit management with CoU operations array support
+ * Business logic for eCTD Submission Unit management with CoU operations array support.
+ * CoU data of archived submission units is read back from the archive table on access,
+ * and a write brings the submission unit back to the hot tier. Every write deletes the
+ * dossier checkpoints at and after the sequence number it touches.
  */
 @Service
 @Transactional
 public class SubmissionUnitService {
 
+    private static final int ARCHIVE_READ_BATCH = 500;
+
     @Autowired
     private SubmissionUnitMapper submissionUnitMapper;
 
     @Autowired
     private ApplicationService applicationService;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private SubmissionUnitListCache submissionUnitListCache;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private DossierCheckpointMapper dossierCheckpointMapper;
 
     /**
      * Create a new Submission Unit
@@ -47,9 +72,13 @@ public class SubmissionUnitService {
                                              String suType, String suUnitType,
                                              String couDataJson) throws JsonProcessingException {
         // Validate that application exists
-        if (applicationService.getApplicationById(appId) == null) {
+        Application app = applicationService.getApplicationById(appId);
+        if (app == null) {
             throw new IllegalArgumentException("Application not found: " + appId);
         }
+        if (Application.DELETING.equals(app.getStatus())) {
+            throw new IllegalArgumentException("Application is being deleted: " + appId);
+        }
 
         // Initialize empty CoU operations array if not provided
         if (couDataJson == null || couDataJson.trim().isEmpty()) {
@@ -72,25 +101,64 @@ public class SubmissionUnitService {
         su.setStatus("DRAFT");
 
         submissionUnitMapper.insert(su);
+        publishChange(su, ChangeFeedService.CREATED);
         return su;
     }
 
+    /**
+     * Insert a batch of prepared submission units in one statement (used by bulk imports)
+     * @param submissionUnits Submission units with appId, sequenceNum and couData set
+     * @return Number of inserted submission units
+     */
+    public int createSubmissionUnitsBatch(List<SubmissionUnit> submissionUnits) {
+        if (submissionUnits.isEmpty()) {
+            return 0;
+        }
+        int inserted = submissionUnitMapper.insertBatch(submissionUnits);
+        for (SubmissionUnit su : submissionUnits) {
+            publishChange(su, ChangeFeedService.CREATED, false);
+        }
+        statisticsService.recordNewSubmissionUnits(submissionUnits);
+        return inserted;
+    }
+
+    /**
+     * Get the sequence numbers already used by an application
+     * @param appId Application ID
+     * @return List of sequence numbers
+     */
+    public List<Integer> getSequenceNums(Long appId) {
+        return submissionUnitMapper.findSequenceNumsByAppId(appId);
+    }
+
     /**
      * Get submission unit by ID
      * @param suId Submission unit ID
      * @return SubmissionUnit entity
      */
     public SubmissionUnit getSubmissionUnitById(Long suId) {
-        return submissionUnitMapper.findById(suId);
+        return hydrate(submissionUnitMapper.findById(suId));
     }
 
     /**
-     * Get all submission units for an application
+     * Get all submission units for an application, served from the node-local list cache
+     * while the application's change stamp is unchanged
      * @param appId Application ID
      * @return List of submission units
      */
     public List<SubmissionUnit> getSubmissionUnitsByAppId(Long appId) {
-        return submissionUnitMapper.findByAppId(appId);
+        return submissionUnitListCache.get(appId, () -> hydrate(submissionUnitMapper.findByAppId(appId)));
+    }
+
+    /**
+     * Get all submission units for an application, no older than a change stamp version
+     * the caller has read
+     * @param appId Application ID
+     * @param minVersion Change stamp version
+     * @return List of submission units
+     */
+    public List<SubmissionUnit> getSubmissionUnitsByAppId(Long appId, long minVersion) {
+        return submissionUnitListCache.get(appId, minVersion, () -> hydrate(submissionUnitMapper.findByAppId(appId)));
     }
 
     /**
@@ -100,7 +168,7 @@ public class SubmissionUnitService {
      * @return SubmissionUnit entity
      */
     public SubmissionUnit getSubmissionUnitByAppIdAndSequence(Long appId, Integer sequenceNum) {
-        return submissionUnitMapper.findByAppIdAndSequence(appId, sequenceNum);
+        return hydrate(submissionUnitMapper.findByAppIdAndSequence(appId, sequenceNum));
     }
 
     /**
@@ -108,7 +176,24 @@ public class SubmissionUnitService {
      * @return List of submission units
      */
     public List<SubmissionUnit> getAllSubmissionUnits() {
-        return submissionUnitMapper.findAll();
+        return hydrate(submissionUnitMapper.findAll());
+    }
+
+    /**
+     * Get the submission units changed at or after a point in time
+     * @param since Lower bound of updated_at (inclusive)
+     * @return List of submission units
+     */
+    public List<SubmissionUnit> getSubmissionUnitsUpdatedSince(LocalDateTime since) {
+        return hydrate(submissionUnitMapper.findUpdatedSince(since));
+    }
+
+    /**
+     * Get ID and application of all submission units, without CoU data
+     * @return List of submission units with only suId and appId set
+     */
+    public List<SubmissionUnit> getAllSubmissionUnitKeys() {
+        return submissionUnitMapper.findAllKeys();
     }
 
     /**
@@ -117,8 +202,42 @@ public class SubmissionUnitService {
      * @return Updated submission unit
      */
     public SubmissionUnit updateSubmissionUnit(SubmissionUnit submissionUnit) {
+        return updateSubmissionUnit(submissionUnit, null);
+    }
+
+    /**
+     * Update submission unit if its application's submission units are unchanged since a
+     * version the client saw (If-Match)
+     * @param submissionUnit SubmissionUnit entity
+     * @param ifMatch Test of the current ETag, or null for an unconditional update
+     * @return Updated submission unit
+     * @throws OptimisticLockingFailureException If the submission units changed or it doesn't exist
+     */
+    public SubmissionUnit updateSubmissionUnit(SubmissionUnit submissionUnit, Predicate<String> ifMatch) {
+        SubmissionUnit existing = submissionUnitMapper.findById(submissionUnit.getSuId());
+        if (existing != null) {
+            // The submission unit may be moved to another application
+            existing = markChanged(existing, ifMatch);
+        } else if (ifMatch != null) {
+            throw new OptimisticLockingFailureException("Submission Unit not found: " + submissionUnit.getSuId());
+        }
+        if (existing != null && SubmissionUnit.TIER_ARCHIVED.equals(existing.getStorageTier())) {
+            if (submissionUnit.getCouData() == null) {
+                submissionUnit.setCouData(hydrate(existing).getCouData());
+            }
+            unarchive(existing);
+        }
         submissionUnitMapper.update(submissionUnit);
-        return submissionUnitMapper.findById(submissionUnit.getSuId());
+        SubmissionUnit updated = hydrate(submissionUnitMapper.findById(submissionUnit.getSuId()));
+        if (updated != null) {
+            publishChange(updated, ChangeFeedService.UPDATED);
+        }
+        if (existing != null && (updated == null || !existing.getAppId().equals(updated.getAppId())
+                || !existing.getSequenceNum().equals(updated.getSequenceNum()))) {
+            // Moved to another application or sequence number: the old position changed too
+            dossierCheckpointMapper.deleteFromSequence(existing.getAppId(), existing.getSequenceNum());
+        }
+        return updated;
     }
 
     /**
@@ -126,7 +245,11 @@ public class SubmissionUnitService {
      * @param suId Submission unit ID
      */
     public void deleteSubmissionUnit(Long suId) {
+        SubmissionUnit su = submissionUnitMapper.findById(suId);
         submissionUnitMapper.deleteById(suId);
+        if (su != null) {
+            publishChange(su, ChangeFeedService.DELETED);
+        }
     }
 
     /**
@@ -137,6 +260,20 @@ public class SubmissionUnitService {
      * @throws JsonProcessingException If JSON processing fails
      */
     public SubmissionUnit updateCouData(Long suId, String couDataJson) throws JsonProcessingException {
+        return updateCouData(suId, couDataJson, null);
+    }
+
+    /**
+     * Update CoU data for a submission unit if its application's submission units are
+     * unchanged since a version the client saw (If-Match)
+     * @param suId Submission unit ID
+     * @param couDataJson CoU data JSON string
+     * @param ifMatch Test of the current ETag, or null for an unconditional update
+     * @return Updated submission unit
+     * @throws JsonProcessingException If JSON processing fails
+     * @throws OptimisticLockingFailureException If the submission units changed
+     */
+    public SubmissionUnit updateCouData(Long suId, String couDataJson, Predicate<String> ifMatch) throws JsonProcessingException {
         // Validate JSON format
         if (couDataJson != null && !couDataJson.trim().isEmpty()) {
             parseCouData(couDataJson);
@@ -148,9 +285,12 @@ public class SubmissionUnitService {
         if (su == null) {
             throw new IllegalArgumentException("Submission Unit not found: " + suId);
         }
+        su = markChanged(su, ifMatch);
 
+        unarchive(su);
         su.setCouData(couDataJson);
         submissionUnitMapper.update(su);
+        publishChange(su, ChangeFeedService.UPDATED);
         return su;
     }
 
@@ -161,7 +301,7 @@ public class SubmissionUnitService {
      * @return Updated Submission Unit
      */
     public SubmissionUnit addCouOperation(Long suId, CoUOperation couOperation) {
-        SubmissionUnit submissionUnit = submissionUnitMapper.findById(suId);
+        SubmissionUnit submissionUnit = hydrate(submissionUnitMapper.findById(suId));
         if (submissionUnit == null) {
             throw new IllegalArgumentException("Submission Unit not found with id: " + suId);
         }
@@ -176,20 +316,19 @@ public class SubmissionUnitService {
 
             // Generate CoU ID if not provided
             if (couOperation.getCouId() == null || couOperation.getCouId().trim().isEmpty()) {
-                couOperation.setCouId("COU_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000));
+                couOperation.setCouId(SnowflakeIdGenerator.getInstance().nextCouId());
             }
 
             // Add new operation to array
             couOperations.add(couOperation);
-            for(CoUOperation lod:couOperations){
-                lod.setTimestamp(null);
-            }
             // Serialize back to JSON string
-            String updatedCouData = objectMapper.writeValueAsString(couOperations);
+            String updatedCouData = JsonCodec.writeCouOperations(couOperations);
 
             // Update database
+            unarchive(submissionUnit);
             submissionUnit.setCouData(updatedCouData);
             submissionUnitMapper.update(submissionUnit);
+            publishChange(submissionUnit, ChangeFeedService.UPDATED);
 
             return submissionUnit;
 
@@ -205,7 +344,7 @@ public class SubmissionUnitService {
      * @return List of CoU operations
      */
     public List<CoUOperation> getCouOperations(Long suId) {
-        SubmissionUnit submissionUnit = submissionUnitMapper.findById(suId);
+        SubmissionUnit submissionUnit = hydrate(submissionUnitMapper.findById(suId));
         if (submissionUnit == null) {
             return new ArrayList<>();
         }
@@ -220,7 +359,7 @@ public class SubmissionUnitService {
      * @return Updated Submission Unit
      */
     public SubmissionUnit removeCouOperation(Long suId, String couId) {
-        SubmissionUnit submissionUnit = submissionUnitMapper.findById(suId);
+        SubmissionUnit submissionUnit = hydrate(submissionUnitMapper.findById(suId));
         if (submissionUnit == null) {
             throw new IllegalArgumentException("Submission Unit not found with id: " + suId);
         }
@@ -233,11 +372,13 @@ public class SubmissionUnitService {
             couOperations.removeIf(op -> couId.equals(op.getCouId()));
 
             // Serialize back to JSON string
-            String updatedCouData = objectMapper.writeValueAsString(couOperations);
+            String updatedCouData = JsonCodec.writeCouOperations(couOperations);
 
             // Update database
+            unarchive(submissionUnit);
             submissionUnit.setCouData(updatedCouData);
             submissionUnitMapper.update(submissionUnit);
+            publishChange(submissionUnit, ChangeFeedService.UPDATED);
 
             return submissionUnit;
 
@@ -246,6 +387,145 @@ public class SubmissionUnitService {
         }
     }
 
+    /**
+     * Record checksums and sizes on the documents of a submission unit's CoU operations.
+     * The CoU data is re-read here so operations added while the checksums were being
+     * computed are kept.
+     * @param suId Submission Unit ID
+     * @param documentsByPath Computed checksum and size, keyed by document path
+     * @return Number of documents updated
+     */
+    public int applyDocumentChecksums(Long suId, Map<String, CoUOperation.DocumentInfo> documentsByPath) {
+        SubmissionUnit submissionUnit = hydrate(submissionUnitMapper.findById(suId));
+        if (submissionUnit == null) {
+            throw new IllegalArgumentException("Submission Unit not found with id: " + suId);
+        }
+
+        try {
+            List<CoUOperation> couOperations = parseCouData(submissionUnit.getCouData());
+            int updated = 0;
+            for (CoUOperation op : couOperations) {
+                CoUOperation.DocumentInfo document = op.getDocument();
+                CoUOperation.DocumentInfo computed = document == null ? null : documentsByPath.get(document.getPath());
+                if (computed == null) {
+                    continue;
+                }
+                if (!computed.getChecksum().equals(document.getChecksum()) || !computed.getSize().equals(document.getSize())) {
+                    document.setChecksum(computed.getChecksum());
+                    document.setSize(computed.getSize());
+                    updated++;
+                }
+            }
+            if (updated == 0) {
+                return 0;
+            }
+            unarchive(submissionUnit);
+            submissionUnit.setCouData(JsonCodec.writeCouOperations(couOperations));
+            submissionUnitMapper.update(submissionUnit);
+            publishChange(submissionUnit, ChangeFeedService.UPDATED);
+            return updated;
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to record document checksums: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Count the submission units of an application
+     * @param appId Application ID
+     * @return Number of submission units
+     */
+    public int countSubmissionUnits(Long appId) {
+        return submissionUnitMapper.countByAppId(appId);
+    }
+
+    /**
+     * Delete a batch of an application's submission units in its own short transaction
+     * (used by chunked application deletion)
+     * @param appId Application ID
+     * @param batchSize Maximum number of submission units to delete
+     * @return Number of submission units deleted
+     */
+    public int deleteSubmissionUnitsBatch(Long appId, int batchSize) {
+        int deleted = submissionUnitMapper.deleteBatchByAppId(appId, batchSize);
+        if (deleted > 0) {
+            submissionUnitListCache.markChanged(appId);
+            dossierCheckpointMapper.deleteByAppId(appId);
+        }
+        return deleted;
+    }
+
+    /**
+     * Move the CoU data of submission units into the compressed archive table. Rows are
+     * locked first so a concurrent write cannot slip in between copying and clearing.
+     * @param appId Application ID
+     * @param suIds Submission unit IDs of that application
+     * @return Number of submission units archived
+     */
+    public int archiveSubmissionUnits(Long appId, List<Long> suIds) {
+        if (suIds.isEmpty()) {
+            return 0;
+        }
+        int archived = 0;
+        for (SubmissionUnit su : submissionUnitMapper.lockForArchive(appId, suIds)) {
+            if (su.getCouData() == null) {
+                continue;
+            }
+            submissionUnitMapper.insertArchivedCouData(appId, su.getSuId(), su.getCouData(),
+                    su.getCouData().getBytes(StandardCharsets.UTF_8).length);
+            archived += submissionUnitMapper.markArchived(appId, su.getSuId());
+        }
+        return archived;
+    }
+
+    /**
+     * Fill the CoU data of an archived submission unit from the archive table
+     * @param su Submission unit (may be null)
+     * @return The same submission unit
+     */
+    private SubmissionUnit hydrate(SubmissionUnit su) {
+        if (su != null && SubmissionUnit.TIER_ARCHIVED.equals(su.getStorageTier())) {
+            hydrate(List.of(su));
+        }
+        return su;
+    }
+
+    /**
+     * Fill the CoU data of archived submission units, one archive query per application
+     * @param submissionUnits Submission units
+     * @return The same list
+     */
+    private List<SubmissionUnit> hydrate(List<SubmissionUnit> submissionUnits) {
+        Map<Long, Map<Long, SubmissionUnit>> archivedByApp = new LinkedHashMap<>();
+        for (SubmissionUnit su : submissionUnits) {
+            if (SubmissionUnit.TIER_ARCHIVED.equals(su.getStorageTier()) && su.getCouData() == null) {
+                archivedByApp.computeIfAbsent(su.getAppId(), k -> new HashMap<>()).put(su.getSuId(), su);
+            }
+        }
+        for (Map.Entry<Long, Map<Long, SubmissionUnit>> app : archivedByApp.entrySet()) {
+            List<Long> suIds = new ArrayList<>(app.getValue().keySet());
+            for (int i = 0; i < suIds.size(); i += ARCHIVE_READ_BATCH) {
+                List<Long> batch = suIds.subList(i, Math.min(i + ARCHIVE_READ_BATCH, suIds.size()));
+                for (SubmissionUnit archived : submissionUnitMapper.findArchivedCouData(app.getKey(), batch)) {
+                    app.getValue().get(archived.getSuId()).setCouData(archived.getCouData());
+                }
+            }
+        }
+        return submissionUnits;
+    }
+
+    /**
+     * Bring an archived submission unit back to the hot tier before it is written; the
+     * following update stores its CoU data in the main table again
+     * @param su Submission unit about to be updated
+     */
+    private void unarchive(SubmissionUnit su) {
+        if (SubmissionUnit.TIER_ARCHIVED.equals(su.getStorageTier())) {
+            submissionUnitMapper.deleteArchivedCouData(su.getAppId(), su.getSuId());
+            su.setStorageTier(SubmissionUnit.TIER_HOT);
+        }
+    }
+
     /**
      * Parse CoU data string to CoU operations list
      * @param couDataJson CoU data JSON string
@@ -257,13 +537,65 @@ public class SubmissionUnitService {
         }
 
         try {
-            return objectMapper.readValue(couDataJson, new TypeReference<List<CoUOperation>>() {});
+            return JsonCodec.readCouOperations(couDataJson);
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Invalid CoU data format: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Bump the change stamp of a submission unit's application before writing it and check an
+     * If-Match precondition. The bump locks the stamp row until the transaction ends, so no
+     * other write can slip in between the check and the update.
+     * @param su Submission unit as read before the bump
+     * @param ifMatch Test of the current ETag, or null to skip the check
+     * @return The submission unit, read again under the lock if the precondition was checked
+     */
+    private SubmissionUnit markChanged(SubmissionUnit su, Predicate<String> ifMatch) {
+        submissionUnitListCache.markChanged(su.getAppId());
+        if (ifMatch == null) {
+            return su;
+        }
+        // Bumped once per transaction: the version the client may have seen is one less
+        long version = submissionUnitListCache.getVersion(su.getAppId()) - 1;
+        if (!ifMatch.test(EntityTagService.submissionUnitTag(su.getSuId(), version, su.getAppId()))) {
+            throw new OptimisticLockingFailureException("Submission Unit " + su.getSuId() + " has changed");
+        }
+        return submissionUnitMapper.findById(su.getSuId());
+    }
+
+    /**
+     * Publish a submission unit change to the change feed, bump the application's change
+     * stamp and update the search index and statistic counters
+     * @param su Changed submission unit
+     * @param changeType Change type
+     */
+    private void publishChange(SubmissionUnit su, String changeType) {
+        publishChange(su, changeType, true);
+    }
+
+    /**
+     * @param recordStatistics false when the caller updates the statistic counters of a whole batch itself
+     */
+    private void publishChange(SubmissionUnit su, String changeType, boolean recordStatistics) {
+        if (recordStatistics) {
+            if (ChangeFeedService.DELETED.equals(changeType)) {
+                statisticsService.removeSubmissionUnit(su);
+            } else {
+                statisticsService.recordSubmissionUnit(su);
+            }
+        }
+        long version = submissionUnitListCache.markChanged(su.getAppId());
+        dossierCheckpointMapper.deleteFromSequence(su.getAppId(), su.getSequenceNum());
+        changeFeedService.publish(ChangeFeedService.ENTITY_SUBMISSION_UNIT, su.getSuId(), su.getAppId(), version, changeType);
+        if (ChangeFeedService.DELETED.equals(changeType)) {
+            searchIndexService.removeSubmissionUnit(su.getSuId(), su.getAppId());
+        } else {
+            searchIndexService.indexSubmissionUnit(su);
+        }
+    }
+
     /**
      * Create sample CoU data for testing
      * @param operationType Operation type (add, replace, delete)
@@ -274,7 +606,7 @@ public class SubmissionUnitService {
      */
     public String createSampleCouData(String operationType, Long nodeId, String documentPath) throws JsonProcessingException {
         CoUOperation.DocumentInfo document = new CoUOperation.DocumentInfo(
-            "doc-" + System.currentTimeMillis(),
+            SnowflakeIdGenerator.getInstance().nextFileId(),
             "Sample Document",
             "PDF",
             documentPath
@@ -283,7 +615,7 @@ public class SubmissionUnitService {
         CoUOperation operation = new CoUOperation(operationType, null, nodeId, document);
         List<CoUOperation> operations = List.of(operation);
 
-        return objectMapper.writeValueAsString(operations);
+        return JsonCodec.writeCouOperations(operations);
     }
 }
 
@@ -0,0 +1,624 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.AsyncJob;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.model.ValidationIssue;
+import com.ectd.backend.model.ValidationReport;
+import com.ectd.backend.util.CompactTree;
+import com.ectd.backend.util.JsonCodec;
+import com.ectd.backend.util.SectionCodeIndex;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Validation Service
+ * Rule engine checking an application's root section and submission units:
+ * - node IDs in the root section are unique
+ * - CoU target_node_id / target_xpath exist in the root section
+ * - replace/delete operations reference documents added earlier
+ * - sequence numbers are contiguous
+ *
+ * Per-SU checks run in parallel on a ForkJoinPool. Validation is incremental: the root
+ * section is indexed per module (the children of the application node, or the top-level
+ * nodes if there is no single application node) and each subtree and SU is fingerprinted, so a
+ * run only re-parses subtrees and SUs that changed since the previous run, plus SUs whose
+ * targets appeared or disappeared with those subtrees. The cross-SU rules work on the
+ * cached per-SU facts and are cheap to re-run. Cached state is kept for the most recently
+ * validated applications only.
+ */
+@Service
+public class ValidationService {
+
+    public static final String JOB_TYPE = "VALIDATION";
+
+    public static final String DUPLICATE_NODE_ID = "DUPLICATE_NODE_ID";
+    public static final String INVALID_ROOT_SECTION = "INVALID_ROOT_SECTION";
+    public static final String INVALID_COU_DATA = "INVALID_COU_DATA";
+    public static final String TARGET_MISSING = "TARGET_MISSING";
+    public static final String TARGET_NODE_NOT_FOUND = "TARGET_NODE_NOT_FOUND";
+    public static final String TARGET_XPATH_NOT_FOUND = "TARGET_XPATH_NOT_FOUND";
+    public static final String DOCUMENT_NOT_PREVIOUSLY_ADDED = "DOCUMENT_NOT_PREVIOUSLY_ADDED";
+    public static final String DUPLICATE_SEQUENCE = "DUPLICATE_SEQUENCE";
+    public static final String SEQUENCE_GAP = "SEQUENCE_GAP";
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    @Autowired
+    private AsyncJobService asyncJobService;
+
+    private final ObjectMapper objectMapper = JsonCodec.mapper();
+
+    private final ForkJoinPool pool;
+
+    private final Map<Long, AppState> states;
+
+    public ValidationService(@Value("${ectd.validation.parallelism:0}") int parallelism,
+                             @Value("${ectd.validation.max-cached-applications:1000}") int maxCachedApplications) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.states = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AppState> eldest) {
+                return size() > maxCachedApplications;
+            }
+        };
+    }
+
+    /**
+     * Validate an application
+     * @param appId Application ID
+     * @param full Discard cached results and re-check everything
+     * @return Validation report
+     */
+    public ValidationReport validateApplication(Long appId, boolean full) {
+        Application app = applicationService.getApplicationById(appId);
+        if (app == null) {
+            throw new IllegalArgumentException("Application not found: " + appId);
+        }
+        AppState state;
+        synchronized (states) {
+            if (full) {
+                states.remove(appId);
+            }
+            state = states.computeIfAbsent(appId, id -> new AppState());
+        }
+        synchronized (state) {
+            return validate(app, state);
+        }
+    }
+
+    /**
+     * Start a background job validating every application
+     * @param full Discard cached results and re-check everything
+     * @return Validation job; invalid application IDs are listed in its result
+     */
+    public AsyncJob startPortfolioValidation(boolean full) {
+        return asyncJobService.submit(JOB_TYPE, job -> {
+            List<Application> applications = applicationService.getAllApplications();
+            job.setTotal(applications.size());
+            List<Long> invalid = new ArrayList<>();
+            int errors = 0;
+            for (Application app : applications) {
+                ValidationReport report = validateApplication(app.getAppId(), full);
+                if (!report.isValid()) {
+                    invalid.add(app.getAppId());
+                }
+                errors += report.getErrorCount();
+                job.setProcessed(job.getProcessed() + 1);
+            }
+            job.putResult("applications", applications.size());
+            job.putResult("errors", errors);
+            job.putResult("invalidApplications", invalid);
+            job.setMessage(invalid.isEmpty() ? "All applications valid" : invalid.size() + " application(s) invalid");
+        });
+    }
+
+    /**
+     * Drop cached validation state of an application
+     * @param appId Application ID
+     */
+    public void invalidate(Long appId) {
+        synchronized (states) {
+            states.remove(appId);
+        }
+    }
+
+    private ValidationReport validate(Application app, AppState state) {
+        long start = System.currentTimeMillis();
+        ValidationReport report = new ValidationReport();
+        report.setAppId(app.getAppId());
+        report.setAppNumber(app.getAppNumber());
+        List<ValidationIssue> issues = new ArrayList<>();
+
+        // 1. Root section: re-index changed subtrees, collect the node IDs/paths whose presence changed
+        Set<Long> changedIds = new HashSet<>();
+        Set<String> changedPaths = new HashSet<>();
+        Map<String, SubtreeEntry> subtrees;
+        try {
+            subtrees = indexRootSection(app.getRootSection(), state, changedIds, changedPaths, report);
+        } catch (IOException e) {
+            issues.add(new ValidationIssue(INVALID_ROOT_SECTION, ValidationIssue.ERROR, null, null, null, null,
+                    "Root section is not valid JSON: " + e.getMessage()));
+            subtrees = Collections.emptyMap();
+            state.subtrees = new HashMap<>();
+            state.rootId = null;
+            state.submissionUnits = new HashMap<>();
+        }
+        Set<Long> nodeIds = new HashSet<>();
+        Set<String> nodePaths = new HashSet<>();
+        Map<Long, Integer> idCounts = new HashMap<>();
+        if (state.rootId != null) {
+            idCounts.merge(state.rootId, 1, Integer::sum);
+        }
+        for (SubtreeEntry subtree : subtrees.values()) {
+            Collections.addAll(nodePaths, subtree.paths);
+            for (long id : subtree.ids) {
+                idCounts.merge(id, subtree.count, Integer::sum);
+            }
+        }
+        nodeIds.addAll(idCounts.keySet());
+        idCounts.forEach((id, count) -> {
+            if (count > 1) {
+                issues.add(new ValidationIssue(DUPLICATE_NODE_ID, ValidationIssue.ERROR, null, null, null, id,
+                        "Node id " + id + " is used by " + count + " nodes"));
+            }
+        });
+
+        // 2. Per-SU checks for changed SUs and SUs affected by changed nodes, in parallel
+        List<SubmissionUnit> submissionUnits = submissionUnitService.getSubmissionUnitsByAppId(app.getAppId());
+        Map<Long, SuEntry> previous = state.submissionUnits;
+        Map<Long, SuEntry> current = new HashMap<>();
+        List<Callable<SuEntry>> tasks = new ArrayList<>();
+        for (SubmissionUnit su : submissionUnits) {
+            String fingerprint = fingerprint(su.getCouData() == null ? "" : su.getCouData());
+            SuEntry entry = previous.get(su.getSuId());
+            boolean reusable = entry != null && entry.fingerprint.equals(fingerprint)
+                    && !entry.referencesAny(changedIds, changedPaths);
+            if (reusable) {
+                entry.sequenceNum = su.getSequenceNum();
+                current.put(su.getSuId(), entry);
+            } else {
+                tasks.add(() -> checkSubmissionUnit(su, fingerprint, nodeIds, nodePaths));
+            }
+        }
+        report.setReusedSubmissionUnits(current.size());
+        report.setCheckedSubmissionUnits(tasks.size());
+        for (Future<SuEntry> future : pool.invokeAll(tasks)) {
+            SuEntry entry = join(future);
+            current.put(entry.suId, entry);
+        }
+        state.submissionUnits = current;
+
+        // 3. Cross-SU rules over the cached facts, in sequence order
+        List<SuEntry> ordered = new ArrayList<>(current.values());
+        ordered.sort(Comparator.comparing((SuEntry entry) -> entry.sequenceNum, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(entry -> entry.suId));
+        checkSequences(ordered, issues);
+        checkDocumentLifecycle(ordered, issues);
+
+        for (ValidationIssue issue : issues) {
+            if (ValidationIssue.ERROR.equals(issue.getSeverity())) {
+                report.setErrorCount(report.getErrorCount() + 1);
+            } else {
+                report.setWarningCount(report.getWarningCount() + 1);
+            }
+        }
+        issues.sort(Comparator.comparing(ValidationIssue::getSequenceNum, Comparator.nullsFirst(Comparator.naturalOrder())));
+        report.setIssues(issues);
+        report.setValid(report.getErrorCount() == 0);
+        report.setDurationMs(System.currentTimeMillis() - start);
+        report.setValidatedAt(LocalDateTime.now());
+        return report;
+    }
+
+    /**
+     * Split the root section into module subtrees by scanning raw JSON text, and parse
+     * only the subtrees whose fingerprint is not in the previous index. The usual shape,
+     * an array holding the single application node, is split below that node.
+     */
+    private Map<String, SubtreeEntry> indexRootSection(String rootSection, AppState state, Set<Long> changedIds,
+                                                       Set<String> changedPaths, ValidationReport report) throws IOException {
+        Map<String, SubtreeEntry> subtrees = new HashMap<>();
+        Long rootId = null;
+        if (rootSection != null && !rootSection.isBlank()) {
+            try (JsonParser parser = objectMapper.getFactory().createParser(rootSection)) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY && parser.nextToken() == JsonToken.START_OBJECT) {
+                    int start = (int) parser.getTokenLocation().getCharOffset();
+                    Map<String, SubtreeEntry> children = new HashMap<>();
+                    RootNode first = collectRootNode(parser, rootSection, children);
+                    int end = (int) parser.getCurrentLocation().getCharOffset();
+                    JsonToken next = parser.nextToken();
+                    if (next == JsonToken.END_ARRAY && first.hasChildren()) {
+                        subtrees = children;
+                        rootId = first.id();
+                    } else {
+                        // Several top-level nodes: each one is a subtree
+                        addSubtree(rootSection.substring(start, end), subtrees);
+                        collectSubtrees(next, parser, rootSection, subtrees);
+                    }
+                } else if (token == JsonToken.START_OBJECT) {
+                    rootId = collectRootNode(parser, rootSection, subtrees).id();
+                }
+            }
+        }
+
+        int checked = 0;
+        for (Map.Entry<String, SubtreeEntry> entry : subtrees.entrySet()) {
+            SubtreeEntry cached = state.subtrees.get(entry.getKey());
+            if (cached != null) {
+                cached.count = entry.getValue().count;
+                entry.setValue(cached);
+            } else {
+                indexSubtree(entry.getValue());
+                entry.getValue().addTo(changedIds, changedPaths);
+                checked++;
+            }
+        }
+        for (Map.Entry<String, SubtreeEntry> removed : state.subtrees.entrySet()) {
+            if (!subtrees.containsKey(removed.getKey())) {
+                removed.getValue().addTo(changedIds, changedPaths);
+            }
+        }
+        if (!Objects.equals(rootId, state.rootId)) {
+            if (rootId != null) {
+                changedIds.add(rootId);
+            }
+            if (state.rootId != null) {
+                changedIds.add(state.rootId);
+            }
+        }
+        report.setCheckedSubtrees(checked);
+        report.setReusedSubtrees(subtrees.size() - checked);
+        state.subtrees = subtrees;
+        state.rootId = rootId;
+        return subtrees;
+    }
+
+    /**
+     * Read the fields of the root node the parser is at (START_OBJECT), collecting its
+     * children as subtrees
+     */
+    private RootNode collectRootNode(JsonParser parser, String rootSection, Map<String, SubtreeEntry> subtrees) throws IOException {
+        Long id = null;
+        boolean hasChildren = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("children".equals(field) && value == JsonToken.START_ARRAY) {
+                collectSubtrees(parser.nextToken(), parser, rootSection, subtrees);
+                hasChildren = true;
+            } else if ("id".equals(field) && value.isNumeric()) {
+                id = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new RootNode(id, hasChildren);
+    }
+
+    /**
+     * Record the raw text and fingerprint of each subtree object of the current array,
+     * starting at the given token
+     */
+    private void collectSubtrees(JsonToken token, JsonParser parser, String rootSection,
+                                 Map<String, SubtreeEntry> subtrees) throws IOException {
+        while (token == JsonToken.START_OBJECT) {
+            int start = (int) parser.getTokenLocation().getCharOffset();
+            parser.skipChildren();
+            int end = (int) parser.getCurrentLocation().getCharOffset();
+            addSubtree(rootSection.substring(start, end), subtrees);
+            token = parser.nextToken();
+        }
+    }
+
+    private void addSubtree(String json, Map<String, SubtreeEntry> subtrees) {
+        String fingerprint = fingerprint(json);
+        SubtreeEntry entry = subtrees.get(fingerprint);
+        if (entry != null) {
+            // Identical subtree pasted twice: all of its IDs are duplicates
+            entry.count++;
+        } else {
+            entry = new SubtreeEntry();
+            entry.json = json;
+            subtrees.put(fingerprint, entry);
+        }
+    }
+
+    /**
+     * Keep only the IDs and section paths of a subtree; it is read into a compact tree
+     * rather than a JsonNode tree, and the cached facts are primitive and interned
+     */
+    private void indexSubtree(SubtreeEntry entry) throws IOException {
+        CompactTree tree = CompactTree.parse(entry.json);
+        long[] ids = new long[tree.size()];
+        int idCount = 0;
+        Set<String> paths = new HashSet<>();
+        for (int i = 0; i < tree.size(); i++) {
+            if (tree.hasId(i)) {
+                ids[idCount++] = tree.id(i);
+            }
+            for (String field : new String[]{"xpath", "code"}) {
+                String value = tree.text(i, field);
+                if (!SectionCodeIndex.isPlaceholder(value)) {
+                    paths.add(value);
+                }
+            }
+        }
+        entry.ids = Arrays.copyOf(ids, idCount);
+        entry.paths = paths.toArray(new String[0]);
+        entry.json = null;
+    }
+
+    /**
+     * Parse one SU's CoU data into operation facts and check its targets. Runs on the pool.
+     */
+    private SuEntry checkSubmissionUnit(SubmissionUnit su, String fingerprint, Set<Long> nodeIds, Set<String> nodePaths) {
+        SuEntry entry = new SuEntry();
+        entry.suId = su.getSuId();
+        entry.sequenceNum = su.getSequenceNum();
+        entry.fingerprint = fingerprint;
+
+        JsonNode operations;
+        try {
+            operations = operations(su.getCouData());
+        } catch (IOException e) {
+            entry.issues.add(issue(INVALID_COU_DATA, entry, null, null, "CoU data is not valid JSON: " + e.getMessage()));
+            return entry;
+        }
+
+        for (JsonNode op : operations) {
+            OperationFact fact = new OperationFact();
+            fact.couId = text(op, "cou_id");
+            fact.operation = text(op, "operation", "type");
+            JsonNode nodeId = op.has("target_node_id") ? op.get("target_node_id") : op.get("nodeId");
+            fact.targetNodeId = nodeId != null && nodeId.canConvertToLong() ? nodeId.asLong() : null;
+            fact.targetXpath = text(op, "target_xpath");
+            if (SectionCodeIndex.isPlaceholder(fact.targetXpath)) {
+                fact.targetXpath = null;
+            }
+            JsonNode document = op.get("document");
+            fact.documentKey = document != null ? text(document, "file_id", "checksum", "path") : text(op, "documentPath");
+            entry.operations.add(fact);
+
+            if (fact.targetNodeId != null) {
+                entry.referencedIds.add(fact.targetNodeId);
+            }
+            if (fact.targetXpath != null) {
+                entry.referencedPaths.add(fact.targetXpath);
+            }
+            if (fact.targetNodeId == null && fact.targetXpath == null) {
+                entry.issues.add(issue(TARGET_MISSING, entry, fact.couId, null,
+                        "CoU operation has neither target_node_id nor target_xpath"));
+            }
+            if (fact.targetNodeId != null && !nodeIds.contains(fact.targetNodeId)) {
+                entry.issues.add(issue(TARGET_NODE_NOT_FOUND, entry, fact.couId, fact.targetNodeId,
+                        "Target node " + fact.targetNodeId + " does not exist in the root section"));
+            }
+            if (fact.targetXpath != null && !nodePaths.contains(fact.targetXpath)) {
+                entry.issues.add(issue(TARGET_XPATH_NOT_FOUND, entry, fact.couId, fact.targetNodeId,
+                        "Target xpath " + fact.targetXpath + " does not exist in the root section"));
+            }
+        }
+        return entry;
+    }
+
+    private void checkSequences(List<SuEntry> ordered, List<ValidationIssue> issues) {
+        SuEntry previous = null;
+        for (SuEntry entry : ordered) {
+            addAll(issues, entry.issues, entry);
+            if (entry.sequenceNum == null) {
+                continue;
+            }
+            if (previous != null) {
+                if (entry.sequenceNum.equals(previous.sequenceNum)) {
+                    issues.add(issue(DUPLICATE_SEQUENCE, entry, null, null,
+                            "Sequence " + entry.sequenceNum + " is used by more than one submission unit"));
+                } else if (entry.sequenceNum > previous.sequenceNum + 1) {
+                    issues.add(issue(SEQUENCE_GAP, entry, null, null,
+                            "Sequence(s) " + (previous.sequenceNum + 1)
+                                    + (entry.sequenceNum - 1 > previous.sequenceNum + 1 ? "-" + (entry.sequenceNum - 1) : "")
+                                    + " missing before sequence " + entry.sequenceNum));
+                }
+            }
+            previous = entry;
+        }
+    }
+
+    /**
+     * Replay operations in sequence order, tracking which documents are current on each
+     * target; replace/delete must hit a document (or a target with documents) added before
+     */
+    private void checkDocumentLifecycle(List<SuEntry> ordered, List<ValidationIssue> issues) {
+        Set<String> activeDocuments = new HashSet<>();
+        Map<String, Set<String>> documentsByTarget = new HashMap<>();
+        for (SuEntry entry : ordered) {
+            for (OperationFact op : entry.operations) {
+                String target = op.targetNodeId != null ? "id:" + op.targetNodeId : op.targetXpath != null ? "xpath:" + op.targetXpath : null;
+                String document = op.documentKey != null ? op.documentKey : "cou:" + op.couId;
+                String operation = op.operation == null ? "" : op.operation.toLowerCase();
+                switch (operation) {
+                    case "add":
+                        activeDocuments.add(document);
+                        if (target != null) {
+                            documentsByTarget.computeIfAbsent(target, key -> new HashSet<>()).add(document);
+                        }
+                        break;
+                    case "replace":
+                    case "delete":
+                        Set<String> onTarget = target == null ? Collections.emptySet() : documentsByTarget.getOrDefault(target, Collections.emptySet());
+                        boolean known = (op.documentKey != null && activeDocuments.contains(op.documentKey)) || !onTarget.isEmpty();
+                        if (!known) {
+                            issues.add(issue(DOCUMENT_NOT_PREVIOUSLY_ADDED, entry, op.couId, op.targetNodeId,
+                                    "'" + operation + "' does not reference a document added in an earlier operation"));
+                        } else if ("delete".equals(operation)) {
+                            String removed = op.documentKey != null && activeDocuments.contains(op.documentKey)
+                                    ? op.documentKey : onTarget.iterator().next();
+                            activeDocuments.remove(removed);
+                            documentsByTarget.values().forEach(documents -> documents.remove(removed));
+                        } else {
+                            activeDocuments.add(document);
+                            if (target != null) {
+                                documentsByTarget.computeIfAbsent(target, key -> new HashSet<>()).add(document);
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * CoU operations array: either the top-level array or the legacy {"operations": [...]} wrapper
+     */
+    private JsonNode operations(String couData) throws IOException {
+        if (couData == null || couData.isBlank()) {
+            return objectMapper.createArrayNode();
+        }
+        JsonNode root = objectMapper.readTree(couData);
+        if (root.isArray()) {
+            return root;
+        }
+        JsonNode operations = root.get("operations");
+        return operations != null && operations.isArray() ? operations : objectMapper.createArrayNode();
+    }
+
+    private void addAll(List<ValidationIssue> issues, List<ValidationIssue> suIssues, SuEntry entry) {
+        for (ValidationIssue issue : suIssues) {
+            // Copy: cached issues are shared between runs, and the sequence number may have
+            // changed while the CoU data did not
+            issues.add(new ValidationIssue(issue.getRule(), issue.getSeverity(), issue.getSuId(), entry.sequenceNum,
+                    issue.getCouId(), issue.getNodeId(), issue.getMessage()));
+        }
+    }
+
+    private ValidationIssue issue(String rule, SuEntry entry, String couId, Long nodeId, String message) {
+        return new ValidationIssue(rule, ValidationIssue.ERROR, entry.suId, entry.sequenceNum, couId, nodeId, message);
+    }
+
+    private String text(JsonNode node, String... fields) {
+        for (String field : fields) {
+            JsonNode value = node.get(field);
+            if (value != null && !value.isNull()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+
+    private String fingerprint(String json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private SuEntry join(Future<SuEntry> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Validation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Validation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Cached validation state of one application
+     */
+    private static class AppState {
+        private Long rootId;
+        private Map<String, SubtreeEntry> subtrees = new HashMap<>();
+        private Map<Long, SuEntry> submissionUnits = new HashMap<>();
+    }
+
+    /**
+     * ID of a root node and whether it has a children array
+     */
+    private record RootNode(Long id, boolean hasChildren) {
+    }
+
+    /**
+     * Node IDs and section paths of one module subtree of the root section
+     */
+    private static class SubtreeEntry {
+        private String json;
+        private int count = 1;
+        private long[] ids = new long[0];
+        private String[] paths = new String[0];
+
+        void addTo(Set<Long> changedIds, Set<String> changedPaths) {
+            for (long id : ids) {
+                changedIds.add(id);
+            }
+            Collections.addAll(changedPaths, paths);
+        }
+    }
+
+    /**
+     * Parsed facts and local issues of one submission unit
+     */
+    private static class SuEntry {
+        private Long suId;
+        private Integer sequenceNum;
+        private String fingerprint;
+        private final List<OperationFact> operations = new ArrayList<>();
+        private final List<ValidationIssue> issues = new ArrayList<>();
+        private final Set<Long> referencedIds = new HashSet<>();
+        private final Set<String> referencedPaths = new HashSet<>();
+
+        boolean referencesAny(Set<Long> ids, Set<String> paths) {
+            return !Collections.disjoint(referencedIds, ids) || !Collections.disjoint(referencedPaths, paths);
+        }
+    }
+
+    private static class OperationFact {
+        private String couId;
+        private String operation;
+        private Long targetNodeId;
+        private String targetXpath;
+        private String documentKey;
+    }
+}
@@ -0,0 +1,121 @@
+package com.ectd.backend.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive Concurrency Limiter
+ * Concurrency limit that follows measured latency (gradient algorithm): a long-term
+ * average RTT is compared with the latest RTT. While they match the limit grows by a
+ * small queue allowance; when latency rises above the long-term average the limit shrinks
+ * in proportion. A request that finds the limit reached is rejected immediately instead
+ * of queueing.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * Weight of a new sample in the long-term RTT average
+     */
+    private static final double LONG_RTT_WEIGHT = 1.0 / 600;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private double limit;
+    private int inflight;
+    private double longRttNanos;
+    private long lastRttNanos;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param name Bulkhead name
+     * @param initialLimit Starting concurrency limit
+     * @param minLimit Lower bound of the limit
+     * @param maxLimit Upper bound of the limit
+     * @param tolerance Latency increase tolerated before the limit shrinks (e.g. 1.5 = 50%)
+     * @param smoothing Weight of a new limit estimate (0-1)
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Try to start a request
+     * @return true if admitted; the caller must then call {@link #release(long)}
+     */
+    public synchronized boolean tryAcquire() {
+        if (inflight >= (int) limit) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        inflight++;
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Finish a request and feed its latency into the limit
+     * @param rttNanos Request latency in nanoseconds
+     */
+    public synchronized void release(long rttNanos) {
+        int inflightAtStart = inflight;
+        inflight--;
+        if (rttNanos <= 0) {
+            return;
+        }
+        lastRttNanos = rttNanos;
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+            return;
+        }
+        longRttNanos = longRttNanos * (1 - LONG_RTT_WEIGHT) + rttNanos * LONG_RTT_WEIGHT;
+        if (longRttNanos / rttNanos > 2) {
+            // Latency dropped well below the long-term average (e.g. after an overload); catch up faster
+            longRttNanos *= 0.95;
+        }
+
+        // Don't grow the limit while it isn't being used
+        if (inflightAtStart < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / rttNanos));
+        double queueSize = Math.sqrt(limit);
+        double estimate = limit * gradient + queueSize;
+        estimate = limit * (1 - smoothing) + estimate * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, estimate));
+    }
+
+    /**
+     * Current limiter state, for metrics
+     * @return Map of name, limit, inflight, RTTs (ms) and admission counters
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("name", name);
+        state.put("limit", (int) limit);
+        state.put("inflight", inflight);
+        state.put("minLimit", minLimit);
+        state.put("maxLimit", maxLimit);
+        state.put("longRttMs", longRttNanos / 1_000_000.0);
+        state.put("lastRttMs", lastRttNanos / 1_000_000.0);
+        state.put("accepted", accepted.get());
+        state.put("rejected", rejected.get());
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
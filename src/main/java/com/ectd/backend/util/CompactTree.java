@@ -0,0 +1,547 @@
+package com.ectd.backend.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact Tree
+ * Read-only, columnar encoding of a root-section tree. Nodes are numbered in document
+ * order; node i is described by primitive arrays (id, parent index, end of its subtree)
+ * and its fields by int codes into a per-tree string table, so a node costs a few array
+ * slots instead of a map, a field array and one object per value.
+ * Short strings that repeat across trees (nodeType values, field names, the "代码" /
+ * "XPath" / "层级" placeholders) are interned in a process-wide dictionary and shared.
+ *
+ * The subtree of node i is the index range [i, end(i)); its first child is i + 1 and the
+ * next sibling of a child c is end(c). Written back as JSON, field order is kept except
+ * that id comes first and children last, and empty children arrays are left out.
+ */
+public final class CompactTree {
+
+    /**
+     * Index of "no node" (parent of a top-level node, missing child or sibling)
+     */
+    public static final int NONE = -1;
+
+    private static final String ID = "id";
+
+    private static final String CHILDREN = "children";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Strings up to this length go through the shared dictionary; longer ones (names,
+     * paths) are rarely shared between trees
+     */
+    private static final int SHARED_MAX_LENGTH = 32;
+
+    private static final int SHARED_MAX_SIZE = 16384;
+
+    private static final Map<String, String> SHARED = new ConcurrentHashMap<>();
+
+    /**
+     * Set in a field value code when the value is raw JSON (number, boolean, null,
+     * object, array) rather than a string
+     */
+    private static final int RAW = 1;
+
+    private final boolean array;
+
+    private final int size;
+
+    private final long[] ids;
+
+    private final BitSet hasId;
+
+    private final int[] parents;
+
+    private final int[] ends;
+
+    /**
+     * Fields of node i are entries [fieldStart[i], fieldEnd[i]) of fieldKeys and fieldValues
+     */
+    private final int[] fieldStart;
+
+    private final int[] fieldEnd;
+
+    private final int[] fieldKeys;
+
+    /**
+     * String table index shifted left by one, with the RAW flag in the low bit
+     */
+    private final int[] fieldValues;
+
+    private final String[] strings;
+
+    /**
+     * Node indexes sorted by id, built on first lookup
+     */
+    private volatile int[] byId;
+
+    private CompactTree(Builder builder) {
+        this.array = builder.array;
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.hasId = builder.hasId;
+        this.parents = Arrays.copyOf(builder.parents, size);
+        this.ends = Arrays.copyOf(builder.ends, size);
+        this.fieldStart = Arrays.copyOf(builder.fieldStart, size);
+        this.fieldEnd = Arrays.copyOf(builder.fieldEnd, size);
+        this.fieldKeys = Arrays.copyOf(builder.fieldKeys, builder.fieldCount);
+        this.fieldValues = Arrays.copyOf(builder.fieldValues, builder.fieldCount);
+        this.strings = builder.strings.toArray(new String[0]);
+    }
+
+    /**
+     * Parse a root section into a compact tree without materializing it
+     * @param rootSectionJson Root section JSON (a node object or an array of nodes)
+     * @return Compact tree; empty for null or blank JSON
+     * @throws IOException If the JSON is malformed
+     */
+    public static CompactTree parse(String rootSectionJson) throws IOException {
+        Builder builder = new Builder();
+        if (rootSectionJson == null || rootSectionJson.isBlank()) {
+            builder.array = true;
+            return new CompactTree(builder);
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(rootSectionJson)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                builder.array = true;
+                builder.readNodes(parser, rootSectionJson, NONE);
+            } else if (token == JsonToken.START_OBJECT) {
+                builder.readNode(parser, rootSectionJson, NONE);
+            } else {
+                builder.array = true;
+            }
+        }
+        return new CompactTree(builder);
+    }
+
+    /**
+     * @return Number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return True if the root section was an array of top-level nodes, false for a single node object
+     */
+    public boolean isArray() {
+        return array;
+    }
+
+    /**
+     * @return Index of the first top-level node, or NONE if the tree is empty
+     */
+    public int first() {
+        return size == 0 ? NONE : 0;
+    }
+
+    /**
+     * @return True if node i has an integer id
+     */
+    public boolean hasId(int i) {
+        return hasId.get(i);
+    }
+
+    /**
+     * @return Id of node i; only meaningful if hasId(i)
+     */
+    public long id(int i) {
+        return ids[i];
+    }
+
+    /**
+     * @return Index of the parent of node i, or NONE for a top-level node
+     */
+    public int parent(int i) {
+        return parents[i];
+    }
+
+    /**
+     * @return Index after the last node of the subtree of node i
+     */
+    public int end(int i) {
+        return ends[i];
+    }
+
+    /**
+     * @return Index of the first child of node i, or NONE
+     */
+    public int firstChild(int i) {
+        return ends[i] > i + 1 ? i + 1 : NONE;
+    }
+
+    /**
+     * @return Index of the next sibling of node i, or NONE
+     */
+    public int nextSibling(int i) {
+        int next = ends[i];
+        int parent = parents[i];
+        int limit = parent == NONE ? size : ends[parent];
+        return next < limit ? next : NONE;
+    }
+
+    /**
+     * @return Nesting depth of node i (0 for a top-level node)
+     */
+    public int depth(int i) {
+        int depth = 0;
+        for (int p = parents[i]; p != NONE; p = parents[p]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * String value of a field of node i
+     * @param i Node index
+     * @param field Field name
+     * @return The value if the field is a JSON string, else null
+     */
+    public String text(int i, String field) {
+        int value = find(i, field);
+        return value < 0 || (value & RAW) != 0 ? null : strings[value >>> 1];
+    }
+
+    /**
+     * Raw JSON of a field of node i (strings quoted and escaped)
+     * @param i Node index
+     * @param field Field name
+     * @return JSON text of the value, or null if the node has no such field
+     */
+    public String json(int i, String field) {
+        int value = find(i, field);
+        if (value < 0) {
+            return null;
+        }
+        String text = strings[value >>> 1];
+        return (value & RAW) != 0 ? text : quote(text);
+    }
+
+    /**
+     * @return Field names of node i, other than id and children
+     */
+    public List<String> fieldNames(int i) {
+        List<String> names = new ArrayList<>(fieldEnd[i] - fieldStart[i]);
+        for (int f = fieldStart[i]; f < fieldEnd[i]; f++) {
+            names.add(strings[fieldKeys[f]]);
+        }
+        return names;
+    }
+
+    /**
+     * @return nodeType of node i, or null
+     */
+    public String nodeType(int i) {
+        return text(i, "nodeType");
+    }
+
+    /**
+     * @return name of node i, or null
+     */
+    public String name(int i) {
+        return text(i, "name");
+    }
+
+    /**
+     * @return eCTD section code of node i (its code, else its xpath), or null if both are placeholders
+     */
+    public String sectionCode(int i) {
+        String code = text(i, "code");
+        if (!SectionCodeIndex.isPlaceholder(code)) {
+            return code;
+        }
+        String xpath = text(i, "xpath");
+        return SectionCodeIndex.isPlaceholder(xpath) ? null : xpath;
+    }
+
+    /**
+     * Find a node by id; the first in document order wins on duplicate ids
+     * @param id Node id
+     * @return Node index, or NONE
+     */
+    public int indexOf(long id) {
+        int[] sorted = byId;
+        if (sorted == null) {
+            sorted = sortById();
+            byId = sorted;
+        }
+        int low = 0;
+        int high = sorted.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = ids[sorted[mid]];
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                while (mid > 0 && ids[sorted[mid - 1]] == id) {
+                    mid--;
+                }
+                return sorted[mid];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Write the tree back as JSON
+     * @param generator Generator to write to
+     */
+    public void write(JsonGenerator generator) throws IOException {
+        if (array) {
+            generator.writeStartArray();
+            for (int i = first(); i != NONE; i = nextSibling(i)) {
+                writeNode(i, generator);
+            }
+            generator.writeEndArray();
+        } else if (size > 0) {
+            writeNode(0, generator);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    /**
+     * Estimated heap size of this tree: arrays and string table, counting interned strings
+     * in full even though other trees share them
+     * @return Bytes
+     */
+    public long estimatedBytes() {
+        long bytes = 64 + arrayBytes(ids.length, 8) + arrayBytes(hasId.size() / 8, 1)
+                + arrayBytes(parents.length, 4) + arrayBytes(ends.length, 4)
+                + arrayBytes(fieldStart.length, 4) + arrayBytes(fieldEnd.length, 4)
+                + arrayBytes(fieldKeys.length, 4)
+                + arrayBytes(fieldValues.length, 4) + arrayBytes(strings.length, 4);
+        for (String string : strings) {
+            bytes += stringBytes(string);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Number of distinct strings in the string table
+     */
+    public int stringCount() {
+        return strings.length;
+    }
+
+    private void writeNode(int i, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (hasId.get(i)) {
+            generator.writeNumberField(ID, ids[i]);
+        }
+        for (int f = fieldStart[i]; f < fieldEnd[i]; f++) {
+            generator.writeFieldName(strings[fieldKeys[f]]);
+            int value = fieldValues[f];
+            if ((value & RAW) != 0) {
+                generator.writeRawValue(strings[value >>> 1]);
+            } else {
+                generator.writeString(strings[value >>> 1]);
+            }
+        }
+        int child = firstChild(i);
+        if (child != NONE) {
+            generator.writeArrayFieldStart(CHILDREN);
+            for (; child != NONE; child = nextSibling(child)) {
+                writeNode(child, generator);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private int find(int i, String field) {
+        for (int f = fieldStart[i]; f < fieldEnd[i]; f++) {
+            if (strings[fieldKeys[f]].equals(field)) {
+                return fieldValues[f];
+            }
+        }
+        return -1;
+    }
+
+    private int[] sortById() {
+        Integer[] order = new Integer[hasId.cardinality()];
+        int k = 0;
+        for (int i = hasId.nextSetBit(0); i >= 0; i = hasId.nextSetBit(i + 1)) {
+            order[k++] = i;
+        }
+        // Ties keep document order, so the first of duplicate ids is found first
+        Arrays.sort(order, (a, b) -> ids[a] != ids[b] ? Long.compare(ids[a], ids[b]) : Integer.compare(a, b));
+        int[] sorted = new int[order.length];
+        for (int j = 0; j < order.length; j++) {
+            sorted[j] = order[j];
+        }
+        return sorted;
+    }
+
+    private static String quote(String text) {
+        return '"' + new String(JsonStringEncoder.getInstance().quoteAsString(text)) + '"';
+    }
+
+    private static long arrayBytes(int length, int elementSize) {
+        return align(16 + (long) length * elementSize);
+    }
+
+    private static long stringBytes(String string) {
+        boolean latin1 = true;
+        for (int c = 0; c < string.length() && latin1; c++) {
+            latin1 = string.charAt(c) < 256;
+        }
+        return align(24) + arrayBytes(string.length(), latin1 ? 1 : 2);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static String shared(String string) {
+        if (string.length() > SHARED_MAX_LENGTH) {
+            return string;
+        }
+        String existing = SHARED.get(string);
+        if (existing != null) {
+            return existing;
+        }
+        if (SHARED.size() >= SHARED_MAX_SIZE) {
+            return string;
+        }
+        existing = SHARED.putIfAbsent(string, string);
+        return existing != null ? existing : string;
+    }
+
+    /**
+     * Growable columns filled in document order while parsing
+     */
+    private static final class Builder {
+        private boolean array;
+        private int size;
+        private long[] ids = new long[64];
+        private final BitSet hasId = new BitSet();
+        private int[] parents = new int[64];
+        private int[] ends = new int[64];
+        private int[] fieldStart = new int[64];
+        private int[] fieldEnd = new int[64];
+        private int fieldCount;
+        private int[] fieldKeys = new int[256];
+        private int[] fieldValues = new int[256];
+        /**
+         * Fields of the nodes being read, innermost last: a node's fields are only written
+         * out when it ends, so fields after its children array stay contiguous
+         */
+        private int pendingCount;
+        private int[] pendingKeys = new int[64];
+        private int[] pendingValues = new int[64];
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        /**
+         * Read the node objects of an array; the parser is positioned on its START_ARRAY
+         */
+        void readNodes(JsonParser parser, String json, int parent) throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (token == JsonToken.START_OBJECT) {
+                    readNode(parser, json, parent);
+                } else {
+                    // Non-object entries carry no node
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        /**
+         * Read one node object with its children; the parser is positioned on its START_OBJECT
+         */
+        void readNode(JsonParser parser, String json, int parent) throws IOException {
+            int node = addNode(parent);
+            int pendingStart = pendingCount;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (CHILDREN.equals(field) && value == JsonToken.START_ARRAY) {
+                    readNodes(parser, json, node);
+                } else if (ID.equals(field) && value == JsonToken.VALUE_NUMBER_INT && !hasId.get(node)
+                        && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                    ids[node] = parser.getLongValue();
+                    hasId.set(node);
+                } else if (value == JsonToken.VALUE_STRING) {
+                    addPending(code(field), code(parser.getText()) << 1);
+                } else if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    int start = (int) parser.getTokenLocation().getCharOffset();
+                    parser.skipChildren();
+                    int end = (int) parser.getCurrentLocation().getCharOffset();
+                    addPending(code(field), code(json.substring(start, end)) << 1 | RAW);
+                } else {
+                    addPending(code(field), code(parser.getText()) << 1 | RAW);
+                }
+            }
+            ends[node] = size;
+            flushFields(node, pendingStart);
+        }
+
+        private int addNode(int parent) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                fieldStart = Arrays.copyOf(fieldStart, capacity);
+                fieldEnd = Arrays.copyOf(fieldEnd, capacity);
+            }
+            parents[size] = parent;
+            return size++;
+        }
+
+        private void addPending(int key, int value) {
+            if (pendingCount == pendingKeys.length) {
+                pendingKeys = Arrays.copyOf(pendingKeys, pendingCount * 2);
+                pendingValues = Arrays.copyOf(pendingValues, pendingCount * 2);
+            }
+            pendingKeys[pendingCount] = key;
+            pendingValues[pendingCount] = value;
+            pendingCount++;
+        }
+
+        private void flushFields(int node, int pendingStart) {
+            int count = pendingCount - pendingStart;
+            if (fieldCount + count > fieldKeys.length) {
+                int capacity = Math.max(fieldKeys.length * 2, fieldCount + count);
+                fieldKeys = Arrays.copyOf(fieldKeys, capacity);
+                fieldValues = Arrays.copyOf(fieldValues, capacity);
+            }
+            System.arraycopy(pendingKeys, pendingStart, fieldKeys, fieldCount, count);
+            System.arraycopy(pendingValues, pendingStart, fieldValues, fieldCount, count);
+            fieldStart[node] = fieldCount;
+            fieldCount += count;
+            fieldEnd[node] = fieldCount;
+            pendingCount = pendingStart;
+        }
+
+        private int code(String string) {
+            Integer code = codes.get(string);
+            if (code == null) {
+                code = strings.size();
+                strings.add(shared(string));
+                codes.put(string, code);
+            }
+            return code;
+        }
+    }
+}
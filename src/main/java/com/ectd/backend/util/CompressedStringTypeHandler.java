@@ -0,0 +1,78 @@
+package com.ectd.backend.util;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressed String Type Handler
+ * Stores a string as a gzip-compressed BLOB and inflates it again on read. Compression
+ * happens here rather than with database functions so the same mapping works on MySQL
+ * and on the H2 shards of the local profile.
+ */
+@MappedJdbcTypes(JdbcType.BLOB)
+public class CompressedStringTypeHandler extends BaseTypeHandler<String> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType) throws SQLException {
+        ps.setBytes(i, compress(parameter));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return decompress(rs.getBytes(columnName));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return decompress(rs.getBytes(columnIndex));
+    }
+
+    @Override
+    public String getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return decompress(cs.getBytes(columnIndex));
+    }
+
+    /**
+     * Gzip a string (UTF-8)
+     * @param value String to compress
+     * @return Compressed bytes
+     */
+    public static byte[] compress(String value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Inflate bytes written by {@link #compress(String)}
+     * @param compressed Compressed bytes (may be null)
+     * @return Original string, or null
+     */
+    public static String decompress(byte[] compressed) {
+        if (compressed == null) {
+            return null;
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt archived CoU data: " + e.getMessage(), e);
+        }
+    }
+}
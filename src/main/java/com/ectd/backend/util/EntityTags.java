@@ -0,0 +1,135 @@
+package com.ectd.backend.util;
+
+import com.ectd.backend.model.ResourceVersion;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Entity Tags
+ * Strong ETags of the form "{kind}-{id}-{version}[-{variant}]" and evaluation of the
+ * conditional request headers against them: If-None-Match / If-Modified-Since for GETs
+ * (RFC 9110 weak comparison, If-Modified-Since only without If-None-Match) and If-Match
+ * for PUTs (strong comparison), which the service checks atomically with the write.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * Build a strong entity tag
+     * @param kind Resource kind (e.g. "app")
+     * @param id Resource ID
+     * @param version Version counter
+     * @param variants Optional extra parts (other versions, representation variants)
+     * @return Quoted entity tag
+     */
+    public static String of(String kind, Long id, long version, Object... variants) {
+        StringBuilder tag = new StringBuilder().append('"').append(kind).append('-').append(id).append('-').append(version);
+        for (Object variant : variants) {
+            tag.append('-').append(variant);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Whether a GET can be answered with 304 Not Modified
+     * @param request Request headers
+     * @param version Current validators of the resource
+     * @return true if the client's copy is current
+     */
+    public static boolean isNotModified(HttpHeaders request, ResourceVersion version) {
+        List<String> ifNoneMatch;
+        try {
+            ifNoneMatch = request.getIfNoneMatch();
+        } catch (IllegalArgumentException e) {
+            // Malformed header: ignore it and send the resource
+            return false;
+        }
+        if (!ifNoneMatch.isEmpty()) {
+            String current = opaque(version.getEtag());
+            for (String tag : ifNoneMatch) {
+                if ("*".equals(tag) || opaque(tag).equals(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = request.getIfModifiedSince();
+        return ifModifiedSince >= 0 && version.getLastModified() != null
+                && epochSecond(version) * 1000 <= ifModifiedSince;
+    }
+
+    /**
+     * The If-Match precondition of a PUT, to be evaluated by the service against the current
+     * ETag once it holds the lock that keeps the resource from changing
+     * @param request Request headers
+     * @return Test of the current ETag (strong comparison), or null if there is no If-Match
+     * or it is "*"
+     */
+    public static Predicate<String> ifMatch(HttpHeaders request) {
+        List<String> ifMatch;
+        try {
+            ifMatch = request.getIfMatch();
+        } catch (IllegalArgumentException e) {
+            return tag -> false;
+        }
+        if (ifMatch.isEmpty() || ifMatch.contains("*")) {
+            return null;
+        }
+        // Weak tags keep their W/ prefix and so never match
+        return ifMatch::contains;
+    }
+
+    /**
+     * Start a 200 response carrying the validators
+     * @param version Validators
+     * @return Response builder
+     */
+    public static ResponseEntity.BodyBuilder ok(ResourceVersion version) {
+        return withValidators(ResponseEntity.ok(), version);
+    }
+
+    /**
+     * Build a 304 response carrying the validators
+     * @param version Validators
+     * @return Empty response
+     */
+    public static <T> ResponseEntity<T> notModified(ResourceVersion version) {
+        return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+    }
+
+    /**
+     * Set the validators on a response written directly to the servlet response
+     * @param response Servlet response
+     * @param version Validators
+     */
+    public static void addTo(HttpServletResponse response, ResourceVersion version) {
+        response.setHeader(HttpHeaders.ETAG, version.getEtag());
+        if (version.getLastModified() != null) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, epochSecond(version) * 1000);
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, ResourceVersion version) {
+        builder.eTag(version.getEtag());
+        if (version.getLastModified() != null) {
+            builder.lastModified(epochSecond(version) * 1000);
+        }
+        return builder;
+    }
+
+    private static long epochSecond(ResourceVersion version) {
+        return version.getLastModified().atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,90 @@
+package com.ectd.backend.util;
+
+import com.ectd.backend.model.CoUOperation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.util.List;
+
+/**
+ * JSON Codec
+ * The one ObjectMapper the services use for stored JSON (root sections, CoU data,
+ * idempotent responses), configured once: java.time support with ISO-8601 text rather
+ * than numeric arrays, so CoU operation timestamps are persisted. Readers and writers
+ * for the hot types are built once; they are immutable and thread-safe, so the type
+ * lookup and serializer resolution are not repeated on every call.
+ */
+public final class JsonCodec {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private static final TypeReference<List<CoUOperation>> COU_OPERATIONS = new TypeReference<>() {};
+
+    private static final ObjectReader COU_OPERATIONS_READER = MAPPER.readerFor(COU_OPERATIONS);
+
+    private static final ObjectWriter COU_OPERATIONS_WRITER = MAPPER.writerFor(COU_OPERATIONS);
+
+    private static final ObjectReader TREE_READER = MAPPER.reader();
+
+    private static final ObjectWriter WRITER = MAPPER.writer();
+
+    private JsonCodec() {
+    }
+
+    /**
+     * @return The shared mapper, for calls not covered here (tree building, streaming parsers)
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Parse CoU data
+     * @param json CoU data JSON array
+     * @return Mutable list of CoU operations
+     * @throws JsonProcessingException If the JSON is malformed
+     */
+    public static List<CoUOperation> readCouOperations(String json) throws JsonProcessingException {
+        return COU_OPERATIONS_READER.readValue(json);
+    }
+
+    /**
+     * Serialize CoU data
+     * @param operations CoU operations
+     * @return CoU data JSON array
+     * @throws JsonProcessingException If serialization fails
+     */
+    public static String writeCouOperations(List<CoUOperation> operations) throws JsonProcessingException {
+        return COU_OPERATIONS_WRITER.writeValueAsString(operations);
+    }
+
+    /**
+     * Parse JSON into a tree
+     * @param json JSON text
+     * @return Root node
+     * @throws JsonProcessingException If the JSON is malformed
+     */
+    public static JsonNode readTree(String json) throws JsonProcessingException {
+        return TREE_READER.readTree(json);
+    }
+
+    /**
+     * Serialize any value
+     * @param value Value (a tree node, model or collection)
+     * @return JSON text
+     * @throws JsonProcessingException If serialization fails
+     */
+    public static String write(Object value) throws JsonProcessingException {
+        return WRITER.writeValueAsString(value);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ectd.backend.util;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.io.Reader;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reader Type Handler
+ * Maps a text column to the JDBC character stream instead of a String, so large values
+ * can be copied out without building the whole value as a Java string first. The reader
+ * is only valid until the result set moves on, i.e. inside a ResultHandler callback.
+ */
+public class ReaderTypeHandler extends BaseTypeHandler<Reader> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Reader parameter, JdbcType jdbcType) throws SQLException {
+        ps.setCharacterStream(i, parameter);
+    }
+
+    @Override
+    public Reader getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return rs.getCharacterStream(columnName);
+    }
+
+    @Override
+    public Reader getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getCharacterStream(columnIndex);
+    }
+
+    @Override
+    public Reader getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return cs.getCharacterStream(columnIndex);
+    }
+}
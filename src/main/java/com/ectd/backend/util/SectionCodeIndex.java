@@ -0,0 +1,97 @@
+package com.ectd.backend.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Section Code Index
+ * Maps root-section node IDs to their eCTD section code (the node's code, else its
+ * xpath), walking the root section JSON with a streaming parser instead of
+ * materializing the tree
+ */
+public final class SectionCodeIndex {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private SectionCodeIndex() {
+    }
+
+    /**
+     * Build the node ID to section code map
+     * @param rootSectionJson Root section JSON (a node object or an array of nodes)
+     * @return Map of node ID to section code
+     * @throws IOException If the JSON is malformed
+     */
+    public static Map<Long, String> build(String rootSectionJson) throws IOException {
+        Map<Long, String> codes = new HashMap<>();
+        if (rootSectionJson == null || rootSectionJson.isBlank()) {
+            return codes;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(rootSectionJson)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    indexNode(parser, codes);
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                indexNode(parser, codes);
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Invert a node ID to section code map; the first node wins on duplicate codes
+     * @param codes Map of node ID to section code
+     * @return Map of section code to node ID
+     */
+    public static Map<String, Long> invert(Map<Long, String> codes) {
+        Map<String, Long> ids = new HashMap<>();
+        codes.forEach((id, code) -> ids.putIfAbsent(code, id));
+        return ids;
+    }
+
+    /**
+     * The UI seeds nodes with label placeholders ("代码", "XPath") that are not real codes
+     * @param value Code or xpath value
+     * @return True if the value carries no section code
+     */
+    public static boolean isPlaceholder(String value) {
+        return value == null || value.isBlank() || "代码".equals(value) || "XPath".equals(value);
+    }
+
+    /**
+     * Index one node object; the parser is positioned on its START_OBJECT
+     */
+    private static void indexNode(JsonParser parser, Map<Long, String> codes) throws IOException {
+        Long id = null;
+        String code = null;
+        String xpath = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("children".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    indexNode(parser, codes);
+                }
+            } else if ("id".equals(field) && value.isNumeric()) {
+                id = parser.getLongValue();
+            } else if ("code".equals(field) && value == JsonToken.VALUE_STRING) {
+                code = parser.getText();
+            } else if ("xpath".equals(field) && value == JsonToken.VALUE_STRING) {
+                xpath = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        String sectionCode = isPlaceholder(code) ? (isPlaceholder(xpath) ? null : xpath) : code;
+        if (id != null && sectionCode != null) {
+            codes.put(id, sectionCode);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ectd.backend.util;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard Context
+ * Thread-bound shard index read by the routing DataSource when a statement first
+ * needs a physical connection. Without a bound shard, statements go to the default
+ * (directory) shard 0.
+ */
+public final class ShardContext {
+
+    public static final int DEFAULT_SHARD = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Get the shard bound to the current thread
+     * @return Shard index, or null if none is bound
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run an action with a shard bound to the current thread, restoring the previous
+     * binding afterwards
+     * @param shard Shard index
+     * @param action Action to run
+     * @return Result of the action
+     */
+    public static <T> T callOn(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.ectd.backend.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single Flight
+ * Coalesces concurrent identical calls: the first caller for a key runs the loader, callers
+ * arriving while it runs wait for and share its result (or exception). Nothing is cached;
+ * the key is free again as soon as the call completes.
+ * @param <K> Key type
+ * @param <V> Result type
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Run the loader for a key, or join the call already running for it
+     * @param key Key identifying identical calls
+     * @param loader Loads the result
+     * @return Result of the loader, possibly shared with other callers
+     * @throws Exception Whatever the loader threw
+     */
+    public V execute(K key, Callable<V> loader) throws Exception {
+        calls.increment();
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+        try {
+            V value = loader.call();
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Detach the call running for a key, so later callers start a new one (e.g. after a
+     * write, which the running call may not see); callers already waiting keep its result
+     * @param key Key
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Coalescing counters, for metrics
+     * @return Map of calls, loader executions and coalesced calls
+     */
+    public Map<String, Object> getMetrics() {
+        long total = calls.sum();
+        long shared = coalesced.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("calls", total);
+        metrics.put("executions", total - shared);
+        metrics.put("coalesced", shared);
+        metrics.put("inFlight", inFlight.size());
+        return metrics;
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) throws Exception {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
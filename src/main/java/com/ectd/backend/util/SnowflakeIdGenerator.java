@@ -0,0 +1,131 @@
+package com.ectd.backend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake ID Generator
+ * Lock-free generator of time-sortable, unique 63-bit IDs:
+ * 41 bits of milliseconds since 2024-01-01, 10 bits of node ID, 12 bits of sequence.
+ * Up to 4096 IDs per millisecond per node. IDs stay strictly increasing on a node and
+ * never carry a timestamp ahead of the wall clock, so a restart cannot reissue them: when
+ * a millisecond's sequence is exhausted the generator spins until the next millisecond,
+ * and after the clock moves backwards it keeps counting in the last millisecond (waiting
+ * for the clock to catch up once that is exhausted). A backward jump of more than
+ * MAX_BACKWARD_MS fails instead of blocking.
+ */
+public final class SnowflakeIdGenerator {
+
+    /**
+     * Custom epoch: 2024-01-01T00:00:00Z
+     */
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * Longest backward clock jump waited out before nextId fails
+     */
+    public static final long MAX_BACKWARD_MS = 1000;
+
+    private static volatile SnowflakeIdGenerator instance = new SnowflakeIdGenerator(0);
+
+    private final long nodeId;
+
+    /**
+     * Last issued (timestamp << SEQUENCE_BITS | sequence), without the node bits
+     */
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Get the process-wide generator
+     * @return Shared generator instance
+     */
+    public static SnowflakeIdGenerator getInstance() {
+        return instance;
+    }
+
+    /**
+     * Replace the process-wide generator, e.g. with the node ID from configuration
+     * @param nodeId Node ID (0-1023), must be unique per running instance
+     */
+    public static void configure(long nodeId) {
+        instance = new SnowflakeIdGenerator(nodeId);
+    }
+
+    /**
+     * Generate the next ID
+     * @return Unique, time-sortable ID
+     */
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = last + 1;
+            } else if (lastTimestamp - now > MAX_BACKWARD_MS) {
+                throw new IllegalStateException("Clock moved backwards by " + (lastTimestamp - now) + " ms");
+            } else {
+                // Sequence exhausted for this millisecond: wait for the clock to reach the next one
+                Thread.onSpinWait();
+                continue;
+            }
+
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Generate a CoU operation ID
+     * @return CoU ID such as COU_123456789012345678
+     */
+    public String nextCouId() {
+        return "COU_" + nextId();
+    }
+
+    /**
+     * Generate a document file ID
+     * @return File ID such as doc-123456789012345678
+     */
+    public String nextFileId() {
+        return "doc-" + nextId();
+    }
+
+    /**
+     * Extract the creation time of an ID
+     * @param id Generated ID
+     * @return Epoch milliseconds
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * Extract the node ID of an ID
+     * @param id Generated ID
+     * @return Node ID
+     */
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
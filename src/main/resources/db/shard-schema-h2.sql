@@ -0,0 +1,131 @@
+-- Schema for embedded H2 shards (local-shards profile).
+-- Mirrors schema.sql without the MySQL-only clauses; JSON columns are stored as CLOB.
+
+CREATE TABLE IF NOT EXISTS ectd_application (
+  app_id BIGINT NOT NULL AUTO_INCREMENT,
+  app_number VARCHAR(50) NOT NULL,
+  app_type VARCHAR(50) NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  root_section CLOB,
+  status VARCHAR(20) DEFAULT 'DRAFT',
+  tree_storage VARCHAR(12) NOT NULL DEFAULT 'JSON',
+  version BIGINT NOT NULL DEFAULT 0,
+  fenced BOOLEAN NOT NULL DEFAULT FALSE,
+  PRIMARY KEY (app_id),
+  CONSTRAINT uk_app_number UNIQUE (app_number)
+);
+
+CREATE TABLE IF NOT EXISTS ectd_submission_unit (
+  su_id BIGINT NOT NULL AUTO_INCREMENT,
+  app_id BIGINT NOT NULL,
+  sequence_num INT NOT NULL,
+  effective_date DATE NOT NULL,
+  su_type VARCHAR(32) NOT NULL,
+  su_unit_type VARCHAR(32) NOT NULL,
+  cou_data CLOB,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  status VARCHAR(20) DEFAULT 'DRAFT',
+  storage_tier VARCHAR(10) NOT NULL DEFAULT 'HOT',
+  PRIMARY KEY (su_id),
+  CONSTRAINT uk_app_seq UNIQUE (app_id, sequence_num),
+  CONSTRAINT fk_su_app FOREIGN KEY (app_id) REFERENCES ectd_application (app_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS ectd_submission_unit_archive (
+  su_id BIGINT NOT NULL,
+  app_id BIGINT NOT NULL,
+  cou_data BLOB,
+  original_size BIGINT,
+  archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (su_id),
+  CONSTRAINT fk_archive_su FOREIGN KEY (su_id) REFERENCES ectd_submission_unit (su_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS ectd_change_stamp (
+  app_id BIGINT NOT NULL,
+  version BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (app_id)
+);
+
+CREATE TABLE IF NOT EXISTS ectd_dossier_checkpoint (
+  app_id BIGINT NOT NULL,
+  sequence_num INT NOT NULL,
+  su_count INT NOT NULL,
+  version BIGINT NOT NULL,
+  state BLOB,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (app_id, sequence_num),
+  CONSTRAINT fk_checkpoint_app FOREIGN KEY (app_id) REFERENCES ectd_application (app_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS ectd_statistic (
+  app_id BIGINT NOT NULL,
+  su_id BIGINT NOT NULL DEFAULT 0,
+  metric VARCHAR(40) NOT NULL,
+  stat_key VARCHAR(255) NOT NULL,
+  stat_count INT NOT NULL,
+  PRIMARY KEY (app_id, su_id, metric, stat_key),
+  CONSTRAINT fk_statistic_app FOREIGN KEY (app_id) REFERENCES ectd_application (app_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS ectd_section_node (
+  app_id BIGINT NOT NULL,
+  node_id BIGINT NOT NULL,
+  parent_id BIGINT NULL,
+  position INT NOT NULL,
+  node_type VARCHAR(32),
+  name VARCHAR(500),
+  attributes CLOB,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (app_id, node_id),
+  CONSTRAINT fk_section_node_app FOREIGN KEY (app_id) REFERENCES ectd_application (app_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS ectd_section_closure (
+  app_id BIGINT NOT NULL,
+  ancestor_id BIGINT NOT NULL,
+  descendant_id BIGINT NOT NULL,
+  depth INT NOT NULL,
+  PRIMARY KEY (app_id, ancestor_id, descendant_id),
+  CONSTRAINT fk_section_closure_app FOREIGN KEY (app_id) REFERENCES ectd_application (app_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS ectd_idempotency_key (
+  idem_key VARCHAR(128) NOT NULL,
+  scope VARCHAR(255) NOT NULL,
+  request_hash CHAR(64) NOT NULL,
+  status_code INT NOT NULL,
+  content_type VARCHAR(100),
+  response_body CLOB,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  expires_at TIMESTAMP NOT NULL,
+  PRIMARY KEY (idem_key, scope)
+);
+
+CREATE TABLE IF NOT EXISTS ectd_document (
+  sha256 CHAR(64) NOT NULL,
+  size BIGINT NOT NULL,
+  format VARCHAR(20),
+  file_name VARCHAR(255),
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (sha256)
+);
+
+CREATE TABLE IF NOT EXISTS ectd_shard_directory (
+  app_id BIGINT NOT NULL,
+  app_number VARCHAR(50) NOT NULL,
+  shard_id INT NOT NULL,
+  status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (app_id),
+  CONSTRAINT uk_dir_app_number UNIQUE (app_number)
+);
+
+CREATE TABLE IF NOT EXISTS ectd_id_sequence (
+  name VARCHAR(64) NOT NULL,
+  next_value BIGINT NOT NULL,
+  PRIMARY KEY (name)
+);
@@ -14,10 +14,17 @@ CREATE TABLE IF NOT EXISTS `ectd_application` (
   `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Update timestamp',
   `root_section` JSON COMMENT 'Root Section tree structure, based on eCTD 4.0',
   `status` VARCHAR(20) DEFAULT 'DRAFT' COMMENT 'Application status',
+  `tree_storage` VARCHAR(12) NOT NULL DEFAULT 'JSON' COMMENT 'Where the Root Section tree is kept: JSON (root_section), NODES_ARRAY or NODES_OBJECT (ectd_section_node, root_section NULL)',
+  `version` BIGINT NOT NULL DEFAULT 0 COMMENT 'Incremented on every write to the application or its section nodes; source of its ETag',
+  `fenced` BOOLEAN NOT NULL DEFAULT FALSE COMMENT 'Sharding only: set on the source shard while the application is moved off it; writes there are rejected',
   PRIMARY KEY (`app_id`),
   UNIQUE KEY `uk_app_number` (`app_number`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='eCTD Application master table';
 
+-- Existing databases: ALTER TABLE `ectd_application` ADD COLUMN `tree_storage` VARCHAR(12) NOT NULL DEFAULT 'JSON' AFTER `status`;
+-- Existing databases: ALTER TABLE `ectd_application` ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0 AFTER `tree_storage`;
+-- Existing databases: ALTER TABLE `ectd_application` ADD COLUMN `fenced` BOOLEAN NOT NULL DEFAULT FALSE AFTER `version`;
+
 -- eCTD Submission Unit (SU) Table
 -- This table stores each submission sequence for an application.
 CREATE TABLE IF NOT EXISTS `ectd_submission_unit` (
@@ -31,12 +38,153 @@ CREATE TABLE IF NOT EXISTS `ectd_submission_unit` (
   `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Creation timestamp',
   `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Update timestamp',
   `status` VARCHAR(20) DEFAULT 'DRAFT' COMMENT 'Submission Unit status',
+  `storage_tier` VARCHAR(10) NOT NULL DEFAULT 'HOT' COMMENT 'HOT, or ARCHIVED when cou_data was moved to ectd_submission_unit_archive',
   PRIMARY KEY (`su_id`),
   KEY `idx_app_id` (`app_id`),
   UNIQUE KEY `uk_app_seq` (`app_id`, `sequence_num`),
   CONSTRAINT `fk_su_app` FOREIGN KEY (`app_id`) REFERENCES `ectd_application` (`app_id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='eCTD Submission Unit table';
 
+-- Existing databases: ALTER TABLE `ectd_submission_unit` ADD COLUMN `storage_tier` VARCHAR(10) NOT NULL DEFAULT 'HOT' AFTER `status`;
+
+-- Submission Unit Archive Table
+-- Cold tier: compressed cou_data of approved submission units of closed applications. The
+-- row in ectd_submission_unit stays as a small stub (storage_tier = 'ARCHIVED', cou_data NULL)
+-- so listings, sequence numbers and foreign keys are unchanged.
+CREATE TABLE IF NOT EXISTS `ectd_submission_unit_archive` (
+  `su_id` BIGINT NOT NULL COMMENT 'Submission Unit ID',
+  `app_id` BIGINT NOT NULL COMMENT 'Owning application',
+  `cou_data` LONGBLOB COMMENT 'cou_data as UTF-8, gzip-compressed by CompressedStringTypeHandler (not MySQL COMPRESS())',
+  `original_size` BIGINT COMMENT 'Uncompressed cou_data size in bytes',
+  `archived_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Archive timestamp',
+  PRIMARY KEY (`su_id`),
+  KEY `idx_app_id` (`app_id`),
+  CONSTRAINT `fk_archive_su` FOREIGN KEY (`su_id`) REFERENCES `ectd_submission_unit` (`su_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Archived (cold) submission unit CoU data';
+
+-- Change Stamp Table
+-- Per-application version, bumped in the same transaction as every submission unit write.
+-- Nodes compare it with the version of their cached submission unit lists to drop stale entries.
+CREATE TABLE IF NOT EXISTS `ectd_change_stamp` (
+  `app_id` BIGINT NOT NULL COMMENT 'Application ID',
+  `version` BIGINT NOT NULL DEFAULT 0 COMMENT 'Incremented on every write to the application''s submission units',
+  `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Update timestamp',
+  PRIMARY KEY (`app_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Per-application change versions for cache coherence';
+
+-- Dossier Checkpoint Table
+-- Documents current after every ectd.reconstruction.checkpoint-interval-th submission unit of
+-- an application, so a point-in-time reconstruction replays at most that many submission
+-- units. A submission unit write deletes the checkpoints at and after its sequence number, so
+-- a checkpoint that still exists is valid for every version since its own.
+CREATE TABLE IF NOT EXISTS `ectd_dossier_checkpoint` (
+  `app_id` BIGINT NOT NULL COMMENT 'Application ID',
+  `sequence_num` INT NOT NULL COMMENT 'Last sequence number replayed',
+  `su_count` INT NOT NULL COMMENT 'Number of submission units replayed (those up to sequence_num)',
+  `version` BIGINT NOT NULL COMMENT 'Change stamp version of the submission units it was built from',
+  `state` LONGBLOB COMMENT 'Current documents as gzip-compressed JSON',
+  `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Creation timestamp',
+  PRIMARY KEY (`app_id`, `sequence_num`),
+  CONSTRAINT `fk_checkpoint_app` FOREIGN KEY (`app_id`) REFERENCES `ectd_application` (`app_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Point-in-time dossier reconstruction checkpoints';
+
+-- Statistic Counter Table
+-- Counters derived from the JSON columns, replaced on every write of their source: CoU
+-- operations by type per submission unit (su_id set) and document nodes per module of
+-- the root section (su_id = 0). Aggregate statistics sum these rows instead of parsing JSON.
+CREATE TABLE IF NOT EXISTS `ectd_statistic` (
+  `app_id` BIGINT NOT NULL COMMENT 'Application ID',
+  `su_id` BIGINT NOT NULL DEFAULT 0 COMMENT 'Source submission unit, 0 for counters of the root section',
+  `metric` VARCHAR(40) NOT NULL COMMENT 'Counter name (COU_OPERATION, MODULE_DOCUMENTS)',
+  `stat_key` VARCHAR(255) NOT NULL COMMENT 'Counted value (operation type, module name)',
+  `stat_count` INT NOT NULL COMMENT 'Count',
+  PRIMARY KEY (`app_id`, `su_id`, `metric`, `stat_key`),
+  KEY `idx_su_id` (`su_id`),
+  KEY `idx_metric` (`metric`, `stat_key`),
+  CONSTRAINT `fk_statistic_app` FOREIGN KEY (`app_id`) REFERENCES `ectd_application` (`app_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Incrementally maintained statistic counters';
+
+-- Section Node Table
+-- Root Section tree of applications with tree_storage NODES_*, one row per node.
+-- The rootSection JSON is assembled from these rows on demand.
+CREATE TABLE IF NOT EXISTS `ectd_section_node` (
+  `app_id` BIGINT NOT NULL COMMENT 'Application ID',
+  `node_id` BIGINT NOT NULL COMMENT 'Node id (the "id" field of the tree node)',
+  `parent_id` BIGINT NULL COMMENT 'Parent node id, NULL for top-level nodes',
+  `position` INT NOT NULL COMMENT 'Position among the siblings, from 0',
+  `node_type` VARCHAR(32) COMMENT 'Node type (application, module, folder, document, ...)',
+  `name` VARCHAR(500) COMMENT 'Node name',
+  `attributes` JSON COMMENT 'All other fields of the node, without children',
+  `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Update timestamp',
+  PRIMARY KEY (`app_id`, `node_id`),
+  KEY `idx_parent` (`app_id`, `parent_id`, `position`),
+  KEY `idx_node_type` (`app_id`, `node_type`),
+  KEY `idx_updated_at` (`updated_at`),
+  CONSTRAINT `fk_section_node_app` FOREIGN KEY (`app_id`) REFERENCES `ectd_application` (`app_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Root Section tree nodes';
+
+-- Section Closure Table
+-- Every ancestor/descendant pair of ectd_section_node (including each node with itself at
+-- depth 0), so subtree and ancestor queries are single indexed lookups.
+CREATE TABLE IF NOT EXISTS `ectd_section_closure` (
+  `app_id` BIGINT NOT NULL COMMENT 'Application ID',
+  `ancestor_id` BIGINT NOT NULL COMMENT 'Ancestor node id',
+  `descendant_id` BIGINT NOT NULL COMMENT 'Descendant node id',
+  `depth` INT NOT NULL COMMENT 'Levels between ancestor and descendant, 0 for the node itself',
+  PRIMARY KEY (`app_id`, `ancestor_id`, `descendant_id`),
+  KEY `idx_descendant` (`app_id`, `descendant_id`, `depth`),
+  CONSTRAINT `fk_section_closure_app` FOREIGN KEY (`app_id`) REFERENCES `ectd_application` (`app_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Ancestor/descendant pairs of the Root Section tree';
+
+-- Idempotency Key Table
+-- Stores responses of POST/PUT requests carrying an Idempotency-Key header so that
+-- client retries are answered from here instead of repeating the write.
+CREATE TABLE IF NOT EXISTS `ectd_idempotency_key` (
+  `idem_key` VARCHAR(128) NOT NULL COMMENT 'Client supplied Idempotency-Key',
+  `scope` VARCHAR(255) NOT NULL COMMENT 'HTTP method and path the key was used on',
+  `request_hash` CHAR(64) NOT NULL COMMENT 'SHA-256 of the request payload',
+  `status_code` INT NOT NULL COMMENT 'Stored HTTP status code (0 while the first attempt is in progress)',
+  `content_type` VARCHAR(100) COMMENT 'Stored response content type',
+  `response_body` LONGTEXT COMMENT 'Stored response body',
+  `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Creation timestamp',
+  `expires_at` TIMESTAMP NOT NULL COMMENT 'Expiry timestamp',
+  PRIMARY KEY (`idem_key`, `scope`),
+  KEY `idx_expires_at` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Idempotent request response store';
+
+-- Document Store Table
+-- Metadata of documents in the local content-addressed store (files are keyed by SHA-256,
+-- so the same PDF reused across SUs and applications is stored once).
+CREATE TABLE IF NOT EXISTS `ectd_document` (
+  `sha256` CHAR(64) NOT NULL COMMENT 'SHA-256 of the content, also the storage key',
+  `size` BIGINT NOT NULL COMMENT 'Content size in bytes',
+  `format` VARCHAR(20) COMMENT 'Document format (e.g., PDF, XML)',
+  `file_name` VARCHAR(255) COMMENT 'Original file name of the first upload',
+  `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Creation timestamp',
+  PRIMARY KEY (`sha256`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Content-addressed document store';
+
+-- Shard Directory Table (shard 0 only, used when ectd.sharding.enabled=true)
+-- Maps every application to the shard holding it and all of its submission units.
+CREATE TABLE IF NOT EXISTS `ectd_shard_directory` (
+  `app_id` BIGINT NOT NULL COMMENT 'Application ID',
+  `app_number` VARCHAR(50) NOT NULL COMMENT 'Application number, globally unique',
+  `shard_id` INT NOT NULL COMMENT 'Index of the shard holding the application',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'ACTIVE' COMMENT 'ACTIVE, or MOVING during rebalancing',
+  `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Update timestamp',
+  PRIMARY KEY (`app_id`),
+  UNIQUE KEY `uk_app_number` (`app_number`),
+  KEY `idx_shard_id` (`shard_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Application to shard directory';
+
+-- Global ID Sequence Table (shard 0 only, used when ectd.sharding.enabled=true)
+-- app_id and su_id must be unique across shards, so they are handed out from here in blocks.
+CREATE TABLE IF NOT EXISTS `ectd_id_sequence` (
+  `name` VARCHAR(64) NOT NULL COMMENT 'Sequence name',
+  `next_value` BIGINT NOT NULL COMMENT 'Next unreserved value',
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Global ID sequences';
+
 -- Insert sample data for testing
 INSERT INTO `ectd_db`.`ectd_application` (`app_id`, `app_number`, `app_type`, `created_at`, `updated_at`, `root_section`, `status`) VALUES (1, 'NDA-202501', 'NDA', '2025-07-25 14:13:42', '2025-07-26 16:47:14', '[{\"id\": 9999991, \"name\": \"1.BLA-202502\", \"children\": [{\"id\": 8159, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.1 行政信息（Administrative Information）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8164, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.1.1 申请表（Application Form）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 1753438778595, \"lev\": \"层级1\", \"pid\": 8164, \"name\": \"测试文档\", \"path\": \"123\", \"format\": \"PDF\", \"nodeType\": \"document\"}], \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}, {\"id\": 8160, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.2. 标签和说明书（Labelling）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8165, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.2.1 包装说明书（Package Insert/SPC/SmPC）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}, {\"id\": 8161, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.3. 专利与专营权信息（Patent & Exclusivity Data）*\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8166, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.3.1 专利声明（Patent Declaration）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}, {\"id\": 8162, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.4. 环境风险评估（Environmental Risk Assessment, ERA）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8167, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.4.1 Administrative information\", \"type\": \"类型\", \"xpath\": \"XPath\", \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}, {\"id\": 8163, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.5. 地区特殊要求\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8168, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.5.1 Administrative information\", \"type\": \"类型\", \"xpath\": \"XPath\", \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"application\"}]', 'DRAFT');
 INSERT INTO `ectd_db`.`ectd_application` (`app_id`, `app_number`, `app_type`, `created_at`, `updated_at`, `root_section`, `status`) VALUES (2, 'BLA-202502', 'BLA', '2025-07-25 14:13:42', '2025-07-26 16:47:09', '[{\"id\": 9999991, \"name\": \"1.BLA-202502\", \"children\": [{\"id\": 8159, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.1 行政信息（Administrative Information）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8164, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.1.1 申请表（Application Form）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 1753438778595, \"lev\": \"层级1\", \"pid\": 8164, \"name\": \"测试文档\", \"path\": \"123\", \"format\": \"PDF\", \"nodeType\": \"document\"}], \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}, {\"id\": 8160, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.2. 标签和说明书（Labelling）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8165, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.2.1 包装说明书（Package Insert/SPC/SmPC）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}, {\"id\": 8161, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.3. 专利与专营权信息（Patent & Exclusivity Data）*\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8166, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.3.1 专利声明（Patent Declaration）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}, {\"id\": 8162, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.4. 环境风险评估（Environmental Risk Assessment, ERA）\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8167, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.4.1 Administrative information\", \"type\": \"类型\", \"xpath\": \"XPath\", \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}, {\"id\": 8163, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.5. 地区特殊要求\", \"type\": \"类型\", \"xpath\": \"XPath\", \"children\": [{\"id\": 8168, \"lev\": \"层级\", \"code\": \"代码\", \"name\": \"1.5.1 Administrative information\", \"type\": \"类型\", \"xpath\": \"XPath\", \"nodeType\": \"section\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"module\", \"ectdElement\": \"eCTD元素\"}], \"nodeType\": \"application\"}]', 'DRAFT');
@@ -0,0 +1,53 @@
+package com.ectd.backend.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Slots of streamed (async) responses are held until the async request completes
+ */
+class AdmissionControlFilterTest {
+
+    private final AdmissionControlFilter filter = new AdmissionControlFilter(true, 1,
+            List.of("GET /applications/*/submissionunit.xml"), List.of("/metrics"),
+            1, 1, 1, 20, 4, 200, 1.5, 0.2);
+
+    @Test
+    void asyncExportHoldsItsSlotUntilCompletion() throws Exception {
+        FilterChain startsAsync = (request, response) -> request.startAsync();
+        MockHttpServletRequest export = export();
+        filter.doFilter(export, new MockHttpServletResponse(), startsAsync);
+        assertEquals(1, heavy().get("inflight"));
+
+        // The single heavy slot is still taken while the export streams
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(export(), rejected, startsAsync);
+        assertEquals(503, rejected.getStatus());
+
+        export.getAsyncContext().complete();
+        assertEquals(0, heavy().get("inflight"));
+
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(export(), admitted, (request, response) -> { });
+        assertEquals(200, admitted.getStatus());
+        assertEquals(0, heavy().get("inflight"));
+    }
+
+    private MockHttpServletRequest export() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/applications/1/submissionunit.xml");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> heavy() {
+        return (Map<String, Object>) filter.getMetrics().get(AdmissionControlFilter.HEAVY);
+    }
+}
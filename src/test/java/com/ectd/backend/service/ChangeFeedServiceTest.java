@@ -0,0 +1,33 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.ChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Resume semantics of the change feed ring buffer
+ */
+class ChangeFeedServiceTest {
+
+    @Test
+    void resumeFromStartReturnsEverythingUntilTheBufferWraps() {
+        ChangeFeedService feed = new ChangeFeedService(4, 1000, 16, 1);
+        for (long i = 1; i <= 4; i++) {
+            feed.publish(ChangeFeedService.ENTITY_APPLICATION, i, i, i * 10, ChangeFeedService.CREATED);
+        }
+        List<ChangeEvent> events = feed.getEventsSince(0);
+        assertEquals(4, events.size());
+        assertEquals(1, events.get(0).getOffset());
+        assertEquals(10, events.get(0).getVersion());
+
+        feed.publish(ChangeFeedService.ENTITY_APPLICATION, 5L, 5L, 0L, ChangeFeedService.CREATED);
+        // Offset 1 is gone: a client starting from scratch must reload instead of getting 2..5
+        assertNull(feed.getEventsSince(0));
+        assertEquals(4, feed.getEventsSince(1).size());
+        assertEquals(5, feed.getLatestOffset());
+    }
+}
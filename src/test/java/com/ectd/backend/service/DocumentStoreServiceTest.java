@@ -0,0 +1,91 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.mapper.DocumentMapper;
+import com.ectd.backend.model.CoUOperation;
+import com.ectd.backend.model.StoredDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chunked upload bookkeeping and stored-document resolution of the document store
+ */
+class DocumentStoreServiceTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void sweepRemovesOnlyUploadsWithoutRecentChunks() throws Exception {
+        DocumentStoreService store = new DocumentStoreService(root.toString(), 1);
+        String abandoned = (String) store.startUpload("old.pdf", 10L).get("uploadId");
+        String active = (String) store.startUpload("new.pdf", 10L).get("uploadId");
+        store.appendChunk(abandoned, 0, new ByteArrayInputStream("12345".getBytes(StandardCharsets.UTF_8)));
+        store.appendChunk(active, 0, new ByteArrayInputStream("12345".getBytes(StandardCharsets.UTF_8)));
+
+        FileTime twoHoursAgo = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+        Path uploads = root.resolve("uploads");
+        Files.setLastModifiedTime(uploads.resolve(abandoned + ".part"), twoHoursAgo);
+        Files.setLastModifiedTime(uploads.resolve(abandoned + ".meta"), twoHoursAgo);
+        // Started long ago but still receiving chunks
+        Files.setLastModifiedTime(uploads.resolve(active + ".meta"), twoHoursAgo);
+
+        assertEquals(1, store.sweepAbandonedUploads());
+        assertFalse(Files.exists(uploads.resolve(abandoned + ".part")));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.appendChunk(abandoned, 5, new ByteArrayInputStream(new byte[1])));
+
+        Map<String, Object> status = store.appendChunk(active, 5, new ByteArrayInputStream("67890".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(10L, status.get("received"));
+    }
+
+    @Test
+    void storedDocumentsAreResolvedWithOneQuery() throws Exception {
+        DocumentStoreService store = new DocumentStoreService(root.toString(), 1);
+        DocumentMapper documentMapper = mock(DocumentMapper.class);
+        ReflectionTestUtils.setField(store, "documentMapper", documentMapper);
+        String sha = "ab".repeat(32);
+        StoredDocument stored = new StoredDocument();
+        stored.setSha256(sha);
+        stored.setSize(42L);
+        stored.setFormat("PDF");
+        when(documentMapper.findBySha256In(List.of(sha))).thenReturn(List.of(stored));
+
+        CoUOperation.DocumentInfo byChecksum = new CoUOperation.DocumentInfo(null, "A", null, null);
+        byChecksum.setChecksum(sha.toUpperCase());
+        CoUOperation.DocumentInfo byFileId = new CoUOperation.DocumentInfo(sha, "B", null, "/m1/b.pdf");
+        CoUOperation.DocumentInfo external = new CoUOperation.DocumentInfo("doc-1", "C", null, null);
+        assertTrue(store.populate(Arrays.asList(byChecksum, byFileId, external, null)));
+
+        verify(documentMapper, times(1)).findBySha256In(List.of(sha));
+        assertEquals(42L, byChecksum.getSize());
+        assertEquals("/documents/" + sha + "/content", byChecksum.getPath());
+        assertEquals("/m1/b.pdf", byFileId.getPath());
+        assertEquals("PDF", byFileId.getFormat());
+        assertNull(external.getSize());
+        assertFalse(store.populate(List.of(external)));
+        verifyNoMoreInteractions(documentMapper);
+    }
+}
@@ -0,0 +1,193 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.config.ShardRoutingDataSource;
+import com.ectd.backend.mapper.IdempotencyKeyMapper;
+import com.ectd.backend.mapper.SubmissionUnitMapper;
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.IdempotencyRecord;
+import com.ectd.backend.model.SubmissionUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sharded storage against two embedded H2 shards in MySQL mode: placement, routing by
+ * application, scatter-gather reads and the mapper SQL used on those paths.
+ * Needs the H2 driver, so it only runs with the local-shards Maven profile:
+ * mvn test -Plocal-shards
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ectd.sharding.shards[0].url=jdbc:h2:mem:ectd_it_shard_0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "ectd.sharding.shards[0].username=sa",
+        "ectd.sharding.shards[1].url=jdbc:h2:mem:ectd_it_shard_1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "ectd.sharding.shards[1].username=sa"
+})
+@ActiveProfiles("local-shards")
+@EnabledIf("h2Available")
+class ShardedStoreIntegrationTest {
+
+    private static final int APPLICATIONS = 8;
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private SubmissionUnitService submissionUnitService;
+
+    @Autowired
+    private ShardDirectoryService shardDirectoryService;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private IdempotencyKeyMapper idempotencyKeyMapper;
+
+    @Autowired
+    private SubmissionUnitMapper submissionUnitMapper;
+
+    @Autowired
+    private ShardRebalanceService shardRebalanceService;
+
+    static boolean h2Available() {
+        try {
+            Class.forName("org.h2.Driver");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void applicationsAreSpreadRoutedAndGathered() throws Exception {
+        assertEquals(2, shardRoutingDataSource.getShardCount());
+
+        List<Long> appIds = new ArrayList<>();
+        Set<Integer> usedShards = new HashSet<>();
+        for (int i = 0; i < APPLICATIONS; i++) {
+            Application app = applicationService.createApplication("IT-SHARD-" + i, "NDA");
+            appIds.add(app.getAppId());
+            usedShards.add(shardDirectoryService.getEntry(app.getAppId()).getShardId());
+            submissionUnitService.createSubmissionUnit(app.getAppId(), LocalDate.of(2025, 1, 1), "original", "initial", null);
+            submissionUnitService.createSubmissionUnit(app.getAppId(), LocalDate.of(2025, 2, 1), "supplement", "reformat", null);
+        }
+        assertEquals(Set.of(0, 1), usedShards, "Placement should use both shards");
+
+        for (Long appId : appIds) {
+            int shard = shardDirectoryService.getEntry(appId).getShardId();
+            // Stored physically on the owning shard only
+            assertEquals(2, countSubmissionUnits(shard, appId));
+            assertEquals(0, countSubmissionUnits(1 - shard, appId));
+
+            // Routed reads by application and by SU id
+            assertNotNull(applicationService.getApplicationById(appId));
+            List<SubmissionUnit> units = submissionUnitService.getSubmissionUnitsByAppId(appId);
+            assertEquals(2, units.size());
+            assertEquals(appId, submissionUnitService.getSubmissionUnitById(units.get(0).getSuId()).getAppId());
+            assertEquals(List.of(1, 2), submissionUnitService.getSequenceNums(appId).stream().sorted().collect(Collectors.toList()));
+        }
+
+        // Scatter-gather over both shards
+        Set<Long> gathered = applicationService.getAllApplications().stream()
+                .map(Application::getAppId).collect(Collectors.toSet());
+        assertTrue(gathered.containsAll(appIds));
+        long gatheredUnits = submissionUnitService.getAllSubmissionUnits().stream()
+                .filter(su -> appIds.contains(su.getAppId())).count();
+        assertEquals(2L * APPLICATIONS, gatheredUnits);
+
+        // DELETE ... LIMIT on the owning shard
+        Long first = appIds.get(0);
+        assertEquals(1, submissionUnitService.deleteSubmissionUnitsBatch(first, 1));
+        assertEquals(1, submissionUnitService.countSubmissionUnits(first));
+        assertEquals(1, countSubmissionUnits(shardDirectoryService.getEntry(first).getShardId(), first));
+    }
+
+    @Test
+    void writesToAFencedApplicationAreRejected() throws Exception {
+        Application app = applicationService.createApplication("IT-SHARD-FENCED", "NDA");
+        int shard = shardDirectoryService.getEntry(app.getAppId()).getShardId();
+        JdbcTemplate jdbc = new JdbcTemplate(shardRoutingDataSource.getShard(shard));
+
+        // As a move does on the source shard before copying
+        jdbc.update("UPDATE ectd_application SET fenced = TRUE WHERE app_id = ?", app.getAppId());
+        assertThrows(IllegalStateException.class, () -> submissionUnitService.createSubmissionUnit(
+                app.getAppId(), LocalDate.of(2025, 1, 1), "original", "initial", null));
+        assertEquals(0, countSubmissionUnits(shard, app.getAppId()));
+
+        jdbc.update("UPDATE ectd_application SET fenced = FALSE WHERE app_id = ?", app.getAppId());
+        submissionUnitService.createSubmissionUnit(app.getAppId(), LocalDate.of(2025, 1, 1), "original", "initial", null);
+        assertEquals(1, countSubmissionUnits(shard, app.getAppId()));
+    }
+
+    @Test
+    void movedApplicationKeepsTimestampsAndArchivedTier() throws Exception {
+        Application app = applicationService.createApplication("IT-SHARD-MOVE", "NDA");
+        Long appId = app.getAppId();
+        SubmissionUnit su = submissionUnitService.createSubmissionUnit(appId, LocalDate.of(2025, 1, 1), "original", "initial", null);
+        int source = shardDirectoryService.getEntry(appId).getShardId();
+        int target = 1 - source;
+        JdbcTemplate sourceJdbc = new JdbcTemplate(shardRoutingDataSource.getShard(source));
+        JdbcTemplate targetJdbc = new JdbcTemplate(shardRoutingDataSource.getShard(target));
+
+        Timestamp past = Timestamp.valueOf("2020-01-02 03:04:05");
+        sourceJdbc.update("UPDATE ectd_application SET created_at = ?, updated_at = ? WHERE app_id = ?", past, past, appId);
+        sourceJdbc.update("UPDATE ectd_submission_unit SET created_at = ?, updated_at = ? WHERE su_id = ?", past, past, su.getSuId());
+        assertEquals(1, submissionUnitMapper.insertArchivedCouData(appId, su.getSuId(), "{\"operations\":[]}", 17));
+        assertEquals(1, submissionUnitMapper.markArchived(appId, su.getSuId()));
+
+        shardRebalanceService.moveApplication(appId, target);
+
+        assertEquals(target, shardDirectoryService.getEntry(appId).getShardId());
+        assertEquals(0, countSubmissionUnits(source, appId));
+        assertEquals(past, targetJdbc.queryForObject("SELECT created_at FROM ectd_application WHERE app_id = ?", Timestamp.class, appId));
+        assertEquals(past, targetJdbc.queryForObject("SELECT updated_at FROM ectd_application WHERE app_id = ?", Timestamp.class, appId));
+        assertEquals(past, targetJdbc.queryForObject("SELECT created_at FROM ectd_submission_unit WHERE su_id = ?", Timestamp.class, su.getSuId()));
+        assertEquals(past, targetJdbc.queryForObject("SELECT updated_at FROM ectd_submission_unit WHERE su_id = ?", Timestamp.class, su.getSuId()));
+        assertEquals(SubmissionUnit.TIER_ARCHIVED, targetJdbc.queryForObject(
+                "SELECT storage_tier FROM ectd_submission_unit WHERE su_id = ?", String.class, su.getSuId()));
+        assertEquals("{\"operations\":[]}", submissionUnitMapper.findArchivedCouData(appId, List.of(su.getSuId())).get(0).getCouData());
+    }
+
+    @Test
+    void idempotencyClaimDetectsDuplicatesAndTakesOverExpiredKeys() {
+        IdempotencyRecord claim = new IdempotencyRecord();
+        claim.setIdemKey("it-shard-key");
+        claim.setScope("POST /api/applications");
+        claim.setRequestHash("first");
+        claim.setStatusCode(0);
+        claim.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        assertEquals(1, idempotencyKeyMapper.insert(claim));
+        assertThrows(DuplicateKeyException.class, () -> idempotencyKeyMapper.insert(claim));
+
+        claim.setRequestHash("second");
+        claim.setExpiresAt(LocalDateTime.now().plusMinutes(1));
+        assertEquals(1, idempotencyKeyMapper.takeOverExpired(claim));
+        // Now live: no second takeover
+        assertEquals(0, idempotencyKeyMapper.takeOverExpired(claim));
+        assertEquals("second", idempotencyKeyMapper.findByKey(claim.getIdemKey(), claim.getScope()).getRequestHash());
+    }
+
+    private int countSubmissionUnits(int shard, Long appId) {
+        JdbcTemplate jdbc = new JdbcTemplate(shardRoutingDataSource.getShard(shard));
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM ectd_submission_unit WHERE app_id = ?", Integer.class, appId);
+        return count == null ? 0 : count;
+    }
+}
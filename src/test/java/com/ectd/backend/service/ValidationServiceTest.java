@@ -0,0 +1,121 @@
+package com.ectd.backend.service;
+
+import com.ectd.backend.model.Application;
+import com.ectd.backend.model.SubmissionUnit;
+import com.ectd.backend.model.ValidationReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Incremental validation of the stored root-section shape: an array holding the single
+ * application node, whose children are the modules (as in the schema.sql sample data)
+ */
+class ValidationServiceTest {
+
+    private static final Long APP_ID = 1L;
+
+    private static final String MODULE_1 = "{\"id\": 8159, \"name\": \"1.1 Administrative Information\", \"nodeType\": \"module\","
+            + " \"children\": [{\"id\": 8164, \"name\": \"1.1.1 Application Form\", \"nodeType\": \"section\","
+            + " \"children\": [{\"id\": 1753438778595, \"pid\": 8164, \"name\": \"Form\", \"nodeType\": \"document\"}]}]}";
+
+    private static final String MODULE_2 = "{\"id\": 8160, \"name\": \"1.2 Labelling\", \"nodeType\": \"module\","
+            + " \"children\": [{\"id\": 8165, \"name\": \"1.2.1 Package Insert\", \"nodeType\": \"section\"}]}";
+
+    private ApplicationService applicationService;
+
+    private SubmissionUnitService submissionUnitService;
+
+    private ValidationService validationService;
+
+    @BeforeEach
+    void setUp() {
+        applicationService = mock(ApplicationService.class);
+        submissionUnitService = mock(SubmissionUnitService.class);
+        validationService = new ValidationService(2, 10);
+        ReflectionTestUtils.setField(validationService, "applicationService", applicationService);
+        ReflectionTestUtils.setField(validationService, "submissionUnitService", submissionUnitService);
+        when(submissionUnitService.getSubmissionUnitsByAppId(APP_ID)).thenReturn(List.of(
+                submissionUnit(1L, 1, "add", "doc-1"),
+                submissionUnit(2L, 2, "replace", "doc-2")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        validationService.shutdown();
+    }
+
+    @Test
+    void editOfOneModuleOnlyRechecksThatModule() {
+        givenRootSection(MODULE_1, MODULE_2);
+        ValidationReport first = validationService.validateApplication(APP_ID, false);
+        assertTrue(first.isValid(), () -> first.getIssues().toString());
+        assertEquals(2, first.getCheckedSubtrees());
+        assertEquals(2, first.getCheckedSubmissionUnits());
+
+        givenRootSection(MODULE_1.replace("Administrative Information", "Admin Info"), MODULE_2);
+        ValidationReport second = validationService.validateApplication(APP_ID, false);
+        assertTrue(second.isValid(), () -> second.getIssues().toString());
+        assertEquals(1, second.getCheckedSubtrees());
+        assertEquals(1, second.getReusedSubtrees());
+        // Both SUs target node 8165 in the unchanged module
+        assertEquals(0, second.getCheckedSubmissionUnits());
+        assertEquals(2, second.getReusedSubmissionUnits());
+    }
+
+    @Test
+    void removedTargetInOneModuleRechecksItsSubmissionUnits() {
+        givenRootSection(MODULE_1, MODULE_2);
+        validationService.validateApplication(APP_ID, false);
+
+        givenRootSection(MODULE_1, "{\"id\": 8160, \"name\": \"1.2 Labelling\", \"nodeType\": \"module\", \"children\": []}");
+        ValidationReport report = validationService.validateApplication(APP_ID, false);
+        assertEquals(1, report.getCheckedSubtrees());
+        assertEquals(2, report.getCheckedSubmissionUnits());
+        assertFalse(report.isValid());
+        assertTrue(report.getIssues().stream().anyMatch(issue -> ValidationService.TARGET_NODE_NOT_FOUND.equals(issue.getRule())));
+    }
+
+    @Test
+    void duplicateIdsAcrossModulesAndApplicationNodeAreReported() {
+        givenRootSection(MODULE_1, MODULE_2.replace("8165", "8164"));
+        ValidationReport report = validationService.validateApplication(APP_ID, false);
+        assertTrue(report.getIssues().stream().anyMatch(issue -> ValidationService.DUPLICATE_NODE_ID.equals(issue.getRule())
+                && Long.valueOf(8164).equals(issue.getNodeId())));
+
+        givenRootSection(MODULE_1, MODULE_2.replace("8160", "9999991"));
+        report = validationService.validateApplication(APP_ID, true);
+        assertTrue(report.getIssues().stream().anyMatch(issue -> ValidationService.DUPLICATE_NODE_ID.equals(issue.getRule())
+                && Long.valueOf(9999991).equals(issue.getNodeId())));
+    }
+
+    private void givenRootSection(String... modules) {
+        Application app = new Application();
+        app.setAppId(APP_ID);
+        app.setAppNumber("NDA-202501");
+        app.setRootSection("[{\"id\": 9999991, \"name\": \"1.NDA-202501\", \"nodeType\": \"application\", \"children\": ["
+                + String.join(", ", modules) + "]}]");
+        when(applicationService.getApplicationById(APP_ID)).thenReturn(app);
+    }
+
+    private static SubmissionUnit submissionUnit(Long suId, int sequenceNum, String operation, String fileId) {
+        SubmissionUnit su = new SubmissionUnit();
+        su.setSuId(suId);
+        su.setAppId(APP_ID);
+        su.setSequenceNum(sequenceNum);
+        su.setEffectiveDate(LocalDate.of(2025, 1, sequenceNum));
+        su.setCouData("[{\"cou_id\": \"COU_" + sequenceNum + "\", \"operation\": \"" + operation + "\", \"target_node_id\": 8165,"
+                + " \"document\": {\"file_id\": \"" + fileId + "\", \"path\": \"/m1/" + fileId + ".pdf\"}}]");
+        return su;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ectd.backend.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Memory benchmark for root sections: heap retained per copy of a tree held as a Jackson
+ * JsonNode tree and as a CompactTree (heap used after GC, before and after building the
+ * copies). The tree is the US template with document leaves added under every section.
+ * Runs full GCs, so it only runs on request:
+ * mvn test -Dtest=CompactTreeFootprintBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CompactTreeFootprintBenchmarkTest {
+
+    private static final String TEMPLATE = "/templates/root-section/us/default.json";
+
+    private static final int DOCUMENTS_PER_SECTION = 40;
+
+    private static final int COPIES = 20;
+
+    private static final int GC_ROUNDS = 3;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private long nextId = 1_000_000;
+
+    @Test
+    void jsonNodeVersusCompactTree() throws Exception {
+        String json = rootSection();
+        CompactTree tree = CompactTree.parse(json);
+
+        long jsonNodeBytes = retainedBytes(() -> JsonCodec.readTree(json));
+        long compactTreeBytes = retainedBytes(() -> CompactTree.parse(json));
+
+        System.out.printf("Root section footprint: %d nodes, %d strings, %d JSON chars, %d copies%n",
+                tree.size(), tree.stringCount(), json.length(), COPIES);
+        System.out.printf("  JsonNode:    %,d bytes per copy%n", jsonNodeBytes);
+        System.out.printf("  CompactTree: %,d bytes per copy (estimate %,d)%n", compactTreeBytes, tree.estimatedBytes());
+        if (compactTreeBytes > 0) {
+            System.out.printf("  ratio:       %.1fx%n", (double) jsonNodeBytes / compactTreeBytes);
+        }
+    }
+
+    /**
+     * The US template as stored (an array holding the application node) with documents
+     * under every section
+     */
+    private String rootSection() throws IOException {
+        JsonNode template;
+        try (InputStream in = getClass().getResourceAsStream(TEMPLATE)) {
+            assertNotNull(in, TEMPLATE);
+            template = JsonCodec.readTree(new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                    .replace("${appNumber}", "NDA-BENCH"));
+        }
+        addDocuments((ObjectNode) template);
+        ArrayNode root = JsonCodec.mapper().createArrayNode();
+        root.add(template);
+        return JsonCodec.write(root);
+    }
+
+    private void addDocuments(ObjectNode node) {
+        JsonNode children = node.get("children");
+        if (children != null && children.isArray()) {
+            for (JsonNode child : children) {
+                addDocuments((ObjectNode) child);
+            }
+        }
+        if (!"section".equals(node.path("nodeType").asText())) {
+            return;
+        }
+        ArrayNode documents = node.has("children") ? (ArrayNode) node.get("children") : node.putArray("children");
+        for (int i = 0; i < DOCUMENTS_PER_SECTION; i++) {
+            long id = nextId++;
+            ObjectNode document = documents.addObject();
+            document.put("id", id);
+            document.put("pid", node.path("id").asLong());
+            document.put("nodeType", "document");
+            document.put("name", "Document " + id);
+            document.put("path", "/" + node.path("code").asText() + "/doc-" + id + ".pdf");
+            document.put("format", "PDF");
+            document.put("lev", "");
+        }
+    }
+
+    private long retainedBytes(TreeBuilder builder) throws IOException {
+        Object[] held = new Object[COPIES];
+        long before = usedAfterGc();
+        for (int i = 0; i < COPIES; i++) {
+            held[i] = builder.build();
+        }
+        long after = usedAfterGc();
+        Reference.reachabilityFence(held);
+        return Math.max(0, (after - before) / COPIES);
+    }
+
+    private long usedAfterGc() {
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    @FunctionalInterface
+    private interface TreeBuilder {
+        Object build() throws IOException;
+    }
+}
@@ -0,0 +1,100 @@
+package com.ectd.backend.util;
+
+import com.ectd.backend.model.CoUOperation;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Before/after harness for the CoU data round trip (read a stored list, add an operation,
+ * write it back) as done by SubmissionUnitService.addCouOperation. "Before" is the former
+ * path: a service-local ObjectMapper, a TypeReference per call and clearing every timestamp
+ * so the mapper without java.time support can write the list. Only runs on request:
+ * mvn test -Dtest=JsonCodecBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JsonCodecBenchmarkTest {
+
+    private static final int OPERATIONS = 200;
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final int ITERATIONS = 2_000;
+
+    private final ObjectMapper legacyMapper = new ObjectMapper();
+
+    @Test
+    void couDataRoundTrip() throws Exception {
+        String stored = legacyMapper.writeValueAsString(sampleOperations());
+        assertEquals(OPERATIONS + 1, legacy(stored).size());
+        assertEquals(OPERATIONS + 1, codec(stored).size());
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            measure(stored, true);
+            measure(stored, false);
+        }
+        for (int round = 1; round <= MEASURED_ROUNDS; round++) {
+            double before = measure(stored, true);
+            double after = measure(stored, false);
+            System.out.printf("JsonCodec round %d: before %.1f us/op, after %.1f us/op (%.0f%%)%n",
+                    round, before, after, (after - before) * 100 / before);
+        }
+    }
+
+    /**
+     * @return Mean microseconds per round trip
+     */
+    private double measure(String stored, boolean legacy) throws Exception {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += (legacy ? legacy(stored) : codec(stored)).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals((long) ITERATIONS * (OPERATIONS + 1), sink);
+        return elapsed / 1_000.0 / ITERATIONS;
+    }
+
+    private List<CoUOperation> legacy(String stored) throws Exception {
+        List<CoUOperation> operations = legacyMapper.readValue(stored, new TypeReference<List<CoUOperation>>() {});
+        operations.add(newOperation(OPERATIONS));
+        for (CoUOperation op : operations) {
+            op.setTimestamp(null);
+        }
+        String written = legacyMapper.writeValueAsString(operations);
+        return written.isEmpty() ? List.of() : operations;
+    }
+
+    private List<CoUOperation> codec(String stored) throws Exception {
+        List<CoUOperation> operations = JsonCodec.readCouOperations(stored);
+        operations.add(newOperation(OPERATIONS));
+        String written = JsonCodec.writeCouOperations(operations);
+        return written.isEmpty() ? List.of() : operations;
+    }
+
+    private static List<CoUOperation> sampleOperations() {
+        List<CoUOperation> operations = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            CoUOperation op = newOperation(i);
+            // Stored lists carry no timestamps in the legacy format
+            op.setTimestamp(null);
+            operations.add(op);
+        }
+        return operations;
+    }
+
+    private static CoUOperation newOperation(int i) {
+        CoUOperation op = new CoUOperation(i % 3 == 0 ? "replace" : "add", "SU_" + i, 8000L + i,
+                new CoUOperation.DocumentInfo("doc-" + i, "Document " + i, "PDF", "/m3/32-body-data/doc-" + i + ".pdf"));
+        op.setCouId("COU_" + i);
+        return op;
+    }
+}
@@ -0,0 +1,101 @@
+package com.ectd.backend.util;
+
+import com.ectd.backend.config.IdGeneratorConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uniqueness of the Snowflake generator under contention, plus an opt-in throughput run
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+
+    private static final int IDS_PER_THREAD = 200_000;
+
+    @Test
+    void concurrentIdsAreUniqueIncreasingAndNotAheadOfTheClock() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        List<long[]> results = generateConcurrently(generator);
+        long wallClock = System.currentTimeMillis();
+
+        int total = THREADS * IDS_PER_THREAD;
+        Set<Long> unique = new HashSet<>(total * 2);
+        for (long[] ids : results) {
+            for (int i = 0; i < ids.length; i++) {
+                unique.add(ids[i]);
+                if (i > 0) {
+                    assertTrue(ids[i] > ids[i - 1], "IDs of one thread must be increasing");
+                }
+                assertEquals(7, SnowflakeIdGenerator.nodeIdOf(ids[i]));
+                assertTrue(SnowflakeIdGenerator.timestampOf(ids[i]) <= wallClock, "ID timestamp ahead of the clock");
+            }
+        }
+        assertEquals(total, unique.size(), "Duplicate IDs");
+    }
+
+    /**
+     * Only runs on request: mvn test -Dtest=SnowflakeIdGeneratorTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void throughputUnderContention() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        // Warm-up
+        generateConcurrently(generator);
+        long startNanos = System.nanoTime();
+        generateConcurrently(generator);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        System.out.printf("SnowflakeIdGenerator: %d threads x %d ids in %d ms, %.0f ids/s%n",
+                THREADS, IDS_PER_THREAD, elapsedNanos / 1_000_000, THREADS * IDS_PER_THREAD * 1e9 / elapsedNanos);
+    }
+
+    @Test
+    void nodeIdMustBeSetUnlessSingleInstance() {
+        IdGeneratorConfig config = new IdGeneratorConfig();
+        assertThrows(IllegalStateException.class, () -> config.snowflakeIdGenerator(null, false));
+        assertEquals(3, SnowflakeIdGenerator.nodeIdOf(config.snowflakeIdGenerator(3L, false).nextId()));
+        assertEquals(0, SnowflakeIdGenerator.nodeIdOf(config.snowflakeIdGenerator(null, true).nextId()));
+    }
+
+    private static List<long[]> generateConcurrently(SnowflakeIdGenerator generator) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                Callable<long[]> task = () -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}